@@ -0,0 +1,52 @@
+package com.example.benchmark;
+
+import com.example.addressBook.AddressBook;
+import com.example.addressBook.AddressBookFactory;
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.example.enums.AddressBookImplType;
+import org.openjdk.jmh.annotations.*;
+import java.util.ArrayList;
+import java.util.List;
+
+
+@State(Scope.Benchmark)
+public abstract class AddressBookState {
+    /**
+     * A fresh engine of the given type, pre-filled with size synthetic contacts once per fork.
+     * FULL_TOKENIZATION indexes every substring, so its 1M run needs a heap far beyond the default;
+     * narrow the matrix with -p type=... -p size=... when that is not wanted.
+     * The QueryCache is off by default, so repeated queries measure the engine rather than cache hits;
+     * -p queryCacheSize=10000 puts the production default back.
+     */
+
+    private static final int LOAD_BATCH = 1_000;
+
+    @Param
+    public AddressBookImplType type;
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"0"})
+    public int queryCacheSize;
+
+    protected AddressBook addressBook;
+    protected List<ContactCard> contacts;
+    protected ContactGenerator generator;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        addressBook = AddressBookFactory.create(type, queryCacheSize);
+        contacts = new ArrayList<>(size);
+        generator = new ContactGenerator(42);
+        List<AddContactRequest> batch = new ArrayList<>(LOAD_BATCH);
+        for (int i = 0; i < size; i++) {
+            batch.add(generator.next());
+            if (batch.size() == LOAD_BATCH || i == size - 1) {
+                contacts.addAll(addressBook.insert(batch));
+                batch = new ArrayList<>(LOAD_BATCH);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.benchmark;
+
+import com.example.dto.AddContactRequest;
+import java.util.Random;
+
+
+final class ContactGenerator {
+    /**
+     * Deterministic synthetic contacts: "first last" names drawn from common name lists, matching
+     * first.last<n>@domain emails and 10-digit phone numbers. The same seed always yields the same book.
+     */
+
+    private static final String[] FIRST_NAMES = {
+            "james", "mary", "robert", "patricia", "john", "jennifer", "michael", "linda", "david", "elizabeth",
+            "william", "barbara", "richard", "susan", "joseph", "jessica", "thomas", "sarah", "charles", "karen",
+            "christopher", "lisa", "daniel", "nancy", "matthew", "betty", "anthony", "margaret", "mark", "sandra",
+            "aarav", "priya", "wei", "mei", "hiroshi", "yuki", "mohammed", "fatima", "carlos", "sofia"};
+    private static final String[] LAST_NAMES = {
+            "smith", "johnson", "williams", "brown", "jones", "garcia", "miller", "davis", "rodriguez", "martinez",
+            "hernandez", "lopez", "gonzalez", "wilson", "anderson", "thomas", "taylor", "moore", "jackson", "martin",
+            "lee", "perez", "thompson", "white", "harris", "sanchez", "clark", "ramirez", "lewis", "robinson",
+            "sharma", "patel", "wang", "zhang", "tanaka", "suzuki", "khan", "ali", "silva", "rossi"};
+    private static final String[] DOMAINS = {
+            "gmail.com", "yahoo.com", "outlook.com", "example.com", "proton.me", "company.io"};
+
+    private final Random random;
+
+    ContactGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    AddContactRequest next() {
+        String first = pick(FIRST_NAMES);
+        String last = pick(LAST_NAMES);
+        return AddContactRequest.builder()
+                .name(first + " " + last)
+                .email(first + "." + last + random.nextInt(1000) + "@" + pick(DOMAINS))
+                .phone(phone())
+                .build();
+    }
+
+    String name() {
+        return pick(FIRST_NAMES) + " " + pick(LAST_NAMES);
+    }
+
+    private String phone() {
+        StringBuilder phone = new StringBuilder(10);
+        phone.append(2 + random.nextInt(8));
+        for (int i = 1; i < 10; i++) phone.append(random.nextInt(10));
+        return phone.toString();
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
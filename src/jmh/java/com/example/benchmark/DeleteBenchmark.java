@@ -0,0 +1,42 @@
+package com.example.benchmark;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.example.dto.DeletedResponse;
+import org.openjdk.jmh.annotations.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = DeleteBenchmark.BATCH)
+@Measurement(iterations = 10, batchSize = DeleteBenchmark.BATCH)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeleteBenchmark extends AddressBookState {
+    /**
+     * Deletes are destructive, so each measured iteration is a single shot of exactly BATCH deletes against
+     * BATCH contacts inserted (unmeasured) right before it; the score is the time for the whole batch.
+     */
+
+    static final int BATCH = 10_000;
+
+    private List<String> pending;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void insertBatch() {
+        List<AddContactRequest> requests = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) requests.add(generator.next());
+        pending = new ArrayList<>(BATCH);
+        for (ContactCard card : addressBook.insert(requests)) pending.add(card.getId());
+        next = 0;
+    }
+
+    @Benchmark
+    public DeletedResponse delete() {
+        return addressBook.delete(List.of(pending.get(next++)));
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.benchmark;
+
+import com.example.dto.ContactCard;
+import com.example.dto.FetchRequest;
+import org.openjdk.jmh.annotations.*;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FindBenchmark extends AddressBookState {
+    private static final int QUERIES = 1 << 12;
+
+    @Param
+    public QueryKind kind;
+
+    private FetchRequest[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void prepareQueries() {
+        Random random = new Random(7);
+        queries = new FetchRequest[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            ContactCard card = contacts.get(random.nextInt(contacts.size()));
+            queries[i] = FetchRequest.builder().query(kind.from(card, random)).operator(kind.operator()).build();
+        }
+    }
+
+    @Benchmark
+    public List<ContactCard> find() {
+        return addressBook.find(queries[next++ & (QUERIES - 1)]);
+    }
+}
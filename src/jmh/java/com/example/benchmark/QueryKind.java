@@ -0,0 +1,66 @@
+package com.example.benchmark;
+
+import com.example.dto.ContactCard;
+import com.example.enums.QueryOperator;
+import java.util.Random;
+import java.util.UUID;
+
+
+public enum QueryKind {
+    //  what a user types into a search box, derived from a stored contact so every query but MISS has hits
+    PREFIX {
+        @Override
+        String from(ContactCard card, Random random) {
+            return card.getName().substring(0, 3);
+        }
+    },
+    INFIX {
+        @Override
+        String from(ContactCard card, Random random) {
+            String local = card.getEmail().substring(0, card.getEmail().indexOf('@'));
+            int start = 1 + random.nextInt(Math.max(1, local.length() - 5));
+            return local.substring(start, Math.min(local.length(), start + 4));
+        }
+    },
+    PHONE_DIGITS {
+        @Override
+        String from(ContactCard card, Random random) {
+            int start = random.nextInt(card.getPhone().length() - 4);
+            return card.getPhone().substring(start, start + 4);
+        }
+    },
+    MULTI_TOKEN {
+        //  "first last", each name a term of its own that the card must match
+        @Override
+        String from(ContactCard card, Random random) {
+            return card.getName();
+        }
+
+        @Override
+        QueryOperator operator() {
+            return QueryOperator.AND;
+        }
+    },
+    MISS {
+        //  half typos (two letters of a name swapped), half ids of contacts that no longer exist
+        @Override
+        String from(ContactCard card, Random random) {
+            if (random.nextBoolean()) return UUID.randomUUID().toString();
+            char[] name = card.getName().toCharArray();
+            int i = 1 + random.nextInt(Math.max(1, name.length - 3));
+            char swapped = name[i];
+            name[i] = name[i + 1];
+            name[i + 1] = swapped;
+            return new String(name);
+        }
+    };
+
+    abstract String from(ContactCard card, Random random);
+
+    /**
+     * The operator the queries are sent with; null searches the query as one term.
+     */
+    QueryOperator operator() {
+        return null;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.benchmark;
+
+import com.example.dto.ContactCard;
+import com.example.dto.Suggestion;
+import org.openjdk.jmh.annotations.*;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SuggestBenchmark extends AddressBookState {
+    /**
+     * Type-ahead as /suggest sees it: the first prefixLength letters of a first name, a last name or
+     * an email, lowercased like the completions. Shorter prefixes are shared by more keys.
+     */
+
+    private static final int PREFIXES = 1 << 12;
+
+    @Param({"1", "3"})
+    public int prefixLength;
+
+    @Param({"10"})
+    public int limit;
+
+    private String[] prefixes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void preparePrefixes() {
+        Random random = new Random(7);
+        prefixes = new String[PREFIXES];
+        for (int i = 0; i < PREFIXES; i++) {
+            ContactCard card = contacts.get(random.nextInt(contacts.size()));
+            String[] words = card.getName().split(" ");
+            String source = random.nextInt(3) == 0 ? card.getEmail() : words[random.nextInt(words.length)];
+            source = source.toLowerCase(Locale.ROOT);
+            prefixes[i] = source.substring(0, Math.min(prefixLength, source.length()));
+        }
+    }
+
+    @Benchmark
+    public List<Suggestion> suggest() {
+        return addressBook.suggest(prefixes[next++ & (PREFIXES - 1)], limit);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.benchmark;
+
+import com.example.utils.Utils;
+import org.openjdk.jmh.annotations.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TokenizerBenchmark {
+    /**
+     * Term generation for one field, the streaming Utils visitors against the list-building code they
+     * replaced (kept here as the baseline). Run with -prof gc and compare gc.alloc.rate.norm per call:
+     * what is left for the visitors is the terms themselves, and the span visitors the indexes post
+     * through do not make even those.
+
+        tokens   regex split + stream + per-token toLowerCase    vs  Utils.forEachToken  vs  forEachTokenSpan
+        ngrams   one ArrayList of substrings per k (9, 7, 5, 3, 1) vs  Utils.forEachNGram  vs  forEachNGramSpan
+     **/
+
+    private static final int[] NGRAM_SIZES = {9, 7, 5, 3, 1};
+
+    @Param({"John Smith-Williams", "john.smith1987@mail.example.com"})
+    public String field;
+
+    private Consumer<String> sink;
+    private Utils.Span spans;
+    private int consumed;
+
+    @Setup
+    public void prepare() {
+        sink = term -> consumed += term.length();
+        spans = (from, to) -> consumed += to - from;
+    }
+
+    @Benchmark
+    public int tokensRegex() {
+        int total = 0;
+        for (String token : legacyTokenize(field)) total += token.length();
+        return total;
+    }
+
+    @Benchmark
+    public int tokensScan() {
+        consumed = 0;
+        Utils.forEachToken(field, sink);
+        return consumed;
+    }
+
+    @Benchmark
+    public int tokensSpan() {
+        consumed = 0;
+        Utils.forEachTokenSpan(field.toLowerCase(), spans);
+        return consumed;
+    }
+
+    @Benchmark
+    public int nGramsList() {
+        int total = 0;
+        for (int k : NGRAM_SIZES) {
+            for (String gram : legacyNGrams(field, k)) total += gram.length();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int nGramsVisitor() {
+        consumed = 0;
+        for (int k : NGRAM_SIZES) Utils.forEachNGram(field, k, sink);
+        return consumed;
+    }
+
+    @Benchmark
+    public int nGramsSpan() {
+        consumed = 0;
+        for (int k : NGRAM_SIZES) Utils.forEachNGramSpan(field, k, spans);
+        return consumed;
+    }
+
+    private static List<String> legacyTokenize(String input) {
+        return Arrays.stream(input.split("[@._\\-\\s,]+"))
+                .filter(s -> !s.isBlank())
+                .map(String::toLowerCase)
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> legacyNGrams(String input, int k) {
+        if (input.length() < k) return List.of();
+        List<String> ngrams = new ArrayList<>();
+        for (int i = 0; i <= input.length() - k; i++) ngrams.add(input.substring(i, i + k));
+        return ngrams;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.benchmark;
+
+import com.example.controller.CborProvider;
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.openjdk.jmh.annotations.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+@OperationsPerInvocation(WireFormatBenchmark.CONTACTS)
+public class WireFormatBenchmark {
+    /**
+     * The bulk bodies in both wire formats, in process: a /search response of CONTACTS cards encoded, and a
+     * /create request of CONTACTS entries decoded. Scores are per contact, so they read directly against
+     * each other; the REST layer is left out, as WireFormatHarness covers it end to end.
+
+        encodeJson          Jackson ObjectMapper, as the JSON bodies are written
+        encodeCbor          CborProvider, which hands lists of cards to CborCodec
+        decodeJson          Jackson ObjectMapper
+        decodeCbor          CborProvider, which hands lists of requests to CborCodec
+        decodeCborMapper    Jackson's CBORMapper, the data-binding path CborCodec replaces for lists
+     **/
+
+    static final int CONTACTS = 2_000;
+
+    private static final TypeReference<List<AddContactRequest>> REQUESTS = new TypeReference<>() {};
+    private static final Type CARDS_TYPE = new TypeReference<List<ContactCard>>() {}.getType();
+    private static final Type REQUESTS_TYPE = REQUESTS.getType();
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final CborProvider cbor = new CborProvider();
+    private ObjectReader jsonRequests;
+    private ObjectReader cborRequests;
+    private List<ContactCard> cards;
+    private byte[] jsonBody;
+    private byte[] cborBody;
+
+    @Setup
+    public void prepare() throws IOException {
+        cards = new ArrayList<>(CONTACTS);
+        List<AddContactRequest> requests = new ArrayList<>(CONTACTS);
+        for (int n = 0; n < CONTACTS; n++) {
+            String name = "wire user" + n;
+            String email = String.format("user%08d@d%d.wire.example.com", n, n % 100);
+            String phone = "555" + (1_000_000 + n);
+            cards.add(ContactCard.builder().id(UUID.randomUUID().toString()).name(name).email(email).phone(phone).build());
+            requests.add(AddContactRequest.builder().name(name).email(email).phone(phone).build());
+        }
+        CBORMapper cborMapper = new CBORMapper();
+        jsonRequests = json.readerFor(REQUESTS);
+        cborRequests = cborMapper.readerFor(REQUESTS);
+        jsonBody = json.writeValueAsBytes(requests);
+        //  Jackson's bytes, not CborCodec's, so decodeCbor also covers the indefinite maps other clients send
+        cborBody = cborMapper.writeValueAsBytes(requests);
+    }
+
+    @Benchmark
+    public int encodeJson() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 18);
+        json.writeValue(out, cards);
+        return out.size();
+    }
+
+    @Benchmark
+    public int encodeCbor() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 18);
+        cbor.writeTo(cards, cards.getClass(), CARDS_TYPE, null, null, null, out);
+        return out.size();
+    }
+
+    @Benchmark
+    public List<AddContactRequest> decodeJson() throws IOException {
+        return jsonRequests.readValue(new ByteArrayInputStream(jsonBody));
+    }
+
+    @Benchmark
+    public Object decodeCbor() throws IOException {
+        return cbor.readFrom(Object.class, REQUESTS_TYPE, null, null, null, new ByteArrayInputStream(cborBody));
+    }
+
+    @Benchmark
+    public List<AddContactRequest> decodeCborMapper() throws IOException {
+        return cborRequests.readValue(new ByteArrayInputStream(cborBody));
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.benchmark;
+
+import com.example.dto.ContactCard;
+import org.openjdk.jmh.annotations.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WriteBenchmark extends AddressBookState {
+    private final List<ContactCard> inserted = new ArrayList<>();
+
+    @Benchmark
+    public List<ContactCard> insert() {
+        List<ContactCard> cards = addressBook.insert(List.of(generator.next()));
+        inserted.addAll(cards);
+        return cards;
+    }
+
+    @Benchmark
+    public List<ContactCard> update() {
+        String id = contacts.get(ThreadLocalRandom.current().nextInt(contacts.size())).getId();
+        return addressBook.update(List.of(ContactCard.builder().id(id).name(generator.name()).build()));
+    }
+
+    @TearDown(Level.Iteration)
+    public void removeInserted() {
+        //  keep the book at its nominal size between iterations
+        if (inserted.isEmpty()) return;
+        addressBook.delete(inserted.stream().map(ContactCard::getId).collect(Collectors.toList()));
+        inserted.clear();
+    }
+}
@@ -1,14 +1,42 @@
 package com.example.addressBook;
 
+import com.example.dto.CacheStats;
+import com.example.dto.CompactionStats;
 import com.example.dto.ContactCard;
 import com.example.dto.AddContactRequest;
 import com.example.dto.DeletedResponse;
 import com.example.dto.FetchRequest;
+import com.example.dto.IndexStats;
+import com.example.dto.SearchPage;
+import com.example.dto.Suggestion;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface AddressBook {
     public List<ContactCard> insert(List<AddContactRequest> requests);
+    //  insert() for large imports: may tokenize and index the batch in parallel before publishing any of it
+    public List<ContactCard> bulkInsert(List<AddContactRequest> requests);
     public List<ContactCard> find(FetchRequest request);
+    //  one page of matches in a stable order, resuming after request.cursor; limit is the page size
+    public SearchPage findPage(FetchRequest request);
+    //  hands matches to consumer one at a time as they are resolved, without collecting them first
+    public void stream(FetchRequest request, Consumer<ContactCard> consumer);
+    //  the same matches pulled rather than pushed: resolved when called, each card read as the stream reaches
+    //  it; close the stream if it is not drained
+    public Stream<ContactCard> stream(FetchRequest request);
+    //  the limit most common names, name words and emails starting with prefix (type-ahead)
+    public List<Suggestion> suggest(String prefix, int limit);
     public DeletedResponse delete(List<String> requests);
     public List<ContactCard> update(List<ContactCard> requests);
+    //  inserts cards that already carry an id, replacing any existing card with that id (recovery, imports)
+    public void load(List<ContactCard> cards);
+    //  visits every live card, in no particular order
+    public void forEach(Consumer<ContactCard> consumer);
+    //  hit, miss and eviction counts of the find() result cache
+    public CacheStats cacheStats();
+    //  contact count, index sizes and an estimate of the heap they take; walks the whole book
+    public IndexStats indexStats();
+    //  sweeps dead postings and empty terms and trims posting lists; runs alongside reads and writes
+    public CompactionStats compact();
 }
@@ -1,17 +1,45 @@
 package com.example.addressBook;
 
 import com.example.enums.AddressBookImplType;
+import java.util.EnumMap;
 import java.util.Map;
 
 
 public class AddressBookFactory {
-    private static final Map<AddressBookImplType, AddressBook> addressBookMap = Map.of(
-            AddressBookImplType.FULL_TOKENIZATION, new FullTokenizationImpl(),
-            AddressBookImplType.K_GRAM_PLUS_INVERTED_INDEX, new KGramAndInvertedIndexImpl(),
-            AddressBookImplType.K_GRAM_PLUS_PARTIAL_TOKENIZATION, new KGramTokenizationImpl()
-    );
+    private static final Map<AddressBookImplType, AddressBook> addressBookMap = new EnumMap<>(AddressBookImplType.class);
+
+    static {
+        for (AddressBookImplType type : AddressBookImplType.values()) {
+            addressBookMap.put(type, create(type));
+        }
+    }
 
     public static AddressBook getAddressBookImpl(AddressBookImplType config) {
         return addressBookMap.get(config);
     }
+
+    /**
+     * Creates a fresh, empty instance of the given implementation.
+     */
+    public static AddressBook create(AddressBookImplType type) {
+        return create(type, IndexedAddressBook.DEFAULT_QUERY_CACHE_SIZE);
+    }
+
+    /**
+     * create() with a QueryCache of queryCacheSize results; zero disables it.
+     */
+    public static AddressBook create(AddressBookImplType type, int queryCacheSize) {
+        switch (type) {
+            case FULL_TOKENIZATION:
+                return new FullTokenizationImpl(queryCacheSize);
+            case K_GRAM_PLUS_INVERTED_INDEX:
+                return new KGramAndInvertedIndexImpl(queryCacheSize);
+            case K_GRAM_PLUS_PARTIAL_TOKENIZATION:
+                return new KGramTokenizationImpl(queryCacheSize);
+            case SUFFIX_ARRAY:
+                return new SuffixArrayImpl(queryCacheSize);
+            default:
+                throw new IllegalArgumentException("Unknown address book implementation: " + type);
+        }
+    }
 }
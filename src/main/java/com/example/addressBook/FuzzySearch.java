@@ -0,0 +1,271 @@
+package com.example.addressBook;
+
+import com.example.dto.FetchRequest;
+import com.example.index.ContactStore;
+import com.example.index.ContactView;
+import com.example.index.PhoneIndex;
+import com.example.index.PostingList;
+import com.example.index.ReadSet;
+import com.example.utils.Utils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+final class FuzzySearch {
+    /**
+     * Typo-tolerant substring search: finds contacts with a field containing the query within maxEdits
+     * Levenshtein edits (insertions, deletions, substitutions), case-insensitively.
+
+        Filter   q-gram lemma: a match with <= k edits keeps at least (m - q + 1) - k*q of the query's
+                 q-grams, so only ordinals posted under that many of them are candidates
+        Verify   Myers' bit-parallel approximate matching, one 64-bit word per text character
+
+     q is the largest of 3, 2, 1 that still leaves a positive threshold; queries too short for any q fall
+     back to verifying every live contact. Grams are probed as windows of the pattern, not cut out of it.
+     Counting and verification run on per-thread scratch buffers, and candidates are read through a
+     ContactView rather than decoded into cards, so apart from the engine's posting lookups a query
+     allocates only its result.
+
+     A query that looks like a phone number is reduced to its digits first, as the PhoneIndex the grams
+     are also looked up in reduces numbers, and phone fields are verified as their digits too: "5550100"
+     is then 0 edits from "555-0100", not 1.
+     **/
+
+    //  one 64-bit word per pattern in the bit-parallel verifier
+    private static final int MAX_QUERY_LENGTH = FetchRequest.MAX_FUZZY_QUERY_LENGTH;
+    private static final int MAX_EDITS = FetchRequest.MAX_EDITS;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private FuzzySearch() {
+    }
+
+    /**
+     * Returns the ascending ordinals of live contacts matching query within maxEdits.
+     * gramSearch must return (a superset of) the ordinals whose fields contain a given lowercase gram in any
+     * case; anyCase() makes one out of a case-sensitive search.
+     */
+    static int[] search(ContactStore store, GramSearch gramSearch, String query, int maxEdits) {
+        if (maxEdits < 0 || maxEdits > MAX_EDITS) {
+            throw new IllegalArgumentException("maxEdits must be between 0 and " + MAX_EDITS);
+        }
+        //  Controller.validate() checks the same folded length, so over REST this cannot throw
+        String folded = Utils.foldCase(query);
+        if (folded.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Fuzzy queries are limited to " + MAX_QUERY_LENGTH + " characters");
+        }
+        boolean phone = PhoneIndex.isPhoneQuery(folded);
+        String pattern = phone ? PhoneIndex.normalize(folded) : folded;
+        int m = pattern.length();
+        Scratch scratch = SCRATCH.get();
+        scratch.compile(pattern);
+        scratch.phoneDigits = phone;
+        try {
+            int q = 0;
+            for (int size = 3; size >= 1; size--) {
+                if (size <= m && (m - size + 1) - maxEdits * size >= 1) {
+                    q = size;
+                    break;
+                }
+            }
+            //  a full scan reads every contact, so any write may change its answer
+            if (q == 0) ReadSet.matching(card -> true);
+            return q == 0 ? scan(store, scratch, maxEdits) : filterAndVerify(store, gramSearch, scratch, pattern, q, maxEdits);
+        } finally {
+            scratch.release(pattern);
+        }
+    }
+
+    /**
+     * A gram search for an index that keeps the case it was given: looks the lowercase gram up in every mix
+     * of upper and lower case (at most 8 for q = 3) and unions the results, so "joh" finds "John" and "JOHN".
+     */
+    static GramSearch anyCase(GramSearch caseSensitive) {
+        return (text, from, to) -> {
+            int n = 0;
+            for (int i = from; i < to; i++) {
+                if (Character.toUpperCase(text.charAt(i)) != text.charAt(i)) n++;
+            }
+            //  a gram of digits or punctuation has only the one case, and is probed in place
+            if (n == 0) return caseSensitive.search(text, from, to);
+            char[] chars = text.substring(from, to).toCharArray();
+            int[] cased = new int[n];
+            n = 0;
+            for (int i = 0; i < chars.length; i++) {
+                if (Character.toUpperCase(chars[i]) != chars[i]) cased[n++] = i;
+            }
+            List<int[]> postings = new ArrayList<>(1 << n);
+            for (int mask = 0; mask < 1 << n; mask++) {
+                for (int b = 0; b < n; b++) {
+                    char c = text.charAt(from + cased[b]);
+                    chars[cased[b]] = (mask & 1 << b) != 0 ? Character.toUpperCase(c) : c;
+                }
+                String variant = new String(chars);
+                postings.add(caseSensitive.search(variant, 0, variant.length()));
+            }
+            int[] union = postings.get(0);
+            for (int i = 1; i < postings.size(); i++) union = PostingList.union(union, postings.get(i));
+            return union;
+        };
+    }
+
+    private static int[] filterAndVerify(ContactStore store, GramSearch gramSearch, Scratch scratch,
+                                         String pattern, int q, int maxEdits) {
+        int positions = pattern.length() - q + 1;
+        int threshold = positions - maxEdits * q;
+        for (int i = 0; i < positions; i++) {
+            //  count each distinct gram once, at its first position, weighted by how many positions it covers
+            if (occursBefore(pattern, i, q)) continue;
+            int weight = 0;
+            for (int j = i; j < positions; j++) {
+                if (pattern.regionMatches(j, pattern, i, q)) weight++;
+            }
+            for (int ordinal : gramSearch.search(pattern, i, i + q)) scratch.count(ordinal, weight);
+        }
+
+        //  survivors are compacted into the front of touchedOrdinals, resetting counts on the way
+        int matched = 0;
+        for (int i = 0; i < scratch.touched; i++) {
+            int ordinal = scratch.touchedOrdinals[i];
+            int count = scratch.counts[ordinal];
+            scratch.counts[ordinal] = 0;
+            if (count >= threshold && store.view(ordinal, scratch.view) && matches(scratch, maxEdits)) {
+                scratch.touchedOrdinals[matched++] = ordinal;
+            }
+        }
+        scratch.touched = 0;
+        Arrays.sort(scratch.touchedOrdinals, 0, matched);
+        return Arrays.copyOf(scratch.touchedOrdinals, matched);
+    }
+
+    private static boolean occursBefore(String pattern, int at, int q) {
+        for (int j = 0; j < at; j++) {
+            if (pattern.regionMatches(j, pattern, at, q)) return true;
+        }
+        return false;
+    }
+
+    private static int[] scan(ContactStore store, Scratch scratch, int maxEdits) {
+        int[] matched = new int[1];
+        store.forEach(scratch.view, ordinal -> {
+            if (matches(scratch, maxEdits)) scratch.append(matched[0]++, ordinal);
+        });
+        return Arrays.copyOf(scratch.touchedOrdinals, matched[0]);
+    }
+
+    private static boolean matches(Scratch scratch, int maxEdits) {
+        return scratch.withinEdits(scratch.view.name(), maxEdits)
+                || scratch.withinEdits(scratch.view.email(), maxEdits)
+                || scratch.withinEdits(scratch.phone(), maxEdits);
+    }
+
+    /**
+     * The ascending ordinals whose fields contain text.substring(from, to), or a superset of them.
+     */
+    interface GramSearch {
+        int[] search(String text, int from, int to);
+    }
+
+    private static final class Scratch {
+        //  pattern-position bitmasks per character: ASCII in a table, anything else in a short list
+        final long[] asciiPeq = new long[128];
+        final char[] otherChars = new char[MAX_QUERY_LENGTH];
+        final long[] otherPeq = new long[MAX_QUERY_LENGTH];
+        int otherCount;
+        int patternLength;
+
+        final ContactView view = new ContactView();
+        final StringBuilder digits = new StringBuilder();
+        boolean phoneDigits;
+        int[] counts = new int[1024];
+        int[] touchedOrdinals = new int[1024];
+        int touched;
+
+        void compile(String pattern) {
+            patternLength = pattern.length();
+            otherCount = 0;
+            for (int i = 0; i < patternLength; i++) {
+                char c = pattern.charAt(i);
+                if (c < 128) {
+                    asciiPeq[c] |= 1L << i;
+                    continue;
+                }
+                int slot = 0;
+                while (slot < otherCount && otherChars[slot] != c) slot++;
+                if (slot == otherCount) {
+                    otherChars[otherCount] = c;
+                    otherPeq[otherCount++] = 0;
+                }
+                otherPeq[slot] |= 1L << i;
+            }
+        }
+
+        void release(String pattern) {
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c < 128) asciiPeq[c] = 0;
+            }
+            for (int i = 0; i < touched; i++) counts[touchedOrdinals[i]] = 0;
+            touched = 0;
+        }
+
+        /**
+         * The viewed card's phone as the filter saw it: its digits, for a phone query.
+         */
+        CharSequence phone() {
+            CharSequence phone = view.phone();
+            if (!phoneDigits || phone == null) return phone;
+            PhoneIndex.normalize(phone, digits);
+            return digits;
+        }
+
+        void count(int ordinal, int weight) {
+            if (ordinal >= counts.length) counts = Arrays.copyOf(counts, Math.max(ordinal + 1, counts.length << 1));
+            if (counts[ordinal] == 0) append(touched++, ordinal);
+            counts[ordinal] += weight;
+        }
+
+        void append(int index, int ordinal) {
+            if (index == touchedOrdinals.length) touchedOrdinals = Arrays.copyOf(touchedOrdinals, index << 1);
+            touchedOrdinals[index] = ordinal;
+        }
+
+        /**
+         * Myers (1999): does some substring of text lie within maxEdits of the compiled pattern?
+         */
+        boolean withinEdits(CharSequence text, int maxEdits) {
+            if (text == null) return false;
+            int m = patternLength;
+            long high = 1L << (m - 1);
+            long pv = m == Long.SIZE ? -1L : (1L << m) - 1;
+            long mv = 0;
+            int score = m;
+            if (score <= maxEdits) return true;
+            for (int i = 0; i < text.length(); i++) {
+                long eq = peq(Character.toLowerCase(text.charAt(i)));
+                long xv = eq | mv;
+                long xh = (((eq & pv) + pv) ^ pv) | eq;
+                long ph = mv | ~(xh | pv);
+                long mh = pv & xh;
+                if ((ph & high) != 0) score++;
+                else if ((mh & high) != 0) score--;
+                //  no carry-in on ph: a match may start anywhere in the text
+                ph <<= 1;
+                mh <<= 1;
+                pv = mh | ~(xv | ph);
+                mv = ph & xv;
+                if (score <= maxEdits) return true;
+            }
+            return false;
+        }
+
+        private long peq(char c) {
+            if (c < 128) return asciiPeq[c];
+            for (int i = 0; i < otherCount; i++) {
+                if (otherChars[i] == c) return otherPeq[i];
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,708 @@
+package com.example.addressBook;
+
+import com.example.cache.QueryCache;
+import com.example.dto.AddContactRequest;
+import com.example.dto.CacheStats;
+import com.example.dto.CompactionStats;
+import com.example.dto.ContactCard;
+import com.example.dto.DeletedResponse;
+import com.example.dto.FetchRequest;
+import com.example.dto.IndexStats;
+import com.example.dto.SearchPage;
+import com.example.dto.Suggestion;
+import com.example.enums.QueryOperator;
+import com.example.index.Compaction;
+import com.example.index.ContactStore;
+import com.example.index.ContactView;
+import com.example.index.EmailIndex;
+import com.example.index.IndexSegment;
+import com.example.index.InvertedIndex;
+import com.example.index.PhoneIndex;
+import com.example.index.PostingBatch;
+import com.example.index.PostingList;
+import com.example.index.ReadSet;
+import com.example.index.SuggestIndex;
+import com.example.utils.Utils;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+
+public abstract class IndexedAddressBook implements SegmentedAddressBook {
+    /**
+     * Common write path for the term-based implementations: contacts live in a ContactStore under a dense
+     * ordinal and subclasses only decide which terms a card is posted under and how a query maps to ordinals.
+
+        Insert   reserve ordinal -> index -> publish
+        Update   diff old and new terms -> replace (atomic: post added, unpost dropped, store copy)
+                 or, if that is not possible, reserve new ordinal for a copy -> index copy -> swap -> un-index old
+        Delete   remove -> un-index
+
+     Reads take no locks: they validate against ContactStore.version() and retry if an update
+     committed mid-read, falling back to a short exclusive read after MAX_OPTIMISTIC_READS attempts.
+     Writes to the same contact are serialised on one of ID_STRIPES locks.
+
+     Unlimited finds return matches in ordinal order; with a limit they are ranked and only the top K are
+     kept (see Ranking). Pages follow ordinal order too, and a cursor is simply the last ordinal served.
+     An update usually keeps the card's ordinal; one that cannot be applied in place moves the card to a
+     new, higher ordinal, so a paging client may see it again on a later page.
+
+     Subclasses whose terms live in InvertedIndexes describe a card's terms once, in postTerms(), and
+     expose the indexes through indexes(). That is all it takes to persist them as mapped IndexSegments,
+     and to bulk load: bulkInsert() reserves a block of ordinals, tokenizes chunks of it in parallel into
+     per-thread PostingBatches, merges those one term partition per task, and only then publishes.
+
+     Phone numbers are not left to the subclasses: they go, as digits, into a shared PhoneIndex, and any
+     query made only of digits and phone punctuation is looked up there as well as in the subclass.
+     Emails are also posted to a shared EmailIndex by local part and domain; a term with an '@' is
+     answered there alone ("john@", "@acme.com", "jo@acme.com"). Names and emails are also counted in
+     a shared SuggestIndex for type-ahead, whatever the subclass indexes.
+
+     find() first asks the indexes' TermFilters whether the query can match at all (mightMatch()); one that
+     certainly cannot, such as a typo or a stale id, is answered empty without touching the QueryCache or
+     any posting list. The rest go through a QueryCache keyed by the normalised request, unless it was
+     sized to zero. Every write is bracketed for it and reports each card it adds or removes, with the
+     terms postTerms() gives for it, so a cached result is dropped exactly when a posting list it read
+     changes. Bulk inserts and restores clear it.
+     */
+
+    private static final int ID_STRIPES = 64;
+    private static final int MAX_OPTIMISTIC_READS = 8;
+    static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MIN_BULK_CHUNK = 1024;
+    public static final int DEFAULT_QUERY_CACHE_SIZE = 10_000;
+    private static final int MAX_CACHED_RESULT = 1_000;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final ThreadLocal<ContactView> VIEW = ThreadLocal.withInitial(ContactView::new);
+
+    protected final ContactStore store = new ContactStore();
+    private final PhoneIndex phoneIndex = new PhoneIndex(store);
+    private final EmailIndex emailIndex = new EmailIndex();
+    private final SuggestIndex suggestIndex = new SuggestIndex();
+    private final QueryCache queryCache;
+    private final Object[] stripes = new Object[ID_STRIPES];
+    private Map<String, Integer> frozenLayers = Map.of();
+
+    protected IndexedAddressBook() {
+        this(DEFAULT_QUERY_CACHE_SIZE);
+    }
+
+    /**
+     * queryCacheSize is the number of find() results kept in the QueryCache; zero turns it off.
+     */
+    protected IndexedAddressBook(int queryCacheSize) {
+        this.queryCache = new QueryCache(queryCacheSize, MAX_CACHED_RESULT);
+        for (int i = 0; i < ID_STRIPES; i++) stripes[i] = new Object();
+    }
+
+    @Override
+    public List<ContactCard> insert(List<AddContactRequest> requests) {
+        List<ContactCard> inserted = new ArrayList<>(requests.size());
+        queryCache.writeStarted();
+        try {
+            for (AddContactRequest req : requests) {
+                ContactCard card = newCard(req);
+                int ordinal = store.reserve(card);
+                index(ordinal, card);
+                store.publish(ordinal);
+                invalidate(card);
+                inserted.add(card);
+            }
+        } finally {
+            queryCache.writeFinished();
+        }
+        return inserted;
+    }
+
+    @Override
+    public List<ContactCard> bulkInsert(List<AddContactRequest> requests) {
+        if (indexes().isEmpty() || requests.size() < 2 * MIN_BULK_CHUNK) return insert(requests);
+        queryCache.writeStarted();
+        try {
+            return bulkIndex(requests);
+        } finally {
+            queryCache.writeFinished();
+        }
+    }
+
+    private List<ContactCard> bulkIndex(List<AddContactRequest> requests) {
+        ContactCard[] cards = new ContactCard[requests.size()];
+        IntStream.range(0, cards.length).parallel().forEach(i -> cards[i] = newCard(requests.get(i)));
+        int first = store.reserveAll(cards);
+
+        int chunkSize = Math.max(MIN_BULK_CHUNK, cards.length / (4 * ForkJoinPool.getCommonPoolParallelism()));
+        PostingBatch[] batches = new PostingBatch[(cards.length + chunkSize - 1) / chunkSize];
+        IntStream.range(0, batches.length).parallel().forEach(chunk -> {
+            PostingBatch batch = new PostingBatch();
+            for (int i = chunk * chunkSize; i < Math.min(cards.length, (chunk + 1) * chunkSize); i++) {
+                int ordinal = first + i;
+                postTerms(cards[i], (index, text, from, to) -> batch.add(index, text, from, to, ordinal));
+            }
+            batches[chunk] = batch;
+        });
+
+        //  one task per term partition, folding the batches in ordinal order, plus one for phones and emails
+        IntStream.rangeClosed(0, PostingBatch.PARTITIONS).parallel().forEach(partition -> {
+            if (partition < PostingBatch.PARTITIONS) {
+                for (PostingBatch batch : batches) batch.merge(partition);
+                return;
+            }
+            for (int i = 0; i < cards.length; i++) indexShared(first + i, cards[i]);
+        });
+        store.publishAll(first, cards.length);
+        //  cheaper than working out which of thousands of new cards each cached result would now include
+        queryCache.clear();
+        return Arrays.asList(cards);
+    }
+
+    @Override
+    public void load(List<ContactCard> cards) {
+        queryCache.writeStarted();
+        try {
+            for (ContactCard source : cards) {
+                ContactCard card = Utils.copyOf(source);
+                synchronized (stripe(card.getId())) {
+                    int oldOrdinal = store.ordinalOf(card.getId());
+                    ContactCard old = oldOrdinal < 0 ? null : store.get(oldOrdinal);
+                    int ordinal = store.reserve(card);
+                    index(ordinal, card);
+                    if (old == null) {
+                        store.publish(ordinal);
+                    } else {
+                        store.swap(oldOrdinal, ordinal);
+                        unindex(oldOrdinal, old);
+                        invalidate(old);
+                    }
+                    invalidate(card);
+                }
+            }
+        } finally {
+            queryCache.writeFinished();
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<ContactCard> consumer) {
+        store.forEach((card, ordinal) -> consumer.accept(card));
+    }
+
+    @Override
+    public List<ContactCard> find(FetchRequest request) {
+        String query = request.getQuery();
+        if (query == null || query.isEmpty() || !mightMatch(request)) return Collections.emptyList();
+        Integer limit = request.getLimit();
+        return queryCache.get(cacheKey(request), () -> consistentRead(() -> {
+            if (limit == null) return resolve(match(request));
+            String[] terms = terms(query, request.getOperator());
+            List<ContactCard> best = topTier(request, terms, limit);
+            return best != null ? best : Ranking.topK(store, match(request), terms, limit);
+        }));
+    }
+
+    /**
+     * The top limit cards if enough of them hold every term as a whole name token (see Ranking), else null.
+     * Exact searches only: those cards are matches of any operator, and of the query as a whole.
+     */
+    private List<ContactCard> topTier(FetchRequest request, String[] terms, int limit) {
+        if (request.getMaxEdits() != null && request.getMaxEdits() > 0) return null;
+        int[] tier = wholeTokenMatches(terms);
+        return tier == null ? null : Ranking.topTier(store, tier, terms, limit);
+    }
+
+    @Override
+    public SearchPage findPage(FetchRequest request) {
+        String query = request.getQuery();
+        if (query == null || query.isEmpty()) return SearchPage.builder().contacts(Collections.emptyList()).build();
+        int after = request.getCursor() == null ? -1 : Utils.decodeCursor(request.getCursor());
+        int pageSize = request.getLimit() == null ? DEFAULT_PAGE_SIZE : request.getLimit();
+        return consistentRead(() -> page(match(request), after, pageSize));
+    }
+
+    @Override
+    public void stream(FetchRequest request, Consumer<ContactCard> consumer) {
+        String query = request.getQuery();
+        if (query == null || query.isEmpty()) return;
+        if (request.getLimit() != null) {
+            find(request).forEach(consumer);
+            return;
+        }
+        //  weakly consistent: each card is checked for liveness as it is emitted, so a card updated
+        //  mid-stream can show up in both versions or neither, but nothing is buffered beyond the ordinals
+        for (int ordinal : match(request)) {
+            ContactCard card = store.get(ordinal);
+            if (card != null) consumer.accept(card);
+        }
+    }
+
+    @Override
+    public Stream<ContactCard> stream(FetchRequest request) {
+        String query = request.getQuery();
+        if (query == null || query.isEmpty()) return Stream.empty();
+        if (request.getLimit() != null) return find(request).stream();
+        //  weakly consistent in the same way as stream(request, consumer)
+        return Arrays.stream(match(request)).mapToObj(store::get).filter(Objects::nonNull);
+    }
+
+    @Override
+    public DeletedResponse delete(List<String> ids) {
+        int deleted = 0;
+        queryCache.writeStarted();
+        try {
+            for (String id : ids) {
+                //  no contact has a null id, so it is skipped like any unknown one
+                if (id == null) continue;
+                synchronized (stripe(id)) {
+                    ContactCard card = store.get(id);
+                    if (card == null) continue;
+                    int ordinal = store.remove(id);
+                    if (ordinal < 0) continue;
+                    unindex(ordinal, card);
+                    invalidate(card);
+                    deleted++;
+                }
+            }
+        } finally {
+            queryCache.writeFinished();
+        }
+        return DeletedResponse.builder().deleted(deleted).build();
+    }
+
+    @Override
+    public List<ContactCard> update(List<ContactCard> requests) {
+        List<ContactCard> updated = new ArrayList<>(requests.size());
+        queryCache.writeStarted();
+        try {
+            for (ContactCard req : requests) {
+                if (req.getId() == null) continue;
+                synchronized (stripe(req.getId())) {
+                    int oldOrdinal = store.ordinalOf(req.getId());
+                    if (oldOrdinal < 0) continue;
+                    ContactCard old = store.get(oldOrdinal);
+                    //  never mutate a published card: readers may be holding it
+                    ContactCard card = Utils.copyOf(old);
+                    Utils.updateContactDetails(card, req);
+                    if (!updateInPlace(oldOrdinal, old, card)) {
+                        int newOrdinal = store.reserve(card);
+                        index(newOrdinal, card);
+                        store.swap(oldOrdinal, newOrdinal);
+                        unindex(oldOrdinal, old);
+                        invalidate(old);
+                        invalidate(card);
+                    }
+                    updated.add(card);
+                }
+            }
+        } finally {
+            queryCache.writeFinished();
+        }
+        return updated;
+    }
+
+    // ---------- Segments ----------
+
+    @Override
+    public synchronized void freezeDelta() {
+        Map<String, Integer> frozen = new HashMap<>();
+        indexes().forEach((name, index) -> frozen.put(name, index.freeze()));
+        frozenLayers = frozen;
+    }
+
+    @Override
+    public void writeSegment(Path path) throws IOException {
+        IndexSegment.write(path, store, indexes());
+    }
+
+    @Override
+    public synchronized void installSegment(IndexSegment segment) {
+        indexes().forEach((name, index) -> index.install(segment.dictionary(name), frozenLayers.getOrDefault(name, 0)));
+        frozenLayers = Map.of();
+    }
+
+    @Override
+    public synchronized void thawDelta() {
+        indexes().values().forEach(InvertedIndex::thaw);
+        frozenLayers = Map.of();
+    }
+
+    @Override
+    public void restoreSegment(IndexSegment segment) {
+        queryCache.clear();
+        Map<String, InvertedIndex> indexes = indexes();
+        boolean mapped = !indexes.isEmpty() && indexes.keySet().stream().allMatch(segment::hasDictionary);
+        segment.forEachCard((card, ordinal) -> {
+            store.restore(ordinal, card);
+            if (mapped) indexShared(ordinal, card);
+            else index(ordinal, card);
+        });
+        if (mapped) indexes.forEach((name, index) -> index.install(segment.dictionary(name), 0));
+    }
+
+    @Override
+    public List<Suggestion> suggest(String prefix, int limit) {
+        return suggestIndex.suggest(prefix, limit);
+    }
+
+    @Override
+    public CacheStats cacheStats() {
+        return queryCache.stats();
+    }
+
+    /**
+     * Walks every stored card and term index, so it is meant for metrics scrapes, not the request path.
+     */
+    @Override
+    public IndexStats indexStats() {
+        long[] postingLengths = new long[InvertedIndex.LENGTH_BUCKETS];
+        long terms = 0, postings = 0;
+        long heapBytes = estimatedStructureBytes() + emailIndex.estimatedFilterBytes() + store.estimatedHeapBytes();
+        for (InvertedIndex index : indexes().values()) {
+            terms += index.termCount();
+            postings += index.postingCount();
+            heapBytes += index.estimatedHeapBytes();
+            index.postingLengths(postingLengths);
+        }
+        return IndexStats.builder()
+                .contacts((long) store.size())
+                .terms(terms)
+                .postings(postings)
+                .estimatedHeapBytes(heapBytes)
+                .postingLengths(postingLengths)
+                .build();
+    }
+
+    @Override
+    public CompactionStats compact() {
+        long started = System.nanoTime();
+        Compaction compaction = new Compaction(store::isDead);
+        for (InvertedIndex index : indexes().values()) index.compact(compaction);
+        phoneIndex.compact(compaction);
+        emailIndex.compact(compaction);
+        return compaction.stats(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    @Override
+    public long deltaPostings() {
+        long total = 0;
+        for (InvertedIndex index : indexes().values()) total += index.deltaPostings();
+        return total;
+    }
+
+    /**
+     * Returns the ascending ordinals of the contacts whose name or email contains a non-empty query (or one
+     * term of it). May include dead ordinals; they are filtered out against the ContactStore.
+     */
+    protected abstract int[] search(String query);
+
+    /**
+     * The ordinals whose name holds each of terms, case-insensitively, as a whole token; null if the
+     * subclass keeps no token index or a term is not a single token. May include dead ordinals.
+     */
+    protected int[] wholeTokenMatches(String[] terms) {
+        return null;
+    }
+
+    /**
+     * The candidates whose stored name or email contains query, read in place: the final check for a search()
+     * whose postings only narrow a substring query down. With fold, query must be case-folded already.
+     */
+    protected int[] containing(int[] candidates, String query, boolean fold) {
+        ContactView view = VIEW.get();
+        int[] matched = new int[candidates.length];
+        int count = 0;
+        for (int ordinal : candidates) {
+            if (store.view(ordinal, view) && (contains(view.name(), query, fold) || contains(view.email(), query, fold))) {
+                matched[count++] = ordinal;
+            }
+        }
+        return count == candidates.length ? candidates : Arrays.copyOf(matched, count);
+    }
+
+    private static boolean contains(CharSequence field, String query, boolean fold) {
+        if (field == null) return false;
+        return (fold ? Utils.indexOfFolded(field, query, 0) : Utils.indexOf(field, query, 0)) >= 0;
+    }
+
+    /**
+     * search(text.substring(from, to)), or a superset of it, for fuzzy search's q-gram probes. Subclasses
+     * whose indexes can look a window up in place override it, so probing a query cuts no Strings.
+     */
+    protected int[] searchGram(String text, int from, int to) {
+        return search(text.substring(from, to));
+    }
+
+    /**
+     * Hands every (index, term) pair the card's name and email are posted under to sink, each term as a
+     * window of the text it was cut from; its phone is indexed by the PhoneIndex. Subclasses that do not
+     * use InvertedIndexes post nothing here, return no indexes(), and override indexCard and unindexCard instead.
+     */
+    protected abstract void postTerms(ContactCard card, TermSink sink);
+
+    protected void indexCard(int ordinal, ContactCard card) {
+        postTerms(card, (index, text, from, to) -> index.add(text, from, to, ordinal));
+    }
+
+    protected void unindexCard(int ordinal, ContactCard card) {
+        postTerms(card, (index, text, from, to) -> index.remove(text, from, to, ordinal));
+    }
+
+    /**
+     * Receives the term text.substring(from, to) of index, so that posting it allocates nothing unless
+     * the term is new to the index.
+     */
+    protected interface TermSink {
+        void accept(InvertedIndex index, String text, int from, int to);
+    }
+
+    /**
+     * False only if search(query) certainly returns nothing, decided without reading a posting list;
+     * subclasses answer from their indexes' TermFilters. The default cannot tell.
+     */
+    protected boolean mightContain(String query) {
+        return true;
+    }
+
+    /**
+     * True if search() lowercases the query and its index, so a lowercase gram finds every casing of it;
+     * otherwise fuzzy search probes each gram in every case mix.
+     */
+    protected boolean foldsCase() {
+        return false;
+    }
+
+    /**
+     * The named InvertedIndexes a card's terms are posted to; empty if the subclass indexes some other way,
+     * in which case restoring from a segment re-indexes every card.
+     */
+    protected abstract Map<String, InvertedIndex> indexes();
+
+    /**
+     * Heap held by whatever a subclass indexes with besides indexes(), for indexStats().
+     */
+    protected long estimatedStructureBytes() {
+        return 0;
+    }
+
+    /**
+     * Evaluates a query: as a single term, or split on whitespace with each term looked up through
+     * search() and the posting arrays intersected smallest-first (AND) or merged (OR). With maxEdits
+     * set, each term is matched fuzzily instead (see FuzzySearch).
+     */
+    private int[] match(FetchRequest request) {
+        QueryOperator operator = request.getOperator();
+        String[] terms = terms(request.getQuery(), operator);
+        if (operator == null) return matchTerm(terms[0], request.getMaxEdits());
+        List<int[]> postings = new ArrayList<>(terms.length);
+        for (String term : terms) {
+            int[] ordinals = matchTerm(term, request.getMaxEdits());
+            //  one empty term empties the whole conjunction, so skip looking up the rest
+            if (ordinals.length == 0 && operator == QueryOperator.AND) return ordinals;
+            postings.add(ordinals);
+        }
+        return operator == QueryOperator.AND ? PostingList.intersectAll(postings) : PostingList.unionAll(postings);
+    }
+
+    /**
+     * False only if match(request) is certainly empty: for AND, one term that cannot match; otherwise,
+     * every term. Fuzzy terms may match text no filter has seen, so those always get a full look.
+     */
+    private boolean mightMatch(FetchRequest request) {
+        if (request.getMaxEdits() != null && request.getMaxEdits() > 0) return true;
+        QueryOperator operator = request.getOperator();
+        boolean all = operator == QueryOperator.AND;
+        for (String term : terms(request.getQuery(), operator)) {
+            if (mightMatchTerm(term) != all) return !all;
+        }
+        return all;
+    }
+
+    private boolean mightMatchTerm(String term) {
+        if (EmailIndex.isEmailQuery(term)) return emailIndex.mightMatch(term);
+        return PhoneIndex.isPhoneQuery(term) || mightContain(term);
+    }
+
+    private int[] matchTerm(String term, Integer maxEdits) {
+        if (maxEdits == null || maxEdits == 0) return searchTerm(term);
+        FuzzySearch.GramSearch gramSearch = foldsCase() ? this::searchGramAndPhones : FuzzySearch.anyCase(this::searchGramAndPhones);
+        return FuzzySearch.search(store, gramSearch, term, maxEdits);
+    }
+
+    private int[] searchTerm(String term) {
+        return EmailIndex.isEmailQuery(term) ? emailIndex.lookup(term) : searchSubstring(term);
+    }
+
+    private int[] searchSubstring(String term) {
+        int[] ordinals = search(term);
+        return PhoneIndex.isPhoneQuery(term) ? PostingList.union(ordinals, phoneIndex.lookup(term)) : ordinals;
+    }
+
+    private int[] searchGramAndPhones(String text, int from, int to) {
+        int[] ordinals = searchGram(text, from, to);
+        if (!PhoneIndex.isPhoneQuery(text, from, to)) return ordinals;
+        //  the trie is walked digit by digit anyway, and records the digits it was asked for
+        return PostingList.union(ordinals, phoneIndex.lookup(text.substring(from, to)));
+    }
+
+    static String[] terms(String query, QueryOperator operator) {
+        if (operator == null) return new String[]{query};
+        String[] terms = WHITESPACE.split(query.trim());
+        return terms.length == 0 ? new String[]{query} : terms;
+    }
+
+    /**
+     * Runs read optimistically against ContactStore.version(), retrying if an update committed mid-read.
+     */
+    private <T> T consistentRead(Supplier<T> read) {
+        for (int attempt = 0; attempt < MAX_OPTIMISTIC_READS; attempt++) {
+            long version = store.version();
+            if (!ContactStore.isStable(version)) {
+                Thread.onSpinWait();
+                continue;
+            }
+            T result = read.get();
+            if (store.validate(version)) return result;
+        }
+        return store.readExclusive(read);
+    }
+
+    private SearchPage page(int[] ordinals, int after, int pageSize) {
+        int from = Arrays.binarySearch(ordinals, after + 1);
+        if (from < 0) from = -from - 1;
+        List<ContactCard> contacts = new ArrayList<>(Math.min(pageSize, ordinals.length - from));
+        int last = after;
+        int i = from;
+        for (; i < ordinals.length && contacts.size() < pageSize; i++) {
+            ContactCard card = store.get(ordinals[i]);
+            if (card == null) continue;
+            contacts.add(card);
+            last = ordinals[i];
+        }
+        while (i < ordinals.length && !store.isLive(ordinals[i])) i++;
+        String nextCursor = i < ordinals.length ? Utils.encodeCursor(last) : null;
+        return SearchPage.builder().contacts(contacts).nextCursor(nextCursor).build();
+    }
+
+    private List<ContactCard> resolve(int[] ordinals) {
+        List<ContactCard> results = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            ContactCard card = store.get(ordinal);
+            if (card != null) results.add(card);
+        }
+        return results;
+    }
+
+    private static ContactCard newCard(AddContactRequest req) {
+        return ContactCard.builder()
+                .id(Utils.generateId())
+                .name(req.getName())
+                .email(req.getEmail())
+                .phone(req.getPhone())
+                .build();
+    }
+
+    private void index(int ordinal, ContactCard card) {
+        indexCard(ordinal, card);
+        indexShared(ordinal, card);
+    }
+
+    /**
+     * Updates a card under its current ordinal, posting and unposting only the terms in which the two
+     * versions differ; a phone-only edit touches no term at all. The index changes and the new card are
+     * published in one ContactStore.replace(), so readers see either version whole. Returns false, having
+     * changed nothing, if the name or email changed in a subclass that does not post terms, or a term to
+     * drop sits in a sealed segment layer, where only a dead ordinal retires it.
+     */
+    private boolean updateInPlace(int ordinal, ContactCard old, ContactCard card) {
+        boolean emailChanged = !Objects.equals(old.getEmail(), card.getEmail());
+        boolean termsChanged = emailChanged || !Objects.equals(old.getName(), card.getName());
+        boolean posted = !indexes().isEmpty();
+        if (termsChanged && !posted) return false;
+
+        //  the old terms are also what a cached result holding this card must have read
+        Set<ReadSet.TermKey> oldTerms = posted && (termsChanged || !queryCache.isEmpty()) ? termKeys(old) : Set.of();
+        List<ReadSet.TermKey> added = new ArrayList<>();
+        List<ReadSet.TermKey> removed = new ArrayList<>();
+        if (termsChanged) {
+            Set<ReadSet.TermKey> newTerms = termKeys(card);
+            for (ReadSet.TermKey key : oldTerms) {
+                if (newTerms.contains(key)) continue;
+                if (key.index().isSealed(key.term(), ordinal)) return false;
+                removed.add(key);
+            }
+            for (ReadSet.TermKey key : newTerms) {
+                if (!oldTerms.contains(key)) added.add(key);
+            }
+        }
+        boolean phoneChanged = !PhoneIndex.normalize(old.getPhone()).equals(PhoneIndex.normalize(card.getPhone()));
+
+        store.replace(ordinal, card, () -> {
+            for (ReadSet.TermKey key : added) key.index().add(key.term(), ordinal);
+            for (ReadSet.TermKey key : removed) key.index().remove(key.term(), ordinal);
+            if (phoneChanged) {
+                phoneIndex.remove(ordinal, old.getPhone());
+                phoneIndex.add(ordinal, card.getPhone());
+            }
+            if (emailChanged) {
+                emailIndex.remove(ordinal, old.getEmail());
+                emailIndex.add(ordinal, card.getEmail());
+            }
+        });
+        if (termsChanged) {
+            suggestIndex.remove(old.getName(), old.getEmail());
+            suggestIndex.add(card.getName(), card.getEmail());
+        }
+        if (!queryCache.isEmpty()) {
+            queryCache.invalidate(old, new ArrayList<>(oldTerms));
+            queryCache.invalidate(card, added);
+        }
+        return true;
+    }
+
+    private Set<ReadSet.TermKey> termKeys(ContactCard card) {
+        Set<ReadSet.TermKey> keys = new HashSet<>();
+        postTerms(card, (index, text, from, to) -> keys.add(new ReadSet.TermKey(index, text.substring(from, to))));
+        return keys;
+    }
+
+    private void indexShared(int ordinal, ContactCard card) {
+        phoneIndex.add(ordinal, card.getPhone());
+        emailIndex.add(ordinal, card.getEmail());
+        suggestIndex.add(card.getName(), card.getEmail());
+    }
+
+    /**
+     * Drops the cached results a write of card may have changed; call once the write is visible.
+     */
+    private void invalidate(ContactCard card) {
+        if (queryCache.isEmpty()) return;
+        List<ReadSet.TermKey> terms = new ArrayList<>();
+        if (!indexes().isEmpty()) postTerms(card, (index, text, from, to) -> terms.add(new ReadSet.TermKey(index, text.substring(from, to))));
+        queryCache.invalidate(card, terms);
+    }
+
+    /**
+     * The cache key: everything in the request that changes the result, with whitespace between terms
+     * normalised when the query is split anyway. Case is kept; not every implementation ignores it.
+     */
+    private static String cacheKey(FetchRequest request) {
+        String query = request.getOperator() == null ? request.getQuery() : String.join(" ", terms(request.getQuery(), request.getOperator()));
+        return request.getOperator() + "|" + request.getMaxEdits() + "|" + request.getLimit() + "|" + query;
+    }
+
+    private void unindex(int ordinal, ContactCard card) {
+        unindexCard(ordinal, card);
+        phoneIndex.remove(ordinal, card.getPhone());
+        emailIndex.remove(ordinal, card.getEmail());
+        suggestIndex.remove(card.getName(), card.getEmail());
+    }
+
+    private Object stripe(String id) {
+        return stripes[(id.hashCode() & 0x7fffffff) % ID_STRIPES];
+    }
+}
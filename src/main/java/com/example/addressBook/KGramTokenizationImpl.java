@@ -1,171 +1,164 @@
 package com.example.addressBook;
 
-import com.example.dto.AddContactRequest;
 import com.example.dto.ContactCard;
-import com.example.dto.DeletedResponse;
-import com.example.dto.FetchRequest;
-import com.example.utils.Utils;
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
-import static com.example.utils.Utils.getNGrams;
-import static com.example.utils.Utils.tokenize;
+import com.example.index.InvertedIndex;
+import com.example.index.PostingList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import static com.example.utils.Utils.forEachNGramSpan;
+import static com.example.utils.Utils.forEachTokenSpan;
+import static com.example.utils.Utils.isSeparator;
 
 
-public class KGramTokenizationImpl implements AddressBook {
+public class KGramTokenizationImpl extends IndexedAddressBook {
     /**
      * KGramTokenizationImpl uses inverted indexing with k-grams and tokens
      * It supports efficient search by breaking down contact details into n-grams and tokens.
+     * A query is checked against all of its k-grams, intersected smallest-first, not just the first one that hits.
+     * Before any of them is looked up, all are tested against the k-gram index's TermFilter.
+     * Holding every gram does not make the query a substring ("abcd" vs "abcxbcd"), so unless the query is
+     * itself one gram, the contacts that hold them all are checked against their stored fields.
      */
 
-    private static final Map<String, ContactCard> contactMap = new ConcurrentHashMap<>();
-    private static final Map<String, Set<String>> ngramIndex = new ConcurrentHashMap<>();
-    private static final Map<String, Set<String>> tokenIndex = new ConcurrentHashMap<>();
+    private final InvertedIndex ngramIndex = new InvertedIndex();
+    private final InvertedIndex tokenIndex = new InvertedIndex();
     private static final int[] NGRAM_SIZES = {9, 7, 5, 3, 1};
+    private static final int[] EMPTY = new int[0];
+
+    public KGramTokenizationImpl() {
+    }
+
+    public KGramTokenizationImpl(int queryCacheSize) {
+        super(queryCacheSize);
+    }
 
     @Override
-    public List<ContactCard> insert(List<AddContactRequest> requests) {
-        return requests.stream().map(req -> {
-            String id = Utils.generateId();
-            ContactCard card = ContactCard.builder()
-                    .id(id)
-                    .name(req.getName())
-                    .email(req.getEmail())
-                    .phone(req.getPhone())
-                    .build();
-            contactMap.put(id, card);
-            indexCard(card);
-            return card;
-        }).collect(Collectors.toList());
+    protected int[] search(String query) {
+        //  a contact matches if its name or email contains the query, found through the query's k-grams
+        //  (at the largest indexed k that fits), or holds all of the query's tokens as whole tokens, which
+        //  also makes matching case-insensitive
+        return PostingList.union(allGrams(query), allTokens(query));
     }
 
     @Override
-    public List<ContactCard> find(FetchRequest request) {
-        String query = request.getQuery();
-        Set<String> ngramMatches = null;
-        for (int k : NGRAM_SIZES) {
-            for (String gram : getNGrams(query, k)) {
-                Set<String> ids = ngramIndex.get(gram);
-                if (ids != null && !ids.isEmpty()) {
-                    ngramMatches = new HashSet<>(ids);
-                    break;
-                }
-            }
-            if (ngramMatches != null) break;
-        }
+    protected boolean mightContain(String query) {
+        return mightContainGrams(query, 0, query.length(), gramSize(query.length())) || mightContainTokens(query.toLowerCase());
+    }
+
+    @Override
+    protected int[] searchGram(String text, int from, int to) {
+        //  a superset is all fuzzy search needs, so the contacts holding every k-gram are not checked
+        return gramCandidates(text, from, to);
+    }
+
+    private int[] allGrams(String query) {
+        int[] candidates = gramCandidates(query, 0, query.length());
+        return gramSize(query.length()) == query.length() ? candidates : containing(candidates, query, false);
+    }
 
-        Set<String> tokenMatches = new HashSet<>();
-        for (String token : tokenize(query)) {
-            Set<String> ids = tokenIndex.get(token);
-            if (ids != null) tokenMatches.addAll(ids);
+    /**
+     * The contacts holding every k-gram of text[from, to), at the largest indexed k that fits.
+     */
+    private int[] gramCandidates(String text, int from, int to) {
+        int k = gramSize(to - from);
+        //  every gram is tested against the index's filter first: a query that cannot match, such as a typo,
+        //  costs a hash per gram, with no posting list read; grams that pass are looked up in place too
+        if (!mightContainGrams(text, from, to, k)) return EMPTY;
+        List<int[]> postings = new ArrayList<>(to - from - k + 1);
+        for (int i = from; i <= to - k; i++) {
+            int[] ordinals = ngramIndex.lookup(text, i, i + k);
+            if (ordinals.length == 0) return ordinals;
+            postings.add(ordinals);
         }
+        return PostingList.intersectAll(postings);
+    }
 
-        Set<String> finalIds;
-        if (tokenMatches.isEmpty()) {
-            finalIds = (ngramMatches != null) ? ngramMatches : Set.of();
-        } else if (ngramMatches == null) {
-            finalIds = tokenMatches;
-        } else {
-            finalIds = ngramMatches.stream()
-                    .filter(tokenMatches::contains)
-                    .collect(Collectors.toSet());
+    private static int gramSize(int length) {
+        for (int size : NGRAM_SIZES) {
+            if (size <= length) return size;
         }
+        return 0;
+    }
 
-        return finalIds.stream()
-                .map(contactMap::get)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+    private boolean mightContainGrams(String text, int from, int to, int k) {
+        for (int i = from; i <= to - k; i++) {
+            if (!ngramIndex.mightContain(text, i, i + k)) return false;
+        }
+        return true;
     }
 
-    @Override
-    public DeletedResponse delete(List<String> ids) {
-        int deleted = 0;
-        for (String id : ids) {
-            ContactCard card = contactMap.remove(id);
-            if (card != null) {
-                unindexCard(card);
-                deleted++;
+    /**
+     * Whether every token of the lowercased query may be in the token index; false if it has no tokens.
+     */
+    private boolean mightContainTokens(String lower) {
+        boolean any = false;
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean boundary = i == lower.length() || isSeparator(lower.charAt(i));
+            if (!boundary && start < 0) {
+                start = i;
+            } else if (boundary && start >= 0) {
+                if (!tokenIndex.mightContain(lower, start, i)) return false;
+                any = true;
+                start = -1;
             }
         }
-        return DeletedResponse.builder().deleted(deleted).build();
+        return any;
     }
 
     @Override
-    public List<ContactCard> update(List<ContactCard> requests) {
-        return requests.stream().map(req -> {
-            ContactCard old = contactMap.get(req.getId());
-            if (old == null) return null;
-            Utils.updateContactDetails(old, req);
-            req = old;
-            unindexCard(old);
-            old.setName(req.getName());
-            old.setEmail(req.getEmail());
-            old.setPhone(req.getPhone());
-            contactMap.put(old.getId(), old);
-            indexCard(old);
-            return old;
-        }).filter(Objects::nonNull).collect(Collectors.toList());
+    protected int[] wholeTokenMatches(String[] terms) {
+        List<int[]> postings = new ArrayList<>(terms.length);
+        for (String term : terms) {
+            String lower = term.toLowerCase();
+            if (lower.isEmpty()) return null;
+            for (int i = 0; i < lower.length(); i++) {
+                if (isSeparator(lower.charAt(i))) return null;
+            }
+            int[] ordinals = tokenIndex.lookup(lower);
+            if (ordinals.length == 0) return ordinals;
+            postings.add(ordinals);
+        }
+        return PostingList.intersectAll(postings);
     }
 
-    // ---------- Indexing Logic ----------
-
-    private void indexCard(ContactCard card) {
-        indexNGrams(card.getId(), card.getName());
-        indexNGrams(card.getId(), card.getEmail());
-        indexNGrams(card.getId(), card.getPhone());
-
-        indexTokens(card.getId(), card.getName());
-        indexTokens(card.getId(), card.getEmail());
-        indexTokens(card.getId(), card.getPhone());
+    private int[] allTokens(String query) {
+        String lower = query.toLowerCase();
+        List<int[]> postings = new ArrayList<>();
+        forEachTokenSpan(lower, (from, to) -> postings.add(tokenIndex.lookup(lower, from, to)));
+        for (int[] ordinals : postings) {
+            if (ordinals.length == 0) return ordinals;
+        }
+        return PostingList.intersectAll(postings);
     }
 
-    private void unindexCard(ContactCard card) {
-        unindexNGrams(card.getId(), card.getName());
-        unindexNGrams(card.getId(), card.getEmail());
-        unindexNGrams(card.getId(), card.getPhone());
+    // ---------- Indexing Logic ----------
 
-        unindexTokens(card.getId(), card.getName());
-        unindexTokens(card.getId(), card.getEmail());
-        unindexTokens(card.getId(), card.getPhone());
-    }
+    @Override
+    protected void postTerms(ContactCard card, TermSink sink) {
+        postNGrams(card.getName(), sink);
+        postNGrams(card.getEmail(), sink);
 
-    private void indexNGrams(String id, String value) {
-        if (value == null) return;
-        for (int k : NGRAM_SIZES) {
-            for (String gram : getNGrams(value, k)) {
-                ngramIndex.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(id);
-            }
-        }
+        //  email tokens would share posting lists with names ("gmail" everywhere); the EmailIndex has them
+        postTokens(card.getName(), sink);
     }
 
-    private void unindexNGrams(String id, String value) {
+    private void postNGrams(String value, TermSink sink) {
         if (value == null) return;
         for (int k : NGRAM_SIZES) {
-            for (String gram : getNGrams(value, k)) {
-                Set<String> ids = ngramIndex.get(gram);
-                if (ids != null) {
-                    ids.remove(id);
-                    if (ids.isEmpty()) ngramIndex.remove(gram);
-                }
-            }
+            forEachNGramSpan(value, k, (from, to) -> sink.accept(ngramIndex, value, from, to));
         }
     }
 
-    private void indexTokens(String id, String value) {
+    private void postTokens(String value, TermSink sink) {
         if (value == null) return;
-        for (String token : tokenize(value)) {
-            tokenIndex.computeIfAbsent(token, key -> ConcurrentHashMap.newKeySet()).add(id);
-        }
+        String lower = value.toLowerCase();
+        forEachTokenSpan(lower, (from, to) -> sink.accept(tokenIndex, lower, from, to));
     }
 
-    private void unindexTokens(String id, String value) {
-        if (value == null) return;
-        for (String token : tokenize(value)) {
-            Set<String> ids = tokenIndex.get(token);
-            if (ids != null) {
-                ids.remove(id);
-                if (ids.isEmpty()) tokenIndex.remove(token);
-            }
-        }
+    @Override
+    protected Map<String, InvertedIndex> indexes() {
+        return Map.of("ngram", ngramIndex, "token", tokenIndex);
     }
-}
\ No newline at end of file
+}
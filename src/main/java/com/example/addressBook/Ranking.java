@@ -0,0 +1,194 @@
+package com.example.addressBook;
+
+import com.example.dto.ContactCard;
+import com.example.index.ContactStore;
+import com.example.index.ContactView;
+import com.example.index.PhoneIndex;
+import com.example.utils.Utils;
+import java.util.*;
+
+import static com.example.utils.Utils.indexOfFolded;
+import static com.example.utils.Utils.isSeparator;
+
+
+final class Ranking {
+    /**
+     * Scores candidate cards against a query and keeps the best K in a bounded min-heap.
+
+        score = 4 * match + field       match: exact token 3 > token prefix 2 > infix 1 > none 0
+                                        field: name 3 > email 2 > phone 1
+
+     Phones are compared digit-for-digit, so "555-1234" is an exact match for 5551234. A card scores its
+     best field for each query term, summed over the terms. Candidates arrive in
+     ascending ordinal order and ties go to the lower ordinal, so once the heap is full of top-scoring
+     entries no later candidate can enter it and the traversal stops. Candidates are scored through a
+     ContactView over the stored record; only the K winners are built into cards.
+
+     That stop rarely fires over a full candidate list, which mostly holds prefix and infix matches. So an
+     engine that can list the cards holding every term as a whole name token (the only ones that reach
+     MAX_SCORE on every term) first ranks those alone with topTier(); only when fewer than K of them are
+     live does the caller fall back to topK() over every candidate.
+
+     A sharded book ranks within each shard and merge()s the per-shard top K; ties across shards go to
+     the lower shard.
+     **/
+
+    static final int MAX_SCORE = 4 * 3 + 3;
+
+    private Ranking() {
+    }
+
+    /**
+     * Returns the live cards among ordinals, best first, at most limit of them (none for a limit below one).
+     */
+    static List<ContactCard> topK(ContactStore store, int[] ordinals, String[] terms, int limit) {
+        if (limit <= 0) return List.of();
+        return cards(store, rank(store, ordinals, terms, limit));
+    }
+
+    /**
+     * topK() over a top tier of candidates, or null unless limit of them are live and reach the maximum
+     * score: only then can no candidate outside the tier, all of which score less, displace one.
+     */
+    static List<ContactCard> topTier(ContactStore store, int[] tier, String[] terms, int limit) {
+        if (limit <= 0 || tier.length < limit) return null;
+        long[] ranked = rank(store, tier, terms, limit);
+        if (ranked.length < limit || scoreOf(ranked[0]) < MAX_SCORE * terms.length) return null;
+        return cards(store, ranked);
+    }
+
+    /**
+     * The best limit live candidates as packed heap entries, weakest first.
+     */
+    private static long[] rank(ContactStore store, int[] ordinals, String[] terms, int limit) {
+        String[] normalized = new String[terms.length];
+        for (int i = 0; i < terms.length; i++) normalized[i] = Utils.foldCase(terms[i]);
+        int maxScore = MAX_SCORE * terms.length;
+        //  heap entries pack (score, ordinal) so the root is the weakest: lowest score, then highest ordinal
+        long[] heap = new long[Math.min(limit, ordinals.length)];
+        int size = 0;
+        ContactView view = new ContactView();
+        for (int ordinal : ordinals) {
+            if (size == heap.length && scoreOf(heap[0]) == maxScore) break;
+            if (!store.view(ordinal, view)) continue;
+            int score = 0;
+            for (String term : normalized) score += score(view.name(), view.email(), view.phone(), term);
+            long entry = pack(score, ordinal);
+            if (size < heap.length) {
+                heap[size] = entry;
+                siftUp(heap, size++);
+            } else if (entry > heap[0]) {
+                heap[0] = entry;
+                siftDown(heap, size);
+            }
+        }
+
+        long[] ranked = Arrays.copyOf(heap, size);
+        Arrays.sort(ranked);
+        return ranked;
+    }
+
+    private static List<ContactCard> cards(ContactStore store, long[] ranked) {
+        List<ContactCard> results = new ArrayList<>(ranked.length);
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ContactCard card = store.get(ordinalOf(ranked[i]));
+            if (card != null) results.add(card);
+        }
+        return results;
+    }
+
+    /**
+     * Merges per-shard topK() results into the overall best limit cards. Each list is already best first,
+     * so a card's position only breaks ties within its own shard.
+     */
+    static List<ContactCard> merge(List<List<ContactCard>> ranked, String[] terms, int limit) {
+        if (limit <= 0) return List.of();
+        String[] normalized = new String[terms.length];
+        for (int i = 0; i < terms.length; i++) normalized[i] = Utils.foldCase(terms[i]);
+        List<ContactCard> merged = new ArrayList<>();
+        ranked.forEach(merged::addAll);
+        int[] scores = new int[merged.size()];
+        for (int i = 0; i < scores.length; i++) scores[i] = score(merged.get(i), normalized);
+        Integer[] order = new Integer[merged.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        //  stable sort: equal scores keep shard order, then each shard's own order
+        Arrays.sort(order, (a, b) -> Integer.compare(scores[b], scores[a]));
+        List<ContactCard> results = new ArrayList<>(Math.min(limit, order.length));
+        for (int i = 0; i < order.length && i < limit; i++) results.add(merged.get(order[i]));
+        return results;
+    }
+
+    static int score(ContactCard card, String[] normalizedTerms) {
+        int total = 0;
+        for (String term : normalizedTerms) total += score(card, term);
+        return total;
+    }
+
+    static int score(ContactCard card, String normalizedQuery) {
+        return score(card.getName(), card.getEmail(), card.getPhone(), normalizedQuery);
+    }
+
+    private static int score(CharSequence name, CharSequence email, CharSequence phone, String normalizedQuery) {
+        return Math.max(score(name, normalizedQuery, 3),
+                Math.max(score(email, normalizedQuery, 2), phoneScore(phone, normalizedQuery)));
+    }
+
+    private static int phoneScore(CharSequence phone, String query) {
+        if (phone == null || !PhoneIndex.isPhoneQuery(query)) return score(phone, query, 1);
+        String digits = PhoneIndex.normalize(phone.toString());
+        String wanted = PhoneIndex.normalize(query);
+        int match = digits.equals(wanted) ? 3 : digits.startsWith(wanted) ? 2 : digits.contains(wanted) ? 1 : 0;
+        return match == 0 ? 0 : 4 * match + 1;
+    }
+
+    private static int score(CharSequence field, String query, int fieldWeight) {
+        if (field == null) return 0;
+        int best = 0;
+        for (int at = indexOfFolded(field, query, 0); at >= 0 && best < 3; at = indexOfFolded(field, query, at + 1)) {
+            boolean startsToken = at == 0 || isSeparator(field.charAt(at - 1));
+            int end = at + query.length();
+            boolean endsToken = end == field.length() || isSeparator(field.charAt(end));
+            best = Math.max(best, startsToken ? (endsToken ? 3 : 2) : 1);
+        }
+        return best == 0 ? 0 : 4 * best + fieldWeight;
+    }
+
+    // ---------- Heap ----------
+
+    private static long pack(int score, int ordinal) {
+        return ((long) score << 32) | (Integer.MAX_VALUE - ordinal);
+    }
+
+    private static int scoreOf(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    private static int ordinalOf(long entry) {
+        return Integer.MAX_VALUE - (int) entry;
+    }
+
+    private static void siftUp(long[] heap, int i) {
+        long entry = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= entry) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = entry;
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        long entry = heap[0];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+            if (heap[child] >= entry) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = entry;
+    }
+}
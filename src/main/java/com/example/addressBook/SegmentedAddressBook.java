@@ -0,0 +1,20 @@
+package com.example.addressBook;
+
+import com.example.index.IndexSegment;
+import java.io.IOException;
+import java.nio.file.Path;
+
+public interface SegmentedAddressBook extends AddressBook {
+    //  seals the in-memory index deltas; the caller must hold off writers while this runs
+    public void freezeDelta();
+    //  writes live cards plus base and frozen index layers to an immutable segment file
+    public void writeSegment(Path path) throws IOException;
+    //  swaps a segment written by writeSegment in as the new base, dropping the deltas it absorbed
+    public void installSegment(IndexSegment segment);
+    //  folds deltas frozen for a segment that failed back into the live one; writers held off as for freezeDelta
+    public void thawDelta();
+    //  fills an empty address book from a segment without re-tokenizing its cards
+    public void restoreSegment(IndexSegment segment);
+    //  postings added in memory since the last installed segment
+    public long deltaPostings();
+}
@@ -0,0 +1,380 @@
+package com.example.addressBook;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.CacheStats;
+import com.example.dto.CompactionStats;
+import com.example.dto.ContactCard;
+import com.example.dto.DeletedResponse;
+import com.example.dto.FetchRequest;
+import com.example.dto.IndexStats;
+import com.example.dto.SearchPage;
+import com.example.dto.Suggestion;
+import com.example.index.SuggestIndex;
+import com.example.enums.AddressBookImplType;
+import com.example.utils.Utils;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+
+public class ShardedAddressBook implements AddressBook {
+    /**
+     * Splits the book into N independent engines of one AddressBookImplType, each with its own store,
+     * indexes and locks. A contact lives in exactly one shard, chosen by its id.
+
+        Write    id -> hash -> one shard       (ids are assigned here, so inserts route like updates)
+        Find     every shard in parallel -> concatenated, or per-shard top K -> Ranking.merge()
+        Page     shards in order; cursor = shard "." that shard's own cursor
+        Stream   shards in order, on the caller's thread
+
+     The fan-out runs on the common ForkJoinPool, like bulkInsert(): in-process shard searches are short,
+     CPU-bound and never block. Unlimited finds come back grouped by shard, in insertion order within each.
+
+     rebuildShard() re-creates one shard from its live cards, dropping the dead ordinals and postings
+     that updates and deletes leave behind. Writes to that shard wait for it; reads, and every other
+     shard, carry on against the old instance until the new one is swapped in.
+
+     Shards can also be handed in ready-made, e.g. one local book plus a RemoteAddressBook per peer node,
+     together with an executor for the fan-out, since remote calls do block. Those are routed by contiguous
+     ranges of the id hash rather than by modulo, so that a node can shard its own range again locally
+     without every id landing in the same local shard.
+     **/
+
+    private final AddressBookImplType type;
+    private final int queryCacheSize;
+    private final boolean byRange;
+    private final Executor fanOut;
+    private final AtomicReferenceArray<AddressBook> shards;
+    private final ReentrantReadWriteLock[] rebuildLocks;
+
+    public ShardedAddressBook(AddressBookImplType type, int shardCount) {
+        this(type, shardCount, IndexedAddressBook.DEFAULT_QUERY_CACHE_SIZE);
+    }
+
+    /**
+     * Creates shardCount shards of type, each with a QueryCache of queryCacheSize results (zero disables it).
+     */
+    public ShardedAddressBook(AddressBookImplType type, int shardCount, int queryCacheSize) {
+        this(type, queryCacheSize, false, ForkJoinPool.commonPool(), shardCount);
+        for (int i = 0; i < shardCount; i++) shards.set(i, AddressBookFactory.create(type, queryCacheSize));
+    }
+
+    /**
+     * Routes over the given shards by id hash range, calling them in parallel on fanOut; rebuildShard() is
+     * not available.
+     */
+    public ShardedAddressBook(List<AddressBook> shards, Executor fanOut) {
+        this(null, 0, true, fanOut, shards.size());
+        for (int i = 0; i < shards.size(); i++) this.shards.set(i, shards.get(i));
+    }
+
+    private ShardedAddressBook(AddressBookImplType type, int queryCacheSize, boolean byRange, Executor fanOut, int shardCount) {
+        if (shardCount < 1) throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        this.type = type;
+        this.queryCacheSize = queryCacheSize;
+        this.byRange = byRange;
+        this.fanOut = fanOut;
+        this.shards = new AtomicReferenceArray<>(shardCount);
+        this.rebuildLocks = new ReentrantReadWriteLock[shardCount];
+        for (int i = 0; i < shardCount; i++) rebuildLocks[i] = new ReentrantReadWriteLock();
+    }
+
+    public int shardCount() {
+        return shards.length();
+    }
+
+    @Override
+    public List<ContactCard> insert(List<AddContactRequest> requests) {
+        List<ContactCard> cards = requests.stream().map(ShardedAddressBook::newCard).collect(Collectors.toList());
+        load(cards);
+        return cards;
+    }
+
+    @Override
+    public List<ContactCard> bulkInsert(List<AddContactRequest> requests) {
+        List<ContactCard> cards = requests.stream().map(ShardedAddressBook::newCard).collect(Collectors.toList());
+        //  the shards themselves are the parallelism: each loads its share on its own worker
+        Map<Integer, List<ContactCard>> byShard = groupByShard(cards, ContactCard::getId);
+        gather(byShard.keySet(), i -> write(i, shard -> {
+            shard.load(byShard.get(i));
+            return null;
+        }));
+        return cards;
+    }
+
+    @Override
+    public List<ContactCard> find(FetchRequest request) {
+        String query = request.getQuery();
+        if (query == null || query.isEmpty()) return Collections.emptyList();
+        List<Integer> all = IntStream.range(0, shardCount()).boxed().collect(Collectors.toList());
+        List<List<ContactCard>> results = gather(all, i -> shards.get(i).find(request));
+        if (request.getLimit() != null) {
+            return Ranking.merge(results, IndexedAddressBook.terms(query, request.getOperator()), request.getLimit());
+        }
+        List<ContactCard> merged = new ArrayList<>(results.stream().mapToInt(List::size).sum());
+        results.forEach(merged::addAll);
+        return merged;
+    }
+
+    @Override
+    public SearchPage findPage(FetchRequest request) {
+        String query = request.getQuery();
+        if (query == null || query.isEmpty()) return SearchPage.builder().contacts(Collections.emptyList()).build();
+        int pageSize = request.getLimit() == null ? IndexedAddressBook.DEFAULT_PAGE_SIZE : request.getLimit();
+        int shard = 0;
+        String inner = null;
+        if (request.getCursor() != null) {
+            String cursor = request.getCursor();
+            int dot = cursor.indexOf('.');
+            try {
+                shard = Integer.parseInt(cursor.substring(0, Math.max(dot, 0)));
+            } catch (NumberFormatException e) {
+                shard = -1;
+            }
+            if (dot < 0 || shard < 0 || shard >= shardCount()) throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            inner = dot == cursor.length() - 1 ? null : cursor.substring(dot + 1);
+        }
+
+        List<ContactCard> contacts = new ArrayList<>();
+        for (; shard < shardCount(); shard++, inner = null) {
+            int remaining = pageSize - contacts.size();
+            if (remaining <= 0) {
+                //  the page is full; only look far enough to know whether there is another one
+                if (!shards.get(shard).findPage(pageOf(request, null, 1)).getContacts().isEmpty()) {
+                    return SearchPage.builder().contacts(contacts).nextCursor(shard + ".").build();
+                }
+                continue;
+            }
+            SearchPage page = shards.get(shard).findPage(pageOf(request, inner, remaining));
+            contacts.addAll(page.getContacts());
+            if (page.getNextCursor() != null) {
+                return SearchPage.builder().contacts(contacts).nextCursor(shard + "." + page.getNextCursor()).build();
+            }
+        }
+        return SearchPage.builder().contacts(contacts).build();
+    }
+
+    @Override
+    public void stream(FetchRequest request, Consumer<ContactCard> consumer) {
+        String query = request.getQuery();
+        if (query == null || query.isEmpty()) return;
+        if (request.getLimit() != null) {
+            find(request).forEach(consumer);
+            return;
+        }
+        for (int i = 0; i < shardCount(); i++) shards.get(i).stream(request, consumer);
+    }
+
+    @Override
+    public Stream<ContactCard> stream(FetchRequest request) {
+        String query = request.getQuery();
+        if (query == null || query.isEmpty()) return Stream.empty();
+        if (request.getLimit() != null) return find(request).stream();
+        //  concatenated rather than flat-mapped: flatMap would push a whole shard's cards into its buffer
+        Stream<ContactCard> all = Stream.empty();
+        for (int i = 0; i < shardCount(); i++) all = Stream.concat(all, shards.get(i).stream(request));
+        return all;
+    }
+
+    @Override
+    public List<Suggestion> suggest(String prefix, int limit) {
+        List<Integer> all = IntStream.range(0, shardCount()).boxed().collect(Collectors.toList());
+        return SuggestIndex.merge(gather(all, i -> shards.get(i).suggest(prefix, limit)), limit);
+    }
+
+    @Override
+    public DeletedResponse delete(List<String> ids) {
+        int deleted = 0;
+        for (Map.Entry<Integer, List<String>> entry : groupByShard(ids, id -> id).entrySet()) {
+            deleted += write(entry.getKey(), shard -> shard.delete(entry.getValue()).getDeleted());
+        }
+        return DeletedResponse.builder().deleted(deleted).build();
+    }
+
+    @Override
+    public List<ContactCard> update(List<ContactCard> requests) {
+        List<ContactCard> updated = new ArrayList<>(requests.size());
+        for (Map.Entry<Integer, List<ContactCard>> entry : groupByShard(requests, ContactCard::getId).entrySet()) {
+            updated.addAll(write(entry.getKey(), shard -> shard.update(entry.getValue())));
+        }
+        return updated;
+    }
+
+    @Override
+    public void load(List<ContactCard> cards) {
+        groupByShard(cards, ContactCard::getId).forEach((shard, group) -> write(shard, book -> {
+            book.load(group);
+            return null;
+        }));
+    }
+
+    @Override
+    public void forEach(Consumer<ContactCard> consumer) {
+        for (int i = 0; i < shardCount(); i++) shards.get(i).forEach(consumer);
+    }
+
+    @Override
+    public IndexStats indexStats() {
+        List<Integer> all = IntStream.range(0, shardCount()).boxed().collect(Collectors.toList());
+        long contacts = 0, terms = 0, postings = 0, heapBytes = 0;
+        long[] postingLengths = null;
+        for (IndexStats stats : gather(all, i -> shards.get(i).indexStats())) {
+            contacts += stats.getContacts();
+            terms += stats.getTerms();
+            postings += stats.getPostings();
+            heapBytes += stats.getEstimatedHeapBytes();
+            if (postingLengths == null) postingLengths = stats.getPostingLengths().clone();
+            else for (int i = 0; i < postingLengths.length; i++) postingLengths[i] += stats.getPostingLengths()[i];
+        }
+        return IndexStats.builder()
+                .contacts(contacts)
+                .terms(terms)
+                .postings(postings)
+                .estimatedHeapBytes(heapBytes)
+                .postingLengths(postingLengths)
+                .build();
+    }
+
+    /**
+     * Every shard caches on its own; the totals are summed and the hit rate recomputed from them.
+     */
+    @Override
+    public CacheStats cacheStats() {
+        List<Integer> all = IntStream.range(0, shardCount()).boxed().collect(Collectors.toList());
+        long hits = 0, misses = 0, evictions = 0, invalidations = 0, size = 0;
+        for (CacheStats stats : gather(all, i -> shards.get(i).cacheStats())) {
+            hits += stats.getHits();
+            misses += stats.getMisses();
+            evictions += stats.getEvictions();
+            invalidations += stats.getInvalidations();
+            size += stats.getSize();
+        }
+        return CacheStats.builder()
+                .hits(hits)
+                .misses(misses)
+                .hitRate(hits + misses == 0 ? 0.0 : (double) hits / (hits + misses))
+                .evictions(evictions)
+                .invalidations(invalidations)
+                .size(size)
+                .build();
+    }
+
+    /**
+     * One shard after another rather than fanned out, so a pass never takes more than one core.
+     */
+    @Override
+    public CompactionStats compact() {
+        long deadPostings = 0, emptyTerms = 0, listsRebuilt = 0, reclaimedBytes = 0, durationMillis = 0;
+        for (int i = 0; i < shardCount(); i++) {
+            CompactionStats stats = shards.get(i).compact();
+            deadPostings += stats.getDeadPostings();
+            emptyTerms += stats.getEmptyTerms();
+            listsRebuilt += stats.getListsRebuilt();
+            reclaimedBytes += stats.getReclaimedBytes();
+            durationMillis += stats.getDurationMillis();
+        }
+        return CompactionStats.builder()
+                .deadPostings(deadPostings)
+                .emptyTerms(emptyTerms)
+                .listsRebuilt(listsRebuilt)
+                .reclaimedBytes(reclaimedBytes)
+                .durationMillis(durationMillis)
+                .build();
+    }
+
+    /**
+     * Replaces shard with a freshly built instance holding the same live cards, and returns how many
+     * cards it holds.
+     */
+    public int rebuildShard(int shard) {
+        if (type == null) throw new IllegalStateException("Only shards this book created can be rebuilt");
+        Lock lock = rebuildLocks[shard].writeLock();
+        lock.lock();
+        try {
+            List<ContactCard> cards = new ArrayList<>();
+            shards.get(shard).forEach(cards::add);
+            AddressBook rebuilt = AddressBookFactory.create(type, queryCacheSize);
+            rebuilt.load(cards);
+            shards.set(shard, rebuilt);
+            return cards.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int shardOf(String id) {
+        int hash = id.hashCode() & 0x7fffffff;
+        return byRange ? (int) ((hash * (long) shardCount()) >>> 31) : hash % shardCount();
+    }
+
+    /**
+     * Runs a write against shard; writes to one shard run concurrently with each other, but not with its
+     * rebuild.
+     */
+    private <T> T write(int shard, Function<AddressBook, T> write) {
+        Lock lock = rebuildLocks[shard].readLock();
+        lock.lock();
+        try {
+            return write.apply(shards.get(shard));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs call for each shard on the fan-out executor and returns the results in the same order. The
+     * first failure is rethrown as is, so a bad cursor is still an IllegalArgumentException.
+     */
+    private <T> List<T> gather(Collection<Integer> shardIds, Function<Integer, T> call) {
+        List<CompletableFuture<T>> pending = new ArrayList<>(shardIds.size());
+        for (int shard : shardIds) pending.add(CompletableFuture.supplyAsync(() -> call.apply(shard), fanOut));
+        List<T> results = new ArrayList<>(pending.size());
+        try {
+            for (CompletableFuture<T> result : pending) results.add(result.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        }
+        return results;
+    }
+
+    private <T> Map<Integer, List<T>> groupByShard(List<T> items, Function<T, String> id) {
+        Map<Integer, List<T>> byShard = new TreeMap<>();
+        for (T item : items) {
+            //  an item without an id names no contact, so no shard gets it
+            String key = id.apply(item);
+            if (key != null) byShard.computeIfAbsent(shardOf(key), k -> new ArrayList<>()).add(item);
+        }
+        return byShard;
+    }
+
+    private static FetchRequest pageOf(FetchRequest request, String cursor, int limit) {
+        return FetchRequest.builder()
+                .query(request.getQuery())
+                .operator(request.getOperator())
+                .maxEdits(request.getMaxEdits())
+                .limit(limit)
+                .cursor(cursor)
+                .build();
+    }
+
+    private static ContactCard newCard(AddContactRequest req) {
+        return ContactCard.builder()
+                .id(Utils.generateId())
+                .name(req.getName())
+                .email(req.getEmail())
+                .phone(req.getPhone())
+                .build();
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.addressBook;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.example.dto.DeletedResponse;
+import com.example.index.IndexSegment;
+import com.example.index.InvertedIndex;
+import com.example.index.PostingList;
+import com.example.index.ReadSet;
+import com.example.utils.Utils;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+public class SuffixArrayImpl extends IndexedAddressBook {
+    /**
+
+     >> SuffixArrayImpl answers arbitrary substring queries from a suffix array over names and emails
+        instead of materialising every substring as a map key.
+
+        Writes land in a small delta, indexed by trigram, and deletes/updates tombstone the base index;
+        once the delta grows past REBUILD_RATIO of the base the suffix array is rebuilt on a background
+        thread, and the writes made meanwhile are replayed onto the new one as it is swapped in.
+
+        | Operation | Time Complexity                                              |
+        | --------- | ------------------------------------------------------------ |
+        | Insert    | O(1) amortised      + O(n) rebuild every n/8 writes,         |
+        |           |                       off the writing thread                 |
+        | Search    | O(m log n + occ)    + trigram lookup and in-place check of   |
+        |           |                       the delta cards holding every trigram  |
+        | Update    | O(1) amortised      tombstone + re-add to delta              |
+        | Space     | ~5 bytes per indexed character                               |
+
+     **/
+
+    private static final int MIN_REBUILD_THRESHOLD = 1024;
+    private static final int REBUILD_RATIO = 8;
+    private static final int GRAM = 3;
+
+    //  one thread for every instance: rebuilds are rare, and shards then take turns rather than all at once
+    private static final ExecutorService REBUILDER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "suffix-array-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile State state = new State(SuffixArrayIndex.EMPTY);
+    //  ordinals written since the running rebuild began, replayed onto its result; null if none runs
+    private SuffixArrayIndex.IntList rebuildLog;
+
+    public SuffixArrayImpl() {
+    }
+
+    public SuffixArrayImpl(int queryCacheSize) {
+        super(queryCacheSize);
+    }
+
+    @Override
+    public synchronized List<ContactCard> insert(List<AddContactRequest> requests) {
+        List<ContactCard> inserted = super.insert(requests);
+        rebuildIfNeeded();
+        return inserted;
+    }
+
+    @Override
+    public synchronized DeletedResponse delete(List<String> ids) {
+        DeletedResponse response = super.delete(ids);
+        rebuildIfNeeded();
+        return response;
+    }
+
+    @Override
+    public synchronized List<ContactCard> update(List<ContactCard> requests) {
+        List<ContactCard> updated = super.update(requests);
+        rebuildIfNeeded();
+        return updated;
+    }
+
+    @Override
+    public synchronized void load(List<ContactCard> cards) {
+        super.load(cards);
+        rebuildIfNeeded();
+    }
+
+    @Override
+    public synchronized void restoreSegment(IndexSegment segment) {
+        //  nothing of the suffix array is persisted: restore the cards, then build it in one go
+        super.restoreSegment(segment);
+        rebuildLog = null;
+        state = new State(build());
+    }
+
+    @Override
+    protected boolean foldsCase() {
+        return true;
+    }
+
+    @Override
+    protected int[] search(String query) {
+        State current = state;
+        //  folded once, as the base text and the delta grams are, so a card matches the same before and after a rebuild
+        String folded = Utils.foldCase(query);
+        ReadSet.matching(card -> matches(card, folded));
+
+        int[] base = current.base.search(folded.getBytes(StandardCharsets.UTF_8));
+        int live = 0;
+        for (int ordinal : base) {
+            if (!current.tombstones.contains(ordinal)) base[live++] = ordinal;
+        }
+        return PostingList.union(Arrays.copyOf(base, live), searchDelta(current, folded));
+    }
+
+    /**
+     * The delta's matches: the cards posted under every trigram of the query (every delta card, for a
+     * query shorter than one), checked against their stored fields in place.
+     */
+    private int[] searchDelta(State current, String folded) {
+        int[] candidates;
+        if (folded.length() < GRAM) {
+            candidates = current.delta.stream().mapToInt(Integer::intValue).sorted().toArray();
+        } else {
+            candidates = current.grams.lookup(folded, 0, GRAM);
+            for (int i = 1; i <= folded.length() - GRAM && candidates.length > 0; i++) {
+                candidates = PostingList.intersect(candidates, current.grams.lookup(folded, i, i + GRAM));
+            }
+        }
+        return containing(candidates, folded, true);
+    }
+
+    @Override
+    protected void postTerms(ContactCard card, TermSink sink) {
+        //  no terms: the suffix array holds the fields' text, and the delta its own trigram index
+    }
+
+    @Override
+    protected void indexCard(int ordinal, ContactCard card) {
+        addToDelta(state, ordinal, card);
+        if (rebuildLog != null) rebuildLog.add(ordinal);
+    }
+
+    @Override
+    protected void unindexCard(int ordinal, ContactCard card) {
+        State current = state;
+        //  the base text still holds the old values, so hide them there
+        if (current.delta.remove(ordinal)) {
+            postGrams(card, (text, from, to) -> current.grams.remove(text, from, to, ordinal));
+        } else {
+            current.tombstones.add(ordinal);
+        }
+        if (rebuildLog != null) rebuildLog.add(ordinal);
+    }
+
+    @Override
+    protected long estimatedStructureBytes() {
+        State current = state;
+        return current.base.estimatedBytes() + current.grams.estimatedHeapBytes();
+    }
+
+    @Override
+    protected Map<String, InvertedIndex> indexes() {
+        return Map.of();
+    }
+
+    /**
+     * True while a background rebuild is running.
+     */
+    synchronized boolean rebuilding() {
+        return rebuildLog != null;
+    }
+
+    // ---------- Rebuild Logic ----------
+
+    private void rebuildIfNeeded() {
+        if (rebuildLog != null) return;
+        State current = state;
+        int pending = current.delta.size() + current.tombstones.size();
+        if (pending < Math.max(MIN_REBUILD_THRESHOLD, current.base.size() / REBUILD_RATIO)) return;
+        SuffixArrayIndex.IntList log = new SuffixArrayIndex.IntList();
+        rebuildLog = log;
+        REBUILDER.execute(() -> rebuildInBackground(log));
+    }
+
+    /**
+     * Builds from the store as it stands while writes go on, then swaps the result in under the write
+     * lock. A write made after the log was started may or may not be in the build, so each logged ordinal
+     * is hidden in the new base and, if still live, re-added to the new delta; either way it ends up right.
+     */
+    private void rebuildInBackground(SuffixArrayIndex.IntList log) {
+        SuffixArrayIndex base = null;
+        try {
+            base = build();
+        } finally {
+            synchronized (this) {
+                //  a failed build leaves the old state to the next rebuild; restoreSegment() may have
+                //  built over everything in the meantime
+                if (rebuildLog == log) {
+                    if (base != null) state = replay(new State(base), log);
+                    rebuildLog = null;
+                }
+            }
+        }
+    }
+
+    private State replay(State next, SuffixArrayIndex.IntList log) {
+        for (int i = 0; i < log.size; i++) {
+            int ordinal = log.values[i];
+            if (next.base.contains(ordinal)) next.tombstones.add(ordinal);
+            ContactCard card = store.get(ordinal);
+            if (card != null && !next.delta.contains(ordinal)) addToDelta(next, ordinal, card);
+        }
+        return next;
+    }
+
+    private SuffixArrayIndex build() {
+        return SuffixArrayIndex.build(store);
+    }
+
+    private static void addToDelta(State current, int ordinal, ContactCard card) {
+        current.delta.add(ordinal);
+        postGrams(card, (text, from, to) -> current.grams.add(text, from, to, ordinal));
+    }
+
+    private static void postGrams(ContactCard card, GramSink sink) {
+        postGrams(card.getName(), sink);
+        postGrams(card.getEmail(), sink);
+    }
+
+    private static void postGrams(String field, GramSink sink) {
+        if (field == null) return;
+        String folded = Utils.foldCase(field);
+        Utils.forEachNGramSpan(folded, GRAM, (from, to) -> sink.accept(folded, from, to));
+    }
+
+    private interface GramSink {
+        void accept(String text, int from, int to);
+    }
+
+    private static boolean matches(ContactCard card, String foldedQuery) {
+        return contains(card.getName(), foldedQuery) || contains(card.getEmail(), foldedQuery);
+    }
+
+    private static boolean contains(String field, String foldedQuery) {
+        return field != null && Utils.indexOfFolded(field, foldedQuery, 0) >= 0;
+    }
+
+    private static final class State {
+        final SuffixArrayIndex base;
+        //  trigrams of the delta cards' case-folded names and emails
+        final InvertedIndex grams = new InvertedIndex();
+        final Set<Integer> delta = ConcurrentHashMap.newKeySet();
+        final Set<Integer> tombstones = ConcurrentHashMap.newKeySet();
+
+        State(SuffixArrayIndex base) {
+            this.base = base;
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package com.example.addressBook;
+
+import com.example.index.ContactStore;
+import com.example.index.ContactView;
+import java.util.*;
+
+
+final class SuffixArrayIndex {
+    /**
+     * Immutable suffix array over a packed UTF-8 concatenation of contact fields.
+
+        text      = name \u0001 email \u0001 name \u0001 email \u0001 ...   (Utils.foldCase'd, one byte per ASCII char)
+        sa        = suffix array of text, bit-packed to ceil(log2(n)) bits per entry
+        docStarts = offset in text where each contact begins
+
+        | Operation | Time Complexity                                        |
+        | --------- | ------------------------------------------------------ |
+        | Build     | O(n)                SA-IS induced sorting              |
+        | Search    | O(m log n + occ)    two binary searches over the SA    |
+        | Space     | ~1 + log2(n)/8 bytes per indexed character             |
+
+     The text is written straight from the store's packed records, folded and encoded char by char, and
+     the build holds one int per character besides it (plus a bit, and a bucket table per SA-IS level).
+
+     Since UTF-8 is self-synchronising a valid query can only match at character boundaries,
+     and the separator never appears in a query, so matches never straddle two fields.
+     **/
+
+    static final byte SEPARATOR = 0x01;
+    static final SuffixArrayIndex EMPTY = build(new byte[0], new int[0], new int[0]);
+
+    //  dedups the matched positions by document; cleared over the range a search set, so it is reused
+    private static final ThreadLocal<BitSet> DOCS = ThreadLocal.withInitial(BitSet::new);
+
+    private final byte[] text;
+    private final long[] packedSa;
+    private final int bitsPerEntry;
+    private final int[] docStarts;
+    private final int[] docOrdinals;
+
+    private SuffixArrayIndex(byte[] text, long[] packedSa, int bitsPerEntry, int[] docStarts, int[] docOrdinals) {
+        this.text = text;
+        this.packedSa = packedSa;
+        this.bitsPerEntry = bitsPerEntry;
+        this.docStarts = docStarts;
+        this.docOrdinals = docOrdinals;
+    }
+
+    /**
+     * Builds the index over the names and emails of the live contacts in store, read in place; the store
+     * visits them in ascending ordinal order, so results come back sorted.
+     */
+    static SuffixArrayIndex build(ContactStore store) {
+        ByteArrayBuilder buffer = new ByteArrayBuilder();
+        IntList docStarts = new IntList();
+        IntList ordinals = new IntList();
+        ContactView view = new ContactView();
+        store.forEach(view, ordinal -> {
+            docStarts.add(buffer.size());
+            ordinals.add(ordinal);
+            buffer.appendFolded(view.name());
+            buffer.append(SEPARATOR);
+            buffer.appendFolded(view.email());
+            buffer.append(SEPARATOR);
+        });
+        return build(buffer.toByteArray(), docStarts.toArray(), ordinals.toArray());
+    }
+
+    private static SuffixArrayIndex build(byte[] text, int[] docStarts, int[] ordinals) {
+        int[] sa = buildSuffixArray(text);
+        int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(1, text.length - 1)));
+        //  slot 0 is the sentinel's suffix, which is not part of the text
+        return new SuffixArrayIndex(text, pack(sa, 1, bits), bits, docStarts, ordinals);
+    }
+
+    int size() {
+        return docOrdinals.length;
+    }
+
+    /**
+     * True if ordinal is one of the contacts the index was built over.
+     */
+    boolean contains(int ordinal) {
+        return Arrays.binarySearch(docOrdinals, ordinal) >= 0;
+    }
+
+    long estimatedBytes() {
+        return text.length + (long) packedSa.length * Long.BYTES + (long) docStarts.length * Integer.BYTES * 2;
+    }
+
+    /**
+     * Returns the ascending ordinals of every contact with at least one field containing the (normalized) query.
+     */
+    int[] search(byte[] query) {
+        if (query.length == 0 || text.length == 0) return new int[0];
+        int lo = lowerBound(query);
+        int hi = upperBound(query, lo);
+        if (lo >= hi) return new int[0];
+
+        BitSet docs = DOCS.get();
+        int first = Integer.MAX_VALUE, last = -1, count = 0;
+        for (int i = lo; i < hi; i++) {
+            int doc = docOf(saAt(i));
+            if (docs.get(doc)) continue;
+            docs.set(doc);
+            first = Math.min(first, doc);
+            last = Math.max(last, doc);
+            count++;
+        }
+        int[] ordinals = new int[count];
+        int p = 0;
+        for (int doc = docs.nextSetBit(first); doc >= 0 && doc <= last; doc = docs.nextSetBit(doc + 1)) {
+            ordinals[p++] = docOrdinals[doc];
+        }
+        docs.clear(first, last + 1);
+        return ordinals;
+    }
+
+    // ---------- Search Logic ----------
+
+    private int lowerBound(byte[] query) {
+        int lo = 0, hi = text.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compareSuffix(saAt(mid), query) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private int upperBound(byte[] query, int from) {
+        int lo = from, hi = text.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compareSuffix(saAt(mid), query) <= 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Compares the suffix at pos against query, treating a suffix that starts with query as equal.
+     */
+    private int compareSuffix(int pos, byte[] query) {
+        int n = Math.min(query.length, text.length - pos);
+        for (int i = 0; i < n; i++) {
+            int c = Integer.compare(text[pos + i] & 0xFF, query[i] & 0xFF);
+            if (c != 0) return c;
+        }
+        return n == query.length ? 0 : -1;
+    }
+
+    private int docOf(int pos) {
+        int idx = Arrays.binarySearch(docStarts, pos);
+        return idx >= 0 ? idx : -idx - 2;
+    }
+
+    private int saAt(int i) {
+        long bitIndex = (long) i * bitsPerEntry;
+        int word = (int) (bitIndex >>> 6);
+        int shift = (int) (bitIndex & 63);
+        long mask = (1L << bitsPerEntry) - 1;
+        long value = packedSa[word] >>> shift;
+        if (shift + bitsPerEntry > 64) {
+            value |= packedSa[word + 1] << (64 - shift);
+        }
+        return (int) (value & mask);
+    }
+
+    // ---------- Construction ----------
+
+    private static long[] pack(int[] values, int from, int bits) {
+        int count = values.length - from;
+        long[] packed = new long[(int) (((long) count * bits + 63) >>> 6)];
+        for (int i = 0; i < count; i++) {
+            long value = values[from + i];
+            long bitIndex = (long) i * bits;
+            int word = (int) (bitIndex >>> 6);
+            int shift = (int) (bitIndex & 63);
+            packed[word] |= value << shift;
+            if (shift + bits > 64) {
+                packed[word + 1] |= value >>> (64 - shift);
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * SA-IS (Nong, Zhang and Chan, 2009) over the bytes of text, shifted up by one so that a virtual
+     * sentinel 0 can end it, as SA-IS requires. The result has text.length + 1 entries, the sentinel's
+     * suffix first.
+     */
+    private static int[] buildSuffixArray(byte[] text) {
+        int n = text.length;
+        int[] sa = new int[n + 1];
+        sais(i -> i == n ? 0 : (text[i] & 0xFF) + 1, sa, n + 1, 256);
+        return sa;
+    }
+
+    /**
+     * Sorts the n suffixes of s into sa[0, n). Symbols lie in [0, maxSymbol] and s ends in a 0 that occurs
+     * nowhere else. The reduced problem is written to the top of sa and sorted into its bottom, so the only
+     * memory besides sa is the type bits and the buckets.
+     */
+    private static void sais(Text s, int[] sa, int n, int maxSymbol) {
+        if (n == 1) {
+            sa[0] = 0;
+            return;
+        }
+        //  S-type: smaller than the suffix after it; the sentinel is S, the symbol before it L
+        BitSet sType = new BitSet(n);
+        sType.set(n - 1);
+        for (int i = n - 2; i >= 0; i--) {
+            int c = s.at(i), next = s.at(i + 1);
+            if (c < next || (c == next && sType.get(i + 1))) sType.set(i);
+        }
+        int[] buckets = new int[maxSymbol + 1];
+
+        //  1. sort the LMS substrings: seed their starts at the bucket ends and induce
+        Arrays.fill(sa, 0, n, -1);
+        bucketBounds(s, n, buckets, true);
+        for (int i = 1; i < n; i++) {
+            if (isLms(sType, i)) sa[--buckets[s.at(i)]] = i;
+        }
+        induce(s, sa, n, sType, buckets);
+
+        //  2. name them in that order, equal substrings alike, and sort the string of names
+        int lmsCount = 0;
+        for (int i = 0; i < n; i++) {
+            if (isLms(sType, sa[i])) sa[lmsCount++] = sa[i];
+        }
+        Arrays.fill(sa, lmsCount, n, -1);
+        int names = 0;
+        int previous = -1;
+        for (int i = 0; i < lmsCount; i++) {
+            int pos = sa[i];
+            if (previous < 0 || !sameLmsSubstring(s, sType, previous, pos)) {
+                names++;
+                previous = pos;
+            }
+            //  LMS positions are at least two apart, so pos / 2 is a free slot of its own
+            sa[lmsCount + pos / 2] = names - 1;
+        }
+        for (int i = n - 1, j = n - 1; i >= lmsCount; i--) {
+            if (sa[i] >= 0) sa[j--] = sa[i];
+        }
+        int reduced = n - lmsCount;
+        if (names < lmsCount) {
+            sais(i -> sa[reduced + i], sa, lmsCount, names - 1);
+        } else {
+            for (int i = 0; i < lmsCount; i++) sa[sa[reduced + i]] = i;
+        }
+
+        //  3. seed the LMS suffixes in their sorted order and induce the rest from them
+        for (int i = 1, j = 0; i < n; i++) {
+            if (isLms(sType, i)) sa[reduced + j++] = i;
+        }
+        for (int i = 0; i < lmsCount; i++) sa[i] = sa[reduced + sa[i]];
+        Arrays.fill(sa, lmsCount, n, -1);
+        bucketBounds(s, n, buckets, true);
+        for (int i = lmsCount - 1; i >= 0; i--) {
+            int pos = sa[i];
+            sa[i] = -1;
+            sa[--buckets[s.at(pos)]] = pos;
+        }
+        induce(s, sa, n, sType, buckets);
+    }
+
+    /**
+     * Places the L-type suffixes left to right from the bucket starts, then the S-type ones right to left
+     * from the bucket ends, each from the suffix after it.
+     */
+    private static void induce(Text s, int[] sa, int n, BitSet sType, int[] buckets) {
+        bucketBounds(s, n, buckets, false);
+        for (int i = 0; i < n; i++) {
+            int pos = sa[i] - 1;
+            if (pos >= 0 && !sType.get(pos)) sa[buckets[s.at(pos)]++] = pos;
+        }
+        bucketBounds(s, n, buckets, true);
+        for (int i = n - 1; i >= 0; i--) {
+            int pos = sa[i] - 1;
+            if (pos >= 0 && sType.get(pos)) sa[--buckets[s.at(pos)]] = pos;
+        }
+    }
+
+    private static void bucketBounds(Text s, int n, int[] buckets, boolean ends) {
+        Arrays.fill(buckets, 0);
+        for (int i = 0; i < n; i++) buckets[s.at(i)]++;
+        int sum = 0;
+        for (int c = 0; c < buckets.length; c++) {
+            sum += buckets[c];
+            buckets[c] = ends ? sum : sum - buckets[c];
+        }
+    }
+
+    private static boolean isLms(BitSet sType, int i) {
+        return i > 0 && sType.get(i) && !sType.get(i - 1);
+    }
+
+    /**
+     * True if the LMS substrings at a and b, up to and including the next LMS position, have the same
+     * symbols and types; the unique sentinel ends every comparison before either runs off the end.
+     */
+    private static boolean sameLmsSubstring(Text s, BitSet sType, int a, int b) {
+        for (int d = 0; ; d++) {
+            if (s.at(a + d) != s.at(b + d) || sType.get(a + d) != sType.get(b + d)) return false;
+            if (d > 0 && isLms(sType, a + d)) return true;
+        }
+    }
+
+    private interface Text {
+        int at(int i);
+    }
+
+    private static final class ByteArrayBuilder {
+        private byte[] buffer = new byte[1024];
+        private int size;
+
+        void append(byte b) {
+            ensure(1);
+            buffer[size++] = b;
+        }
+
+        /**
+         * Appends Utils.foldCase(field) as UTF-8, as getBytes() would encode it (a lone surrogate as '?'),
+         * without making either String; nothing for a null field.
+         */
+        void appendFolded(CharSequence field) {
+            if (field == null) return;
+            ensure(3 * field.length());
+            for (int i = 0; i < field.length(); i++) {
+                char c = Character.toLowerCase(field.charAt(i));
+                if (c < 0x80) {
+                    buffer[size++] = (byte) c;
+                } else if (c < 0x800) {
+                    buffer[size++] = (byte) (0xC0 | c >>> 6);
+                    buffer[size++] = (byte) (0x80 | c & 0x3F);
+                } else if (!Character.isSurrogate(c)) {
+                    buffer[size++] = (byte) (0xE0 | c >>> 12);
+                    buffer[size++] = (byte) (0x80 | c >>> 6 & 0x3F);
+                    buffer[size++] = (byte) (0x80 | c & 0x3F);
+                } else if (Character.isHighSurrogate(c) && i + 1 < field.length() && Character.isLowSurrogate(field.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, field.charAt(++i));
+                    buffer[size++] = (byte) (0xF0 | codePoint >>> 18);
+                    buffer[size++] = (byte) (0x80 | codePoint >>> 12 & 0x3F);
+                    buffer[size++] = (byte) (0x80 | codePoint >>> 6 & 0x3F);
+                    buffer[size++] = (byte) (0x80 | codePoint & 0x3F);
+                } else {
+                    buffer[size++] = '?';
+                }
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+
+    static final class IntList {
+        int[] values = new int[64];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size << 1);
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.cache;
+
+
+final class FrequencySketch {
+    /**
+     * A count-min sketch of 4-bit counters: the approximate popularity of every key the cache has been
+     * asked for, hit or miss, in a fixed ~8 bytes per cached entry.
+
+        increment(key)   bumps DEPTH counters picked by independent hashes, each saturating at 15
+        frequency(key)   the smallest of those counters, an overestimate that is rarely far off
+
+     Once sampleSize increments have been counted every counter is halved, so popularity decays and a
+     key that was hot an hour ago cannot squat in the cache forever (the "reset" of TinyLFU).
+     **/
+
+    private static final int DEPTH = 4;
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final long[] table;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int capacity) {
+        //  16 counters per long, one long per entry rounded up to a power of two
+        int longs = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.table = new long[longs];
+        this.sampleSize = 10 * Math.max(1, capacity);
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = 15;
+        for (int i = 0; i < DEPTH; i++) {
+            int counter = counterOf(hash, i);
+            frequency = Math.min(frequency, (int) ((table[counter >>> 4] >>> ((counter & 15) << 2)) & 15));
+        }
+        return frequency;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < DEPTH; i++) {
+            int counter = counterOf(hash, i);
+            int shift = (counter & 15) << 2;
+            long word = table[counter >>> 4];
+            if (((word >>> shift) & 15) < 15) {
+                table[counter >>> 4] = word + (1L << shift);
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) reset();
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) table[i] = (table[i] >>> 1) & RESET_MASK;
+        additions >>>= 1;
+    }
+
+    private int counterOf(int hash, int i) {
+        int h = (hash ^ SEEDS[i]) * SEEDS[(i + 1) & 3];
+        h ^= h >>> 16;
+        return h & ((table.length << 4) - 1);
+    }
+
+    private static int spread(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 15);
+    }
+}
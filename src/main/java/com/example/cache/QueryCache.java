@@ -0,0 +1,260 @@
+package com.example.cache;
+
+import com.example.dto.CacheStats;
+import com.example.dto.ContactCard;
+import com.example.index.ReadSet;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+
+public class QueryCache {
+    /**
+     * A bounded read-through cache of find() results, laid out like W-TinyLFU:
+
+        window      ~1%  LRU, where every new result lands
+        probation   main LRU segment for results that won admission once
+        protected   ~80% of main, results hit again while on probation
+
+     A result evicted from the window only enters the main segments if the FrequencySketch says it is
+     asked for more often than the probation entry it would displace, so a burst of one-off queries cannot
+     flush the popular ones. Hits on probation promote to protected; protected overflow demotes back.
+
+     Each result remembers the ReadSet it was computed from. A write reports every (index, term) its card
+     posts to and the card itself, old and new version: entries that looked up one of those terms, or whose
+     non-term reads (phone, email, suffix array) the card satisfies, are dropped, and nothing else is.
+     A result computed while a write was in flight, or across one, is returned but never cached, since
+     the write may already have invalidated the entry it would have become.
+
+     One monitor guards it all; a hit is a hash lookup and a sketch update, far cheaper than the query.
+     A capacity of zero disables the cache: get() just computes, and writes skip the monitor.
+     **/
+
+    private final int windowCapacity;
+    private final int mainCapacity;
+    private final int protectedCapacity;
+    private final int maxResultSize;
+    private final boolean enabled;
+    private final FrequencySketch sketch;
+
+    private final LinkedHashMap<String, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Entry> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<ReadSet.TermKey, Set<Entry>> byTerm = new HashMap<>();
+    private final Set<Entry> byPredicate = new HashSet<>();
+
+    private long generation;
+    private int activeWrites;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * Holds up to capacity results of at most maxResultSize cards each; larger results are not cached.
+     * Caches nothing if capacity is zero or less.
+     */
+    public QueryCache(int capacity, int maxResultSize) {
+        this.windowCapacity = Math.max(1, capacity / 100);
+        this.mainCapacity = Math.max(1, capacity - windowCapacity);
+        this.protectedCapacity = Math.max(1, mainCapacity * 4 / 5);
+        this.maxResultSize = maxResultSize;
+        this.enabled = capacity > 0;
+        this.sketch = enabled ? new FrequencySketch(capacity) : null;
+    }
+
+    /**
+     * Returns the cached result for key, or computes it with compute, recording what it reads, and caches
+     * it if it is small enough and no write overlapped. Cached results are unmodifiable.
+     */
+    public List<ContactCard> get(String key, Supplier<List<ContactCard>> compute) {
+        if (!enabled) return compute.get();
+        long startGeneration;
+        boolean cacheable;
+        synchronized (this) {
+            sketch.increment(key);
+            Entry entry = lookup(key);
+            if (entry != null) {
+                hits++;
+                return entry.value;
+            }
+            misses++;
+            startGeneration = generation;
+            cacheable = activeWrites == 0;
+        }
+
+        ReadSet reads = ReadSet.begin();
+        List<ContactCard> value;
+        try {
+            value = compute.get();
+        } finally {
+            reads.end();
+        }
+        if (!cacheable || value.size() > maxResultSize) return value;
+        List<ContactCard> result = Collections.unmodifiableList(value);
+        synchronized (this) {
+            if (generation == startGeneration && !contains(key)) admit(new Entry(key, result, reads));
+        }
+        return result;
+    }
+
+    /**
+     * Brackets every write: results computed across the bracket are not cached.
+     */
+    public void writeStarted() {
+        if (!enabled) return;
+        synchronized (this) {
+            activeWrites++;
+            generation++;
+        }
+    }
+
+    public void writeFinished() {
+        if (!enabled) return;
+        synchronized (this) {
+            generation++;
+            activeWrites--;
+        }
+    }
+
+    /**
+     * Drops the results a write of card may have changed; terms are the (index, term) pairs it posts to.
+     */
+    public synchronized void invalidate(ContactCard card, List<ReadSet.TermKey> terms) {
+        if (size() == 0) return;
+        List<Entry> stale = new ArrayList<>();
+        for (Entry entry : byPredicate) {
+            for (Predicate<ContactCard> predicate : entry.predicates) {
+                if (predicate.test(card)) {
+                    stale.add(entry);
+                    break;
+                }
+            }
+        }
+        for (ReadSet.TermKey term : terms) {
+            Set<Entry> dependents = byTerm.get(term);
+            if (dependents != null) stale.addAll(dependents);
+        }
+        for (Entry entry : stale) {
+            if (remove(entry)) invalidations++;
+        }
+    }
+
+    public synchronized void clear() {
+        invalidations += size();
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+        byTerm.clear();
+        byPredicate.clear();
+    }
+
+    public boolean isEmpty() {
+        if (!enabled) return true;
+        synchronized (this) {
+            return size() == 0;
+        }
+    }
+
+    public synchronized CacheStats stats() {
+        long lookups = hits + misses;
+        return CacheStats.builder()
+                .hits(hits)
+                .misses(misses)
+                .hitRate(lookups == 0 ? 0.0 : (double) hits / lookups)
+                .evictions(evictions)
+                .invalidations(invalidations)
+                .size((long) size())
+                .build();
+    }
+
+    private int size() {
+        return window.size() + probation.size() + protectedSegment.size();
+    }
+
+    private boolean contains(String key) {
+        return window.containsKey(key) || probation.containsKey(key) || protectedSegment.containsKey(key);
+    }
+
+    private Entry lookup(String key) {
+        Entry entry = window.get(key);
+        if (entry != null) return entry;
+        entry = protectedSegment.get(key);
+        if (entry != null) return entry;
+        entry = probation.remove(key);
+        if (entry == null) return null;
+        //  a second hit while on probation: promote, demoting protected's least recent if it overflows
+        protectedSegment.put(key, entry);
+        entry.segment = protectedSegment;
+        if (protectedSegment.size() > protectedCapacity) {
+            Entry demoted = eldest(protectedSegment);
+            protectedSegment.remove(demoted.key);
+            probation.put(demoted.key, demoted);
+            demoted.segment = probation;
+        }
+        return entry;
+    }
+
+    private void admit(Entry entry) {
+        window.put(entry.key, entry);
+        entry.segment = window;
+        register(entry);
+        if (window.size() <= windowCapacity) return;
+
+        Entry candidate = eldest(window);
+        window.remove(candidate.key);
+        if (probation.size() + protectedSegment.size() < mainCapacity) {
+            probation.put(candidate.key, candidate);
+            candidate.segment = probation;
+            return;
+        }
+        Entry victim = probation.isEmpty() ? eldest(protectedSegment) : eldest(probation);
+        if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+            remove(victim);
+            probation.put(candidate.key, candidate);
+            candidate.segment = probation;
+        } else {
+            unregister(candidate);
+        }
+        evictions++;
+    }
+
+    private boolean remove(Entry entry) {
+        if (entry.segment == null || entry.segment.remove(entry.key) == null) return false;
+        entry.segment = null;
+        unregister(entry);
+        return true;
+    }
+
+    private void register(Entry entry) {
+        for (ReadSet.TermKey term : entry.terms) byTerm.computeIfAbsent(term, k -> new HashSet<>()).add(entry);
+        if (!entry.predicates.isEmpty()) byPredicate.add(entry);
+    }
+
+    private void unregister(Entry entry) {
+        for (ReadSet.TermKey term : entry.terms) {
+            Set<Entry> dependents = byTerm.get(term);
+            if (dependents != null && dependents.remove(entry) && dependents.isEmpty()) byTerm.remove(term);
+        }
+        byPredicate.remove(entry);
+    }
+
+    private static Entry eldest(LinkedHashMap<String, Entry> segment) {
+        return segment.values().iterator().next();
+    }
+
+    private static final class Entry {
+        final String key;
+        final List<ContactCard> value;
+        final Set<ReadSet.TermKey> terms;
+        final List<Predicate<ContactCard>> predicates;
+        LinkedHashMap<String, Entry> segment;
+
+        Entry(String key, List<ContactCard> value, ReadSet reads) {
+            this.key = key;
+            this.value = value;
+            this.terms = reads.terms();
+            this.predicates = reads.predicates();
+        }
+    }
+}
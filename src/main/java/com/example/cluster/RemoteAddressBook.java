@@ -0,0 +1,243 @@
+package com.example.cluster;
+
+import com.example.addressBook.AddressBook;
+import com.example.dto.AddContactRequest;
+import com.example.dto.CacheStats;
+import com.example.dto.CompactionStats;
+import com.example.dto.ContactCard;
+import com.example.dto.DeletedResponse;
+import com.example.dto.FetchRequest;
+import com.example.dto.IndexStats;
+import com.example.dto.SearchPage;
+import com.example.dto.Suggestion;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+public class RemoteAddressBook implements AddressBook {
+    /**
+     * The part of a partitioned deployment owned by a peer node, reached over HTTP. Every call goes to the
+     * peer's /internal endpoints, which act on that node's own book only and never forward again.
+
+        load / update / delete   ->  POST /internal/load | /internal/update | /internal/delete
+        find / findPage          ->  POST /internal/search | /internal/search/page
+        stream                   ->  POST /internal/search/stream, read back one NDJSON line at a time
+        forEach                  ->  GET  /internal/contacts, NDJSON as for stream
+        compact                  ->  POST /internal/compact
+        suggest                  ->  GET  /internal/suggest?prefix=...&limit=...
+        cacheStats / indexStats  ->  GET  /internal/cache/stats | /internal/index/stats
+
+     Ids are assigned by the node that took the write (see ShardedAddressBook), so a peer is only ever
+     handed cards, never requests: insert and bulkInsert are not supported. Every node also compacts on its
+     own schedule; compact() runs one extra pass on the peer. A 400 from the peer surfaces as
+     IllegalArgumentException, any other failure as UncheckedIOException.
+
+     With a cluster secret configured every call carries it in SECRET_HEADER, and a node refuses /internal
+     calls without it (see InternalController).
+     **/
+
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+
+    private static final TypeReference<List<ContactCard>> CARDS = new TypeReference<>() {
+    };
+
+    private final URI baseUri;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper;
+    private final Duration timeout;
+    private final String secret;
+
+    public RemoteAddressBook(URI baseUri, HttpClient client, ObjectMapper objectMapper, Duration timeout) {
+        this(baseUri, client, objectMapper, timeout, null);
+    }
+
+    /**
+     * As above, sending secret with every call unless it is null.
+     */
+    public RemoteAddressBook(URI baseUri, HttpClient client, ObjectMapper objectMapper, Duration timeout, String secret) {
+        this.baseUri = baseUri;
+        this.client = client;
+        this.objectMapper = objectMapper;
+        this.timeout = timeout;
+        this.secret = secret;
+    }
+
+    @Override
+    public List<ContactCard> insert(List<AddContactRequest> requests) {
+        throw new UnsupportedOperationException("Peers are sent cards with ids; use load()");
+    }
+
+    @Override
+    public List<ContactCard> bulkInsert(List<AddContactRequest> requests) {
+        throw new UnsupportedOperationException("Peers are sent cards with ids; use load()");
+    }
+
+    @Override
+    public List<ContactCard> find(FetchRequest request) {
+        return read(send("/internal/search", request, HttpResponse.BodyHandlers.ofByteArray()), CARDS);
+    }
+
+    @Override
+    public SearchPage findPage(FetchRequest request) {
+        return read(send("/internal/search/page", request, HttpResponse.BodyHandlers.ofByteArray()), new TypeReference<>() {
+        });
+    }
+
+    @Override
+    public void stream(FetchRequest request, Consumer<ContactCard> consumer) {
+        HttpResponse<Stream<String>> response = send("/internal/search/stream", request, HttpResponse.BodyHandlers.ofLines());
+        try (Stream<String> lines = response.body()) {
+            lines.filter(line -> !line.isEmpty()).forEach(line -> consumer.accept(card(line)));
+        }
+    }
+
+    /**
+     * Reads one NDJSON line per card pulled; closing the stream closes the response body.
+     */
+    @Override
+    public Stream<ContactCard> stream(FetchRequest request) {
+        HttpResponse<Stream<String>> response = send("/internal/search/stream", request, HttpResponse.BodyHandlers.ofLines());
+        return response.body().filter(line -> !line.isEmpty()).map(this::card);
+    }
+
+    private ContactCard card(String line) {
+        try {
+            return objectMapper.readValue(line, ContactCard.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Bad contact from " + baseUri, e);
+        }
+    }
+
+    @Override
+    public DeletedResponse delete(List<String> ids) {
+        return read(send("/internal/delete", ids, HttpResponse.BodyHandlers.ofByteArray()), new TypeReference<>() {
+        });
+    }
+
+    @Override
+    public List<ContactCard> update(List<ContactCard> requests) {
+        return read(send("/internal/update", requests, HttpResponse.BodyHandlers.ofByteArray()), CARDS);
+    }
+
+    @Override
+    public void load(List<ContactCard> cards) {
+        send("/internal/load", cards, HttpResponse.BodyHandlers.discarding());
+    }
+
+    @Override
+    public IndexStats indexStats() {
+        return read(send("/internal/index/stats", null, HttpResponse.BodyHandlers.ofByteArray()), new TypeReference<>() {
+        });
+    }
+
+    @Override
+    public void forEach(Consumer<ContactCard> consumer) {
+        HttpResponse<Stream<String>> response = send("/internal/contacts", null, HttpResponse.BodyHandlers.ofLines());
+        try (Stream<String> lines = response.body()) {
+            lines.filter(line -> !line.isEmpty()).forEach(line -> consumer.accept(card(line)));
+        }
+    }
+
+    @Override
+    public CompactionStats compact() {
+        HttpRequest.Builder request = request("/internal/compact").POST(HttpRequest.BodyPublishers.noBody());
+        return read(exchange("/internal/compact", request, HttpResponse.BodyHandlers.ofByteArray()), new TypeReference<>() {
+        });
+    }
+
+    @Override
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String path = "/internal/suggest?prefix=" + URLEncoder.encode(prefix, StandardCharsets.UTF_8) + "&limit=" + limit;
+        return read(send(path, null, HttpResponse.BodyHandlers.ofByteArray()), new TypeReference<>() {
+        });
+    }
+
+    @Override
+    public CacheStats cacheStats() {
+        return read(send("/internal/cache/stats", null, HttpResponse.BodyHandlers.ofByteArray()), new TypeReference<>() {
+        });
+    }
+
+    public URI getBaseUri() {
+        return baseUri;
+    }
+
+    /**
+     * POSTs body as JSON to path, or GETs path when body is null.
+     */
+    private <T> HttpResponse<T> send(String path, Object body, HttpResponse.BodyHandler<T> handler) {
+        HttpRequest.Builder request = request(path);
+        if (body == null) {
+            request.GET();
+        } else {
+            try {
+                request.header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot encode the request to " + baseUri + path, e);
+            }
+        }
+        return exchange(path, request, handler);
+    }
+
+    private HttpRequest.Builder request(String path) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(baseUri.resolve(path)).timeout(timeout);
+        if (secret != null) request.header(SECRET_HEADER, secret);
+        return request;
+    }
+
+    /**
+     * Sends request, mapping a 400 to IllegalArgumentException and any other failure to UncheckedIOException.
+     */
+    private <T> HttpResponse<T> exchange(String path, HttpRequest.Builder request, HttpResponse.BodyHandler<T> handler) {
+        HttpResponse<T> response;
+        try {
+            response = client.send(request.build(), handler);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Peer " + baseUri + " is unreachable", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException("Interrupted while calling peer " + baseUri, new IOException(e));
+        }
+        int status = response.statusCode();
+        if (status == 400) {
+            throw new IllegalArgumentException(errorBody(response));
+        }
+        if (status / 100 != 2) {
+            throw new UncheckedIOException(new IOException("Peer " + baseUri + path + " answered " + status + ": " + errorBody(response)));
+        }
+        return response;
+    }
+
+    private <T> T read(HttpResponse<byte[]> response, TypeReference<T> type) {
+        try {
+            return objectMapper.readValue(response.body(), type);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Bad response from " + baseUri, e);
+        }
+    }
+
+    private static String errorBody(HttpResponse<?> response) {
+        Object body = response.body();
+        if (body instanceof byte[]) return new String((byte[]) body, StandardCharsets.UTF_8);
+        if (body instanceof Stream) {
+            try (Stream<?> lines = (Stream<?>) body) {
+                return lines.map(String::valueOf).collect(Collectors.joining("\n"));
+            }
+        }
+        return "";
+    }
+}
@@ -0,0 +1,375 @@
+package com.example.controller;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+
+final class CborCodec {
+    /**
+     * Hand-written CBOR for the two bulk body shapes, lists of ContactCard and of AddContactRequest, which
+     * Jackson's generic CBOR binding parses slower than it parses JSON. The structure is what Jackson
+     * writes for the same lists, so any CBOR client, Jackson included, reads either:
+
+        list      array, definite length (or indefinite, for /search/stream)
+        contact   map of text keys "id", "name", "email", "phone" to a text string or null; definite length
+                  here, where Jackson writes an indefinite one
+
+     Reading accepts any well-formed CBOR of that shape: definite or indefinite arrays, maps and strings,
+     keys in any order, unknown keys skipped whatever their value. Anything else is an
+     IllegalArgumentException, as a malformed import line is, and so is a contact field over MAX_TEXT_BYTES:
+     the declared length is checked before anything is allocated for it, so a short body cannot make the
+     reader buffer gigabytes.
+     **/
+
+    private static final int UNSIGNED = 0;
+    private static final int NEGATIVE = 1;
+    private static final int BYTES = 2;
+    private static final int TEXT = 3;
+    private static final int ARRAY = 4;
+    private static final int MAP = 5;
+    private static final int TAG = 6;
+    private static final int SIMPLE = 7;
+    private static final int INDEFINITE = 31;
+    private static final int BREAK = 0xff;
+    private static final int NULL = 0xf6;
+    private static final int UNDEFINED = 0xf7;
+
+    private static final byte[][] KEYS = {key("id"), key("name"), key("email"), key("phone")};
+    private static final int ID = 0, NAME = 1, EMAIL = 2, PHONE = 3;
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_DEPTH = 64;
+    static final int MAX_TEXT_BYTES = 64 * 1024;
+
+    private CborCodec() {
+    }
+
+    static void writeCards(OutputStream out, List<?> cards) throws IOException {
+        Writer writer = new Writer(out);
+        writer.head(ARRAY, cards.size());
+        for (Object card : cards) writer.card((ContactCard) card);
+        writer.drain();
+    }
+
+    static List<ContactCard> readCards(InputStream in) throws IOException {
+        return readList(in, fields -> ContactCard.builder()
+                .id(fields[ID])
+                .name(fields[NAME])
+                .email(fields[EMAIL])
+                .phone(fields[PHONE])
+                .build());
+    }
+
+    static List<AddContactRequest> readRequests(InputStream in) throws IOException {
+        //  an "id" is read and dropped, as the JSON binding ignores it
+        return readList(in, fields -> AddContactRequest.builder()
+                .name(fields[NAME])
+                .email(fields[EMAIL])
+                .phone(fields[PHONE])
+                .build());
+    }
+
+    private static <T> List<T> readList(InputStream in, Function<String[], T> build) throws IOException {
+        Reader reader = new Reader(in);
+        int initial = reader.next();
+        if (initial == NULL) return null;
+        if (initial >>> 5 != ARRAY) throw new IllegalArgumentException("Expected an array of contacts");
+        long size = reader.argument(initial);
+        List<T> list = new ArrayList<>((int) Math.min(size < 0 ? 16 : size, 1024));
+        for (long i = 0; size < 0 || i < size; i++) {
+            int head = reader.next();
+            if (size < 0 && head == BREAK) break;
+            list.add(build.apply(reader.contact(head)));
+        }
+        return list;
+    }
+
+    private static byte[] key(String name) {
+        byte[] key = new byte[1 + name.length()];
+        key[0] = (byte) (TEXT << 5 | name.length());
+        System.arraycopy(name.getBytes(StandardCharsets.US_ASCII), 0, key, 1, name.length());
+        return key;
+    }
+
+    /**
+     * Buffers CBOR into an OutputStream; flush() pushes it on to the client.
+     */
+    static final class Writer implements Flushable {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int at;
+
+        Writer(OutputStream out) {
+            this.out = out;
+        }
+
+        void startStream() throws IOException {
+            ensure(1);
+            buffer[at++] = (byte) (ARRAY << 5 | INDEFINITE);
+        }
+
+        void endStream() throws IOException {
+            ensure(1);
+            buffer[at++] = (byte) BREAK;
+        }
+
+        void card(ContactCard card) throws IOException {
+            ensure(1);
+            buffer[at++] = (byte) (MAP << 5 | KEYS.length);
+            field(ID, card.getId());
+            field(NAME, card.getName());
+            field(EMAIL, card.getEmail());
+            field(PHONE, card.getPhone());
+        }
+
+        @Override
+        public void flush() throws IOException {
+            drain();
+            out.flush();
+        }
+
+        void drain() throws IOException {
+            out.write(buffer, 0, at);
+            at = 0;
+        }
+
+        private void field(int key, String value) throws IOException {
+            ensure(KEYS[key].length + 1);
+            System.arraycopy(KEYS[key], 0, buffer, at, KEYS[key].length);
+            at += KEYS[key].length;
+            if (value == null) {
+                buffer[at++] = (byte) NULL;
+            } else {
+                text(value);
+            }
+        }
+
+        private void text(String value) throws IOException {
+            int length = value.length();
+            //  ASCII, which is nearly every field, goes straight into the buffer without a byte[] of its own
+            if (length + 9 <= BUFFER_SIZE && isAscii(value)) {
+                head(TEXT, length);
+                ensure(length);
+                for (int i = 0; i < length; i++) buffer[at++] = (byte) value.charAt(i);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            head(TEXT, bytes.length);
+            if (bytes.length > BUFFER_SIZE - at) {
+                drain();
+                out.write(bytes);
+                return;
+            }
+            System.arraycopy(bytes, 0, buffer, at, bytes.length);
+            at += bytes.length;
+        }
+
+        private void head(int major, long value) throws IOException {
+            ensure(9);
+            if (value < 24) {
+                buffer[at++] = (byte) (major << 5 | value);
+            } else if (value < 1 << 8) {
+                buffer[at++] = (byte) (major << 5 | 24);
+                buffer[at++] = (byte) value;
+            } else if (value < 1 << 16) {
+                buffer[at++] = (byte) (major << 5 | 25);
+                buffer[at++] = (byte) (value >>> 8);
+                buffer[at++] = (byte) value;
+            } else {
+                buffer[at++] = (byte) (major << 5 | 26);
+                for (int shift = 24; shift >= 0; shift -= 8) buffer[at++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (at + bytes > BUFFER_SIZE) drain();
+        }
+
+        private static boolean isAscii(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                if (value.charAt(i) >= 0x80) return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Pulls CBOR off an InputStream through a buffer.
+     */
+    private static final class Reader {
+        private final InputStream in;
+        private byte[] buffer = new byte[BUFFER_SIZE];
+        private int at;
+        private int limit;
+
+        Reader(InputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * Reads one contact map whose initial byte is head, into {id, name, email, phone}.
+         */
+        String[] contact(int head) throws IOException {
+            if (head >>> 5 != MAP) throw new IllegalArgumentException("Expected a contact map");
+            String[] fields = new String[KEYS.length];
+            long size = argument(head);
+            for (long i = 0; size < 0 || i < size; i++) {
+                int key = next();
+                if (size < 0 && key == BREAK) break;
+                int field = field(key);
+                if (field < 0) {
+                    skip(next(), 0);
+                } else {
+                    fields[field] = text(next());
+                }
+            }
+            return fields;
+        }
+
+        int next() throws IOException {
+            if (at == limit && !fill(1)) throw new IllegalArgumentException("Truncated CBOR body");
+            return buffer[at++] & 0xff;
+        }
+
+        /**
+         * The argument of a string, array or map head: a length or count, or -1 for an indefinite length.
+         * Other heads carry values, which skip() steps over without reading.
+         */
+        long argument(int head) throws IOException {
+            int info = head & 0x1f;
+            if (info < 24) return info;
+            if (info == INDEFINITE) return -1;
+            if (info > 27) throw new IllegalArgumentException("Malformed CBOR head " + head);
+            long value = 0;
+            for (int i = 0; i < 1 << (info - 24); i++) value = value << 8 | next();
+            //  2^63 and up would wrap to the -1 that only info 31 may mean
+            if (value < 0) throw new IllegalArgumentException("CBOR argument out of range");
+            return value;
+        }
+
+        /**
+         * Index into KEYS of a text key, or -1 for any other key, which is then consumed and its value
+         * must be skipped.
+         */
+        private int field(int head) throws IOException {
+            if (head >>> 5 == TEXT && (head & 0x1f) < 24) {
+                int length = head & 0x1f;
+                if (limit - at < length && !fill(length)) throw new IllegalArgumentException("Truncated CBOR body");
+                for (int k = 0; k < KEYS.length; k++) {
+                    byte[] key = KEYS[k];
+                    if (key[0] != (byte) head) continue;
+                    int i = 1;
+                    while (i < key.length && key[i] == buffer[at + i - 1]) i++;
+                    if (i == key.length) {
+                        at += length;
+                        return k;
+                    }
+                }
+                at += length;
+                return -1;
+            }
+            skip(head, 0);
+            return -1;
+        }
+
+        private String text(int head) throws IOException {
+            if (head == NULL || head == UNDEFINED) return null;
+            if (head >>> 5 != TEXT) throw new IllegalArgumentException("Contact fields must be text or null");
+            long length = argument(head);
+            if (length < 0) {
+                //  indefinite: a run of definite chunks up to a break
+                StringBuilder chunks = new StringBuilder();
+                for (int chunk = next(); chunk != BREAK; chunk = next()) {
+                    if (chunk >>> 5 != TEXT || (chunk & 0x1f) == INDEFINITE) throw new IllegalArgumentException("Malformed text chunk");
+                    chunks.append(text(chunk));
+                    //  a string never has more chars than UTF-8 bytes, so this only rejects what is over the cap
+                    if (chunks.length() > MAX_TEXT_BYTES) throw new IllegalArgumentException(tooLong());
+                }
+                return chunks.toString();
+            }
+            if (length > MAX_TEXT_BYTES) throw new IllegalArgumentException(tooLong());
+            int n = (int) length;
+            if (limit - at < n && !fill(n)) throw new IllegalArgumentException("Truncated CBOR body");
+            boolean ascii = true;
+            for (int i = at; i < at + n && ascii; i++) ascii = buffer[i] >= 0;
+            String value = new String(buffer, at, n, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+            at += n;
+            return value;
+        }
+
+        private static String tooLong() {
+            return "Contact fields are limited to " + MAX_TEXT_BYTES + " bytes";
+        }
+
+        private void skip(int head, int depth) throws IOException {
+            if (depth > MAX_DEPTH) throw new IllegalArgumentException("CBOR nested too deeply");
+            int major = head >>> 5;
+            int info = head & 0x1f;
+            if (major == UNSIGNED || major == NEGATIVE || major == TAG || major == SIMPLE) {
+                //  the argument is a value, any 64 bits of it valid (a uint64 past 2^63, a negative float64),
+                //  so it is stepped over by its width; a break here is out of place
+                if (info > 27) throw new IllegalArgumentException("Malformed CBOR head " + head);
+                if (info >= 24) skipBytes(1 << (info - 24));
+                if (major == TAG) skip(next(), depth + 1);
+                return;
+            }
+            long argument = argument(head);
+            switch (major) {
+                case BYTES:
+                case TEXT:
+                    if (argument < 0) {
+                        for (int chunk = next(); chunk != BREAK; chunk = next()) skip(chunk, depth + 1);
+                        return;
+                    }
+                    skipBytes(argument);
+                    return;
+                default:
+                    long items = major == MAP && argument >= 0 ? 2 * argument : argument;
+                    for (long i = 0; items < 0 || i < items; i++) {
+                        int item = next();
+                        if (items < 0 && item == BREAK) break;
+                        skip(item, depth + 1);
+                    }
+            }
+        }
+
+        private void skipBytes(long count) throws IOException {
+            for (long left = count; left > 0; ) {
+                if (at == limit && !fill(1)) throw new IllegalArgumentException("Truncated CBOR body");
+                int step = (int) Math.min(left, limit - at);
+                at += step;
+                left -= step;
+            }
+        }
+
+        /**
+         * Makes at least bytes unread bytes available, growing the buffer for a long string (at most
+         * MAX_TEXT_BYTES); false at end of input.
+         */
+        private boolean fill(int bytes) throws IOException {
+            if (at > 0) {
+                System.arraycopy(buffer, at, buffer, 0, limit - at);
+                limit -= at;
+                at = 0;
+            }
+            if (bytes > buffer.length) {
+                byte[] grown = new byte[Math.max(bytes, 2 * buffer.length)];
+                System.arraycopy(buffer, 0, grown, 0, limit);
+                buffer = grown;
+            }
+            while (limit < bytes) {
+                int read = in.read(buffer, limit, buffer.length - limit);
+                if (read < 0) return false;
+                limit += read;
+            }
+            return true;
+        }
+    }
+}
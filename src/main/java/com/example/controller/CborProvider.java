@@ -0,0 +1,100 @@
+package com.example.controller;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+
+@Provider
+@Produces(Controller.CBOR)
+@Consumes(Controller.CBOR)
+public class CborProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+    /**
+     * Request and response bodies as CBOR (RFC 8949), for clients that send Content-Type or Accept
+     * application/cbor; JSON stays the default. The DTOs go through the same Jackson bindings as the JSON
+     * bodies, so field names and nulls are the same in both and only the encoding differs:
+
+        strings   length-prefixed UTF-8: nothing to escape on the way out or scan for quotes on the way in
+        numbers   binary, not decimal text
+        bodies    encoded straight into the entity stream, element by element, with no intermediate byte[]
+
+     Lists of ContactCard and AddContactRequest, the /create, /search and /update bodies, go through
+     CborCodec instead of the mapper: same bytes, read and written without data binding. A body that does
+     not decode is a 400, as it is for JSON.
+     **/
+
+    static final CBORMapper MAPPER = CBORMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            //  the entity streams belong to the server
+            .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return !InputStream.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+        try {
+            Type element = listElement(genericType);
+            if (element == ContactCard.class) return CborCodec.readCards(entityStream);
+            if (element == AddContactRequest.class) return CborCodec.readRequests(entityStream);
+            return MAPPER.readValue(entityStream, MAPPER.constructType(genericType));
+        } catch (JsonProcessingException e) {
+            throw badRequest(e.getOriginalMessage());
+        } catch (IllegalArgumentException e) {
+            throw badRequest(e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        //  a StreamingOutput writes its own bytes, as /search/stream does
+        return !StreamingOutput.class.isAssignableFrom(type) && !InputStream.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void writeTo(Object value, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        if (value instanceof List && !((List<?>) value).isEmpty() && ((List<?>) value).get(0) instanceof ContactCard) {
+            CborCodec.writeCards(entityStream, (List<?>) value);
+            return;
+        }
+        MAPPER.writeValue(entityStream, value);
+    }
+
+    private static Type listElement(Type type) {
+        if (!(type instanceof ParameterizedType) || ((ParameterizedType) type).getRawType() != List.class) return null;
+        return ((ParameterizedType) type).getActualTypeArguments()[0];
+    }
+
+    private static WebApplicationException badRequest(String reason) {
+        return new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
+                .entity("Malformed CBOR body: " + reason)
+                .build());
+    }
+}
@@ -4,21 +4,39 @@ import com.example.dto.AddContactRequest;
 import com.example.dto.ContactCard;
 import com.example.dto.DeletedResponse;
 import com.example.dto.FetchRequest;
+import com.example.dto.ImportResponse;
+import com.example.dto.SearchPage;
 import com.example.service.AddressBookAdapter;
+import com.example.service.ContactReader;
+import com.example.utils.Utils;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 
 @Path("/")
-@Produces(MediaType.APPLICATION_JSON)
-@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, Controller.CBOR})
+@Consumes({MediaType.APPLICATION_JSON, Controller.CBOR})
 public class Controller {
+    static final String NDJSON = "application/x-ndjson";
+    static final String CBOR = "application/cbor";
+    private static final String CSV = "text/csv";
+    private static final int STREAM_FLUSH_INTERVAL = 256;
+
     @Inject
     AddressBookAdapter addressBookAdapter;
 
+    @Inject
+    ObjectMapper objectMapper;
+
     @POST
     @Path("/create")
     public Response addContacts(List<AddContactRequest> requests) {
@@ -26,18 +44,87 @@ public class Controller {
         return Response.status(Response.Status.CREATED).entity(added).build();
     }
 
+    @POST
+    @Path("/import")
+    @Consumes(NDJSON)
+    public Response importNdjson(InputStream body) {
+        return importContacts(ContactReader.ndjson(body, objectMapper));
+    }
+
+    @POST
+    @Path("/import")
+    @Consumes(CSV)
+    public Response importCsv(InputStream body) {
+        return importContacts(ContactReader.csv(body));
+    }
+
     @POST
     @Path("/search")
     public Response searchContacts(FetchRequest query) {
-        if (query == null || query.getQuery() == null || query.getQuery().isEmpty()) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                    .entity("Query parameter 'query' is required")
-                    .build();
-        }
-        List<ContactCard> results = addressBookAdapter.find(new FetchRequest(query.getQuery()));
+        Response invalid = validate(query);
+        if (invalid != null) return invalid;
+        List<ContactCard> results = addressBookAdapter.find(FetchRequest.builder()
+                .query(query.getQuery())
+                .operator(query.getOperator())
+                .maxEdits(query.getMaxEdits())
+                .limit(query.getLimit())
+                .build());
         return Response.ok(results).build();
     }
 
+    @POST
+    @Path("/search/page")
+    public Response searchContactsPage(FetchRequest query) {
+        Response invalid = validate(query);
+        if (invalid != null) return invalid;
+        try {
+            SearchPage page = addressBookAdapter.findPage(query);
+            return Response.ok(page).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+    }
+
+    @GET
+    @Path("/suggest")
+    public Response suggest(@QueryParam("prefix") String prefix, @QueryParam("limit") @DefaultValue("10") int limit) {
+        try {
+            return Response.ok(addressBookAdapter.suggest(prefix, limit)).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+    }
+
+    @POST
+    @Path("/search/stream")
+    @Produces(NDJSON)
+    public Response streamContacts(FetchRequest query) {
+        Response invalid = validate(query);
+        if (invalid != null) return invalid;
+        StreamingOutput body = output -> stream(query, output, card -> {
+            output.write(objectMapper.writeValueAsBytes(card));
+            output.write('\n');
+        });
+        return Response.ok(body, NDJSON).build();
+    }
+
+    @POST
+    @Path("/search/stream")
+    @Produces(CBOR)
+    public Response streamContactsCbor(FetchRequest query) {
+        Response invalid = validate(query);
+        if (invalid != null) return invalid;
+        StreamingOutput body = output -> {
+            //  one indefinite-length array, so the first card goes out before the last one is found
+            CborCodec.Writer writer = new CborCodec.Writer(output);
+            writer.startStream();
+            stream(query, writer, writer::card);
+            writer.endStream();
+            writer.flush();
+        };
+        return Response.ok(body, CBOR).build();
+    }
+
     @PUT
     @Path("/update")
     public Response updateContacts(List<ContactCard> requests) {
@@ -51,4 +138,77 @@ public class Controller {
         DeletedResponse response = addressBookAdapter.delete(ids);
         return Response.ok(response).build();
     }
+
+    @GET
+    @Path("/cache/stats")
+    public Response cacheStats() {
+        return Response.ok(addressBookAdapter.cacheStats()).build();
+    }
+
+    @POST
+    @Path("/index/compact")
+    public Response compact() {
+        return Response.ok(addressBookAdapter.compact()).build();
+    }
+
+    /**
+     * Hands each match to writer, flushing out after the first and then every STREAM_FLUSH_INTERVAL.
+     */
+    private void stream(FetchRequest query, Flushable out, CardWriter writer) throws IOException {
+        int[] written = new int[1];
+        try {
+            addressBookAdapter.stream(query, card -> {
+                try {
+                    writer.write(card);
+                    //  get the first match to the client right away, then flush in batches
+                    if (written[0]++ % STREAM_FLUSH_INTERVAL == 0) out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+
+    private interface CardWriter {
+        void write(ContactCard card) throws IOException;
+    }
+
+    private Response importContacts(ContactReader contacts) {
+        try {
+            long imported = addressBookAdapter.importContacts(contacts);
+            return Response.status(Response.Status.CREATED).entity(ImportResponse.builder().imported(imported).build()).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+    }
+
+    static Response validate(FetchRequest query) {
+        if (query == null || query.getQuery() == null || query.getQuery().isEmpty()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Query parameter 'query' is required")
+                    .build();
+        }
+        if (query.getLimit() != null && query.getLimit() < 1) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Parameter 'limit' must be positive")
+                    .build();
+        }
+        if (query.getMaxEdits() != null && query.getMaxEdits() != 0) {
+            if (query.getMaxEdits() < 0 || query.getMaxEdits() > FetchRequest.MAX_EDITS) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("Parameter 'maxEdits' must be between 0 and " + FetchRequest.MAX_EDITS)
+                        .build();
+            }
+            //  the length FuzzySearch sees: the case-folded pattern, which only this check may reject
+            if (Utils.foldCase(query.getQuery()).length() > FetchRequest.MAX_FUZZY_QUERY_LENGTH) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("Fuzzy queries are limited to " + FetchRequest.MAX_FUZZY_QUERY_LENGTH + " characters")
+                        .build();
+            }
+        }
+        return null;
+    }
 }
@@ -0,0 +1,171 @@
+package com.example.controller;
+
+import com.example.addressBook.AddressBook;
+import com.example.cluster.RemoteAddressBook;
+import com.example.dto.ContactCard;
+import com.example.dto.FetchRequest;
+import com.example.service.AddressBookAdapter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+
+@Path("/internal")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class InternalController {
+    /**
+     * Node-to-node endpoints of a partitioned deployment (see RemoteAddressBook). They act on this node's
+     * own contacts only, so a request forwarded by a peer is never forwarded again. Not meant for clients.
+
+     They share the public port, so they are guarded: a node that is not partitioned answers 404 as if they
+     did not exist, and one with address.book.cluster.secret set answers 403 to any call that does not send
+     it in RemoteAddressBook.SECRET_HEADER. Without a secret any client that reaches the port can load,
+     update and delete contacts here, so keep such a cluster on a private network.
+     **/
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    @Inject
+    AddressBookAdapter addressBookAdapter;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @POST
+    @Path("/load")
+    public Response load(List<ContactCard> cards, @HeaderParam(RemoteAddressBook.SECRET_HEADER) String secret) {
+        Response refused = refused(secret);
+        if (refused != null) return refused;
+        local().load(cards);
+        return Response.noContent().build();
+    }
+
+    @POST
+    @Path("/search")
+    public Response search(FetchRequest query, @HeaderParam(RemoteAddressBook.SECRET_HEADER) String secret) {
+        Response refused = refused(secret);
+        if (refused != null) return refused;
+        return Response.ok(local().find(query)).build();
+    }
+
+    @POST
+    @Path("/search/page")
+    public Response searchPage(FetchRequest query, @HeaderParam(RemoteAddressBook.SECRET_HEADER) String secret) {
+        Response refused = refused(secret);
+        if (refused != null) return refused;
+        try {
+            return Response.ok(local().findPage(query)).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+    }
+
+    @POST
+    @Path("/search/stream")
+    @Produces(NDJSON)
+    public Response stream(FetchRequest query, @HeaderParam(RemoteAddressBook.SECRET_HEADER) String secret) {
+        Response refused = refused(secret);
+        if (refused != null) return refused;
+        return Response.ok(ndjson(consumer -> local().stream(query, consumer)), NDJSON).build();
+    }
+
+    @GET
+    @Path("/contacts")
+    @Produces(NDJSON)
+    public Response contacts(@HeaderParam(RemoteAddressBook.SECRET_HEADER) String secret) {
+        Response refused = refused(secret);
+        if (refused != null) return refused;
+        return Response.ok(ndjson(consumer -> local().forEach(consumer)), NDJSON).build();
+    }
+
+    @POST
+    @Path("/compact")
+    public Response compact(@HeaderParam(RemoteAddressBook.SECRET_HEADER) String secret) {
+        Response refused = refused(secret);
+        if (refused != null) return refused;
+        return Response.ok(addressBookAdapter.compact()).build();
+    }
+
+    @POST
+    @Path("/update")
+    public Response update(List<ContactCard> requests, @HeaderParam(RemoteAddressBook.SECRET_HEADER) String secret) {
+        Response refused = refused(secret);
+        if (refused != null) return refused;
+        return Response.ok(local().update(requests)).build();
+    }
+
+    @POST
+    @Path("/delete")
+    public Response delete(List<String> ids, @HeaderParam(RemoteAddressBook.SECRET_HEADER) String secret) {
+        Response refused = refused(secret);
+        if (refused != null) return refused;
+        return Response.ok(local().delete(ids)).build();
+    }
+
+    @GET
+    @Path("/suggest")
+    public Response suggest(@QueryParam("prefix") String prefix, @QueryParam("limit") int limit,
+                            @HeaderParam(RemoteAddressBook.SECRET_HEADER) String secret) {
+        Response refused = refused(secret);
+        if (refused != null) return refused;
+        return Response.ok(local().suggest(prefix, limit)).build();
+    }
+
+    @GET
+    @Path("/cache/stats")
+    public Response cacheStats(@HeaderParam(RemoteAddressBook.SECRET_HEADER) String secret) {
+        Response refused = refused(secret);
+        if (refused != null) return refused;
+        return Response.ok(local().cacheStats()).build();
+    }
+
+    @GET
+    @Path("/index/stats")
+    public Response indexStats(@HeaderParam(RemoteAddressBook.SECRET_HEADER) String secret) {
+        Response refused = refused(secret);
+        if (refused != null) return refused;
+        return Response.ok(local().indexStats()).build();
+    }
+
+    /**
+     * Writes each card cards hands out as one line of JSON.
+     */
+    private StreamingOutput ndjson(Consumer<Consumer<ContactCard>> cards) {
+        return output -> {
+            try {
+                cards.accept(card -> {
+                    try {
+                        output.write(objectMapper.writeValueAsBytes(card));
+                        output.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            output.flush();
+        };
+    }
+
+    /**
+     * 404 on a node that is not partitioned, 403 for a caller without the cluster secret; null if allowed.
+     */
+    private Response refused(String secret) {
+        if (!addressBookAdapter.isPartitioned()) return Response.status(Response.Status.NOT_FOUND).build();
+        if (!addressBookAdapter.acceptsPeer(secret)) return Response.status(Response.Status.FORBIDDEN).build();
+        return null;
+    }
+
+    private AddressBook local() {
+        return addressBookAdapter.local();
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.controller;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.example.dto.FetchRequest;
+import com.example.service.ReactiveAddressBook;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.jboss.resteasy.reactive.RestStreamElementType;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+
+@Path("/reactive")
+@Produces({MediaType.APPLICATION_JSON, Controller.CBOR})
+@Consumes({MediaType.APPLICATION_JSON, Controller.CBOR})
+public class ReactiveController {
+    /**
+     * The Controller endpoints again, returning Uni/Multi so they run on the event loop and hand the
+     * engine work to ReactiveAddressBook's worker pool. Same request and response bodies; invalid input
+     * is a 400, and a 503 with Retry-After means too many requests are already in flight.
+     **/
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    @Inject
+    ReactiveAddressBook reactiveAddressBook;
+
+    @POST
+    @Path("/create")
+    public Uni<Response> addContacts(List<AddContactRequest> requests) {
+        return respond(reactiveAddressBook.insert(requests)
+                .onItem().transform(added -> Response.status(Response.Status.CREATED).entity(added).build()));
+    }
+
+    @POST
+    @Path("/search")
+    public Uni<Response> searchContacts(FetchRequest query) {
+        Response invalid = Controller.validate(query);
+        if (invalid != null) return Uni.createFrom().item(invalid);
+        return respond(reactiveAddressBook.find(FetchRequest.builder()
+                        .query(query.getQuery())
+                        .operator(query.getOperator())
+                        .maxEdits(query.getMaxEdits())
+                        .limit(query.getLimit())
+                        .build())
+                .onItem().transform(results -> Response.ok(results).build()));
+    }
+
+    @POST
+    @Path("/search/page")
+    public Uni<Response> searchContactsPage(FetchRequest query) {
+        Response invalid = Controller.validate(query);
+        if (invalid != null) return Uni.createFrom().item(invalid);
+        return respond(reactiveAddressBook.findPage(query).onItem().transform(page -> Response.ok(page).build()));
+    }
+
+    @GET
+    @Path("/suggest")
+    public Uni<Response> suggest(@QueryParam("prefix") String prefix, @QueryParam("limit") @DefaultValue("10") int limit) {
+        return respond(reactiveAddressBook.suggest(prefix, limit).onItem().transform(suggestions -> Response.ok(suggestions).build()));
+    }
+
+    @POST
+    @Path("/search/stream")
+    @Produces(Controller.NDJSON)
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    public Multi<ContactCard> streamContacts(FetchRequest query) {
+        Response invalid = Controller.validate(query);
+        if (invalid != null) throw new WebApplicationException(invalid);
+        try {
+            return reactiveAddressBook.stream(query);
+        } catch (RejectedExecutionException e) {
+            throw new WebApplicationException(unavailable(e));
+        }
+    }
+
+    @PUT
+    @Path("/update")
+    public Uni<Response> updateContacts(List<ContactCard> requests) {
+        return respond(reactiveAddressBook.update(requests).onItem().transform(updated -> Response.ok(updated).build()));
+    }
+
+    @DELETE
+    @Path("/delete")
+    public Uni<Response> deleteContacts(List<String> ids) {
+        return respond(reactiveAddressBook.delete(ids).onItem().transform(deleted -> Response.ok(deleted).build()));
+    }
+
+    private static Uni<Response> respond(Uni<Response> response) {
+        return response
+                .onFailure(IllegalArgumentException.class)
+                .recoverWithItem(e -> Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build())
+                .onFailure(RejectedExecutionException.class)
+                .recoverWithItem(ReactiveController::unavailable);
+    }
+
+    private static Response unavailable(Throwable e) {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header("Retry-After", RETRY_AFTER_SECONDS)
+                .entity(e.getMessage())
+                .build();
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.dto;
+
+import lombok.*;
+
+@Builder
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CacheStats {
+    private Long hits;
+    private Long misses;
+    //  hits / (hits + misses), 0 before the first lookup
+    private Double hitRate;
+    //  entries dropped to make room, as chosen by the admission policy
+    private Long evictions;
+    //  entries dropped because a write touched something they were computed from
+    private Long invalidations;
+    private Long size;
+}
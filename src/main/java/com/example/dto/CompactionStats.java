@@ -0,0 +1,19 @@
+package com.example.dto;
+
+import lombok.*;
+
+@Builder
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CompactionStats {
+    //  postings of deleted or superseded ordinals that were swept out
+    private Long deadPostings;
+    //  terms (and phone trie nodes) left without postings and unlinked
+    private Long emptyTerms;
+    //  posting lists republished with no spare capacity, in the smaller of array and bitmap
+    private Long listsRebuilt;
+    private Long reclaimedBytes;
+    private Long durationMillis;
+}
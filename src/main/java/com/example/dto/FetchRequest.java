@@ -1,5 +1,6 @@
 package com.example.dto;
 
+import com.example.enums.QueryOperator;
 import lombok.*;
 
 @Builder
@@ -8,5 +9,20 @@ import lombok.*;
 @AllArgsConstructor
 @NoArgsConstructor
 public class FetchRequest {
+    public static final int MAX_EDITS = 3;
+    public static final int MAX_FUZZY_QUERY_LENGTH = 64;
+
     private String query;
+    //  optional: split query on whitespace and combine the terms; null matches the query as one term
+    private QueryOperator operator;
+    //  optional: typo tolerance, the Levenshtein edits (0-3) allowed between a term and the matched text
+    private Integer maxEdits;
+    //  optional: return only the best `limit` matches, ranked; null returns every match
+    private Integer limit;
+    //  opaque position returned by /search/page; null starts from the first match
+    private String cursor;
+
+    public FetchRequest(String query) {
+        this.query = query;
+    }
 }
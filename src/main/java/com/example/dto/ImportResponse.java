@@ -0,0 +1,12 @@
+package com.example.dto;
+
+import lombok.*;
+
+@Builder
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportResponse {
+    private Long imported;
+}
@@ -0,0 +1,19 @@
+package com.example.dto;
+
+import lombok.*;
+
+@Builder
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class IndexStats {
+    private Long contacts;
+    //  distinct terms per index layer, summed over the term indexes
+    private Long terms;
+    private Long postings;
+    //  stored cards plus in-memory index structures; mapped index segments are off heap and not counted
+    private Long estimatedHeapBytes;
+    //  slot i: posting lists holding 2^i to 2^(i+1) - 1 ordinals
+    private long[] postingLengths;
+}
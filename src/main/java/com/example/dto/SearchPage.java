@@ -0,0 +1,15 @@
+package com.example.dto;
+
+import lombok.*;
+import java.util.List;
+
+@Builder
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class SearchPage {
+    private List<ContactCard> contacts;
+    //  pass back as FetchRequest.cursor for the next page; null on the last page
+    private String nextCursor;
+}
@@ -0,0 +1,15 @@
+package com.example.dto;
+
+import lombok.*;
+
+@Builder
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class Suggestion {
+    //  a lowercased name, word of a name, or email that starts with the typed prefix
+    private String text;
+    //  how many contacts it completes to
+    private Integer count;
+}
@@ -8,7 +8,8 @@ import java.util.Map;
 public enum AddressBookImplType {
     FULL_TOKENIZATION,
     K_GRAM_PLUS_INVERTED_INDEX,
-    K_GRAM_PLUS_PARTIAL_TOKENIZATION;
+    K_GRAM_PLUS_PARTIAL_TOKENIZATION,
+    SUFFIX_ARRAY;
 
     private static final Map<String, AddressBookImplType> stringToTypeMap = new HashMap<>();
 
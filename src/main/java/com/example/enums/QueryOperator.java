@@ -0,0 +1,9 @@
+package com.example.enums;
+
+
+public enum QueryOperator {
+    //  every whitespace-separated term must match
+    AND,
+    //  any whitespace-separated term may match
+    OR
+}
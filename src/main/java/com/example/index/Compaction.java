@@ -0,0 +1,59 @@
+package com.example.index;
+
+import com.example.dto.CompactionStats;
+import java.util.function.IntPredicate;
+
+
+public final class Compaction {
+    /**
+     * One compaction pass over a book's indexes: knows which ordinals are dead and tallies what the
+     * structures it visits give back. Each structure compacts one posting list (or trie node) at a time
+     * under that list's own lock, so a writer of the same term waits for at most one list copy and a
+     * reader, working on published snapshots, never waits at all.
+     **/
+
+    private final IntPredicate dead;
+    private long deadPostings;
+    private long emptyTerms;
+    private long listsRebuilt;
+    private long reclaimedBytes;
+
+    /**
+     * dead must only answer true for ordinals that can never be live again.
+     */
+    public Compaction(IntPredicate dead) {
+        this.dead = dead;
+    }
+
+    boolean isDead(int ordinal) {
+        return dead.test(ordinal);
+    }
+
+    void rebuilt(long bytes, int droppedPostings) {
+        listsRebuilt++;
+        reclaimedBytes += bytes;
+        deadPostings += droppedPostings;
+    }
+
+    void unlinked(long bytes) {
+        emptyTerms++;
+        reclaimedBytes += bytes;
+    }
+
+    /**
+     * A TermFilter was rebuilt over the live terms; bytes is what it shrank by, if anything.
+     */
+    void filterRebuilt(long bytes) {
+        reclaimedBytes += Math.max(0, bytes);
+    }
+
+    public CompactionStats stats(long durationMillis) {
+        return CompactionStats.builder()
+                .deadPostings(deadPostings)
+                .emptyTerms(emptyTerms)
+                .listsRebuilt(listsRebuilt)
+                .reclaimedBytes(reclaimedBytes)
+                .durationMillis(durationMillis)
+                .build();
+    }
+}
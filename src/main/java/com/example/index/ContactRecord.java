@@ -0,0 +1,220 @@
+package com.example.index;
+
+import com.example.dto.ContactCard;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+
+final class ContactRecord {
+    /**
+     * A contact packed into one byte[], the form ContactStore keeps it in; a ContactCard is only built when
+     * something asks for one.
+
+        record   [byte flags] [long msb][long lsb] if the id is a UUID   field(id) otherwise
+                 field(name) field(email) field(phone)
+        field    varint (byte length + 1, 0 for null) then the bytes
+        flags    UUID_ID  the id is a canonical lowercase UUID, kept as its two longs
+                 UTF_8    some char does not fit Latin-1, so every field is UTF-8; otherwise one byte a char
+
+     Against a card of five objects and four Strings (about 300 bytes for a typical contact) a record is
+     one array of about 80, and its fields sit next to each other in memory.
+     **/
+
+    private static final int UUID_ID = 1;
+    private static final int UTF_8 = 2;
+    private static final int UUID_LENGTH = 36;
+
+    private ContactRecord() {
+    }
+
+    static byte[] encode(ContactCard card) {
+        String id = card.getId();
+        boolean uuid = isCanonicalUuid(id);
+        boolean latin1 = isLatin1(id) && isLatin1(card.getName()) && isLatin1(card.getEmail()) && isLatin1(card.getPhone());
+        byte[][] utf8 = latin1 ? null : new byte[][]{
+                uuid ? null : bytes(id), bytes(card.getName()), bytes(card.getEmail()), bytes(card.getPhone())};
+        String[] fields = {uuid ? null : id, card.getName(), card.getEmail(), card.getPhone()};
+
+        int size = 1 + (uuid ? 2 * Long.BYTES : 0);
+        for (int f = uuid ? 1 : 0; f < fields.length; f++) {
+            int length = latin1 ? length(fields[f]) : utf8[f] == null ? -1 : utf8[f].length;
+            size += varintSize(length + 1) + Math.max(0, length);
+        }
+        byte[] record = new byte[size];
+        record[0] = (byte) ((uuid ? UUID_ID : 0) | (latin1 ? 0 : UTF_8));
+        int at = 1;
+        if (uuid) {
+            at = putLong(record, at, uuidHigh(id));
+            at = putLong(record, at, uuidLow(id));
+        }
+        for (int f = uuid ? 1 : 0; f < fields.length; f++) {
+            String value = fields[f];
+            if (value == null) {
+                record[at++] = 0;
+            } else if (latin1) {
+                at = putVarint(record, at, value.length() + 1);
+                for (int i = 0; i < value.length(); i++) record[at++] = (byte) value.charAt(i);
+            } else {
+                at = putVarint(record, at, utf8[f].length + 1);
+                System.arraycopy(utf8[f], 0, record, at, utf8[f].length);
+                at += utf8[f].length;
+            }
+        }
+        return record;
+    }
+
+    static ContactCard decode(byte[] record) {
+        int flags = record[0];
+        int[] at = {1};
+        String id;
+        if ((flags & UUID_ID) != 0) {
+            id = new UUID(getLong(record, 1), getLong(record, 9)).toString();
+            at[0] = 1 + 2 * Long.BYTES;
+        } else {
+            id = field(record, at, flags);
+        }
+        return ContactCard.builder()
+                .id(id)
+                .name(field(record, at, flags))
+                .email(field(record, at, flags))
+                .phone(field(record, at, flags))
+                .build();
+    }
+
+    /**
+     * Points view at the name, email and phone of record, without copying them out.
+     */
+    static void view(byte[] record, ContactView view) {
+        int flags = record[0];
+        int[] at = {1};
+        if ((flags & UUID_ID) != 0) {
+            at[0] = 1 + 2 * Long.BYTES;
+        } else {
+            int idLength = varint(record, at) - 1;
+            at[0] += Math.max(0, idLength);
+        }
+        boolean utf8 = (flags & UTF_8) != 0;
+        point(view.name, record, at, utf8);
+        point(view.email, record, at, utf8);
+        point(view.phone, record, at, utf8);
+    }
+
+    static boolean hasUuidId(byte[] record) {
+        return (record[0] & UUID_ID) != 0;
+    }
+
+    static long idHigh(byte[] record) {
+        return getLong(record, 1);
+    }
+
+    static long idLow(byte[] record) {
+        return getLong(record, 9);
+    }
+
+    /**
+     * The id of a record without a UUID id.
+     */
+    static String id(byte[] record) {
+        return field(record, new int[]{1}, record[0]);
+    }
+
+    /**
+     * True for ids written the way Utils.generateId() writes them; only those are kept as two longs, so
+     * that any other id still reads back exactly as it was given.
+     */
+    static boolean isCanonicalUuid(String id) {
+        if (id == null || id.length() != UUID_LENGTH) return false;
+        for (int i = 0; i < UUID_LENGTH; i++) {
+            char c = id.charAt(i);
+            boolean dash = i == 8 || i == 13 || i == 18 || i == 23;
+            if (dash ? c != '-' : !((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) return false;
+        }
+        return true;
+    }
+
+    static long uuidHigh(String id) {
+        return parseHex(id, 0, 8) << 32 | parseHex(id, 9, 13) << 16 | parseHex(id, 14, 18);
+    }
+
+    static long uuidLow(String id) {
+        return parseHex(id, 19, 23) << 48 | parseHex(id, 24, 36);
+    }
+
+    private static String field(byte[] record, int[] at, int flags) {
+        int length = varint(record, at);
+        if (length == 0) return null;
+        length--;
+        String value = new String(record, at[0], length, (flags & UTF_8) != 0 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+        at[0] += length;
+        return value;
+    }
+
+    private static void point(ContactView.Field field, byte[] record, int[] at, boolean utf8) {
+        int length = varint(record, at) - 1;
+        field.point(record, at[0], length, utf8);
+        at[0] += Math.max(0, length);
+    }
+
+    private static int varint(byte[] record, int[] at) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = record[at[0]++];
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private static long parseHex(String s, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) == '-') continue;
+            value = value << 4 | Character.digit(s.charAt(i), 16);
+        }
+        return value;
+    }
+
+    private static boolean isLatin1(String value) {
+        if (value == null) return true;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xff) return false;
+        }
+        return true;
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(String value) {
+        return value == null ? -1 : value.length();
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) size++;
+        return size;
+    }
+
+    private static int putVarint(byte[] record, int at, int value) {
+        while ((value & ~0x7f) != 0) {
+            record[at++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        record[at++] = (byte) value;
+        return at;
+    }
+
+    private static int putLong(byte[] record, int at, long value) {
+        for (int i = 7; i >= 0; i--) record[at++] = (byte) (value >>> (8 * i));
+        return at;
+    }
+
+    private static long getLong(byte[] record, int at) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) value = value << 8 | (record[at + i] & 0xff);
+        return value;
+    }
+}
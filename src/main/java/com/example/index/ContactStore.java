@@ -0,0 +1,309 @@
+package com.example.index;
+
+import com.example.dto.ContactCard;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+
+public class ContactStore {
+    /**
+     * Assigns every contact a dense int ordinal used by the posting lists; the UUID stays the external id.
+     * Ordinals are never reused, so a stale posting can always be told apart from a live one.
+
+        reserve()  ordinal allocated, card stored, not yet visible      (caller indexes it now)
+        publish()  id -> ordinal, visible to readers                    (insert)
+        swap()     id -> new ordinal, old ordinal dead, in one step     (update)
+        replace()  new card under the same ordinal, postings adjusted   (in-place update)
+        remove()   id unmapped, ordinal dead                            (delete)
+
+     An ordinal is live only while the id still maps to it, so an update's old and new postings can
+     co-exist in the index without either being double counted. swap() and replace() bump version()
+     before and after, so a reader that saw an odd version, or one that fails validate() at the end of
+     its read, straddled an update and must retry. The stores in between are plain, so the fences sit
+     where StampedLock puts them: a store-store fence after the opening bump, an acquire fence in
+     validate() before the version is read again. Only the two of them bump the version, and both hold
+     this store's monitor, so the non-atomic version++ never races another.
+
+     Cards are not kept as objects. Each is packed into one byte[] ContactRecord when it is stored, and
+     get() builds a fresh ContactCard from it; records are never written to after they are stored. Readers
+     that only compare fields use view() instead, which points a reusable ContactView at the record.
+
+        records   byte[][] by ordinal           null once the ordinal is dead
+        live      bitset by ordinal             set from publish() until swap() or remove()
+        ids       IdTable, id -> ordinal        UUIDs as two longs; guarded by this store's monitor
+
+     Readers only touch records and live, so get(ordinal) takes no lock and does no hash lookup; ids is
+     only consulted by writers, through ordinalOf() and get(id).
+     **/
+
+    private final IdTable ids = new IdTable();
+    private volatile byte[][] records = new byte[1024][];
+    private volatile AtomicLongArray live = new AtomicLongArray(1024 / Long.SIZE);
+    private volatile long version;
+    private volatile int size;
+    private int nextOrdinal;
+
+    public int reserve(ContactCard card) {
+        byte[] record = ContactRecord.encode(card);
+        synchronized (this) {
+            int ordinal = nextOrdinal++;
+            ensureCapacity(ordinal + 1);
+            records[ordinal] = record;
+            return ordinal;
+        }
+    }
+
+    /**
+     * reserve() for a whole batch: cards[i] gets the returned ordinal + i.
+     */
+    public int reserveAll(ContactCard[] batch) {
+        byte[][] encoded = new byte[batch.length][];
+        Arrays.parallelSetAll(encoded, i -> ContactRecord.encode(batch[i]));
+        synchronized (this) {
+            int first = nextOrdinal;
+            ensureCapacity(first + batch.length);
+            System.arraycopy(encoded, 0, records, first, batch.length);
+            nextOrdinal = first + batch.length;
+            return first;
+        }
+    }
+
+    /**
+     * Stores and publishes card under an ordinal taken from an IndexSegment; only used while the
+     * store is being restored, before any reserve() and before readers are let in.
+     */
+    public synchronized void restore(int ordinal, ContactCard card) {
+        ensureCapacity(ordinal + 1);
+        byte[] record = ContactRecord.encode(card);
+        records[ordinal] = record;
+        link(record, ordinal);
+        nextOrdinal = Math.max(nextOrdinal, ordinal + 1);
+    }
+
+    public synchronized void publish(int ordinal) {
+        link(records[ordinal], ordinal);
+    }
+
+    /**
+     * publish() for the count ordinals from first, as handed out by reserveAll().
+     */
+    public synchronized void publishAll(int first, int count) {
+        for (int ordinal = first; ordinal < first + count; ordinal++) link(records[ordinal], ordinal);
+    }
+
+    public synchronized void swap(int oldOrdinal, int newOrdinal) {
+        //  seqlock-style: the version is odd while the swap is in flight
+        version++;
+        VarHandle.storeStoreFence();
+        ids.put(records[newOrdinal], newOrdinal);
+        setLive(oldOrdinal, false);
+        records[oldOrdinal] = null;
+        setLive(newOrdinal, true);
+        version++;
+    }
+
+    /**
+     * Stores card under the live ordinal of the same contact, running postings (the index changes that go
+     * with it) inside the same version bump, so a reader sees the old card with its old postings or the
+     * new card with the new ones, never a mix.
+     */
+    public void replace(int ordinal, ContactCard card, Runnable postings) {
+        byte[] record = ContactRecord.encode(card);
+        synchronized (this) {
+            version++;
+            VarHandle.storeStoreFence();
+            try {
+                postings.run();
+                records[ordinal] = record;
+            } finally {
+                version++;
+            }
+        }
+    }
+
+    /**
+     * Removes the contact and returns its ordinal, or -1 if the id is unknown.
+     */
+    public synchronized int remove(String id) {
+        int ordinal = ids.remove(id);
+        if (ordinal < 0) return -1;
+        setLive(ordinal, false);
+        records[ordinal] = null;
+        size--;
+        return ordinal;
+    }
+
+    public synchronized int ordinalOf(String id) {
+        return ids.get(id);
+    }
+
+    /**
+     * Returns the card stored under ordinal if it is the live version of its contact, otherwise null.
+     */
+    public ContactCard get(int ordinal) {
+        if (!isLive(ordinal)) return null;
+        byte[] record = recordAt(ordinal);
+        return record == null ? null : ContactRecord.decode(record);
+    }
+
+    /**
+     * get() for matchers: points view at the fields of the card under ordinal, without building it, and
+     * returns true; false, leaving view as it was, if the ordinal is not live.
+     */
+    public boolean view(int ordinal, ContactView view) {
+        if (!isLive(ordinal)) return false;
+        byte[] record = recordAt(ordinal);
+        if (record == null) return false;
+        ContactRecord.view(record, view);
+        return true;
+    }
+
+    /**
+     * view() for indexes verifying their own postings: true for any ordinal whose record is still stored,
+     * reserved and not yet published included; false once it is dead.
+     */
+    boolean viewStored(int ordinal, ContactView view) {
+        byte[] record = recordAt(ordinal);
+        if (record == null) return false;
+        ContactRecord.view(record, view);
+        return true;
+    }
+
+    public ContactCard get(String id) {
+        int ordinal = ordinalOf(id);
+        if (ordinal < 0) return null;
+        byte[] record = recordAt(ordinal);
+        return record == null ? null : ContactRecord.decode(record);
+    }
+
+    /**
+     * True while ordinal is the published, current version of its contact; get() without building a card.
+     */
+    public boolean isLive(int ordinal) {
+        AtomicLongArray bits = live;
+        int word = ordinal >>> 6;
+        return word < bits.length() && (bits.get(word) & (1L << ordinal)) != 0;
+    }
+
+    /**
+     * True once the ordinal was deleted or superseded by an update; ordinals never come back to life.
+     */
+    public boolean isDead(int ordinal) {
+        return recordAt(ordinal) == null;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public static boolean isStable(long version) {
+        return (version & 1) == 0;
+    }
+
+    /**
+     * True if no swap() or replace() started since version() returned version; call it after the
+     * optimistic read, whose plain loads the fence keeps from drifting past the version check.
+     */
+    public boolean validate(long version) {
+        VarHandle.acquireFence();
+        return this.version == version;
+    }
+
+    /**
+     * Runs a read with swaps held off; the fallback for readers that keep losing the optimistic race.
+     */
+    public synchronized <T> T readExclusive(Supplier<T> read) {
+        return read.get();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Heap held by the records, the ordinal-indexed arrays and the id table.
+     */
+    public long estimatedHeapBytes() {
+        byte[][] snapshot;
+        long total;
+        synchronized (this) {
+            snapshot = records;
+            total = ids.estimatedBytes();
+        }
+        total += 16 + (long) snapshot.length * (Integer.BYTES + 1.0 / Byte.SIZE);
+        for (byte[] record : snapshot) {
+            //  array header, contents, padding to 8 bytes
+            if (record != null) total += (16 + record.length + 7) & ~7;
+        }
+        return total;
+    }
+
+    /**
+     * Visits live contacts in ascending ordinal order.
+     */
+    public void forEach(ObjIntConsumer<ContactCard> consumer) {
+        byte[][] snapshot;
+        int limit;
+        synchronized (this) {
+            snapshot = records;
+            limit = nextOrdinal;
+        }
+        for (int ordinal = 0; ordinal < limit; ordinal++) {
+            byte[] record = snapshot[ordinal];
+            if (record != null && isLive(ordinal)) consumer.accept(ContactRecord.decode(record), ordinal);
+        }
+    }
+
+    /**
+     * forEach() for matchers: points view at each live contact in ascending ordinal order, then passes
+     * visitor the ordinal.
+     */
+    public void forEach(ContactView view, IntConsumer visitor) {
+        byte[][] snapshot;
+        int limit;
+        synchronized (this) {
+            snapshot = records;
+            limit = nextOrdinal;
+        }
+        for (int ordinal = 0; ordinal < limit; ordinal++) {
+            byte[] record = snapshot[ordinal];
+            if (record == null || !isLive(ordinal)) continue;
+            ContactRecord.view(record, view);
+            visitor.accept(ordinal);
+        }
+    }
+
+    private byte[] recordAt(int ordinal) {
+        byte[][] snapshot = records;
+        return ordinal < snapshot.length ? snapshot[ordinal] : null;
+    }
+
+    private void link(byte[] record, int ordinal) {
+        ids.put(record, ordinal);
+        setLive(ordinal, true);
+        size = ids.size();
+    }
+
+    /**
+     * Called with the monitor held, like every other write, so no bit can land in an array being copied.
+     */
+    private void setLive(int ordinal, boolean value) {
+        int word = ordinal >>> 6;
+        long bits = live.get(word);
+        live.set(word, value ? bits | (1L << ordinal) : bits & ~(1L << ordinal));
+    }
+
+    private void ensureCapacity(int ordinals) {
+        if (ordinals <= records.length) return;
+        int capacity = records.length;
+        while (capacity < ordinals) capacity <<= 1;
+        records = Arrays.copyOf(records, capacity);
+        AtomicLongArray grown = new AtomicLongArray(capacity / Long.SIZE);
+        for (int i = 0; i < live.length(); i++) grown.set(i, live.get(i));
+        live = grown;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.index;
+
+import java.nio.charset.StandardCharsets;
+
+
+public final class ContactView {
+    /**
+     * The name, email and phone of one stored record, read in place: ContactStore.view() points it at a
+     * record, and each field is a CharSequence over the record's bytes until the next view() call. For
+     * matchers that only compare fields, so checking a candidate builds no ContactCard and no Strings.
+
+        Latin-1 record   fields read straight from the bytes, nothing allocated
+        UTF-8 record     fields decoded to Strings, as get() would (a record is UTF-8 only when some
+                         char does not fit Latin-1)
+
+     A view is reused from candidate to candidate, so it belongs to one thread; a field is null when the
+     card's is.
+     **/
+
+    final Field name = new Field();
+    final Field email = new Field();
+    final Field phone = new Field();
+
+    public CharSequence name() {
+        return name.value();
+    }
+
+    public CharSequence email() {
+        return email.value();
+    }
+
+    public CharSequence phone() {
+        return phone.value();
+    }
+
+    static final class Field implements CharSequence {
+        private byte[] record;
+        private int offset;
+        private int length;
+        private String decoded;
+
+        /**
+         * Points at length bytes of record from offset; a negative length is a null field.
+         */
+        void point(byte[] record, int offset, int length, boolean utf8) {
+            this.record = record;
+            this.offset = offset;
+            this.length = length;
+            this.decoded = utf8 && length >= 0 ? new String(record, offset, length, StandardCharsets.UTF_8) : null;
+        }
+
+        CharSequence value() {
+            return length < 0 ? null : decoded != null ? decoded : this;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (record[offset + index] & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return new String(record, offset, length, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
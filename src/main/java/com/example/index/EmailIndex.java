@@ -0,0 +1,259 @@
+package com.example.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.LongConsumer;
+
+
+public class EmailIndex {
+    /**
+     * Emails split at their last '@' into a local part and a domain, each kept in its own sorted table
+     * instead of being shredded into the shared term indexes.
+
+        locals    local part         -> PostingList      "john.smith"
+        domains   reversed domain    -> PostingList      "com.acme.mail" for john@mail.acme.com
+
+     Reversing the labels puts a domain next to all of its subdomains, so "@acme.com" is one range scan
+     over the keys "com.acme" and "com.acme.*", and a local-part prefix is a range scan over locals.
+     Either costs one posting list per distinct key in the range, however many contacts share a domain.
+     Writes to one key are serialised on one of KEY_STRIPES locks, never a lock held across keys: the skip
+     list's compute is not atomic, so without them an add could land in a list a concurrent remove was
+     emptying and unlinking. Reads take no locks.
+
+     Each table has a TermFilter in front of it, over what a lookup can ask for: every prefix of every
+     local part, and every domain key cut at a label ("com", "com.acme", "com.acme.mail"). A local part or
+     domain that no contact has is turned away without a range scan over the skip list.
+     **/
+
+    private static final int[] EMPTY = new int[0];
+    private static final int KEY_STRIPES = 64;
+
+    private final ConcurrentSkipListMap<String, PostingList> locals = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, PostingList> domains = new ConcurrentSkipListMap<>();
+    private final TermFilter localPrefixes = new TermFilter();
+    private final TermFilter domainLabels = new TermFilter();
+    //  keys remove() has unlinked since each filter was last rebuilt
+    private final LongAdder unlinkedLocals = new LongAdder();
+    private final LongAdder unlinkedDomains = new LongAdder();
+    private final Object[] stripes = new Object[KEY_STRIPES];
+
+    public EmailIndex() {
+        for (int i = 0; i < KEY_STRIPES; i++) stripes[i] = new Object();
+    }
+
+    /**
+     * True for terms with an '@': they are email-structured queries, "local@domain" with either side optional.
+     */
+    public static boolean isEmailQuery(String query) {
+        return query.indexOf('@') >= 0;
+    }
+
+    /**
+     * "com.acme.mail" for "mail.acme.com".
+     */
+    public static String reverseDomain(String domain) {
+        String[] labels = domain.toLowerCase().split("\\.");
+        StringBuilder reversed = new StringBuilder(domain.length());
+        for (int i = labels.length - 1; i >= 0; i--) {
+            if (labels[i].isEmpty()) continue;
+            if (reversed.length() > 0) reversed.append('.');
+            reversed.append(labels[i]);
+        }
+        return reversed.toString();
+    }
+
+    /**
+     * Whether lookup(query) would return a contact with this email; the same rules, on one email.
+     */
+    public static boolean matches(String email, String query) {
+        int at = email == null ? -1 : email.lastIndexOf('@');
+        if (at < 0) return false;
+        int queryAt = query.lastIndexOf('@');
+        String local = query.substring(0, queryAt).toLowerCase();
+        String domain = reverseDomain(query.substring(queryAt + 1));
+        if (local.isEmpty() && domain.isEmpty()) return false;
+        String reversed = reverseDomain(email.substring(at + 1));
+        return email.substring(0, at).toLowerCase().startsWith(local)
+                && (domain.isEmpty() || reversed.equals(domain) || reversed.startsWith(domain + "."));
+    }
+
+    public void add(int ordinal, String email) {
+        int at = email == null ? -1 : email.lastIndexOf('@');
+        if (at < 0) return;
+        String local = email.substring(0, at).toLowerCase();
+        String domain = reverseDomain(email.substring(at + 1));
+        post(locals, local, ordinal);
+        post(domains, domain, ordinal);
+        forEachPrefix(local, localPrefixes::add);
+        forEachLabel(domain, domainLabels::add);
+    }
+
+    public void remove(int ordinal, String email) {
+        int at = email == null ? -1 : email.lastIndexOf('@');
+        if (at < 0) return;
+        unpost(locals, email.substring(0, at).toLowerCase(), ordinal, unlinkedLocals);
+        unpost(domains, reverseDomain(email.substring(at + 1)), ordinal, unlinkedDomains);
+    }
+
+    /**
+     * Answers "local@domain": contacts whose local part starts with local and whose domain is domain or
+     * one of its subdomains. Either side may be empty ("john@", "@acme.com") and then matches anything.
+     */
+    public int[] lookup(String query) {
+        int at = query.lastIndexOf('@');
+        String local = query.substring(0, at).toLowerCase();
+        String domain = reverseDomain(query.substring(at + 1));
+        if (local.isEmpty() && domain.isEmpty()) return EMPTY;
+        ReadSet.matching(card -> matches(card.getEmail(), query));
+        //  both sides are tested before either is scanned: a typo in the domain skips the local-part scan too
+        if (!mightMatch(local, domain)) return EMPTY;
+        if (local.isEmpty()) return lookupDomain(domain);
+        if (domain.isEmpty()) return lookupLocalPrefix(local);
+        //  a domain is usually far denser than a local-part prefix
+        int[] byLocal = lookupLocalPrefix(local);
+        return byLocal.length == 0 ? byLocal : PostingList.intersect(byLocal, lookupDomain(domain));
+    }
+
+    /**
+     * False if lookup(query) certainly finds nothing; answered from the filters alone.
+     */
+    public boolean mightMatch(String query) {
+        int at = query.lastIndexOf('@');
+        String local = query.substring(0, at).toLowerCase();
+        String domain = reverseDomain(query.substring(at + 1));
+        return (!local.isEmpty() || !domain.isEmpty()) && mightMatch(local, domain);
+    }
+
+    /**
+     * Ordinals whose domain is reversedDomain or a subdomain of it.
+     */
+    public int[] lookupDomain(String reversedDomain) {
+        if (!domainLabels.mightContain(TermFilter.hash(reversedDomain))) return EMPTY;
+        NavigableMap<String, PostingList> range = domains.subMap(reversedDomain, true, reversedDomain + ".\uffff", true);
+        List<int[]> postings = new ArrayList<>();
+        for (Map.Entry<String, PostingList> entry : range.entrySet()) {
+            String key = entry.getKey();
+            //  "com.acme" must not pull in "com.acme-corp"
+            if (key.length() == reversedDomain.length() || key.charAt(reversedDomain.length()) == '.') {
+                postings.add(entry.getValue().toArray());
+            }
+        }
+        return merge(postings);
+    }
+
+    public int[] lookupLocalPrefix(String prefix) {
+        if (!localPrefixes.mightContain(TermFilter.hash(prefix))) return EMPTY;
+        List<int[]> postings = new ArrayList<>();
+        for (PostingList list : locals.subMap(prefix, true, prefix + '\uffff', true).values()) {
+            postings.add(list.toArray());
+        }
+        return merge(postings);
+    }
+
+    /**
+     * Compacts every local-part and domain posting list, and rebuilds a filter that keys unlinked by
+     * remove() have left loose.
+     */
+    public void compact(Compaction compaction) {
+        for (PostingList list : locals.values()) list.compact(compaction);
+        for (PostingList list : domains.values()) list.compact(compaction);
+        rebuild(localPrefixes, locals, unlinkedLocals, EmailIndex::forEachPrefix, compaction);
+        rebuild(domainLabels, domains, unlinkedDomains, EmailIndex::forEachLabel, compaction);
+    }
+
+    /**
+     * Heap held by the two filters.
+     */
+    public long estimatedFilterBytes() {
+        return localPrefixes.estimatedBytes() + domainLabels.estimatedBytes();
+    }
+
+    public int domainCount() {
+        return domains.size();
+    }
+
+    /**
+     * Unions many small posting arrays with one sort rather than a chain of pairwise merges.
+     */
+    private static int[] merge(List<int[]> postings) {
+        if (postings.size() <= 2) return PostingList.unionAll(postings);
+        int total = 0;
+        for (int[] list : postings) total += list.length;
+        int[] all = new int[total];
+        int at = 0;
+        for (int[] list : postings) {
+            System.arraycopy(list, 0, all, at, list.length);
+            at += list.length;
+        }
+        Arrays.sort(all);
+        int distinct = 0;
+        for (int i = 0; i < all.length; i++) {
+            if (i == 0 || all[i] != all[i - 1]) all[distinct++] = all[i];
+        }
+        return distinct == all.length ? all : Arrays.copyOf(all, distinct);
+    }
+
+    /**
+     * Rebuilds filter over the keys of table once keys have been unlinked from it or the filter has grown
+     * a chain. A key stands for several filter entries, so the filter's own size is the estimate to use.
+     */
+    private static void rebuild(TermFilter filter, Map<String, PostingList> table, LongAdder unlinked,
+                                BiConsumer<String, LongConsumer> entries, Compaction compaction) {
+        if (unlinked.sumThenReset() == 0 && !filter.isChained()) return;
+        long before = filter.estimatedBytes();
+        filter.rebuild(filter.size(), sink -> {
+            for (String key : table.keySet()) entries.accept(key, sink);
+        });
+        compaction.filterRebuilt(before - filter.estimatedBytes());
+    }
+
+    private boolean mightMatch(String local, String domain) {
+        return (local.isEmpty() || localPrefixes.mightContain(TermFilter.hash(local)))
+                && (domain.isEmpty() || domainLabels.mightContain(TermFilter.hash(domain)));
+    }
+
+    private static void forEachPrefix(String local, LongConsumer sink) {
+        for (int end = 1; end <= local.length(); end++) sink.accept(TermFilter.hash(local, 0, end));
+    }
+
+    private static void forEachLabel(String reversedDomain, LongConsumer sink) {
+        for (int end = reversedDomain.indexOf('.'); end >= 0; end = reversedDomain.indexOf('.', end + 1)) {
+            sink.accept(TermFilter.hash(reversedDomain, 0, end));
+        }
+        sink.accept(TermFilter.hash(reversedDomain));
+    }
+
+    private void post(ConcurrentSkipListMap<String, PostingList> table, String key, int ordinal) {
+        synchronized (stripe(key)) {
+            PostingList list = table.get(key);
+            if (list != null) {
+                list.add(ordinal);
+                return;
+            }
+            list = new PostingList();
+            list.add(ordinal);
+            table.put(key, list);
+        }
+    }
+
+    private void unpost(ConcurrentSkipListMap<String, PostingList> table, String key, int ordinal, LongAdder unlinked) {
+        synchronized (stripe(key)) {
+            PostingList list = table.get(key);
+            if (list == null) return;
+            list.remove(ordinal);
+            if (!list.isEmpty()) return;
+            table.remove(key);
+            unlinked.increment();
+        }
+    }
+
+    private Object stripe(String key) {
+        return stripes[(key.hashCode() & 0x7fffffff) % KEY_STRIPES];
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.index;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+
+final class IdTable {
+    /**
+     * Contact id -> ordinal for ContactStore, which guards it with its own monitor. UUID ids, which is
+     * every id the book generates, are kept as their two longs in an open-addressing table:
+
+        keys      long[2 * capacity]   msb, lsb of the id in each slot
+        values    int[capacity]        ordinal, EMPTY, or DELETED (a tombstone the probe walks past)
+
+     Linear probing at a load of at most 3/4, counting tombstones, and 1/2 after a resize: 27 to 40 bytes
+     an id, instead of a hash map node, a boxed Integer and a 36-char String. Any other id goes to a
+     plain HashMap.
+     **/
+
+    private static final int EMPTY = -1;
+    private static final int DELETED = -2;
+    private static final int MIN_CAPACITY = 1024;
+
+    private long[] keys = new long[2 * MIN_CAPACITY];
+    private int[] values = newValues(MIN_CAPACITY);
+    private int used;
+    private int size;
+    private final Map<String, Integer> others = new HashMap<>();
+
+    int get(String id) {
+        if (!ContactRecord.isCanonicalUuid(id)) {
+            Integer ordinal = others.get(id);
+            return ordinal == null ? -1 : ordinal;
+        }
+        int slot = find(ContactRecord.uuidHigh(id), ContactRecord.uuidLow(id));
+        return slot < 0 ? -1 : values[slot];
+    }
+
+    /**
+     * Maps the id of record to ordinal, replacing any earlier ordinal.
+     */
+    void put(byte[] record, int ordinal) {
+        if (!ContactRecord.hasUuidId(record)) {
+            if (others.put(ContactRecord.id(record), ordinal) == null) size++;
+            return;
+        }
+        long high = ContactRecord.idHigh(record);
+        long low = ContactRecord.idLow(record);
+        int slot = find(high, low);
+        if (slot >= 0) {
+            values[slot] = ordinal;
+            return;
+        }
+        if (4 * (used + 1) > 3 * values.length) resize();
+        int mask = values.length - 1;
+        for (slot = hash(high, low) & mask; values[slot] >= 0; slot = (slot + 1) & mask) ;
+        if (values[slot] == EMPTY) used++;
+        keys[2 * slot] = high;
+        keys[2 * slot + 1] = low;
+        values[slot] = ordinal;
+        size++;
+    }
+
+    /**
+     * Unmaps id and returns the ordinal it had, or -1.
+     */
+    int remove(String id) {
+        if (!ContactRecord.isCanonicalUuid(id)) {
+            Integer ordinal = others.remove(id);
+            if (ordinal == null) return -1;
+            size--;
+            return ordinal;
+        }
+        int slot = find(ContactRecord.uuidHigh(id), ContactRecord.uuidLow(id));
+        if (slot < 0) return -1;
+        int ordinal = values[slot];
+        values[slot] = DELETED;
+        size--;
+        return ordinal;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long estimatedBytes() {
+        //  array headers, and about 56 bytes per entry of others
+        return 32 + (long) keys.length * Long.BYTES + (long) values.length * Integer.BYTES + 56L * others.size();
+    }
+
+    private int find(long high, long low) {
+        int mask = values.length - 1;
+        for (int slot = hash(high, low) & mask; values[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (values[slot] >= 0 && keys[2 * slot] == high && keys[2 * slot + 1] == low) return slot;
+        }
+        return -1;
+    }
+
+    /**
+     * Rehashes into a table at least twice the live size, which also clears the tombstones.
+     */
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        int capacity = MIN_CAPACITY;
+        while (capacity < 2 * (size - others.size() + 1)) capacity <<= 1;
+        keys = new long[2 * capacity];
+        values = newValues(capacity);
+        used = 0;
+        int mask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] < 0) continue;
+            long high = oldKeys[2 * i];
+            long low = oldKeys[2 * i + 1];
+            int slot = hash(high, low) & mask;
+            while (values[slot] != EMPTY) slot = (slot + 1) & mask;
+            keys[2 * slot] = high;
+            keys[2 * slot + 1] = low;
+            values[slot] = oldValues[i];
+            used++;
+        }
+    }
+
+    private static int hash(long high, long low) {
+        long h = (high ^ low) * 0x9e3779b97f4a7c15L;
+        return (int) (h >>> 32);
+    }
+
+    private static int[] newValues(int capacity) {
+        int[] values = new int[capacity];
+        Arrays.fill(values, EMPTY);
+        return values;
+    }
+}
@@ -0,0 +1,350 @@
+package com.example.index;
+
+import com.example.dto.ContactCard;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
+
+
+public final class IndexSegment {
+    /**
+     * Immutable, memory-mapped image of an IndexedAddressBook: its live cards plus one TermDictionary per
+     * inverted index. Opening a segment costs a single mmap and a sequential pass over the cards; the
+     * term dictionaries are used in place, so nothing is re-tokenized at startup.
+
+        file     = [int MAGIC][int VERSION] cards [padding to 4 bytes] [int indexCount] index*
+        cards    = [int count] ([int ordinal][string id][string name][string email][string phone])*
+        index    = [string name][int termCount][int termBytesLength][int postingsLength]
+                   [int termOffsets[termCount + 1]][int postingOffsets[termCount + 1]]
+                   [int postings[postingsLength]][byte termBytes[termBytesLength]] [padding to 4 bytes]
+        string   = [int length or -1 for null][UTF-8 bytes]
+
+     A single MappedByteBuffer is limited to 2 GB, which bounds the size of one segment file; write() fails
+     once a segment would grow past it rather than leave one open() cannot map.
+     **/
+
+    static final int MAGIC = 0x41424958;
+    static final int VERSION = 1;
+    //  one MappedByteBuffer, so one segment file, holds at most this much
+    static final long MAX_BYTES = Integer.MAX_VALUE;
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".seg";
+
+    private final MappedByteBuffer buffer;
+    private final int cardsOffset;
+    private final Map<String, TermDictionary> dictionaries;
+
+    private IndexSegment(MappedByteBuffer buffer, int cardsOffset, Map<String, TermDictionary> dictionaries) {
+        this.buffer = buffer;
+        this.cardsOffset = cardsOffset;
+        this.dictionaries = dictionaries;
+    }
+
+    public static IndexSegment open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > MAX_BYTES) {
+                throw new IOException("Index segment larger than 2 GB: " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not an address book index segment: " + path);
+        }
+        ByteBuffer cursor = buffer.duplicate();
+        cursor.position(8);
+        int cardsOffset = cursor.position();
+        int cardCount = cursor.getInt();
+        for (int i = 0; i < cardCount; i++) {
+            cursor.getInt();
+            for (int field = 0; field < 4; field++) skipString(cursor);
+        }
+        cursor.position(align(cursor.position()));
+
+        Map<String, TermDictionary> dictionaries = new HashMap<>();
+        int indexCount = cursor.getInt();
+        for (int i = 0; i < indexCount; i++) {
+            String name = readString(cursor);
+            int termCount = cursor.getInt();
+            int termBytesLength = cursor.getInt();
+            int postingsLength = cursor.getInt();
+            IntBuffer termOffsets = ints(cursor, termCount + 1);
+            IntBuffer postingOffsets = ints(cursor, termCount + 1);
+            IntBuffer postings = ints(cursor, postingsLength);
+            ByteBuffer termBytes = buffer.slice(cursor.position(), termBytesLength);
+            cursor.position(align(cursor.position() + termBytesLength));
+            dictionaries.put(name, new TermDictionary(termOffsets, termBytes, postingOffsets, postings));
+        }
+        return new IndexSegment(buffer, cardsOffset, dictionaries);
+    }
+
+    public int cardCount() {
+        return buffer.getInt(cardsOffset);
+    }
+
+    /**
+     * Visits every card stored in the segment together with its ordinal, in ascending ordinal order.
+     */
+    public void forEachCard(ObjIntConsumer<ContactCard> consumer) {
+        ByteBuffer cursor = buffer.duplicate();
+        cursor.position(cardsOffset);
+        int cardCount = cursor.getInt();
+        for (int i = 0; i < cardCount; i++) {
+            int ordinal = cursor.getInt();
+            ContactCard card = ContactCard.builder()
+                    .id(readString(cursor))
+                    .name(readString(cursor))
+                    .email(readString(cursor))
+                    .phone(readString(cursor))
+                    .build();
+            consumer.accept(card, ordinal);
+        }
+    }
+
+    public boolean hasDictionary(String name) {
+        return dictionaries.containsKey(name);
+    }
+
+    public TermDictionary dictionary(String name) {
+        return dictionaries.getOrDefault(name, TermDictionary.EMPTY);
+    }
+
+    // ---------- Files ----------
+
+    public static Path file(Path directory, long generation) {
+        return directory.resolve(PREFIX + generation + SUFFIX);
+    }
+
+    /**
+     * Returns the newest segment generation in directory, or -1 if there is none.
+     */
+    public static long latestGeneration(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) return -1;
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(IndexSegment::generationOf).max().orElse(-1);
+        }
+    }
+
+    public static long generationOf(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) return -1;
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // ---------- Writing ----------
+
+    /**
+     * Writes the live cards of store and the frozen layers of every index to path (via a temp file and
+     * an atomic rename). Postings of ordinals that are no longer live are dropped on the way.
+     *
+     * Cards are streamed from the store and their count patched in afterwards. Each dictionary writes its
+     * term offsets straight to the file and spills the rest to scratch files next to it, since the layout
+     * needs every section's length up front. Throws before the file grows past what open() can map.
+     */
+    public static void write(Path path, ContactStore store, Map<String, InvertedIndex> indexes) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             CountingOutput out = new CountingOutput(Channels.newOutputStream(channel))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            long countAt = out.count();
+            out.writeInt(0);
+            int[] cardCount = new int[1];
+            store.forEach((card, ordinal) -> {
+                try {
+                    out.writeInt(ordinal);
+                    writeString(out, card.getId());
+                    writeString(out, card.getName());
+                    writeString(out, card.getEmail());
+                    writeString(out, card.getPhone());
+                    cardCount[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.patchInt(channel, countAt, cardCount[0]);
+            out.pad();
+
+            out.writeInt(indexes.size());
+            for (Map.Entry<String, InvertedIndex> entry : indexes.entrySet()) {
+                writeDictionary(out, channel, temp, entry.getKey(), entry.getValue(), store);
+            }
+            out.flush();
+            channel.force(true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void writeDictionary(CountingOutput out, FileChannel channel, Path temp, String name,
+                                        InvertedIndex index, ContactStore store) throws IOException {
+        writeString(out, name);
+        long headerAt = out.count();
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeInt(0);
+        //  termOffsets[0]
+        out.writeInt(0);
+        int[] termCount = new int[1];
+        try (Spill postingOffsets = new Spill(temp.resolveSibling(temp.getFileName() + ".offsets"));
+             Spill postings = new Spill(temp.resolveSibling(temp.getFileName() + ".postings"));
+             Spill termBytes = new Spill(temp.resolveSibling(temp.getFileName() + ".terms"))) {
+            postingOffsets.out.writeInt(0);
+            index.forEachFrozenTerm((term, ordinals) -> {
+                try {
+                    int live = 0;
+                    for (int ordinal : ordinals) {
+                        if (!store.isLive(ordinal)) continue;
+                        postings.out.writeInt(ordinal);
+                        live++;
+                    }
+                    if (live == 0) return;
+                    termBytes.out.write(term);
+                    out.writeInt((int) termBytes.out.count());
+                    postingOffsets.out.writeInt((int) (postings.out.count() / Integer.BYTES));
+                    termCount[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            long postingsLength = postings.out.count() / Integer.BYTES;
+            postingOffsets.copyTo(out);
+            postings.copyTo(out);
+            termBytes.copyTo(out);
+            out.patchInt(channel, headerAt, termCount[0]);
+            out.patchInt(channel, headerAt + 4, (int) termBytes.out.count());
+            out.patchInt(channel, headerAt + 8, (int) postingsLength);
+        }
+        out.pad();
+    }
+
+    // ---------- Encoding Helpers ----------
+
+    private static int align(int position) {
+        return (position + 3) & ~3;
+    }
+
+    private static IntBuffer ints(ByteBuffer cursor, int count) {
+        IntBuffer ints = cursor.slice(cursor.position(), count * Integer.BYTES).asIntBuffer();
+        cursor.position(cursor.position() + count * Integer.BYTES);
+        return ints;
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer cursor) {
+        int length = cursor.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        cursor.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void skipString(ByteBuffer cursor) {
+        int length = cursor.getInt();
+        if (length > 0) cursor.position(cursor.position() + length);
+    }
+
+    /**
+     * DataOutputStream that counts in a long and refuses to go past MAX_BYTES, the most one mapping can hold.
+     */
+    private static final class CountingOutput extends DataOutputStream {
+        CountingOutput(OutputStream out) {
+            super(new Counter(new BufferedOutputStream(out, 1 << 16)));
+        }
+
+        long count() {
+            return ((Counter) out).count;
+        }
+
+        void pad() throws IOException {
+            while ((count() & 3) != 0) writeByte(0);
+        }
+
+        /**
+         * Overwrites the int at position of the file behind channel, once everything before it is flushed.
+         */
+        void patchInt(FileChannel channel, long position, int value) throws IOException {
+            flush();
+            ByteBuffer bytes = ByteBuffer.allocate(Integer.BYTES).putInt(0, value);
+            while (bytes.hasRemaining()) channel.write(bytes, position + bytes.position());
+        }
+    }
+
+    private static final class Counter extends FilterOutputStream {
+        long count;
+
+        Counter(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            grow(1);
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            grow(len);
+            out.write(b, off, len);
+        }
+
+        private void grow(int bytes) throws IOException {
+            count += bytes;
+            if (count > MAX_BYTES) throw new IOException("Index segment would exceed " + MAX_BYTES + " bytes");
+        }
+    }
+
+    /**
+     * Scratch file for one section of a dictionary whose length must be written before it.
+     */
+    private static final class Spill implements Closeable {
+        final Path path;
+        final CountingOutput out;
+
+        Spill(Path path) throws IOException {
+            this.path = path;
+            this.out = new CountingOutput(Files.newOutputStream(path));
+        }
+
+        void copyTo(OutputStream target) throws IOException {
+            out.flush();
+            try (InputStream in = Files.newInputStream(path)) {
+                in.transferTo(target);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                out.close();
+            } finally {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
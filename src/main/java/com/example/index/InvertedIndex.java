@@ -0,0 +1,363 @@
+package com.example.index;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+
+public class InvertedIndex {
+    /**
+     * Term -> PostingList of contact ordinals, shared by the term-based AddressBook implementations.
+     * Terms are posted as a window of the caller's text: a term the map already holds is found with a
+     * TermProbe and its list appended to directly, so only a new term is cut out into a String key, under
+     * ConcurrentHashMap.compute. Lists are unlinked under compute too, and retired as they go, so an add
+     * can never land in a list that a concurrent remove has just unlinked; reads are plain lock-free gets.
+
+        base     TermDictionary mapped from the last IndexSegment (read-only)
+        frozen   delta maps sealed by freeze(), waiting to be merged into the next segment
+        active   the map every add/remove goes to
+
+     A lookup unions all layers. Removes only reach the active map: a stale posting left in base or
+     frozen belongs to a dead ordinal, which readers already drop, and the next segment write filters it.
+     The three layers are published together in one volatile field so a reader never misses a freeze.
+     Every layer has a TermFilter in front of it, so a term no layer holds is turned away after one hash
+     and a cache line per layer; the active layer's filter is rebuilt over its live terms by compact().
+     **/
+
+    public static final int LENGTH_BUCKETS = 32;
+    private static final int[] EMPTY = new int[0];
+    //  map node, String, its byte[], PostingList and its snapshot and array headers
+    private static final int TERM_OVERHEAD_BYTES = 128;
+
+    private static final ThreadLocal<TermProbe> PROBE = ThreadLocal.withInitial(TermProbe::new);
+
+    private volatile Layers layers = new Layers(TermDictionary.EMPTY, List.of(), new Delta());
+
+    public void add(String term, int ordinal) {
+        add(term, 0, term.length(), ordinal);
+    }
+
+    /**
+     * add(text.substring(from, to), ordinal), cutting the term out only if the active delta lacks it.
+     */
+    public void add(String text, int from, int to, int ordinal) {
+        Delta active = layers.active;
+        PostingList list = active.postings.get(PROBE.get().of(text, from, to));
+        if (list == null || !list.tryAdd(ordinal)) {
+            active.postings.compute(text.substring(from, to), (k, current) -> {
+                if (current == null) current = new PostingList();
+                current.add(ordinal);
+                return current;
+            });
+        }
+        active.filter.add(TermFilter.hash(text, from, to));
+        active.added.increment();
+    }
+
+    /**
+     * Posts the first count entries of an ascending ordinal array under term in one step (bulk loads).
+     */
+    public void addAll(String term, int[] ordinals, int count) {
+        Delta active = layers.active;
+        active.postings.compute(term, (k, list) -> {
+            if (list == null) list = new PostingList();
+            list.addAll(ordinals, count);
+            return list;
+        });
+        active.filter.add(TermFilter.hash(term));
+        active.added.add(count);
+    }
+
+    public void remove(String term, int ordinal) {
+        remove(term, 0, term.length(), ordinal);
+    }
+
+    /**
+     * remove(text.substring(from, to), ordinal); the term is only cut out to unlink a list left empty.
+     */
+    public void remove(String text, int from, int to, int ordinal) {
+        Delta active = layers.active;
+        PostingList list = active.postings.get(PROBE.get().of(text, from, to));
+        if (list == null || !list.remove(ordinal) || !list.isEmpty()) return;
+        //  an add may have refilled it since, so it is only unlinked if it is still empty under the bin
+        active.postings.computeIfPresent(text.substring(from, to), (k, current) -> current.retireIfEmpty() ? null : current);
+    }
+
+    /**
+     * True if remove(term, ordinal) cannot take the posting out because it sits in the base or a frozen
+     * layer; only the ordinal dying retires it then.
+     */
+    public boolean isSealed(String term, int ordinal) {
+        Layers current = layers;
+        if (current.base.size() > 0 && Arrays.binarySearch(current.base.lookup(term), ordinal) >= 0) return true;
+        for (Delta frozen : current.frozen) {
+            PostingList list = frozen.postings.get(term);
+            if (list != null && list.contains(ordinal)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the ascending ordinals posted under term, or an empty array.
+     */
+    public int[] lookup(String term) {
+        ReadSet.term(this, term);
+        Layers current = layers;
+        long hash = TermFilter.hash(term);
+        int[] result = current.base.mightContain(hash) ? current.base.lookup(term) : EMPTY;
+        for (Delta frozen : current.frozen) {
+            if (frozen.filter.mightContain(hash)) result = union(result, frozen.postings.get(term));
+        }
+        return current.active.filter.mightContain(hash) ? union(result, current.active.postings.get(term)) : result;
+    }
+
+    /**
+     * lookup(text.substring(from, to)) without cutting the term out: the filters hash the window, the base
+     * layer compares it in place and the delta maps are probed with a TermProbe over it.
+     */
+    public int[] lookup(String text, int from, int to) {
+        ReadSet.term(this, text, from, to);
+        Layers current = layers;
+        long hash = TermFilter.hash(text, from, to);
+        TermProbe probe = PROBE.get().of(text, from, to);
+        int[] result = current.base.mightContain(hash) ? current.base.lookup(text, from, to) : EMPTY;
+        for (Delta frozen : current.frozen) {
+            if (frozen.filter.mightContain(hash)) result = union(result, frozen.postings.get(probe));
+        }
+        return current.active.filter.mightContain(hash) ? union(result, current.active.postings.get(probe)) : result;
+    }
+
+    /**
+     * False if no layer can hold text.substring(from, to); tested on the filters alone, without cutting
+     * the term out. A false answer counts as a lookup of the term for the reading thread's ReadSet.
+     */
+    public boolean mightContain(String text, int from, int to) {
+        Layers current = layers;
+        long hash = TermFilter.hash(text, from, to);
+        if (current.active.filter.mightContain(hash) || current.base.mightContain(hash)) return true;
+        for (Delta frozen : current.frozen) {
+            if (frozen.filter.mightContain(hash)) return true;
+        }
+        ReadSet.term(this, text, from, to);
+        return false;
+    }
+
+    public boolean containsTerm(String term) {
+        return lookup(term).length > 0;
+    }
+
+    /**
+     * Number of distinct terms per layer, summed; a term present in several layers counts more than once.
+     */
+    public int termCount() {
+        Layers current = layers;
+        int total = current.base.size() + current.active.postings.size();
+        for (Delta frozen : current.frozen) total += frozen.postings.size();
+        return total;
+    }
+
+    public long postingCount() {
+        Layers current = layers;
+        long total = current.base.postingCount() + count(current.active.postings);
+        for (Delta frozen : current.frozen) total += count(frozen.postings);
+        return total;
+    }
+
+    /**
+     * Postings added to the heap deltas since they were last merged into the base; a cheap counter that
+     * ignores removes, used to decide when a merge is due.
+     */
+    public long deltaPostings() {
+        Layers current = layers;
+        long total = current.active.added.sum();
+        for (Delta frozen : current.frozen) total += frozen.added.sum();
+        return total;
+    }
+
+    /**
+     * Counts every posting list into histogram by length, slot i holding lists of 2^i to 2^(i+1) - 1
+     * ordinals. Like termCount(), a term present in several layers counts once per layer.
+     */
+    public void postingLengths(long[] histogram) {
+        Layers current = layers;
+        for (int i = 0; i < current.base.size(); i++) count(histogram, current.base.postingCountAt(i));
+        for (Delta frozen : current.frozen) {
+            for (PostingList list : frozen.postings.values()) count(histogram, list.size());
+        }
+        for (PostingList list : current.active.postings.values()) count(histogram, list.size());
+    }
+
+    /**
+     * Rough heap footprint of the delta layers and the filters; the base is mapped from the segment file.
+     */
+    public long estimatedHeapBytes() {
+        Layers current = layers;
+        long total = current.base.estimatedHeapBytes() + estimatedHeapBytes(current.active);
+        for (Delta frozen : current.frozen) total += estimatedHeapBytes(frozen);
+        return total;
+    }
+
+    /**
+     * Compacts the active delta one posting list at a time, unlinks the terms left empty, and then rebuilds
+     * the delta's filter if removed terms or growth have loosened it. The base and frozen layers are left
+     * to the next segment merge, which filters dead ordinals as it writes. A list is only touched while
+     * its delta is still the active one, so a freeze waits for one list at most.
+     */
+    public void compact(Compaction compaction) {
+        Delta active = layers.active;
+        for (Map.Entry<String, PostingList> entry : active.postings.entrySet()) {
+            synchronized (this) {
+                if (layers.active != active) return;
+                PostingList list = entry.getValue();
+                list.compact(compaction);
+                if (!list.isEmpty()) continue;
+                String term = entry.getKey();
+                //  retired under the term's bin, so an add that found the list by probe goes back through compute
+                boolean[] unlinked = new boolean[1];
+                active.postings.computeIfPresent(term, (k, current) -> {
+                    unlinked[0] = current.retireIfEmpty();
+                    return unlinked[0] ? null : current;
+                });
+                if (unlinked[0]) compaction.unlinked(TERM_OVERHEAD_BYTES + term.length());
+            }
+        }
+        TermFilter filter = active.filter;
+        if (!filter.isStale(active.postings.size())) return;
+        long before = filter.estimatedBytes();
+        filter.rebuild(active.postings.size(), sink -> {
+            for (String term : active.postings.keySet()) sink.accept(TermFilter.hash(term));
+        });
+        compaction.filterRebuilt(before - filter.estimatedBytes());
+    }
+
+    // ---------- Segments ----------
+
+    /**
+     * Seals the active delta; later writes go to a fresh map. Callers must hold off writers while freezing,
+     * so the frozen map cannot change under a concurrent segment write. Returns the number of frozen layers.
+     */
+    public synchronized int freeze() {
+        Layers current = layers;
+        if (current.active.postings.isEmpty()) return current.frozen.size();
+        List<Delta> frozen = new ArrayList<>(current.frozen);
+        frozen.add(current.active);
+        layers = new Layers(current.base, frozen, new Delta());
+        return frozen.size();
+    }
+
+    /**
+     * Undoes freeze() after a segment that was never installed: folds the frozen deltas and the active one
+     * into a single fresh active delta, so a failed write leaves no extra layer for every lookup to probe.
+     * Callers must hold off writers, as for freeze().
+     */
+    public synchronized void thaw() {
+        Layers current = layers;
+        if (current.frozen.isEmpty()) return;
+        List<Delta> deltas = new ArrayList<>(current.frozen);
+        deltas.add(current.active);
+        Map<String, int[]> merged = new HashMap<>();
+        Delta thawed = new Delta();
+        for (Delta delta : deltas) {
+            delta.postings.forEach((term, list) -> merged.merge(term, list.toArray(), PostingList::union));
+            thawed.added.add(delta.added.sum());
+        }
+        merged.forEach((term, ordinals) -> {
+            PostingList list = new PostingList();
+            list.addAll(ordinals, ordinals.length);
+            thawed.postings.put(term, list);
+            thawed.filter.add(TermFilter.hash(term));
+        });
+        layers = new Layers(current.base, List.of(), thawed);
+    }
+
+    /**
+     * Replaces base and the oldest frozenLayers deltas with dictionary, which must have been written from them.
+     */
+    public synchronized void install(TermDictionary dictionary, int frozenLayers) {
+        Layers current = layers;
+        List<Delta> frozen = List.copyOf(current.frozen.subList(frozenLayers, current.frozen.size()));
+        layers = new Layers(dictionary, frozen, current.active);
+    }
+
+    /**
+     * Visits base and frozen terms in unsigned UTF-8 byte order with their merged ascending postings.
+     */
+    public void forEachFrozenTerm(BiConsumer<byte[], int[]> consumer) {
+        Layers current = layers;
+        Map<String, int[]> merged = new HashMap<>();
+        for (Delta frozen : current.frozen) {
+            frozen.postings.forEach((term, list) -> merged.merge(term, list.toArray(), PostingList::union));
+        }
+        byte[][] terms = new byte[merged.size()][];
+        int[][] postings = new int[merged.size()][];
+        Integer[] order = new Integer[merged.size()];
+        int n = 0;
+        for (Map.Entry<String, int[]> entry : merged.entrySet()) {
+            terms[n] = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            postings[n] = entry.getValue();
+            order[n] = n;
+            n++;
+        }
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(terms[a], terms[b]));
+
+        TermDictionary base = current.base;
+        int i = 0, j = 0;
+        while (i < base.size() || j < n) {
+            int c = i == base.size() ? 1 : j == n ? -1 : Arrays.compareUnsigned(base.termAt(i), terms[order[j]]);
+            if (c < 0) {
+                consumer.accept(base.termAt(i), base.postingsAt(i));
+                i++;
+            } else if (c > 0) {
+                consumer.accept(terms[order[j]], postings[order[j]]);
+                j++;
+            } else {
+                consumer.accept(terms[order[j]], PostingList.union(base.postingsAt(i), postings[order[j]]));
+                i++;
+                j++;
+            }
+        }
+    }
+
+    private static int[] union(int[] result, PostingList list) {
+        if (list == null) return result;
+        return result.length == 0 ? list.toArray() : PostingList.union(result, list.toArray());
+    }
+
+    private static void count(long[] histogram, int length) {
+        if (length > 0) histogram[31 - Integer.numberOfLeadingZeros(length)]++;
+    }
+
+    private static long estimatedHeapBytes(Delta delta) {
+        long total = delta.filter.estimatedBytes();
+        for (Map.Entry<String, PostingList> entry : delta.postings.entrySet()) {
+            total += TERM_OVERHEAD_BYTES + entry.getKey().length() + entry.getValue().estimatedBytes();
+        }
+        return total;
+    }
+
+    private static long count(Map<String, PostingList> postings) {
+        long total = 0;
+        for (PostingList list : postings.values()) total += list.size();
+        return total;
+    }
+
+    private static final class Layers {
+        final TermDictionary base;
+        final List<Delta> frozen;
+        final Delta active;
+
+        Layers(TermDictionary base, List<Delta> frozen, Delta active) {
+            this.base = base;
+            this.frozen = frozen;
+            this.active = active;
+        }
+    }
+
+    private static final class Delta {
+        final Map<String, PostingList> postings = new ConcurrentHashMap<>();
+        final LongAdder added = new LongAdder();
+        final TermFilter filter = new TermFilter();
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.index;
+
+import java.util.Arrays;
+
+
+public class PhoneIndex {
+    /**
+     * Digit-only phone index: numbers are normalised to their digits ("+1 (555) 123-4567" -> 15551234567)
+     * and every suffix is threaded through a burst trie, so any run of digits (area code, last N digits,
+     * the full number) is found in O(query length). A query written with its country code ("+1 ..." or
+     * "001 ...") also finds numbers stored without one: the first one to three digits are stripped in turn
+     * and whatever is left, if it is still MIN_NATIONAL_DIGITS long, must start the stored number, or
+     * follow its trunk prefix 0 ("+44 20 7946 0958" finds "020 7946 0958").
+
+        node    children[10] + PostingList of the ordinals whose number contains the node's path
+        leaf    a node without children; holds up to BURST_SIZE ordinals whose numbers continue past it
+
+     A lookup walks the query's digits; if it runs out of trie at a leaf before the query ends, the
+     leaf's few ordinals are checked against their numbers, read in place from the ContactStore records.
+     Leaves burst into children only once they overflow, so unique tails of numbers cost one posting
+     instead of a chain of nodes. The index keeps no copy of the numbers, so remove() is handed the
+     number the ordinal was added with.
+
+     Writes are serialised; readers take no locks. A burst fills the children before publishing them,
+     so a reader sees either the complete leaf or complete children.
+     **/
+
+    private static final int BURST_SIZE = 32;
+    private static final int[] NONE = new int[0];
+    //  the node, its PostingList, snapshot and empty array
+    private static final int NODE_OVERHEAD_BYTES = 80;
+    private static final int MAX_COUNTRY_CODE_DIGITS = 3;
+    private static final int MIN_NATIONAL_DIGITS = 6;
+
+    private static final ThreadLocal<ContactView> VIEW = ThreadLocal.withInitial(ContactView::new);
+    private static final ThreadLocal<StringBuilder> DIGITS = ThreadLocal.withInitial(StringBuilder::new);
+
+    private final ContactStore store;
+    private final Node root = new Node(new Node[10]);
+    private volatile int size;
+
+    /**
+     * Indexes the phones of store's cards; store holds every record this index is handed an ordinal of.
+     */
+    public PhoneIndex(ContactStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Strips a phone number down to its digits; a leading international "00" counts as "+".
+     */
+    public static String normalize(String phone) {
+        if (phone == null) return "";
+        StringBuilder out = new StringBuilder(phone.length());
+        normalize(phone, out);
+        return out.toString();
+    }
+
+    /**
+     * normalize() into a caller's buffer, which is cleared first, so matchers can reuse one per thread.
+     */
+    public static void normalize(CharSequence phone, StringBuilder out) {
+        out.setLength(0);
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') out.append(c);
+        }
+        if (out.length() > 2 && out.charAt(0) == '0' && out.charAt(1) == '0' && startsWith00(phone)) {
+            out.delete(0, 2);
+        }
+    }
+
+    /**
+     * phone.trim().startsWith("00") in place.
+     */
+    private static boolean startsWith00(CharSequence phone) {
+        int start = 0;
+        while (start < phone.length() && phone.charAt(start) <= ' ') start++;
+        return start + 1 < phone.length() && phone.charAt(start) == '0' && phone.charAt(start + 1) == '0';
+    }
+
+    /**
+     * True for queries that only make sense as (part of) a phone number: digits plus phone punctuation.
+     */
+    public static boolean isPhoneQuery(String query) {
+        return isPhoneQuery(query, 0, query.length());
+    }
+
+    /**
+     * isPhoneQuery(text.substring(from, to)), without cutting the window out.
+     */
+    public static boolean isPhoneQuery(String text, int from, int to) {
+        boolean digit = false;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') digit = true;
+            else if (c != '+' && c != '(' && c != ')' && c != '-' && c != '.' && c != ' ') return false;
+        }
+        return digit;
+    }
+
+    /**
+     * Posts ordinal under phone. Its record may still hold an older phone (an in-place update stores the
+     * new card after re-posting it), so the number is taken from phone, never from the store.
+     */
+    public synchronized void add(int ordinal, String phone) {
+        String number = normalize(phone);
+        if (number.isEmpty()) return;
+        for (int start = 0; start < number.length(); start++) {
+            Node node = root;
+            for (int i = start; i < number.length(); i++) {
+                Node[] children = node.children;
+                if (children == null) break;
+                node = child(children, number.charAt(i) - '0');
+                node.postings.add(ordinal);
+                if (node.children == null && node.postings.size() > BURST_SIZE) {
+                    burst(node, number.substring(start, i + 1), ordinal, number);
+                }
+            }
+        }
+        size++;
+    }
+
+    /**
+     * Takes ordinal out again; phone must be the one it was added with.
+     */
+    public synchronized void remove(int ordinal, String phone) {
+        String number = normalize(phone);
+        if (number.isEmpty()) return;
+        boolean posted = false;
+        for (int start = 0; start < number.length(); start++) {
+            Node node = root;
+            for (int i = start; i < number.length() && node.children != null; i++) {
+                node = node.children[number.charAt(i) - '0'];
+                if (node == null) break;
+                posted |= node.postings.remove(ordinal);
+            }
+        }
+        if (posted) size--;
+    }
+
+    /**
+     * Compacts every node's postings and unlinks nodes left without any: a number passing through a node
+     * is posted at all of its ancestors, so an empty node heads an empty subtree. Takes the write lock per
+     * node, not for the whole walk.
+     */
+    public void compact(Compaction compaction) {
+        compact(root, compaction);
+    }
+
+    private void compact(Node node, Compaction compaction) {
+        Node[] children = node.children;
+        if (children == null) return;
+        for (int digit = 0; digit < children.length; digit++) {
+            Node child = children[digit];
+            if (child == null) continue;
+            synchronized (this) {
+                child.postings.compact(compaction);
+                if (child.postings.isEmpty() && children[digit] == child && node.children == children) {
+                    children[digit] = null;
+                    compaction.unlinked(NODE_OVERHEAD_BYTES);
+                    continue;
+                }
+            }
+            compact(child, compaction);
+        }
+    }
+
+    /**
+     * Returns the ascending ordinals whose normalised number contains the digits of query, plus, for a
+     * query with a country code, those whose number starts with what follows the code.
+     */
+    public int[] lookup(String query) {
+        String wanted = normalize(query);
+        if (wanted.isEmpty()) return NONE;
+        boolean international = isInternational(query);
+        ReadSet.matching(card -> matches(normalize(card.getPhone()), wanted, international));
+        int[] ordinals = containing(wanted);
+        if (!international) return ordinals;
+        for (int digits = 1; digits <= MAX_COUNTRY_CODE_DIGITS && wanted.length() - digits >= MIN_NATIONAL_DIGITS; digits++) {
+            String national = wanted.substring(digits);
+            ordinals = PostingList.union(ordinals, verify(containing(national), national, true));
+        }
+        return ordinals;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int[] containing(String wanted) {
+        Node node = root;
+        for (int i = 0; i < wanted.length(); i++) {
+            Node[] children = node.children;
+            if (children == null) return verify(node.postings.toArray(), wanted, false);
+            node = children[wanted.charAt(i) - '0'];
+            if (node == null) return NONE;
+        }
+        return node.postings.toArray();
+    }
+
+    /**
+     * A query written with an international prefix, "+" or "00"; normalize() keeps only the digits after it.
+     */
+    private static boolean isInternational(String query) {
+        int start = 0;
+        while (start < query.length() && query.charAt(start) <= ' ') start++;
+        return (start < query.length() && query.charAt(start) == '+') || startsWith00(query);
+    }
+
+    private static boolean matches(String number, String wanted, boolean international) {
+        if (number.contains(wanted)) return true;
+        if (!international) return false;
+        for (int digits = 1; digits <= MAX_COUNTRY_CODE_DIGITS && wanted.length() - digits >= MIN_NATIONAL_DIGITS; digits++) {
+            if (startsNational(number, number.indexOf(wanted.substring(digits)))) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Whether a national number found at index at of number starts it, possibly after a trunk prefix 0.
+     */
+    private static boolean startsNational(CharSequence number, int at) {
+        return at == 0 || (at == 1 && number.charAt(0) == '0');
+    }
+
+    /**
+     * The candidates whose stored number contains wanted (or, with national, starts with it as above).
+     */
+    private int[] verify(int[] candidates, String wanted, boolean national) {
+        ContactView view = VIEW.get();
+        StringBuilder number = DIGITS.get();
+        int kept = 0;
+        for (int ordinal : candidates) {
+            if (!store.viewStored(ordinal, view) || view.phone() == null) continue;
+            normalize(view.phone(), number);
+            int at = number.indexOf(wanted);
+            if (national ? startsNational(number, at) : at >= 0) candidates[kept++] = ordinal;
+        }
+        return kept == candidates.length ? candidates : Arrays.copyOf(candidates, kept);
+    }
+
+    /**
+     * Splits a full leaf at path into children. The other ordinals' numbers are read from the store; the
+     * one being added brings its own, since its record may not hold it yet.
+     */
+    private void burst(Node leaf, String path, int adding, String addedNumber) {
+        Node[] children = new Node[10];
+        ContactView view = VIEW.get();
+        leaf.postings.forEach(ordinal -> {
+            String number;
+            if (ordinal == adding) {
+                number = addedNumber;
+            } else if (store.viewStored(ordinal, view) && view.phone() != null) {
+                number = normalize(view.phone().toString());
+            } else {
+                return;
+            }
+            for (int at = number.indexOf(path); at >= 0; at = number.indexOf(path, at + 1)) {
+                int next = at + path.length();
+                if (next < number.length()) child(children, number.charAt(next) - '0').postings.add(ordinal);
+            }
+        });
+        leaf.children = children;
+    }
+
+    private static Node child(Node[] children, int digit) {
+        Node child = children[digit];
+        if (child == null) {
+            child = new Node(null);
+            children[digit] = child;
+        }
+        return child;
+    }
+
+    private static final class Node {
+        final PostingList postings = new PostingList();
+        volatile Node[] children;
+
+        Node(Node[] children) {
+            this.children = children;
+        }
+    }
+}
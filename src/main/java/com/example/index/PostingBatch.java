@@ -0,0 +1,78 @@
+package com.example.index;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+
+public class PostingBatch {
+    /**
+     * A thread-private partial index for bulk loads: the postings one worker collected for a contiguous,
+     * ascending run of ordinals, held back from the shared InvertedIndexes until merge().
+
+        index -> partition -> term -> ascending ordinals
+
+     Terms are spread over a fixed number of partitions by hash, so the merge can run one task per
+     partition: each task folds partition p of every batch, in ordinal order, into the live indexes. No
+     two tasks ever touch the same term, and every PostingList sees its new ordinals as a single append.
+     **/
+
+    public static final int PARTITIONS = 64;
+    private static final int PARTITION_SHIFT = Integer.SIZE - Integer.numberOfTrailingZeros(PARTITIONS);
+
+    private final Map<InvertedIndex, Map<String, Postings>[]> indexes = new IdentityHashMap<>();
+    private final TermProbe probe = new TermProbe();
+
+    /**
+     * Records that ordinal is posted under term; ordinals must arrive in ascending order.
+     */
+    public void add(InvertedIndex index, String term, int ordinal) {
+        add(index, term, 0, term.length(), ordinal);
+    }
+
+    /**
+     * add(index, text.substring(from, to), ordinal), cutting the term out only the first time this batch sees it.
+     */
+    public void add(InvertedIndex index, String text, int from, int to, int ordinal) {
+        Map<String, Postings>[] parts = indexes.computeIfAbsent(index, k -> newPartitions());
+        Map<String, Postings> partition = parts[partitionOf(probe.of(text, from, to).hashCode())];
+        Postings postings = partition.get(probe);
+        if (postings == null) partition.put(text.substring(from, to), postings = new Postings());
+        postings.add(ordinal);
+    }
+
+    /**
+     * Folds one partition of this batch into the live indexes.
+     */
+    public void merge(int partition) {
+        for (Map.Entry<InvertedIndex, Map<String, Postings>[]> entry : indexes.entrySet()) {
+            InvertedIndex index = entry.getKey();
+            entry.getValue()[partition].forEach((term, postings) -> index.addAll(term, postings.ordinals, postings.size));
+        }
+    }
+
+    private static int partitionOf(int termHash) {
+        //  top bits of a multiplicative hash: the low bits must stay varied for the HashMap inside the partition
+        return (termHash * 0x9E3779B9) >>> PARTITION_SHIFT;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Postings>[] newPartitions() {
+        Map<String, Postings>[] parts = new Map[PARTITIONS];
+        for (int i = 0; i < PARTITIONS; i++) parts[i] = new HashMap<>();
+        return parts;
+    }
+
+    private static final class Postings {
+        int[] ordinals = new int[2];
+        int size;
+
+        void add(int ordinal) {
+            //  a card can post the same term more than once
+            if (size > 0 && ordinals[size - 1] == ordinal) return;
+            if (size == ordinals.length) ordinals = Arrays.copyOf(ordinals, size << 1);
+            ordinals[size++] = ordinal;
+        }
+    }
+}
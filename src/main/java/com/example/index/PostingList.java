@@ -0,0 +1,348 @@
+package com.example.index;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+
+public class PostingList {
+    /**
+     * Set of contact ordinals for a single term, kept in one of two containers:
+
+        ARRAY   sorted int[]                          4 bytes per posting, used while the list is sparse
+        BITMAP  long[] words covering [0, maxOrdinal]  1 bit per ordinal, used once that is cheaper
+
+     The container flips whenever the other one would be smaller, the same rule Roaring applies per chunk.
+
+     Readers never lock: they work on an immutable Snapshot published through a volatile field.
+     Writers are serialised per list and only ever write array slots past the published size (appends),
+     or copy the array first (inserts in the middle, removals). Bitmap words are updated in place; a
+     reader racing with that sees each word either before or after the write, which is fine because
+     ordinal liveness is decided by the ContactStore, not by the posting list.
+     **/
+
+    private static final int MIN_BITMAP_SIZE = 64;
+    private static final Snapshot EMPTY = new Snapshot(new int[0], null, 0);
+
+    private volatile Snapshot snapshot = EMPTY;
+    //  set once the list is unlinked from its map; guarded by this
+    private boolean retired;
+
+    public synchronized boolean add(int ordinal) {
+        Snapshot current = snapshot;
+        if (current.words != null) {
+            long[] words = current.words;
+            if (testBit(words, ordinal)) return false;
+            words = ensureWords(words, ordinal);
+            words[ordinal >>> 6] |= 1L << ordinal;
+            snapshot = new Snapshot(null, words, current.size + 1);
+            return true;
+        }
+        int[] values = current.values;
+        int size = current.size;
+        //  ordinals are handed out in increasing order, so appends (and repeats of the last one) are the common case
+        if (size > 0 && values[size - 1] == ordinal) return false;
+        if (size == 0 || values[size - 1] < ordinal) {
+            if (size == values.length) values = Arrays.copyOf(values, size + (size >> 1) + 2);
+            values[size] = ordinal;
+            publishArray(values, size + 1);
+            return true;
+        }
+        int idx = Arrays.binarySearch(values, 0, size, ordinal);
+        if (idx >= 0) return false;
+        int insertAt = -(idx + 1);
+        int[] copy = new int[size + (size >> 1) + 2];
+        System.arraycopy(values, 0, copy, 0, insertAt);
+        copy[insertAt] = ordinal;
+        System.arraycopy(values, insertAt, copy, insertAt + 1, size - insertAt);
+        publishArray(copy, size + 1);
+        return true;
+    }
+
+    /**
+     * add(ordinal) for a writer that found the list without holding its map's lock: false, and nothing
+     * added, once the list has been retired, so the writer goes back through the map instead.
+     */
+    synchronized boolean tryAdd(int ordinal) {
+        if (retired) return false;
+        add(ordinal);
+        return true;
+    }
+
+    /**
+     * Retires the list if it is empty, to be called while unlinking it from its map; true if it was.
+     */
+    synchronized boolean retireIfEmpty() {
+        if (snapshot.size != 0) return false;
+        retired = true;
+        return true;
+    }
+
+    /**
+     * Adds the first count entries of an ascending, duplicate-free ordinal array in one publication.
+     * Cheapest when they all lie past the current last posting, as they do for a bulk load.
+     */
+    public synchronized void addAll(int[] ordinals, int count) {
+        if (count == 0) return;
+        Snapshot current = snapshot;
+        if (current.words != null) {
+            long[] words = ensureWords(current.words, ordinals[count - 1]);
+            int added = 0;
+            for (int i = 0; i < count; i++) {
+                long bit = 1L << ordinals[i];
+                int w = ordinals[i] >>> 6;
+                if ((words[w] & bit) == 0) {
+                    words[w] |= bit;
+                    added++;
+                }
+            }
+            snapshot = new Snapshot(null, words, current.size + added);
+            return;
+        }
+        int size = current.size;
+        if (size > 0 && current.values[size - 1] >= ordinals[0]) {
+            for (int i = 0; i < count; i++) add(ordinals[i]);
+            return;
+        }
+        int[] values = current.values;
+        if (size + count > values.length) values = Arrays.copyOf(values, Math.max(size + count, size + (size >> 1) + 2));
+        System.arraycopy(ordinals, 0, values, size, count);
+        publishArray(values, size + count);
+    }
+
+    public synchronized boolean remove(int ordinal) {
+        Snapshot current = snapshot;
+        if (current.words != null) {
+            if (!testBit(current.words, ordinal)) return false;
+            current.words[ordinal >>> 6] &= ~(1L << ordinal);
+            publishBitmap(current.words, current.size - 1);
+            return true;
+        }
+        int idx = Arrays.binarySearch(current.values, 0, current.size, ordinal);
+        if (idx < 0) return false;
+        int[] copy = new int[Math.max(2, current.size - 1)];
+        System.arraycopy(current.values, 0, copy, 0, idx);
+        System.arraycopy(current.values, idx + 1, copy, idx, current.size - idx - 1);
+        snapshot = new Snapshot(copy, null, current.size - 1);
+        return true;
+    }
+
+    /**
+     * Drops the postings compaction reports dead and republishes the rest with no spare capacity, in
+     * whichever container is smaller. Readers keep the snapshot they hold; writers wait for one copy.
+     */
+    public synchronized void compact(Compaction compaction) {
+        Snapshot current = snapshot;
+        if (current.size == 0) return;
+        int[] values = current.words == null ? current.values : toArray();
+        int size = current.words == null ? current.size : values.length;
+        int dead = 0;
+        for (int i = 0; i < size; i++) {
+            if (compaction.isDead(values[i])) dead++;
+        }
+        long before = estimatedBytes();
+        if (dead == 0 && before <= compactBytes(values, size)) return;
+
+        int[] live = new int[size - dead];
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!compaction.isDead(values[i])) live[kept++] = values[i];
+        }
+        if (kept >= MIN_BITMAP_SIZE && bitmapBytes(live[kept - 1]) < (long) kept * Integer.BYTES) {
+            long[] words = new long[(live[kept - 1] >>> 6) + 1];
+            for (int ordinal : live) words[ordinal >>> 6] |= 1L << ordinal;
+            snapshot = new Snapshot(null, words, kept);
+        } else {
+            snapshot = new Snapshot(live, null, kept);
+        }
+        compaction.rebuilt(before - estimatedBytes(), dead);
+    }
+
+    public boolean contains(int ordinal) {
+        Snapshot current = snapshot;
+        if (current.words != null) return testBit(current.words, ordinal);
+        return Arrays.binarySearch(current.values, 0, current.size, ordinal) >= 0;
+    }
+
+    public int size() {
+        return snapshot.size;
+    }
+
+    public boolean isEmpty() {
+        return snapshot.size == 0;
+    }
+
+    /**
+     * Returns the postings as a freshly allocated, ascending int[].
+     */
+    public int[] toArray() {
+        Snapshot current = snapshot;
+        if (current.words == null) return Arrays.copyOf(current.values, current.size);
+        long[] words = current.words;
+        int[] out = new int[current.size];
+        int p = 0;
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            while (word != 0) {
+                if (p == out.length) out = Arrays.copyOf(out, out.length + 64);
+                out[p++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return p == out.length ? out : Arrays.copyOf(out, p);
+    }
+
+    public void forEach(IntConsumer consumer) {
+        for (int ordinal : toArray()) consumer.accept(ordinal);
+    }
+
+    public long estimatedBytes() {
+        Snapshot current = snapshot;
+        return current.words != null ? (long) current.words.length * Long.BYTES : (long) current.values.length * Integer.BYTES;
+    }
+
+    /**
+     * Intersects two ascending ordinal arrays.
+     */
+    public static int[] intersect(int[] a, int[] b) {
+        return intersectAll(List.of(a, b));
+    }
+
+    /**
+     * Intersects ascending ordinal arrays smallest-first: the running result (never larger than the
+     * smallest list) is probed into each larger list with a galloping search, so a short list against a
+     * long one costs O(short * log(long / short)) rather than a full merge. Allocates only the result.
+     */
+    public static int[] intersectAll(List<int[]> lists) {
+        if (lists.isEmpty()) return EMPTY.values;
+        int[][] sorted = lists.toArray(new int[0][]);
+        Arrays.sort(sorted, Comparator.comparingInt(list -> list.length));
+        int[] result = sorted[0].clone();
+        int size = result.length;
+        for (int k = 1; k < sorted.length && size > 0; k++) {
+            int[] other = sorted[k];
+            int kept = 0, from = 0;
+            for (int i = 0; i < size; i++) {
+                from = gallop(other, from, result[i]);
+                if (from == other.length) break;
+                if (other[from] == result[i]) result[kept++] = result[i];
+            }
+            size = kept;
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Unions ascending ordinal arrays.
+     */
+    public static int[] unionAll(List<int[]> lists) {
+        int[] result = EMPTY.values;
+        for (int[] list : lists) result = result.length == 0 ? list : union(result, list);
+        return result;
+    }
+
+    /**
+     * Unions two ascending ordinal arrays.
+     */
+    public static int[] union(int[] a, int[] b) {
+        int[] out = new int[a.length + b.length];
+        int i = 0, j = 0, p = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) out[p++] = a[i++];
+            else if (i == a.length || b[j] < a[i]) out[p++] = b[j++];
+            else {
+                out[p++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, p);
+    }
+
+    /**
+     * Returns the first index at or after from whose value is >= target (or a.length): doubling steps to
+     * bracket the target, then a binary search inside the bracket.
+     */
+    static int gallop(int[] a, int from, int target) {
+        if (from >= a.length || a[from] >= target) return from;
+        int lo = from, step = 1;
+        int hi = from + 1;
+        while (hi < a.length && a[hi] < target) {
+            lo = hi;
+            step <<= 1;
+            hi = lo + step;
+        }
+        //  a[lo] < target and the answer lies in (lo, hi]
+        int l = lo + 1, h = Math.min(hi, a.length);
+        while (l < h) {
+            int mid = (l + h) >>> 1;
+            if (a[mid] < target) l = mid + 1;
+            else h = mid;
+        }
+        return l;
+    }
+
+    // ---------- Container Switching ----------
+
+    private void publishArray(int[] values, int size) {
+        if (size >= MIN_BITMAP_SIZE && bitmapBytes(values[size - 1]) < (long) size * Integer.BYTES) {
+            long[] words = new long[(values[size - 1] >>> 6) + 1];
+            for (int i = 0; i < size; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+            snapshot = new Snapshot(null, words, size);
+            return;
+        }
+        snapshot = new Snapshot(values, null, size);
+    }
+
+    private void publishBitmap(long[] words, int size) {
+        //  hysteresis: only go back once the array is half the size of the bitmap
+        if ((long) size * Integer.BYTES * 2 > (long) words.length * Long.BYTES && size >= MIN_BITMAP_SIZE) {
+            snapshot = new Snapshot(null, words, size);
+            return;
+        }
+        int[] values = new int[Math.max(2, size)];
+        int p = 0;
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            while (word != 0) {
+                values[p++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        snapshot = new Snapshot(values, null, p);
+    }
+
+    private static long compactBytes(int[] values, int size) {
+        long arrayBytes = (long) size * Integer.BYTES;
+        return size >= MIN_BITMAP_SIZE ? Math.min(arrayBytes, bitmapBytes(values[size - 1])) : arrayBytes;
+    }
+
+    private static long bitmapBytes(int maxOrdinal) {
+        return (((long) maxOrdinal >>> 6) + 1) * Long.BYTES;
+    }
+
+    private static boolean testBit(long[] words, int ordinal) {
+        int w = ordinal >>> 6;
+        return w < words.length && (words[w] & (1L << ordinal)) != 0;
+    }
+
+    private static long[] ensureWords(long[] words, int ordinal) {
+        int w = ordinal >>> 6;
+        return w < words.length ? words : Arrays.copyOf(words, Math.max(w + 1, words.length + (words.length >> 1)));
+    }
+
+    private static final class Snapshot {
+        final int[] values;
+        final long[] words;
+        final int size;
+
+        Snapshot(int[] values, long[] words, int size) {
+            this.values = values;
+            this.words = words;
+            this.size = size;
+        }
+    }
+}
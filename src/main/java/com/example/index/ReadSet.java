@@ -0,0 +1,104 @@
+package com.example.index;
+
+import com.example.dto.ContactCard;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+
+public final class ReadSet {
+    /**
+     * What one query read from the indexes, collected on the reading thread while the query runs, so a
+     * result cache can tell exactly which writes may change its answer.
+
+        term(index, term)     a posting list was looked up       stale once a write posts to or unposts from it
+        matching(predicate)   a lookup with no single term        stale once a written card (old or new
+                              (phone trie, email range, suffix    version) satisfies the predicate
+                              array, full scan)
+
+     Recording is a no-op on threads that have not begun a ReadSet, so the indexes can call it
+     unconditionally.
+     **/
+
+    private static final ThreadLocal<ReadSet> CURRENT = new ThreadLocal<>();
+
+    private final Set<TermKey> terms = new HashSet<>();
+    private final List<Predicate<ContactCard>> predicates = new ArrayList<>();
+
+    private ReadSet() {
+    }
+
+    /**
+     * Starts recording on the current thread; pair with end().
+     */
+    public static ReadSet begin() {
+        ReadSet readSet = new ReadSet();
+        CURRENT.set(readSet);
+        return readSet;
+    }
+
+    public void end() {
+        CURRENT.remove();
+    }
+
+    public static void term(InvertedIndex index, String term) {
+        ReadSet readSet = CURRENT.get();
+        if (readSet != null) readSet.terms.add(new TermKey(index, term));
+    }
+
+    /**
+     * term(index, text.substring(from, to)), cutting the term out only if this thread is recording.
+     */
+    public static void term(InvertedIndex index, String text, int from, int to) {
+        ReadSet readSet = CURRENT.get();
+        if (readSet != null) readSet.terms.add(new TermKey(index, text.substring(from, to)));
+    }
+
+    public static void matching(Predicate<ContactCard> predicate) {
+        ReadSet readSet = CURRENT.get();
+        if (readSet != null) readSet.predicates.add(predicate);
+    }
+
+    public Set<TermKey> terms() {
+        return terms;
+    }
+
+    public List<Predicate<ContactCard>> predicates() {
+        return predicates;
+    }
+
+    /**
+     * A term of one particular InvertedIndex; indexes compare by identity.
+     */
+    public static final class TermKey {
+        private final InvertedIndex index;
+        private final String term;
+
+        public TermKey(InvertedIndex index, String term) {
+            this.index = index;
+            this.term = term;
+        }
+
+        public InvertedIndex index() {
+            return index;
+        }
+
+        public String term() {
+            return term;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof TermKey)) return false;
+            TermKey other = (TermKey) o;
+            return index == other.index && term.equals(other.term);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(index) + term.hashCode();
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.index;
+
+import com.example.dto.Suggestion;
+import java.util.*;
+
+
+public class SuggestIndex {
+    /**
+     * Type-ahead completions: a radix trie over the lowercased names, name suffixes starting at a word
+     * and emails of all contacts, where every node knows the largest weight anywhere below it.
+
+        node     label (the edge from its parent, one or more chars), children sorted by first char,
+                 weight = contacts completing to exactly this key, max = largest weight in the subtree
+
+        "john smith", "john@acme.com", "jane doe"     root ─ "j" ─┬─ "ane doe"
+                                                                   └─ "ohn" ─┬─ " smith"
+                                                                             └─ "@acme.com"
+
+     suggest() walks the prefix, then runs a best-first search ordered by max: the queue only ever holds
+     the frontier of the N best completions, so a lookup costs O(prefix + N log N) however many keys share
+     the prefix. Keys are counted, not posted, so the trie holds no ordinals at all; one node per branch.
+
+     Writes are serialised; readers take no locks. Labels never change: a split publishes a new node
+     with the shortened label, and children arrays are copied on write, so a reader never sees a torn
+     edge. Weights are volatile counters, so a concurrent reader may rank on a count one write behind.
+     **/
+
+    private static final Node[] LEAF = new Node[0];
+
+    private final Node root = new Node("", 0);
+
+    /**
+     * The keys a contact completes to: its name, every word-aligned suffix of the name ("smith" for
+     * "john smith") and its email, lowercased with runs of whitespace collapsed.
+     */
+    public static Set<String> keys(String name, String email) {
+        Set<String> keys = new LinkedHashSet<>();
+        String normalized = normalize(name).trim();
+        for (int at = 0; at >= 0 && at < normalized.length(); at = normalized.indexOf(' ', at)) {
+            if (normalized.charAt(at) == ' ') at++;
+            keys.add(normalized.substring(at));
+        }
+        String address = normalize(email).trim();
+        if (!address.isEmpty()) keys.add(address);
+        return keys;
+    }
+
+    /**
+     * Lowercases text and collapses every run of whitespace into one space; a prefix keeps its trailing
+     * space so that "john " only completes to names with a word after "john".
+     */
+    public static String normalize(String text) {
+        if (text == null) return "";
+        StringBuilder out = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (out.length() > 0 && out.charAt(out.length() - 1) != ' ') out.append(' ');
+            } else {
+                out.append(Character.toLowerCase(c));
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Sums per-shard suggestions for the same text and keeps the limit most common. A text just outside
+     * every shard's own top N can be missed; with contacts spread by id hash that is rare.
+     */
+    public static List<Suggestion> merge(List<List<Suggestion>> perShard, int limit) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (List<Suggestion> suggestions : perShard) {
+            for (Suggestion suggestion : suggestions) counts.merge(suggestion.getText(), suggestion.getCount(), Integer::sum);
+        }
+        List<Suggestion> merged = new ArrayList<>(counts.size());
+        counts.forEach((text, count) -> merged.add(Suggestion.builder().text(text).count(count).build()));
+        merged.sort(Comparator.comparing(Suggestion::getCount).reversed().thenComparing(Suggestion::getText));
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    public synchronized void add(String name, String email) {
+        for (String key : keys(name, email)) adjust(key, 1);
+    }
+
+    public synchronized void remove(String name, String email) {
+        for (String key : keys(name, email)) adjust(key, -1);
+    }
+
+    /**
+     * The limit keys starting with prefix that the most contacts complete to, most common first, ties in
+     * alphabetical order.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String wanted = normalize(prefix).stripLeading();
+        if (wanted.isEmpty() || limit <= 0) return List.of();
+
+        Node node = root;
+        String path = "";
+        int at = 0;
+        while (at < wanted.length()) {
+            Node child = child(node.children, wanted.charAt(at));
+            if (child == null) return List.of();
+            String label = child.label;
+            int common = commonPrefix(label, wanted, at);
+            if (common < label.length() && at + common < wanted.length()) return List.of();
+            node = child;
+            path += label;
+            at += label.length();
+        }
+
+        //  nodes rank by the best weight below them, keys by their own; ties go by path, which is safe
+        //  because every key below a node sorts at or after the node's path, and a key before its node
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>(Comparator
+                .comparingInt((Candidate c) -> -c.priority)
+                .thenComparing(c -> c.path)
+                .thenComparing(c -> !c.complete));
+        List<Suggestion> suggestions = new ArrayList<>(limit);
+        frontier.add(new Candidate(node, path, node.max, false));
+        while (!frontier.isEmpty() && suggestions.size() < limit) {
+            Candidate next = frontier.poll();
+            if (next.complete) {
+                suggestions.add(Suggestion.builder().text(next.path).count(next.priority).build());
+                continue;
+            }
+            int weight = next.node.weight;
+            if (weight > 0) frontier.add(new Candidate(next.node, next.path, weight, true));
+            for (Node child : next.node.children) {
+                int max = child.max;
+                if (max > 0) frontier.add(new Candidate(child, next.path + child.label, max, false));
+            }
+        }
+        return suggestions;
+    }
+
+    public int keyCount() {
+        return count(root);
+    }
+
+    private void adjust(String key, int delta) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        int at = 0;
+        while (true) {
+            path.add(node);
+            if (at == key.length()) break;
+            int slot = slot(node.children, key.charAt(at));
+            if (slot < 0) {
+                if (delta < 0) return;
+                Node leaf = new Node(key.substring(at), 0);
+                node.children = inserted(node.children, -slot - 1, leaf);
+                path.add(leaf);
+                node = leaf;
+                break;
+            }
+            Node child = node.children[slot];
+            int common = commonPrefix(child.label, key, at);
+            if (common < child.label.length()) {
+                if (delta < 0) return;
+                //  split: a new node for the shared part, holding a relabelled copy of child
+                Node rest = child.relabel(child.label.substring(common));
+                Node split = new Node(child.label.substring(0, common), rest.max);
+                split.children = new Node[]{rest};
+                node.children = replaced(node.children, slot, split);
+                child = split;
+            }
+            node = child;
+            at += common;
+        }
+        if (node.weight + delta < 0) return;
+        node.weight += delta;
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node on = path.get(i);
+            int max = on.weight;
+            for (Node child : on.children) max = Math.max(max, child.max);
+            on.max = max;
+        }
+        if (node.weight == 0) prune(path);
+    }
+
+    /**
+     * Unlinks the emptied last node of path and folds a parent left with one child and no weight into it.
+     */
+    private static void prune(List<Node> path) {
+        int last = path.size() - 1;
+        Node node = path.get(last);
+        if (last == 0) return;
+        Node parent = path.get(last - 1);
+        if (node.children.length == 0) {
+            parent.children = removed(parent.children, slot(parent.children, node.label.charAt(0)));
+            node = parent;
+            last--;
+            if (last == 0) return;
+            parent = path.get(last - 1);
+        }
+        if (node.weight == 0 && node.children.length == 1) {
+            Node only = node.children[0];
+            parent.children = replaced(parent.children, slot(parent.children, node.label.charAt(0)), only.relabel(node.label + only.label));
+        }
+    }
+
+    private static int count(Node node) {
+        int keys = node.weight > 0 ? 1 : 0;
+        for (Node child : node.children) keys += count(child);
+        return keys;
+    }
+
+    private static int commonPrefix(String label, String key, int from) {
+        int n = Math.min(label.length(), key.length() - from);
+        int i = 0;
+        while (i < n && label.charAt(i) == key.charAt(from + i)) i++;
+        return i;
+    }
+
+    private static Node child(Node[] children, char first) {
+        int slot = slot(children, first);
+        return slot < 0 ? null : children[slot];
+    }
+
+    /**
+     * Binary search on first chars: the slot of the child starting with first, or -(insertion point) - 1.
+     */
+    private static int slot(Node[] children, char first) {
+        int low = 0, high = children.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char c = children[mid].label.charAt(0);
+            if (c < first) low = mid + 1;
+            else if (c > first) high = mid - 1;
+            else return mid;
+        }
+        return -low - 1;
+    }
+
+    private static Node[] inserted(Node[] children, int slot, Node child) {
+        Node[] copy = new Node[children.length + 1];
+        System.arraycopy(children, 0, copy, 0, slot);
+        copy[slot] = child;
+        System.arraycopy(children, slot, copy, slot + 1, children.length - slot);
+        return copy;
+    }
+
+    private static Node[] replaced(Node[] children, int slot, Node child) {
+        Node[] copy = children.clone();
+        copy[slot] = child;
+        return copy;
+    }
+
+    private static Node[] removed(Node[] children, int slot) {
+        Node[] copy = new Node[children.length - 1];
+        System.arraycopy(children, 0, copy, 0, slot);
+        System.arraycopy(children, slot + 1, copy, slot, children.length - slot - 1);
+        return copy;
+    }
+
+    private static final class Node {
+        final String label;
+        volatile Node[] children = LEAF;
+        volatile int weight;
+        volatile int max;
+
+        Node(String label, int max) {
+            this.label = label;
+            this.max = max;
+        }
+
+        Node relabel(String newLabel) {
+            Node copy = new Node(newLabel, max);
+            copy.children = children;
+            copy.weight = weight;
+            return copy;
+        }
+    }
+
+    private static final class Candidate {
+        final Node node;
+        final String path;
+        final int priority;
+        final boolean complete;
+
+        Candidate(Node node, String path, int priority, boolean complete) {
+            this.node = node;
+            this.path = path;
+            this.priority = priority;
+            this.complete = complete;
+        }
+    }
+}
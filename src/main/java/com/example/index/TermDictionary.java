@@ -0,0 +1,143 @@
+package com.example.index;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+
+public final class TermDictionary {
+    /**
+     * Read-only term -> postings table of one inverted index inside a mapped IndexSegment.
+
+        termOffsets     int[termCount + 1]   start of each term in termBytes
+        termBytes       UTF-8 terms, sorted by unsigned byte order
+        postingOffsets  int[termCount + 1]   start of each term's run in postings
+        postings        int[]                ascending ordinals, one run per term
+
+     Lookups binary-search the mapped bytes directly; nothing is copied onto the heap except the result.
+     A TermFilter over the terms is built on the heap when the dictionary is opened, hashing the mapped
+     UTF-8 in place, so InvertedIndex can skip the binary search for terms the segment does not hold.
+     **/
+
+    static final TermDictionary EMPTY = new TermDictionary(IntBuffer.wrap(new int[]{0}), ByteBuffer.allocate(0),
+            IntBuffer.wrap(new int[]{0}), IntBuffer.allocate(0));
+    private static final int[] NONE = new int[0];
+
+    private final IntBuffer termOffsets;
+    private final ByteBuffer termBytes;
+    private final IntBuffer postingOffsets;
+    private final IntBuffer postings;
+    private final TermFilter filter;
+
+    TermDictionary(IntBuffer termOffsets, ByteBuffer termBytes, IntBuffer postingOffsets, IntBuffer postings) {
+        this.termOffsets = termOffsets;
+        this.termBytes = termBytes;
+        this.postingOffsets = postingOffsets;
+        this.postings = postings;
+        this.filter = size() == 0 ? null : new TermFilter(size());
+        for (int i = 0; i < size(); i++) {
+            filter.add(TermFilter.hashUtf8(termBytes, termOffsets.get(i), termOffsets.get(i + 1)));
+        }
+    }
+
+    public int size() {
+        return termOffsets.limit() - 1;
+    }
+
+    public long postingCount() {
+        return postings.limit();
+    }
+
+    /**
+     * False if the dictionary certainly does not hold the term with this TermFilter.hash().
+     */
+    public boolean mightContain(long hash) {
+        return filter != null && filter.mightContain(hash);
+    }
+
+    /**
+     * Heap held by the dictionary's filter; the rest is mapped.
+     */
+    public long estimatedHeapBytes() {
+        return filter == null ? 0 : filter.estimatedBytes();
+    }
+
+    public int[] lookup(String term) {
+        int index = indexOf(term.getBytes(StandardCharsets.UTF_8));
+        return index < 0 ? NONE : postingsAt(index);
+    }
+
+    /**
+     * lookup(text.substring(from, to)) without cutting the term out when it is ASCII, as n-grams and
+     * tokens nearly always are: its chars are then its UTF-8 bytes and are compared in place.
+     */
+    public int[] lookup(String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) >= 0x80) return lookup(text.substring(from, to));
+        }
+        int lo = 0, hi = size() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = compareTermAt(mid, text, from, to);
+            if (c < 0) lo = mid + 1;
+            else if (c > 0) hi = mid - 1;
+            else return postingsAt(mid);
+        }
+        return NONE;
+    }
+
+    /**
+     * Returns the position of term in the dictionary, or -(insertion point) - 1.
+     */
+    public int indexOf(byte[] term) {
+        int lo = 0, hi = size() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = compareTermAt(mid, term);
+            if (c < 0) lo = mid + 1;
+            else if (c > 0) hi = mid - 1;
+            else return mid;
+        }
+        return -(lo + 1);
+    }
+
+    public byte[] termAt(int index) {
+        int from = termOffsets.get(index);
+        byte[] term = new byte[termOffsets.get(index + 1) - from];
+        termBytes.get(from, term);
+        return term;
+    }
+
+    public int postingCountAt(int index) {
+        return postingOffsets.get(index + 1) - postingOffsets.get(index);
+    }
+
+    public int[] postingsAt(int index) {
+        int from = postingOffsets.get(index);
+        int[] out = new int[postingOffsets.get(index + 1) - from];
+        postings.get(from, out);
+        return out;
+    }
+
+    private int compareTermAt(int index, byte[] term) {
+        int from = termOffsets.get(index);
+        int length = termOffsets.get(index + 1) - from;
+        int n = Math.min(length, term.length);
+        for (int i = 0; i < n; i++) {
+            int c = Integer.compare(termBytes.get(from + i) & 0xFF, term[i] & 0xFF);
+            if (c != 0) return c;
+        }
+        return Integer.compare(length, term.length);
+    }
+
+    private int compareTermAt(int index, String ascii, int from, int to) {
+        int start = termOffsets.get(index);
+        int length = termOffsets.get(index + 1) - start;
+        int n = Math.min(length, to - from);
+        for (int i = 0; i < n; i++) {
+            int c = Integer.compare(termBytes.get(start + i) & 0xFF, ascii.charAt(from + i));
+            if (c != 0) return c;
+        }
+        return Integer.compare(length, to - from);
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.index;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+
+public final class TermFilter {
+    /**
+     * Blocked Bloom filter over a set of terms: answers "definitely absent" or "maybe present" from one
+     * cache line, so a lookup of a term nobody holds can stop before touching a map or a mapped dictionary.
+
+        hash     64-bit FNV-1a over the term's chars, finished with a murmur3 mix; hash() also takes a
+                 char range, so a caller can test a query's grams without cutting them out
+        block    512 bits (8 longs, one cache line), picked by the upper half of the hash
+        probes   one bit in each of the block's 8 longs, picked by 6-bit slices from the top of a second mix
+
+     At BITS_PER_TERM = 10 about 1% of absent terms get through. Bits cannot be taken back, so removed terms
+     stay "maybe present" until rebuild() replaces the filter with one over the live terms. A filter that
+     fills up is not rehashed on the write path: a link GROWTH times larger is chained on, and a miss pays
+     one cache line per link until the next rebuild collapses the chain into one.
+     **/
+
+    private static final int BITS_PER_TERM = 10;
+    private static final int BLOCK_LONGS = 8;
+    private static final int BLOCK_BITS = BLOCK_LONGS * Long.SIZE;
+    private static final int GROWTH = 4;
+    private static final long MIN_TERMS = 8192;
+    private static final long MAX_BLOCKS = 1L << 24;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private volatile Link[] chain;
+    //  the replacement being filled by rebuild(); adds go to it as well while it is set
+    private volatile Link rebuilding;
+
+    public TermFilter() {
+        this(MIN_TERMS);
+    }
+
+    public TermFilter(long expectedTerms) {
+        chain = new Link[]{new Link(expectedTerms)};
+    }
+
+    public static long hash(CharSequence text) {
+        return hash(text, 0, text.length());
+    }
+
+    public static long hash(CharSequence text, int from, int to) {
+        long h = FNV_OFFSET;
+        for (int i = from; i < to; i++) {
+            h = (h ^ text.charAt(i)) * FNV_PRIME;
+        }
+        return finish(h);
+    }
+
+    /**
+     * hash() of the term whose UTF-8 encoding is bytes [from, to), decoded char by char as it is hashed,
+     * so a mapped dictionary can fill its filter without making a String per term.
+     */
+    public static long hashUtf8(ByteBuffer bytes, int from, int to) {
+        long h = FNV_OFFSET;
+        int i = from;
+        while (i < to) {
+            int b = bytes.get(i++) & 0xFF;
+            if (b < 0x80) {
+                h = (h ^ b) * FNV_PRIME;
+                continue;
+            }
+            int trailing = b < 0xE0 ? 1 : b < 0xF0 ? 2 : 3;
+            int codePoint = b & (0x3F >>> trailing);
+            for (int k = 0; k < trailing; k++) codePoint = codePoint << 6 | bytes.get(i++) & 0x3F;
+            if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                h = (h ^ codePoint) * FNV_PRIME;
+            } else {
+                h = (h ^ Character.highSurrogate(codePoint)) * FNV_PRIME;
+                h = (h ^ Character.lowSurrogate(codePoint)) * FNV_PRIME;
+            }
+        }
+        return finish(h);
+    }
+
+    private static long finish(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    public boolean mightContain(long hash) {
+        for (Link link : chain) {
+            if (link.mightContain(hash)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds a term by its hash(). Call it after the term is in the structure the filter guards, so that a
+     * concurrent rebuild() sees either the term or the add.
+     */
+    public void add(long hash) {
+        Link pending = rebuilding;
+        if (pending != null) pending.add(hash);
+        Link[] links = chain;
+        for (Link link : links) {
+            if (link.mightContain(hash)) return;
+        }
+        Link last = links[links.length - 1];
+        if (last.add(hash) && last.isFull()) grow(last);
+    }
+
+    /**
+     * Replaces the filter with one sized for expectedTerms and filled by terms, which must hand every
+     * hash() the guarded structure holds to the consumer it is given. Adds running meanwhile are kept.
+     */
+    public synchronized void rebuild(long expectedTerms, Consumer<LongConsumer> terms) {
+        Link fresh = new Link(expectedTerms);
+        rebuilding = fresh;
+        terms.accept(fresh::add);
+        chain = new Link[]{fresh};
+        rebuilding = null;
+    }
+
+    /**
+     * True once the filter holds a quarter more terms than liveTerms, or has grown a chain, so a rebuild
+     * would make it tighter.
+     */
+    public boolean isStale(long liveTerms) {
+        return isChained() || size() > liveTerms + liveTerms / 4 + MIN_TERMS / 4;
+    }
+
+    public boolean isChained() {
+        return chain.length > 1;
+    }
+
+    /**
+     * Terms added since the last rebuild, each counted once (give or take the false positive rate),
+     * including any the guarded structure has since dropped.
+     */
+    public long size() {
+        long total = 0;
+        for (Link link : chain) total += link.count.sum();
+        return total;
+    }
+
+    public long estimatedBytes() {
+        long total = 0;
+        for (Link link : chain) total += (long) link.words.length() * Long.BYTES;
+        return total;
+    }
+
+    private synchronized void grow(Link full) {
+        Link[] links = chain;
+        if (links[links.length - 1] != full) return;
+        Link[] grown = new Link[links.length + 1];
+        System.arraycopy(links, 0, grown, 0, links.length);
+        grown[links.length] = new Link(full.capacity * GROWTH);
+        chain = grown;
+    }
+
+    private static final class Link {
+        final AtomicLongArray words;
+        final int blockMask;
+        final long capacity;
+        final LongAdder count = new LongAdder();
+
+        Link(long expectedTerms) {
+            long wanted = Math.max(expectedTerms, MIN_TERMS) * BITS_PER_TERM / BLOCK_BITS;
+            long blocks = Math.min(MAX_BLOCKS, Long.highestOneBit(Math.max(1, wanted - 1)) << 1);
+            words = new AtomicLongArray((int) (blocks * BLOCK_LONGS));
+            blockMask = (int) blocks - 1;
+            capacity = blocks * BLOCK_BITS / BITS_PER_TERM;
+        }
+
+        boolean mightContain(long hash) {
+            int block = ((int) (hash >>> 32) & blockMask) * BLOCK_LONGS;
+            long probes = hash * 0x9e3779b97f4a7c15L;
+            for (int i = 0; i < BLOCK_LONGS; i++) {
+                long bit = bit(probes, i);
+                if ((words.get(block + i) & bit) == 0) return false;
+            }
+            return true;
+        }
+
+        /**
+         * Sets the term's bits; true if any was clear, which counts it as a new term.
+         */
+        boolean add(long hash) {
+            int block = ((int) (hash >>> 32) & blockMask) * BLOCK_LONGS;
+            long probes = hash * 0x9e3779b97f4a7c15L;
+            boolean changed = false;
+            for (int i = 0; i < BLOCK_LONGS; i++) {
+                long bit = bit(probes, i);
+                long word = words.get(block + i);
+                while ((word & bit) == 0) {
+                    if (words.compareAndSet(block + i, word, word | bit)) {
+                        changed = true;
+                        break;
+                    }
+                    word = words.get(block + i);
+                }
+            }
+            if (changed) count.increment();
+            return changed;
+        }
+
+        //  from the top of the product, which depends on every bit of the hash, not the block's bits alone
+        private static long bit(long probes, int i) {
+            return 1L << (probes >>> (58 - 6 * i));
+        }
+
+        boolean isFull() {
+            return count.sum() > capacity;
+        }
+    }
+}
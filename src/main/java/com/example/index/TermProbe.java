@@ -0,0 +1,43 @@
+package com.example.index;
+
+
+final class TermProbe {
+    /**
+     * A window [from, to) of a String, passed to Map.get() in place of text.substring(from, to). It hashes
+     * as that substring would and equals() any String with the same chars, and Map.get(key) is specified
+     * to compare key.equals(k), so the probe finds the substring's entry without the substring being made.
+     * Only ever a lookup key: it is never stored, and it is reused, one per thread.
+     **/
+
+    private String text;
+    private int from;
+    private int to;
+    private int hash;
+
+    TermProbe of(String text, int from, int to) {
+        this.text = text;
+        this.from = from;
+        this.to = to;
+        int h = 0;
+        for (int i = from; i < to; i++) h = 31 * h + text.charAt(i);
+        this.hash = h;
+        return this;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof String)) return false;
+        String term = (String) o;
+        return term.length() == to - from && term.regionMatches(0, text, from, to - from);
+    }
+
+    @Override
+    public String toString() {
+        return text.substring(from, to);
+    }
+}
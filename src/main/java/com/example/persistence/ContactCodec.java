@@ -0,0 +1,49 @@
+package com.example.persistence;
+
+import com.example.dto.ContactCard;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+
+public class ContactCodec {
+    /**
+     * Compact binary encoding shared by the WAL and snapshot files.
+     * Strings are a length-prefixed UTF-8 run, with length -1 standing for null.
+     */
+
+    public static void writeCard(DataOutput out, ContactCard card) throws IOException {
+        writeString(out, card.getId());
+        writeString(out, card.getName());
+        writeString(out, card.getEmail());
+        writeString(out, card.getPhone());
+    }
+
+    public static ContactCard readCard(DataInput in) throws IOException {
+        return ContactCard.builder()
+                .id(readString(in))
+                .name(readString(in))
+                .email(readString(in))
+                .phone(readString(in))
+                .build();
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
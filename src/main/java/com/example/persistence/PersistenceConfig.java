@@ -0,0 +1,21 @@
+package com.example.persistence;
+
+import lombok.*;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Builder
+@Getter
+@AllArgsConstructor
+public class PersistenceConfig {
+    private Path directory;
+    //  zero or negative disables periodic snapshots
+    @Builder.Default
+    private Duration snapshotInterval = Duration.ofMinutes(5);
+    //  persist the built indexes as mapped segment files instead of card-only snapshots
+    @Builder.Default
+    private boolean indexSegments = false;
+    //  in-memory delta postings that trigger a background segment merge; zero or negative disables it
+    @Builder.Default
+    private long segmentMergeThreshold = 1_000_000;
+}
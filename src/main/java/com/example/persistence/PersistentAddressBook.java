@@ -0,0 +1,496 @@
+package com.example.persistence;
+
+import com.example.addressBook.AddressBook;
+import com.example.addressBook.SegmentedAddressBook;
+import com.example.dto.AddContactRequest;
+import com.example.dto.CacheStats;
+import com.example.dto.CompactionStats;
+import com.example.dto.ContactCard;
+import com.example.dto.DeletedResponse;
+import com.example.dto.FetchRequest;
+import com.example.dto.IndexStats;
+import com.example.dto.SearchPage;
+import com.example.dto.Suggestion;
+import com.example.index.IndexSegment;
+import org.jboss.logging.Logger;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+public class PersistentAddressBook implements AddressBook, Closeable {
+    /**
+     * Makes any AddressBook durable: every write is applied to the delegate, logged to the WAL and
+     * acknowledged once the WAL batch holding it has been fsync'ed. A periodic snapshot bounds replay time.
+
+        Recovery   load newest snapshot-G.bin -> replay wal-G, wal-G+1, ... in order -> open a new generation
+        Snapshot   rotate WAL to G+1 (brief exclusive lock) -> write snapshot-G+1 while writers carry on
+                   -> delete older snapshots and WAL files
+
+     Writers hold the rotation lock shared, so a rotation never splits "apply + append" of one write.
+     Updates and deletes additionally lock the contact ids they touch, so the WAL order for a given
+     contact always matches the order in which the delegate applied those writes.
+
+     A write is visible to readers before its WAL append is durable (an insert's ids only exist once it is
+     applied). So if an append fails the book fails stop: that write throws, and every later one is refused
+     with the same cause until a restart recovers the state the WAL actually holds. Reads carry on.
+
+     With indexSegments on (and a SegmentedAddressBook delegate) snapshots become segment-G.seg files that
+     hold the built indexes as well as the cards, so recovery maps them instead of re-tokenizing:
+
+        Segment    rotate WAL to G+1 and freeze the index deltas (same exclusive lock) -> write segment-G+1
+                   -> map it and swap it in as the new index base -> delete older files
+        Merge      the same, triggered in the background once deltaPostings() passes segmentMergeThreshold
+        Failure    a segment that cannot be written or opened thaws the frozen deltas back into the live
+                   one; merges then back off (1 s, doubling up to 5 min) until a snapshot succeeds
+     **/
+
+    private static final Logger LOG = Logger.getLogger(PersistentAddressBook.class);
+    private static final int ID_STRIPES = 64;
+    private static final long MERGE_RETRY_MIN_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MERGE_RETRY_MAX_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final AddressBook delegate;
+    private final SegmentedAddressBook segmented;
+    private final Path directory;
+    private final long segmentMergeThreshold;
+    private final AtomicBoolean mergePending = new AtomicBoolean();
+    //  set by a failed snapshot(), doubling per failure; zero once one succeeds
+    private volatile long mergeRetryDelay;
+    private volatile long mergeRetryAt;
+    private final ReadWriteLock rotationLock = new ReentrantReadWriteLock();
+    private final ReentrantLock[] stripes = new ReentrantLock[ID_STRIPES];
+    private final ScheduledExecutorService snapshotScheduler;
+    private final RecoveryStats recoveryStats;
+    private final WriteAheadLog.Opener walOpener;
+    private WriteAheadLog wal;
+    private volatile RuntimeException walFailure;
+
+    private PersistentAddressBook(AddressBook delegate, PersistenceConfig config, WriteAheadLog.Opener walOpener) throws IOException {
+        this.delegate = delegate;
+        this.segmented = config.isIndexSegments() && delegate instanceof SegmentedAddressBook
+                ? (SegmentedAddressBook) delegate : null;
+        this.directory = config.getDirectory();
+        this.segmentMergeThreshold = segmented == null ? 0 : config.getSegmentMergeThreshold();
+        this.walOpener = walOpener;
+        for (int i = 0; i < ID_STRIPES; i++) stripes[i] = new ReentrantLock();
+        this.recoveryStats = recover();
+        Duration snapshotInterval = config.getSnapshotInterval();
+        boolean periodic = !snapshotInterval.isZero() && !snapshotInterval.isNegative();
+        if (!periodic && segmentMergeThreshold <= 0) {
+            this.snapshotScheduler = null;
+        } else {
+            this.snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "address-book-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        if (periodic) {
+            long millis = snapshotInterval.toMillis();
+            snapshotScheduler.scheduleWithFixedDelay(this::snapshotQuietly, millis, millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Recovers delegate (which must be empty) from directory and starts logging to it.
+     */
+    public static PersistentAddressBook open(AddressBook delegate, Path directory, Duration snapshotInterval) throws IOException {
+        return open(delegate, PersistenceConfig.builder().directory(directory).snapshotInterval(snapshotInterval).build());
+    }
+
+    public static PersistentAddressBook open(AddressBook delegate, PersistenceConfig config) throws IOException {
+        return new PersistentAddressBook(delegate, config, WriteAheadLog::open);
+    }
+
+    /**
+     * open() with the WAL files opened through walOpener; tests substitute one that fails on cue.
+     */
+    static PersistentAddressBook open(AddressBook delegate, PersistenceConfig config, WriteAheadLog.Opener walOpener) throws IOException {
+        return new PersistentAddressBook(delegate, config, walOpener);
+    }
+
+    @Override
+    public List<ContactCard> insert(List<AddContactRequest> requests) {
+        return insertLogged(() -> delegate.insert(requests));
+    }
+
+    @Override
+    public List<ContactCard> bulkInsert(List<AddContactRequest> requests) {
+        return insertLogged(() -> delegate.bulkInsert(requests));
+    }
+
+    private List<ContactCard> insertLogged(Supplier<List<ContactCard>> insert) {
+        List<ContactCard> inserted;
+        CompletableFuture<Void> durable;
+        checkWritable();
+        rotationLock.readLock().lock();
+        try {
+            inserted = insert.get();
+            durable = wal.append(WalRecord.insert(inserted));
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+        awaitDurable(durable);
+        mergeIfDue();
+        return inserted;
+    }
+
+    @Override
+    public List<ContactCard> find(FetchRequest request) {
+        return delegate.find(request);
+    }
+
+    @Override
+    public SearchPage findPage(FetchRequest request) {
+        return delegate.findPage(request);
+    }
+
+    @Override
+    public void stream(FetchRequest request, Consumer<ContactCard> consumer) {
+        delegate.stream(request, consumer);
+    }
+
+    @Override
+    public Stream<ContactCard> stream(FetchRequest request) {
+        return delegate.stream(request);
+    }
+
+    @Override
+    public DeletedResponse delete(List<String> ids) {
+        DeletedResponse response;
+        CompletableFuture<Void> durable;
+        checkWritable();
+        List<ReentrantLock> locks = lockIds(ids);
+        rotationLock.readLock().lock();
+        try {
+            response = delegate.delete(ids);
+            durable = wal.append(WalRecord.delete(ids));
+        } finally {
+            rotationLock.readLock().unlock();
+            unlock(locks);
+        }
+        awaitDurable(durable);
+        mergeIfDue();
+        return response;
+    }
+
+    @Override
+    public List<ContactCard> update(List<ContactCard> requests) {
+        List<ContactCard> updated;
+        CompletableFuture<Void> durable;
+        checkWritable();
+        List<ReentrantLock> locks = lockIds(requests.stream().map(ContactCard::getId).collect(Collectors.toList()));
+        rotationLock.readLock().lock();
+        try {
+            updated = delegate.update(requests);
+            durable = wal.append(WalRecord.update(requests));
+        } finally {
+            rotationLock.readLock().unlock();
+            unlock(locks);
+        }
+        awaitDurable(durable);
+        mergeIfDue();
+        return updated;
+    }
+
+    @Override
+    public void load(List<ContactCard> cards) {
+        CompletableFuture<Void> durable;
+        checkWritable();
+        List<ReentrantLock> locks = lockIds(cards.stream().map(ContactCard::getId).collect(Collectors.toList()));
+        rotationLock.readLock().lock();
+        try {
+            delegate.load(cards);
+            durable = wal.append(WalRecord.insert(cards));
+        } finally {
+            rotationLock.readLock().unlock();
+            unlock(locks);
+        }
+        awaitDurable(durable);
+        mergeIfDue();
+    }
+
+    @Override
+    public void forEach(Consumer<ContactCard> consumer) {
+        delegate.forEach(consumer);
+    }
+
+    @Override
+    public List<Suggestion> suggest(String prefix, int limit) {
+        return delegate.suggest(prefix, limit);
+    }
+
+    @Override
+    public CacheStats cacheStats() {
+        return delegate.cacheStats();
+    }
+
+    @Override
+    public IndexStats indexStats() {
+        return delegate.indexStats();
+    }
+
+    /**
+     * Not logged: compaction never changes which contacts match what.
+     */
+    @Override
+    public CompactionStats compact() {
+        return delegate.compact();
+    }
+
+    public RecoveryStats getRecoveryStats() {
+        return recoveryStats;
+    }
+
+    /**
+     * True once a WAL append has failed; writes are refused from then on.
+     */
+    public boolean isReadOnly() {
+        return walFailure != null;
+    }
+
+    public long walRecordCount() {
+        return wal.recordCount();
+    }
+
+    public long walSyncCount() {
+        return wal.syncCount();
+    }
+
+    /**
+     * Writes a new snapshot (or index segment) and drops the WAL files and snapshots it supersedes.
+     * Returns the contacts written.
+     */
+    public synchronized long snapshot() throws IOException {
+        long generation;
+        rotationLock.writeLock().lock();
+        try {
+            generation = wal.generation() + 1;
+            wal.rotate(generation).join();
+            if (segmented != null) segmented.freezeDelta();
+        } finally {
+            rotationLock.writeLock().unlock();
+        }
+        long written;
+        try {
+            if (segmented == null) {
+                written = SnapshotStore.write(directory, generation, delegate);
+            } else {
+                Path path = IndexSegment.file(directory, generation);
+                segmented.writeSegment(path);
+                IndexSegment segment = IndexSegment.open(path);
+                segmented.installSegment(segment);
+                written = segment.cardCount();
+            }
+        } catch (IOException | RuntimeException e) {
+            //  the rotated WAL files stay: recovery still replays them on top of the last good snapshot
+            if (segmented != null) thawDelta();
+            long delay = mergeRetryDelay == 0 ? MERGE_RETRY_MIN_NANOS : Math.min(mergeRetryDelay * 2, MERGE_RETRY_MAX_NANOS);
+            mergeRetryAt = System.nanoTime() + delay;
+            mergeRetryDelay = delay;
+            throw e;
+        }
+        mergeRetryDelay = 0;
+        deleteOlderThan(generation);
+        return written;
+    }
+
+    private void thawDelta() {
+        rotationLock.writeLock().lock();
+        try {
+            segmented.thawDelta();
+        } finally {
+            rotationLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (snapshotScheduler != null) snapshotScheduler.shutdownNow();
+        wal.close();
+    }
+
+    // ---------- Recovery ----------
+
+    private RecoveryStats recover() throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        long snapshotGeneration = SnapshotStore.latestGeneration(directory);
+        long segmentGeneration = IndexSegment.latestGeneration(directory);
+        long contacts;
+        if (segmentGeneration > snapshotGeneration) {
+            contacts = restoreSegment(IndexSegment.open(IndexSegment.file(directory, segmentGeneration)));
+            snapshotGeneration = segmentGeneration;
+        } else {
+            contacts = snapshotGeneration < 0 ? 0
+                    : SnapshotStore.read(SnapshotStore.file(directory, snapshotGeneration), delegate::load);
+        }
+
+        long replayed = 0;
+        long lastGeneration = snapshotGeneration;
+        for (long generation : walGenerations()) {
+            if (generation < snapshotGeneration) continue;
+            replayed += WriteAheadLog.replay(WriteAheadLog.file(directory, generation), this::apply);
+            lastGeneration = Math.max(lastGeneration, generation);
+        }
+        wal = new WriteAheadLog(directory, lastGeneration + 1, walOpener);
+        return new RecoveryStats(contacts, replayed, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private long restoreSegment(IndexSegment segment) {
+        if (segmented != null) {
+            segmented.restoreSegment(segment);
+        } else {
+            //  segments switched off (or an engine without them): fall back to re-indexing the cards
+            List<ContactCard> cards = new ArrayList<>();
+            segment.forEachCard((card, ordinal) -> cards.add(card));
+            delegate.load(cards);
+        }
+        return segment.cardCount();
+    }
+
+    private void apply(WalRecord record) {
+        switch (record.getType()) {
+            case INSERT:
+                delegate.load(record.getCards());
+                break;
+            case UPDATE:
+                //  re-posted in full, not diffed: a segment written after its deltas froze may already hold the
+                //  updated card, whose new terms were only in the unwritten active delta
+                delegate.load(delegate.update(record.getCards()));
+                break;
+            case DELETE:
+                delegate.delete(record.getIds());
+                break;
+        }
+    }
+
+    private List<Long> walGenerations() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(WriteAheadLog::generationOf)
+                    .filter(generation -> generation >= 0)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private void deleteOlderThan(long generation) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.collect(Collectors.toList())) {
+                long walGeneration = WriteAheadLog.generationOf(path);
+                long snapshotGeneration = Math.max(SnapshotStore.generationOf(path), IndexSegment.generationOf(path));
+                if ((walGeneration >= 0 && walGeneration < generation)
+                        || (snapshotGeneration >= 0 && snapshotGeneration < generation)) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    // ---------- Fail Stop ----------
+
+    private void checkWritable() {
+        RuntimeException failure = walFailure;
+        if (failure != null) throw new IllegalStateException("Address book is read-only after a WAL failure", failure);
+    }
+
+    /**
+     * Waits for a write's WAL append; if it failed, the write is already in memory but not on disk, so
+     * the book stops taking writes.
+     */
+    private void awaitDurable(CompletableFuture<Void> durable) {
+        try {
+            durable.join();
+        } catch (CompletionException e) {
+            RuntimeException cause = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            if (walFailure == null) {
+                walFailure = cause;
+                LOG.error("WAL append failed; refusing writes until restart", cause);
+            }
+            throw new IllegalStateException("Write applied but not logged; address book is now read-only", cause);
+        }
+    }
+
+    private void mergeIfDue() {
+        if (segmentMergeThreshold <= 0 || segmented.deltaPostings() < segmentMergeThreshold) return;
+        //  after a failed snapshot the deltas are still over the threshold; wait out the backoff first
+        if (mergeRetryDelay != 0 && System.nanoTime() - mergeRetryAt < 0) return;
+        if (!mergePending.compareAndSet(false, true)) return;
+        try {
+            snapshotScheduler.execute(() -> {
+                try {
+                    snapshotQuietly();
+                } finally {
+                    mergePending.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            mergePending.set(false);
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (Exception e) {
+            //  keep the schedule alive; the WAL still holds everything since the last good snapshot
+            LOG.error("Address book snapshot failed", e);
+        }
+    }
+
+    // ---------- Id Locks ----------
+
+    private List<ReentrantLock> lockIds(Collection<String> ids) {
+        //  lock stripes in index order so two multi-id writes can never deadlock
+        List<ReentrantLock> locks = ids.stream()
+                .filter(Objects::nonNull)
+                .mapToInt(id -> (id.hashCode() & 0x7fffffff) % ID_STRIPES)
+                .distinct()
+                .sorted()
+                .mapToObj(i -> stripes[i])
+                .collect(Collectors.toList());
+        locks.forEach(ReentrantLock::lock);
+        return locks;
+    }
+
+    private static void unlock(List<ReentrantLock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) locks.get(i).unlock();
+    }
+
+    public static final class RecoveryStats {
+        private final long snapshotContacts;
+        private final long replayedRecords;
+        private final Duration duration;
+
+        RecoveryStats(long snapshotContacts, long replayedRecords, Duration duration) {
+            this.snapshotContacts = snapshotContacts;
+            this.replayedRecords = replayedRecords;
+            this.duration = duration;
+        }
+
+        public long getSnapshotContacts() {
+            return snapshotContacts;
+        }
+
+        public long getReplayedRecords() {
+            return replayedRecords;
+        }
+
+        public Duration getDuration() {
+            return duration;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.persistence;
+
+import com.example.addressBook.AddressBook;
+import com.example.dto.ContactCard;
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+
+public class SnapshotStore {
+    /**
+     * Point-in-time copy of every contact (snapshot-<generation>.bin). A snapshot of generation G
+     * makes all WAL files of generations below G redundant; recovery replays wal-G onwards on top of it.
+
+        file = [int MAGIC][int FORMAT_VERSION] ([byte 1][card])* [byte 0][long crc32]
+
+     Snapshots are written to a temp file, forced to disk and atomically renamed into place, so a
+     crash mid-snapshot leaves the previous snapshot untouched.
+     **/
+
+    private static final int MAGIC = 0x41424B53;
+    private static final int FORMAT_VERSION = 1;
+    private static final int LOAD_BATCH = 10_000;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    public static Path file(Path directory, long generation) {
+        return directory.resolve(PREFIX + generation + SUFFIX);
+    }
+
+    /**
+     * Writes a snapshot of addressBook for generation and returns the number of contacts written.
+     */
+    public static long write(Path directory, long generation, AddressBook addressBook) throws IOException {
+        Files.createDirectories(directory);
+        Path target = file(directory, generation);
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        long[] count = new long[1];
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new CheckedOutputStream(Files.newOutputStream(temp), crc), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            addressBook.forEach(card -> {
+                try {
+                    out.writeByte(1);
+                    ContactCodec.writeCard(out, card);
+                    count[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.writeByte(0);
+            out.flush();
+            out.writeLong(crc.getValue());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return count[0];
+    }
+
+    /**
+     * Streams the snapshot's contacts to consumer in batches and returns how many were read.
+     */
+    public static long read(Path path, Consumer<List<ContactCard>> consumer) throws IOException {
+        CRC32 crc = new CRC32();
+        long count = 0;
+        //  checksum below the DataInputStream but above the buffer, so read-ahead never reaches the trailer
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(path), 1 << 16), crc))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not an address book snapshot: " + path);
+            }
+            List<ContactCard> batch = new ArrayList<>(LOAD_BATCH);
+            while (in.readByte() == 1) {
+                batch.add(ContactCodec.readCard(in));
+                count++;
+                if (batch.size() == LOAD_BATCH) {
+                    consumer.accept(batch);
+                    batch = new ArrayList<>(LOAD_BATCH);
+                }
+            }
+            long expected = crc.getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("Corrupt address book snapshot: " + path);
+            }
+            if (!batch.isEmpty()) consumer.accept(batch);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the newest snapshot generation in directory, or -1 if there is none.
+     */
+    public static long latestGeneration(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) return -1;
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(SnapshotStore::generationOf).max().orElse(-1);
+        }
+    }
+
+    public static long generationOf(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) return -1;
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.persistence;
+
+import com.example.dto.ContactCard;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+
+public class WalRecord {
+    /**
+     * One logged write. Every type is idempotent on replay, which lets snapshots be taken without
+     * stopping writers: replaying an operation the snapshot already contains leaves the state unchanged.
+
+        INSERT  full cards including their generated ids   (replayed through AddressBook.load, an upsert)
+        UPDATE  the partial cards exactly as requested      (replayed through AddressBook.update, then load)
+        DELETE  contact ids                                 (replayed through AddressBook.delete)
+     **/
+
+    public enum Type { INSERT, UPDATE, DELETE }
+
+    private final Type type;
+    private final List<ContactCard> cards;
+    private final List<String> ids;
+
+    private WalRecord(Type type, List<ContactCard> cards, List<String> ids) {
+        this.type = type;
+        this.cards = cards;
+        this.ids = ids;
+    }
+
+    public static WalRecord insert(List<ContactCard> cards) {
+        return new WalRecord(Type.INSERT, cards, List.of());
+    }
+
+    public static WalRecord update(List<ContactCard> cards) {
+        return new WalRecord(Type.UPDATE, cards, List.of());
+    }
+
+    public static WalRecord delete(List<String> ids) {
+        return new WalRecord(Type.DELETE, List.of(), ids);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public List<ContactCard> getCards() {
+        return cards;
+    }
+
+    public List<String> getIds() {
+        return ids;
+    }
+
+    public byte[] encode() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + cards.size() * 96);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(type.ordinal());
+            if (type == Type.DELETE) {
+                out.writeInt(ids.size());
+                for (String id : ids) ContactCodec.writeString(out, id);
+            } else {
+                out.writeInt(cards.size());
+                for (ContactCard card : cards) ContactCodec.writeCard(out, card);
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static WalRecord decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        Type type = Type.values()[in.readByte()];
+        int count = in.readInt();
+        if (type == Type.DELETE) {
+            List<String> ids = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) ids.add(ContactCodec.readString(in));
+            return delete(ids);
+        }
+        List<ContactCard> cards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) cards.add(ContactCodec.readCard(in));
+        return type == Type.INSERT ? insert(cards) : update(cards);
+    }
+}
@@ -0,0 +1,304 @@
+package com.example.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+
+public class WriteAheadLog implements Closeable {
+    /**
+     * Append-only log of WalRecords, one file per generation (wal-<generation>.log).
+
+        frame = [int payloadLength][int crc32(payload)][payload]
+
+     A single committer thread drains every record queued since its last fsync, writes them with one
+     gathering write and issues one FileChannel.force() for the whole batch (group commit). append()
+     completes its future only once the record is durable.
+
+     On replay a short or corrupt frame marks the torn tail of a crash: replay stops there and the
+     file is truncated back to the last complete frame.
+
+     A write or fsync that fails leaves the same kind of tail while the process lives on. The batch's
+     futures fail and the file is truncated back to the end of the last durable batch, so records
+     acknowledged later do not land behind a frame replay would stop at. If even that truncation fails
+     the log is failed: every later append and rotation fails with the original error.
+     **/
+
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_BATCH = 4096;
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread committer;
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+    private final Opener opener;
+    private FileChannel channel;
+    //  end of the last batch that reached the disk; only the committer thread touches it
+    private long durableSize;
+    private volatile long generation;
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    public WriteAheadLog(Path directory, long generation) throws IOException {
+        this(directory, generation, WriteAheadLog::open);
+    }
+
+    WriteAheadLog(Path directory, long generation, Opener opener) throws IOException {
+        this.directory = directory;
+        this.generation = generation;
+        this.opener = opener;
+        this.channel = opener.open(directory, generation);
+        this.durableSize = channel.size();
+        this.committer = new Thread(this::commitLoop, "wal-committer");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    public CompletableFuture<Void> append(WalRecord record) {
+        if (closed) return CompletableFuture.failedFuture(new IllegalStateException("WAL is closed"));
+        if (failure != null) return CompletableFuture.failedFuture(failed());
+        Pending pending = new Pending(frame(record.encode()), -1);
+        queue.add(pending);
+        return pending.done;
+    }
+
+    /**
+     * Makes everything appended so far durable, then switches to a new, empty generation file.
+     */
+    public CompletableFuture<Void> rotate(long newGeneration) {
+        Pending pending = new Pending(null, newGeneration);
+        queue.add(pending);
+        return pending.done;
+    }
+
+    public long generation() {
+        return generation;
+    }
+
+    public long recordCount() {
+        return records.get();
+    }
+
+    public long syncCount() {
+        return syncs.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        queue.add(Pending.POISON);
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        //  appends that raced with close() and queued up behind the poison pill
+        List<Pending> stragglers = new ArrayList<>();
+        queue.drainTo(stragglers);
+        failAll(stragglers, new IllegalStateException("WAL is closed"));
+        channel.close();
+    }
+
+    // ---------- Files ----------
+
+    public static Path file(Path directory, long generation) {
+        return directory.resolve(PREFIX + generation + SUFFIX);
+    }
+
+    /**
+     * Returns the generation encoded in a WAL file name, or -1 if path is not a WAL file.
+     */
+    public static long generationOf(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) return -1;
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Feeds every complete record of a WAL file to consumer, truncating a torn tail. Returns the record count.
+     */
+    public static long replay(Path path, Consumer<WalRecord> consumer) throws IOException {
+        long count = 0;
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            long position = 0;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (position + HEADER_BYTES <= size) {
+                header.clear();
+                readFully(in, header, position);
+                header.flip();
+                int length = header.getInt();
+                int crc = header.getInt();
+                if (length < 0 || position + HEADER_BYTES + length > size) break;
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                readFully(in, payload, position + HEADER_BYTES);
+                if (checksum(payload.array()) != crc) break;
+                consumer.accept(WalRecord.decode(payload.array()));
+                position += HEADER_BYTES + length;
+                count++;
+            }
+            if (position < size) {
+                in.truncate(position);
+                in.force(true);
+            }
+        }
+        return count;
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = in.read(buffer, position);
+            if (read < 0) return;
+            position += read;
+        }
+    }
+
+    static FileChannel open(Path directory, long generation) throws IOException {
+        Files.createDirectories(directory);
+        return FileChannel.open(file(directory, generation),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static ByteBuffer frame(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        buffer.putInt(payload.length).putInt(checksum(payload)).put(payload).flip();
+        return buffer;
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    // ---------- Group Commit ----------
+
+    private void commitLoop() {
+        List<Pending> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH - 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            int from = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                Pending pending = batch.get(i);
+                if (pending.frame != null) continue;
+                //  a control entry: everything queued before it must be durable first
+                flush(batch.subList(from, i));
+                from = i + 1;
+                if (pending == Pending.POISON) {
+                    failAll(batch.subList(from, batch.size()), new IllegalStateException("WAL is closed"));
+                    return;
+                }
+                switchGeneration(pending);
+            }
+            flush(batch.subList(from, batch.size()));
+            batch.clear();
+        }
+    }
+
+    private void flush(List<Pending> pendings) {
+        if (pendings.isEmpty()) return;
+        if (failure != null) {
+            failAll(pendings, failed());
+            return;
+        }
+        try {
+            ByteBuffer[] buffers = new ByteBuffer[pendings.size()];
+            for (int i = 0; i < buffers.length; i++) buffers[i] = pendings.get(i).frame;
+            long bytes = 0;
+            for (ByteBuffer buffer : buffers) bytes += buffer.remaining();
+            for (long remaining = bytes; remaining > 0; ) remaining -= channel.write(buffers);
+            channel.force(false);
+            durableSize += bytes;
+            syncs.incrementAndGet();
+            records.addAndGet(pendings.size());
+            for (Pending pending : pendings) pending.done.complete(null);
+        } catch (IOException e) {
+            failAll(pendings, new UncheckedIOException(e));
+            discardTornTail(e);
+        }
+    }
+
+    /**
+     * Cuts whatever part of a failed batch reached the file; if that fails too, fails the log.
+     */
+    private void discardTornTail(IOException cause) {
+        try {
+            channel.truncate(durableSize);
+            channel.force(false);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+            failure = cause;
+        }
+    }
+
+    private UncheckedIOException failed() {
+        return new UncheckedIOException("WAL failed and may hold a torn frame", failure);
+    }
+
+    private void switchGeneration(Pending rotation) {
+        if (failure != null) {
+            rotation.done.completeExceptionally(failed());
+            return;
+        }
+        try {
+            channel.close();
+            channel = opener.open(directory, rotation.nextGeneration);
+            durableSize = channel.size();
+            generation = rotation.nextGeneration;
+            rotation.done.complete(null);
+        } catch (IOException e) {
+            rotation.done.completeExceptionally(new UncheckedIOException(e));
+        }
+    }
+
+    private static void failAll(List<Pending> pendings, RuntimeException error) {
+        for (Pending pending : pendings) pending.done.completeExceptionally(error);
+    }
+
+    /**
+     * Opens the file of a generation for appending; tests substitute one that fails on cue.
+     */
+    interface Opener {
+        FileChannel open(Path directory, long generation) throws IOException;
+    }
+
+    private static final class Pending {
+        static final Pending POISON = new Pending(null, -1);
+
+        final ByteBuffer frame;
+        final long nextGeneration;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Pending(ByteBuffer frame, long nextGeneration) {
+            this.frame = frame;
+            this.nextGeneration = nextGeneration;
+        }
+    }
+}
@@ -2,42 +2,365 @@ package com.example.service;
 
 import com.example.addressBook.AddressBook;
 import com.example.addressBook.AddressBookFactory;
+import com.example.addressBook.ShardedAddressBook;
+import com.example.cluster.RemoteAddressBook;
 import com.example.dto.AddContactRequest;
+import com.example.dto.CacheStats;
+import com.example.dto.CompactionStats;
 import com.example.dto.ContactCard;
 import com.example.dto.DeletedResponse;
 import com.example.dto.FetchRequest;
+import com.example.dto.SearchPage;
+import com.example.dto.Suggestion;
 import com.example.enums.AddressBookImplType;
+import com.example.persistence.PersistenceConfig;
+import com.example.persistence.PersistentAddressBook;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 
 @ApplicationScoped
 public class AddressBookAdapter {
+    private static final Logger LOG = Logger.getLogger(AddressBookAdapter.class);
+    private static final int IMPORT_BATCH_SIZE = 10_000;
+    private static final int MAX_SUGGESTIONS = 100;
+
     @ConfigProperty(name = "address.book.implementation.type")
     String configString;
 
+    @ConfigProperty(name = "address.book.shards", defaultValue = "1")
+    int shards;
+
+    @ConfigProperty(name = "address.book.query-cache.size", defaultValue = "10000")
+    int queryCacheSize;
+
+    @ConfigProperty(name = "address.book.persistence.enabled", defaultValue = "false")
+    boolean persistenceEnabled;
+
+    @ConfigProperty(name = "address.book.persistence.directory", defaultValue = "data")
+    String persistenceDirectory;
+
+    @ConfigProperty(name = "address.book.persistence.snapshot-interval", defaultValue = "PT5M")
+    Duration snapshotInterval;
+
+    @ConfigProperty(name = "address.book.persistence.index-segments", defaultValue = "false")
+    boolean indexSegments;
+
+    @ConfigProperty(name = "address.book.persistence.segment-merge-threshold", defaultValue = "1000000")
+    long segmentMergeThreshold;
+
+    @ConfigProperty(name = "address.book.compaction.interval", defaultValue = "PT10M")
+    Duration compactionInterval;
+
+    @ConfigProperty(name = "address.book.cluster.nodes")
+    Optional<List<String>> clusterNodes;
+
+    @ConfigProperty(name = "address.book.cluster.self", defaultValue = "0")
+    int clusterSelf;
+
+    @ConfigProperty(name = "address.book.cluster.timeout", defaultValue = "PT5S")
+    Duration clusterTimeout;
+
+    @ConfigProperty(name = "address.book.cluster.secret")
+    Optional<String> clusterSecret;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    //  the contacts this node owns; addressBook routes over it and, when partitioned, the peers
+    private AddressBook localAddressBook;
+    private AddressBook addressBook;
+    private ExecutorService peerCalls;
+    //  what peers must send in RemoteAddressBook.SECRET_HEADER; null if partitioned without one
+    private byte[] peerSecret;
+    private ScheduledExecutorService compactionScheduler;
+    private AddressBookMetrics metrics;
+
+    @PostConstruct
+    void init() {
+        localAddressBook = openLocal(AddressBookImplType.getType(configString));
+        addressBook = clusterNodes.filter(nodes -> nodes.size() > 1).map(this::partitioned).orElse(localAddressBook);
+        metrics = new AddressBookMetrics(meterRegistry, configString, localAddressBook);
+        if (!compactionInterval.isZero() && !compactionInterval.isNegative()) {
+            compactionScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "address-book-compaction");
+                thread.setDaemon(true);
+                //  a background sweep; request threads come first
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+            long millis = compactionInterval.toMillis();
+            compactionScheduler.scheduleWithFixedDelay(this::compactQuietly, millis, millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private AddressBook openLocal(AddressBookImplType config) {
+        if (!persistenceEnabled) {
+            return shards > 1 ? new ShardedAddressBook(config, shards, queryCacheSize) : AddressBookFactory.create(config, queryCacheSize);
+        }
+        try {
+            AddressBook delegate = shards > 1 ? new ShardedAddressBook(config, shards, queryCacheSize)
+                    : AddressBookFactory.create(config, queryCacheSize);
+            PersistentAddressBook persistent = PersistentAddressBook.open(delegate,
+                    PersistenceConfig.builder()
+                            .directory(Path.of(persistenceDirectory))
+                            .snapshotInterval(snapshotInterval)
+                            .indexSegments(indexSegments)
+                            .segmentMergeThreshold(segmentMergeThreshold)
+                            .build());
+            PersistentAddressBook.RecoveryStats stats = persistent.getRecoveryStats();
+            LOG.infof("Recovered %d contacts from snapshot/segment and replayed %d WAL records in %d ms",
+                    stats.getSnapshotContacts(), stats.getReplayedRecords(), stats.getDuration().toMillis());
+            return persistent;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not recover address book from " + persistenceDirectory, e);
+        }
+    }
+
+    /**
+     * Every node lists the same nodes in the same order; node i owns the i-th range of the id hash space
+     * and reaches the others through RemoteAddressBooks.
+     */
+    private AddressBook partitioned(List<String> nodes) {
+        if (clusterSelf < 0 || clusterSelf >= nodes.size()) {
+            throw new IllegalStateException("address.book.cluster.self must index address.book.cluster.nodes: " + clusterSelf);
+        }
+        //  peer calls block on the network, so they get their own threads rather than the common pool
+        peerCalls = Executors.newCachedThreadPool();
+        HttpClient client = HttpClient.newBuilder().connectTimeout(clusterTimeout).build();
+        String secret = clusterSecret.filter(value -> !value.isEmpty()).orElse(null);
+        if (secret == null) {
+            LOG.warn("address.book.cluster.secret is not set: any client that reaches this node can call /internal");
+        } else {
+            peerSecret = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        List<AddressBook> owners = new ArrayList<>(nodes.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            owners.add(i == clusterSelf ? localAddressBook
+                    : new RemoteAddressBook(URI.create(nodes.get(i).trim()), client, objectMapper, clusterTimeout, secret));
+        }
+        LOG.infof("Partitioned across %d nodes as node %d (%s)", nodes.size(), clusterSelf, nodes.get(clusterSelf));
+        return new ShardedAddressBook(owners, peerCalls);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (peerCalls != null) peerCalls.shutdown();
+        if (compactionScheduler != null) compactionScheduler.shutdownNow();
+        if (localAddressBook instanceof PersistentAddressBook) {
+            ((PersistentAddressBook) localAddressBook).close();
+        }
+    }
+
     private AddressBook getAddressBook() {
-        AddressBookImplType config = AddressBookImplType.getType(configString);
-        return AddressBookFactory.getAddressBookImpl(config);
+        return addressBook;
+    }
+
+    /**
+     * This node's own contacts, without routing; what peers reach through the /internal endpoints.
+     */
+    public AddressBook local() {
+        return localAddressBook;
+    }
+
+    /**
+     * True if this node is one of several partitions; only then are the /internal endpoints served.
+     */
+    public boolean isPartitioned() {
+        return peerCalls != null;
+    }
+
+    /**
+     * Whether an /internal call carrying secret comes from a peer: any call does when no cluster secret is
+     * configured, otherwise only one that sends it.
+     */
+    public boolean acceptsPeer(String secret) {
+        if (!isPartitioned()) return false;
+        if (peerSecret == null) return true;
+        return secret != null && MessageDigest.isEqual(peerSecret, secret.getBytes(StandardCharsets.UTF_8));
     }
 
     public List<ContactCard> insert(List<AddContactRequest> requests) {
-        return getAddressBook().insert(requests);
+        long start = System.nanoTime();
+        try {
+            List<ContactCard> inserted = getAddressBook().insert(requests);
+            metrics.inserted.increment(inserted.size());
+            return inserted;
+        } finally {
+            metrics.insert.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Bulk-inserts contacts as they are pulled from the iterator, IMPORT_BATCH_SIZE at a time, and returns
+     * how many were imported. Batches already inserted stay in place if the iterator fails part way.
+     */
+    public long importContacts(Iterator<AddContactRequest> contacts) {
+        long imported = 0;
+        List<AddContactRequest> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        try {
+            while (contacts.hasNext()) {
+                batch.add(contacts.next());
+                if (batch.size() == IMPORT_BATCH_SIZE) {
+                    imported += bulkInsert(batch);
+                    batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(e.getMessage() + " (" + imported + " contacts imported before it)", e);
+        }
+        if (!batch.isEmpty()) imported += bulkInsert(batch);
+        return imported;
+    }
+
+    private int bulkInsert(List<AddContactRequest> batch) {
+        long start = System.nanoTime();
+        try {
+            int inserted = getAddressBook().bulkInsert(batch).size();
+            metrics.inserted.increment(inserted);
+            return inserted;
+        } finally {
+            metrics.bulkInsert.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
     public List<ContactCard> find(FetchRequest fetchRequest) {
-        return getAddressBook().find(fetchRequest);
+        long start = System.nanoTime();
+        try {
+            return getAddressBook().find(fetchRequest);
+        } finally {
+            metrics.find.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public SearchPage findPage(FetchRequest fetchRequest) {
+        long start = System.nanoTime();
+        try {
+            return getAddressBook().findPage(fetchRequest);
+        } finally {
+            metrics.findPage.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Timed end to end, so the recorded latency includes writing every match to the client.
+     */
+    public void stream(FetchRequest fetchRequest, Consumer<ContactCard> consumer) {
+        long start = System.nanoTime();
+        try {
+            getAddressBook().stream(fetchRequest, consumer);
+        } finally {
+            metrics.stream.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * stream() pulled by the caller; timed until the stream is closed, so again end to end.
+     */
+    public Stream<ContactCard> stream(FetchRequest fetchRequest) {
+        long start = System.nanoTime();
+        return getAddressBook().stream(fetchRequest)
+                .onClose(() -> metrics.stream.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new IllegalArgumentException("Query parameter 'prefix' is required");
+        }
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("Query parameter 'limit' must be between 1 and " + MAX_SUGGESTIONS);
+        }
+        long start = System.nanoTime();
+        try {
+            return getAddressBook().suggest(prefix, limit);
+        } finally {
+            metrics.suggest.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
     public List<ContactCard> update(List<ContactCard> requests) {
-        return getAddressBook().update(requests);
+        long start = System.nanoTime();
+        try {
+            List<ContactCard> updated = getAddressBook().update(requests);
+            metrics.updated.increment(updated.size());
+            return updated;
+        } finally {
+            metrics.update.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
     public DeletedResponse delete(List<String> ids) {
         if (ids == null || ids.isEmpty()) {
             throw new IllegalArgumentException("List of IDs to delete cannot be null or empty");
         }
-        return getAddressBook().delete(ids);
+        long start = System.nanoTime();
+        try {
+            DeletedResponse response = getAddressBook().delete(ids);
+            metrics.deleted.increment(response.getDeleted());
+            return response;
+        } finally {
+            metrics.delete.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * One compaction pass over this node's own contacts; peers compact theirs on their own schedule.
+     */
+    public CompactionStats compact() {
+        long start = System.nanoTime();
+        try {
+            CompactionStats stats = localAddressBook.compact();
+            metrics.compacted(stats);
+            return stats;
+        } finally {
+            metrics.compaction.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            CompactionStats stats = compact();
+            LOG.debugf("Compaction reclaimed %d bytes: %d dead postings, %d empty terms, %d lists rebuilt in %d ms",
+                    stats.getReclaimedBytes(), stats.getDeadPostings(), stats.getEmptyTerms(), stats.getListsRebuilt(),
+                    stats.getDurationMillis());
+        } catch (RuntimeException e) {
+            //  keep the schedule alive; the next pass picks up whatever this one left
+            LOG.warn("Compaction failed", e);
+        }
+    }
+
+    /**
+     * Result cache counters for everything this node serves: summed over its shards, and over the
+     * peers' when partitioned.
+     */
+    public CacheStats cacheStats() {
+        return getAddressBook().cacheStats();
     }
 }
@@ -0,0 +1,151 @@
+package com.example.service;
+
+import com.example.addressBook.AddressBook;
+import com.example.dto.CacheStats;
+import com.example.dto.CompactionStats;
+import com.example.dto.IndexStats;
+import com.example.index.InvertedIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+
+final class AddressBookMetrics {
+    /**
+     * Micrometer meters for one node, served at /q/metrics by the Prometheus registry.
+
+        addressbook.operation{operation,implementation}      Timer with a percentile histogram per call
+        addressbook.contacts.written{operation,...}          Counter of cards inserted, updated, deleted
+        addressbook.contacts / .index.terms / .index.postings / .heap.estimated    Gauges (local book)
+        addressbook.index.posting.lists{length="4-7"}        Gauge per posting-list length bucket
+        addressbook.cache.*                                  FunctionCounters and a size gauge (QueryCache)
+        addressbook.compaction, addressbook.compaction.*     Timer per pass, Counters of what passes gave back
+
+     Every meter is registered up front; the request path only reads System.nanoTime() and calls
+     Timer.record(long, TimeUnit) or Counter.increment on a field, which allocate nothing. Gauges are
+     read at scrape time from one IndexStats snapshot, recomputed at most every SNAPSHOT_TTL_NANOS since
+     it walks the whole book. Gauges and cache meters only cover this node's own contacts, so a
+     partitioned cluster can be summed across nodes without counting anything twice.
+     **/
+
+    private static final long SNAPSHOT_TTL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    final Timer insert;
+    final Timer bulkInsert;
+    final Timer find;
+    final Timer findPage;
+    final Timer stream;
+    final Timer suggest;
+    final Timer update;
+    final Timer delete;
+    final Counter inserted;
+    final Counter updated;
+    final Counter deleted;
+    final Timer compaction;
+    private final Counter reclaimedBytes;
+    private final Counter deadPostings;
+    private final Counter emptyTerms;
+
+    private final AddressBook local;
+    private IndexStats snapshot;
+    private long snapshotTakenAt;
+
+    AddressBookMetrics(MeterRegistry registry, String implementation, AddressBook local) {
+        this.local = local;
+        insert = timer(registry, "insert", implementation);
+        bulkInsert = timer(registry, "bulk_insert", implementation);
+        find = timer(registry, "find", implementation);
+        findPage = timer(registry, "find_page", implementation);
+        stream = timer(registry, "stream", implementation);
+        suggest = timer(registry, "suggest", implementation);
+        update = timer(registry, "update", implementation);
+        delete = timer(registry, "delete", implementation);
+        inserted = written(registry, "insert", implementation);
+        updated = written(registry, "update", implementation);
+        deleted = written(registry, "delete", implementation);
+        compaction = Timer.builder("addressbook.compaction")
+                .description("Duration of background index compaction passes")
+                .register(registry);
+        reclaimedBytes = Counter.builder("addressbook.compaction.reclaimed")
+                .description("Heap given back by compaction")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        deadPostings = Counter.builder("addressbook.compaction.postings.dropped")
+                .description("Postings of deleted or superseded contacts swept by compaction")
+                .register(registry);
+        emptyTerms = Counter.builder("addressbook.compaction.terms.dropped")
+                .description("Empty terms and phone trie nodes unlinked by compaction")
+                .register(registry);
+
+        gauge(registry, "addressbook.contacts", "Contacts stored on this node", null, stats -> stats.getContacts());
+        gauge(registry, "addressbook.index.terms", "Distinct terms per index layer", null, stats -> stats.getTerms());
+        gauge(registry, "addressbook.index.postings", "Postings across all term indexes", null, stats -> stats.getPostings());
+        gauge(registry, "addressbook.heap.estimated", "Estimated heap held by cards and indexes", BaseUnits.BYTES,
+                stats -> stats.getEstimatedHeapBytes());
+        for (int i = 0; i < InvertedIndex.LENGTH_BUCKETS; i++) {
+            int bucket = i;
+            Gauge.builder("addressbook.index.posting.lists", this, metrics -> metrics.stats().getPostingLengths()[bucket])
+                    .description("Posting lists by number of postings")
+                    .tag("length", lengthRange(bucket))
+                    .register(registry);
+        }
+
+        cacheCounter(registry, "addressbook.cache.hits", CacheStats::getHits);
+        cacheCounter(registry, "addressbook.cache.misses", CacheStats::getMisses);
+        cacheCounter(registry, "addressbook.cache.evictions", CacheStats::getEvictions);
+        cacheCounter(registry, "addressbook.cache.invalidations", CacheStats::getInvalidations);
+        Gauge.builder("addressbook.cache.size", local, book -> book.cacheStats().getSize()).register(registry);
+    }
+
+    void compacted(CompactionStats stats) {
+        reclaimedBytes.increment(stats.getReclaimedBytes());
+        deadPostings.increment(stats.getDeadPostings());
+        emptyTerms.increment(stats.getEmptyTerms());
+    }
+
+    private synchronized IndexStats stats() {
+        long now = System.nanoTime();
+        if (snapshot == null || now - snapshotTakenAt > SNAPSHOT_TTL_NANOS) {
+            snapshot = local.indexStats();
+            snapshotTakenAt = now;
+        }
+        return snapshot;
+    }
+
+    private void gauge(MeterRegistry registry, String name, String description, String unit, ToDoubleFunction<IndexStats> value) {
+        Gauge.builder(name, this, metrics -> value.applyAsDouble(metrics.stats()))
+                .description(description)
+                .baseUnit(unit)
+                .register(registry);
+    }
+
+    private void cacheCounter(MeterRegistry registry, String name, ToDoubleFunction<CacheStats> value) {
+        FunctionCounter.builder(name, local, book -> value.applyAsDouble(book.cacheStats())).register(registry);
+    }
+
+    private static Timer timer(MeterRegistry registry, String operation, String implementation) {
+        return Timer.builder("addressbook.operation")
+                .description("Latency of address book calls")
+                .tag("operation", operation)
+                .tag("implementation", implementation)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static String lengthRange(int bucket) {
+        return bucket == 0 ? "1" : (1L << bucket) + "-" + ((1L << (bucket + 1)) - 1);
+    }
+
+    private static Counter written(MeterRegistry registry, String operation, String implementation) {
+        return Counter.builder("addressbook.contacts.written")
+                .description("Contacts inserted, updated or deleted")
+                .tag("operation", operation)
+                .tag("implementation", implementation)
+                .register(registry);
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.service;
+
+import com.example.dto.AddContactRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+
+public abstract class ContactReader implements Iterator<AddContactRequest> {
+    /**
+     * Pulls contacts off an import body one line at a time, so an upload is never held in memory whole.
+
+        NDJSON   one AddContactRequest JSON object per line
+        CSV      a header naming the columns (name, email, phone, any order), then one contact per line;
+                 fields may be double-quoted, with "" for a literal quote, but may not span lines
+
+     Blank lines are skipped. A malformed line throws IllegalArgumentException naming its line number;
+     read failures surface as UncheckedIOException.
+     **/
+
+    private final BufferedReader reader;
+    private int lineNumber;
+    private AddContactRequest next;
+
+    private ContactReader(InputStream body) {
+        this.reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+
+    public static ContactReader ndjson(InputStream body, ObjectMapper objectMapper) {
+        return new ContactReader(body) {
+            @Override
+            AddContactRequest parse(String line) throws IOException {
+                return objectMapper.readValue(line, AddContactRequest.class);
+            }
+        };
+    }
+
+    public static ContactReader csv(InputStream body) {
+        return new ContactReader(body) {
+            private int[] columns;
+
+            @Override
+            AddContactRequest parse(String line) {
+                List<String> fields = splitCsv(line);
+                if (columns == null) {
+                    columns = header(fields);
+                    return null;
+                }
+                AddContactRequest request = new AddContactRequest();
+                for (int i = 0; i < fields.size() && i < columns.length; i++) {
+                    String value = fields.get(i).isEmpty() ? null : fields.get(i);
+                    switch (columns[i]) {
+                        case NAME:
+                            request.setName(value);
+                            break;
+                        case EMAIL:
+                            request.setEmail(value);
+                            break;
+                        case PHONE:
+                            request.setPhone(value);
+                            break;
+                        default:
+                            break;
+                    }
+                }
+                return request;
+            }
+        };
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            String line;
+            try {
+                line = reader.readLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (line == null) return false;
+            lineNumber++;
+            if (line.isBlank()) continue;
+            try {
+                next = parse(line);
+            } catch (IOException | RuntimeException e) {
+                throw new IllegalArgumentException("Malformed contact on line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public AddContactRequest next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        AddContactRequest current = next;
+        next = null;
+        return current;
+    }
+
+    /**
+     * Returns the contact on line, or null if the line carries none (a header).
+     */
+    abstract AddContactRequest parse(String line) throws IOException;
+
+    // ---------- CSV ----------
+
+    private static final int IGNORED = 0, NAME = 1, EMAIL = 2, PHONE = 3;
+
+    private static int[] header(List<String> fields) {
+        int[] columns = new int[fields.size()];
+        boolean any = false;
+        for (int i = 0; i < columns.length; i++) {
+            switch (fields.get(i).trim().toLowerCase(Locale.ROOT)) {
+                case "name":
+                    columns[i] = NAME;
+                    break;
+                case "email":
+                    columns[i] = EMAIL;
+                    break;
+                case "phone":
+                    columns[i] = PHONE;
+                    break;
+                default:
+                    columns[i] = IGNORED;
+            }
+            any |= columns[i] != IGNORED;
+        }
+        if (!any) throw new IllegalArgumentException("CSV header must name at least one of name, email, phone");
+        return columns;
+    }
+
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') field.append(c);
+                else if (i + 1 < line.length() && line.charAt(i + 1) == '"') field.append(line.charAt(++i));
+                else quoted = false;
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) throw new IllegalArgumentException("unterminated quoted field");
+        fields.add(field.toString());
+        return fields;
+    }
+}
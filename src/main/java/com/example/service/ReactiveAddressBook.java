@@ -0,0 +1,150 @@
+package com.example.service;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.example.dto.DeletedResponse;
+import com.example.dto.FetchRequest;
+import com.example.dto.SearchPage;
+import com.example.dto.Suggestion;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+
+@ApplicationScoped
+public class ReactiveAddressBook {
+    /**
+     * Non-blocking front for AddressBookAdapter: every call returns at once and the engine work runs on
+     * a fixed pool of worker threads, so the event loop never tokenizes, scans or waits on a lock.
+
+        admission   a request takes one of maxPending permits for its whole life, or fails straight
+                    away with RejectedExecutionException (503 + Retry-After at the controller)
+        bulk        writes are cut into writeChunk-sized tasks run one after another, so a 100k-contact
+                    /create holds one worker per chunk, not for the whole call, and reads interleave
+        streams     matches are pulled as the subscriber requests them, each request(n) on a worker
+                    that reads n cards and goes back to the pool; none waits on a slow subscriber
+
+     An admitted request never has more than one task queued, so the queue is bounded by maxPending
+     and a bulk write is never rejected half way through. Chunks of one write are applied in order;
+     a failing chunk stops the rest, and the chunks before it stay applied, as with /import.
+     **/
+
+    @ConfigProperty(name = "address.book.reactive.workers", defaultValue = "0")
+    int workers;
+
+    @ConfigProperty(name = "address.book.reactive.max-pending", defaultValue = "256")
+    int maxPending;
+
+    @ConfigProperty(name = "address.book.reactive.write-chunk", defaultValue = "1000")
+    int writeChunk;
+
+    @Inject
+    AddressBookAdapter addressBookAdapter;
+
+    private ExecutorService executor;
+    private Semaphore permits;
+
+    @PostConstruct
+    void init() {
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        AtomicInteger created = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "address-book-worker-" + created.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        permits = new Semaphore(maxPending);
+    }
+
+    @PreDestroy
+    void close() {
+        executor.shutdown();
+    }
+
+    public Uni<List<ContactCard>> insert(List<AddContactRequest> requests) {
+        return admitted(() -> chunked(requests, addressBookAdapter::insert));
+    }
+
+    public Uni<List<ContactCard>> update(List<ContactCard> requests) {
+        return admitted(() -> chunked(requests, addressBookAdapter::update));
+    }
+
+    public Uni<DeletedResponse> delete(List<String> ids) {
+        return admitted(() -> chunked(ids, chunk -> List.of(addressBookAdapter.delete(chunk)))
+                .onItem().transform(responses -> DeletedResponse.builder()
+                        .deleted(responses.stream().mapToInt(DeletedResponse::getDeleted).sum())
+                        .build()));
+    }
+
+    public Uni<List<ContactCard>> find(FetchRequest request) {
+        return admitted(() -> offload(() -> addressBookAdapter.find(request)));
+    }
+
+    public Uni<SearchPage> findPage(FetchRequest request) {
+        return admitted(() -> offload(() -> addressBookAdapter.findPage(request)));
+    }
+
+    public Uni<List<Suggestion>> suggest(String prefix, int limit) {
+        return admitted(() -> offload(() -> addressBookAdapter.suggest(prefix, limit)));
+    }
+
+    /**
+     * Matches as they are resolved, paced by the subscriber. The permit is taken here, eagerly, so that
+     * a rejection can still become a status code before the response starts.
+     */
+    public Multi<ContactCard> stream(FetchRequest request) {
+        if (!permits.tryAcquire()) throw rejected();
+        //  runSubscriptionOn() also hands every request(n) to the executor, so the matches are resolved on a
+        //  worker at subscription and each batch of cards is read on one as it is asked for; the stream is
+        //  closed on completion, failure or cancellation
+        return Multi.createFrom().items(() -> addressBookAdapter.stream(request))
+                .runSubscriptionOn(executor)
+                .onTermination().invoke(permits::release);
+    }
+
+    private <T> Uni<T> admitted(Supplier<Uni<T>> work) {
+        return Uni.createFrom().deferred(() -> {
+            if (!permits.tryAcquire()) return Uni.createFrom().failure(rejected());
+            return work.get().onTermination().invoke(permits::release);
+        });
+    }
+
+    private <T> Uni<T> offload(Supplier<T> work) {
+        return Uni.createFrom().item(work).runSubscriptionOn(executor);
+    }
+
+    /**
+     * Applies write to items writeChunk at a time, each chunk a separate task queued after the previous
+     * one finished, and concatenates the results in order. A null or empty list is passed through as is,
+     * so the adapter rejects it the same way the blocking endpoints do.
+     */
+    private <T, R> Uni<List<R>> chunked(List<T> items, Function<List<T>, List<R>> write) {
+        if (items == null || items.isEmpty()) return offload(() -> write.apply(items));
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += writeChunk) {
+            chunks.add(items.subList(from, Math.min(items.size(), from + writeChunk)));
+        }
+        return Multi.createFrom().iterable(chunks)
+                .onItem().transformToUniAndConcatenate(chunk -> offload(() -> write.apply(chunk)))
+                .collect().asList()
+                .onItem().transform(results -> {
+                    List<R> all = new ArrayList<>(items.size());
+                    results.forEach(all::addAll);
+                    return all;
+                });
+    }
+
+    private RejectedExecutionException rejected() {
+        return new RejectedExecutionException("Too many requests in flight (" + maxPending + "); retry shortly");
+    }
+}
@@ -2,23 +2,78 @@ package com.example.utils;
 
 import com.example.dto.ContactCard;
 
+import java.nio.ByteBuffer;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 public class Utils {
+    private static final byte CURSOR_VERSION = 1;
+    //  one-char terms are shared rather than allocated per occurrence; k = 1 grams are the most frequent
+    private static final String[] ASCII = new String[128];
+
+    static {
+        for (char c = 0; c < ASCII.length; c++) ASCII[c] = String.valueOf(c).intern();
+    }
+
     public static String generateId() {
         return UUID.randomUUID().toString();
     }
 
+    /**
+     * Encodes a position in ordinal order as an opaque, URL-safe page cursor.
+     */
+    public static String encodeCursor(int ordinal) {
+        byte[] bytes = ByteBuffer.allocate(5).put(CURSOR_VERSION).putInt(ordinal).array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public static int decodeCursor(String cursor) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        if (bytes.length != 5 || bytes[0] != CURSOR_VERSION) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return ByteBuffer.wrap(bytes, 1, 4).getInt();
+    }
+
     public static List<String> getAllSubstrings(String input) {
         List<String> substrings = new ArrayList<>();
+        forEachSubstring(input, input.length(), substrings::add);
+        return substrings;
+    }
+
+    /**
+     * Hands every substring of input up to maxLength chars to sink, shortest first at each start, without
+     * collecting them. The substrings are the only allocation.
+     */
+    public static void forEachSubstring(String input, int maxLength, Consumer<String> sink) {
+        forEachSubstringSpan(input, maxLength, (from, to) -> sink.accept(term(input, from, to)));
+    }
+
+    /**
+     * forEachSubstring() without the Strings: hands sink the bounds of each substring, for posting to
+     * or probing an index in place.
+     */
+    public static void forEachSubstringSpan(String input, int maxLength, Span sink) {
         int n = input.length();
         for (int i = 0; i < n; i++) {
-            for (int j = i + 1; j <= n; j++) {
-                substrings.add(input.substring(i, j));
+            for (int j = i + 1; j <= Math.min(n, i + maxLength); j++) {
+                sink.accept(i, j);
             }
         }
-        return substrings;
+    }
+
+    public static ContactCard copyOf(ContactCard contactCard) {
+        return ContactCard.builder()
+                .id(contactCard.getId())
+                .name(contactCard.getName())
+                .email(contactCard.getEmail())
+                .phone(contactCard.getPhone())
+                .build();
     }
 
     public static void updateContactDetails(ContactCard contactCard, ContactCard request) {
@@ -32,18 +87,125 @@ public class Utils {
 
     public static List<String> getNGrams(String input, int k) {
         if (input == null || input.length() < k) return List.of();
-        List<String> ngrams = new ArrayList<>();
+        List<String> ngrams = new ArrayList<>(input.length() - k + 1);
+        forEachNGram(input, k, ngrams::add);
+        return ngrams;
+    }
+
+    /**
+     * Hands every k-char window of input to sink, left to right; nothing if input is shorter than k.
+     */
+    public static void forEachNGram(String input, int k, Consumer<String> sink) {
+        forEachNGramSpan(input, k, (from, to) -> sink.accept(term(input, from, to)));
+    }
+
+    /**
+     * forEachNGram() without the Strings: hands sink the bounds of each k-char window.
+     */
+    public static void forEachNGramSpan(String input, int k, Span sink) {
+        if (input == null || k <= 0) return;
         for (int i = 0; i <= input.length() - k; i++) {
-            ngrams.add(input.substring(i, i + k));
+            sink.accept(i, i + k);
         }
-        return ngrams;
     }
 
     public static List<String> tokenize(String input) {
-        if (input == null) return List.of();
-        return Arrays.stream(input.split("[@._\\-\\s,]+"))
-                .filter(s -> !s.isBlank())
-                .map(String::toLowerCase)
-                .collect(Collectors.toList());
+        List<String> tokens = new ArrayList<>();
+        forEachToken(input, tokens::add);
+        return tokens;
+    }
+
+    /**
+     * Hands the lowercased runs of input between separators to sink, in order. One pass over the chars:
+     * no regex, no intermediate arrays, and the input is lowercased once rather than per token.
+     */
+    public static void forEachToken(String input, Consumer<String> sink) {
+        if (input == null) return;
+        String lower = input.toLowerCase();
+        forEachTokenSpan(lower, (from, to) -> sink.accept(lower.substring(from, to)));
+    }
+
+    /**
+     * forEachToken() without the Strings: hands sink the bounds of each run of input between separators,
+     * for probing an index in place. Lowercase input first to get the tokens forEachToken() would.
+     */
+    public static void forEachTokenSpan(String input, Span sink) {
+        int start = -1;
+        for (int i = 0; i <= input.length(); i++) {
+            boolean boundary = i == input.length() || isSeparator(input.charAt(i));
+            if (!boundary && start < 0) {
+                start = i;
+            } else if (boundary && start >= 0) {
+                sink.accept(start, i);
+                start = -1;
+            }
+        }
+    }
+
+    /**
+     * Lowercases char by char, as the fuzzy verifier compares text. Unlike String.toLowerCase() this never
+     * changes the length ("İ" stays one char), so a length checked on the folded form holds for the query.
+     */
+    public static String foldCase(String input) {
+        char[] chars = input.toCharArray();
+        for (int i = 0; i < chars.length; i++) chars[i] = Character.toLowerCase(chars[i]);
+        return new String(chars);
+    }
+
+    /**
+     * String.indexOf() over any CharSequence, so a ContactView field can be searched in place.
+     */
+    public static int indexOf(CharSequence text, String query, int from) {
+        for (int at = from; at <= text.length() - query.length(); at++) {
+            if (regionMatches(text, at, query)) return at;
+        }
+        return -1;
+    }
+
+    private static boolean regionMatches(CharSequence text, int at, String query) {
+        for (int i = 0; i < query.length(); i++) {
+            if (text.charAt(at + i) != query.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * indexOf() of a case-folded query in text, folding text char by char as foldCase() does, so a
+     * ContactView field can be searched in place.
+     */
+    public static int indexOfFolded(CharSequence text, String foldedQuery, int from) {
+        for (int at = from; at <= text.length() - foldedQuery.length(); at++) {
+            if (regionMatchesFolded(text, at, foldedQuery)) return at;
+        }
+        return -1;
+    }
+
+    private static boolean regionMatchesFolded(CharSequence text, int at, String foldedQuery) {
+        for (int i = 0; i < foldedQuery.length(); i++) {
+            if (Character.toLowerCase(text.charAt(at + i)) != foldedQuery.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static String term(String input, int from, int to) {
+        if (to - from == 1) {
+            char c = input.charAt(from);
+            if (c < ASCII.length) return ASCII[c];
+        }
+        return input.substring(from, to);
+    }
+
+    /**
+     * The chars [from, to) of a String a visitor was handed.
+     */
+    public interface Span {
+        void accept(int from, int to);
+    }
+
+    /**
+     * The chars tokens are split on: '@', '.', '_', '-', ',' and whitespace.
+     */
+    public static boolean isSeparator(char c) {
+        return c == '@' || c == '.' || c == '_' || c == '-' || c == ',' || Character.isWhitespace(c);
     }
 }
@@ -0,0 +1,55 @@
+package com.example.addressBook;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.example.dto.FetchRequest;
+import com.example.enums.AddressBookImplType;
+import com.example.enums.QueryOperator;
+import com.example.index.PostingList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BooleanQueryTest {
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void combinesTermsWithAndOr(AddressBookImplType type) {
+        AddressBook addressBook = AddressBookFactory.create(type);
+        addressBook.insert(List.of(
+                AddContactRequest.builder().name("john smith").email("john@gmail.com").phone("5551234").build(),
+                AddContactRequest.builder().name("john doe").email("jd@yahoo.com").phone("5559999").build(),
+                AddContactRequest.builder().name("jane smith").email("jane@gmail.com").phone("4441234").build()));
+
+        assertEquals(Set.of("john smith"), names(addressBook, "john gmail", QueryOperator.AND));
+        assertEquals(Set.of("john smith"), names(addressBook, "smith  555", QueryOperator.AND));
+        assertEquals(Set.of(), names(addressBook, "jane yahoo", QueryOperator.AND));
+        assertEquals(Set.of("john doe", "jane smith"), names(addressBook, "doe jane", QueryOperator.OR));
+    }
+
+    @Test
+    void gallopingIntersectionMatchesNaiveIntersection() {
+        Random random = new Random(1);
+        for (int round = 0; round < 200; round++) {
+            List<int[]> lists = new ArrayList<>();
+            for (int i = 0; i < 1 + random.nextInt(4); i++) {
+                int size = random.nextInt(i == 0 ? 20 : 2000);
+                lists.add(IntStream.generate(() -> random.nextInt(5000)).limit(size).distinct().sorted().toArray());
+            }
+            Set<Integer> expected = IntStream.of(lists.get(0)).boxed().collect(Collectors.toCollection(TreeSet::new));
+            for (int[] list : lists) expected.retainAll(IntStream.of(list).boxed().collect(Collectors.toSet()));
+
+            assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), PostingList.intersectAll(lists));
+        }
+    }
+
+    private static Set<String> names(AddressBook addressBook, String query, QueryOperator operator) {
+        return addressBook.find(FetchRequest.builder().query(query).operator(operator).build())
+                .stream().map(ContactCard::getName).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.addressBook;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.example.dto.FetchRequest;
+import com.example.enums.AddressBookImplType;
+import com.example.service.ContactReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BulkInsertTest {
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void bulkInsertFindsWhatSequentialInsertFinds(AddressBookImplType type) {
+        Random random = new Random(5);
+        String[] first = {"john", "jane", "maria", "li", "omar", "anna"};
+        String[] last = {"smith", "doe", "garcia", "wang", "haddad", "berg"};
+        List<AddContactRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            String name = first[random.nextInt(first.length)] + " " + last[random.nextInt(last.length)];
+            requests.add(AddContactRequest.builder()
+                    .name(name)
+                    .email(name.replace(' ', '.') + i + "@example" + random.nextInt(3) + ".com")
+                    .phone("555" + (1_000_000 + random.nextInt(9_000_000)))
+                    .build());
+        }
+        AddressBook sequential = AddressBookFactory.create(type);
+        sequential.insert(requests);
+        AddressBook bulk = AddressBookFactory.create(type);
+        bulk.bulkInsert(requests.subList(0, 1_000));
+        bulk.bulkInsert(requests.subList(1_000, requests.size()));
+
+        for (String query : List.of("john", "garcia", "a.b", "@example1.com", "maria.wang1", "5551", "99")) {
+            assertEquals(emails(sequential, query), emails(bulk, query), query);
+        }
+    }
+
+    @Test
+    void readsCsvWithQuotedFieldsInHeaderOrder() {
+        String csv = "phone,name,email\n"
+                + "555 0100,\"Smith, John\",john@example.com\n"
+                + "\n"
+                + ",\"Jane \"\"JD\"\" Doe\",jane@example.com\n";
+        ContactReader reader = ContactReader.csv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+        List<AddContactRequest> contacts = new ArrayList<>();
+        reader.forEachRemaining(contacts::add);
+
+        assertEquals(2, contacts.size());
+        assertEquals("Smith, John", contacts.get(0).getName());
+        assertEquals("555 0100", contacts.get(0).getPhone());
+        assertEquals("Jane \"JD\" Doe", contacts.get(1).getName());
+        assertEquals("jane@example.com", contacts.get(1).getEmail());
+        assertNull(contacts.get(1).getPhone());
+    }
+
+    private static Set<String> emails(AddressBook addressBook, String query) {
+        return addressBook.find(new FetchRequest(query)).stream().map(ContactCard::getEmail).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.addressBook;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.CompactionStats;
+import com.example.dto.ContactCard;
+import com.example.dto.FetchRequest;
+import com.example.enums.AddressBookImplType;
+import com.example.index.Compaction;
+import com.example.index.PostingList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactionTest {
+    private static final List<String> QUERIES = List.of("member", "ember 1", "@club.org", "m17@", "555", "0107", "9");
+
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void reclaimsSpaceWithoutChangingResults(AddressBookImplType type) {
+        AddressBook addressBook = AddressBookFactory.create(type);
+        List<ContactCard> cards = addressBook.insert(requests(0, 2000));
+        List<String> deleted = new ArrayList<>();
+        for (int i = 0; i < cards.size(); i += 2) deleted.add(cards.get(i).getId());
+        addressBook.delete(deleted);
+        List<List<String>> before = results(addressBook);
+        long heapBefore = addressBook.indexStats().getEstimatedHeapBytes();
+
+        CompactionStats stats = addressBook.compact();
+        assertTrue(stats.getReclaimedBytes() > 0);
+        //  every deleted contact had a phone number of its own, so its trie nodes went with it
+        assertTrue(stats.getEmptyTerms() > 0);
+        assertEquals(before, results(addressBook));
+        if (type != AddressBookImplType.SUFFIX_ARRAY) assertTrue(addressBook.indexStats().getEstimatedHeapBytes() < heapBefore);
+
+        CompactionStats again = addressBook.compact();
+        assertEquals(0L, (long) again.getListsRebuilt());
+        assertEquals(0L, (long) again.getReclaimedBytes());
+
+        //  unlinked terms and nodes are recreated on demand
+        addressBook.insert(requests(0, 2));
+        assertEquals(1, addressBook.find(new FetchRequest("555100000000")).size());
+        assertEquals(1, addressBook.find(new FetchRequest("m0@club.org")).size());
+    }
+
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void runsAlongsideWrites(AddressBookImplType type) throws InterruptedException {
+        AddressBook addressBook = AddressBookFactory.create(type);
+        AtomicBoolean done = new AtomicBoolean();
+        Thread compactor = new Thread(() -> {
+            while (!done.get()) addressBook.compact();
+        });
+        compactor.start();
+        List<ContactCard> live = new ArrayList<>();
+        try {
+            for (int round = 0; round < 20; round++) {
+                List<ContactCard> cards = addressBook.insert(requests(round * 100, 100));
+                addressBook.delete(cards.subList(0, 50).stream().map(ContactCard::getId).collect(Collectors.toList()));
+                live.addAll(cards.subList(50, 100));
+            }
+        } finally {
+            done.set(true);
+            compactor.join();
+        }
+        assertEquals(live.size(), addressBook.find(new FetchRequest("@club.org")).size());
+        for (ContactCard card : live) assertEquals(1, addressBook.find(new FetchRequest(card.getPhone())).size(), card.getPhone());
+    }
+
+    @Test
+    void dropsDeadPostingsAndPicksTheSmallerContainer() {
+        PostingList list = new PostingList();
+        for (int ordinal = 0; ordinal < 10_000; ordinal++) list.add(ordinal);
+        long before = list.estimatedBytes();
+        Compaction compaction = new Compaction(ordinal -> ordinal % 100 != 0);
+        list.compact(compaction);
+
+        int[] expected = new int[100];
+        for (int i = 0; i < expected.length; i++) expected[i] = i * 100;
+        assertArrayEquals(expected, list.toArray());
+        //  100 ordinals up to 9900 take 400 bytes as an array, 1256 as a bitmap
+        assertEquals(400, list.estimatedBytes());
+        CompactionStats stats = compaction.stats(0);
+        assertEquals(9900L, (long) stats.getDeadPostings());
+        assertEquals(1L, (long) stats.getListsRebuilt());
+        assertEquals(before - 400, (long) stats.getReclaimedBytes());
+    }
+
+    private static List<AddContactRequest> requests(int from, int count) {
+        List<AddContactRequest> requests = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            requests.add(AddContactRequest.builder()
+                    .name("member " + i)
+                    .email("m" + i + "@club.org")
+                    .phone("555" + (1_000_000 + i) + "00")
+                    .build());
+        }
+        return requests;
+    }
+
+    private static List<List<String>> results(AddressBook addressBook) {
+        List<List<String>> results = new ArrayList<>();
+        for (String query : QUERIES) {
+            results.add(addressBook.find(new FetchRequest(query)).stream().map(ContactCard::getId).collect(Collectors.toList()));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.addressBook;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.example.dto.FetchRequest;
+import com.example.enums.AddressBookImplType;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentAddressBookTest {
+    private static final int STABLE_CARDS = 200;
+    private static final int KEPT_CARDS = 64;
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int WRITES_PER_WRITER = 2_000;
+
+    /**
+     * Writers keep flipping "keep" cards between an alpha and an omega name and churn short-lived "zzz"
+     * cards, while readers check that "stable" and "keep" always return exactly their full sets (nothing
+     * lost, nothing duplicated) and that every "alpha" hit really is an alpha version of the card.
+     */
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void concurrentReadsNeverSeeLostOrPhantomResults(AddressBookImplType type) throws Exception {
+        AddressBook addressBook = AddressBookFactory.create(type);
+        Set<String> stableIds = ids(addressBook.insert(requests("stable", STABLE_CARDS)));
+        List<ContactCard> kept = addressBook.insert(requests("keep alpha", KEPT_CARDS));
+        Set<String> keptIds = ids(kept);
+
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + READERS);
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch writersDone = new CountDownLatch(WRITERS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            futures.add(pool.submit(() -> {
+                try {
+                    Random random = new Random(writer);
+                    for (int i = 0; i < WRITES_PER_WRITER; i++) {
+                        ContactCard target = kept.get(random.nextInt(KEPT_CARDS));
+                        String name = (random.nextBoolean() ? "keep alpha " : "keep omega ") + i;
+                        addressBook.update(List.of(ContactCard.builder().id(target.getId()).name(name).build()));
+
+                        List<ContactCard> temp = addressBook.insert(requests("zzz", 1));
+                        addressBook.delete(List.of(temp.get(0).getId()));
+                    }
+                } finally {
+                    writersDone.countDown();
+                }
+            }));
+        }
+        for (int r = 0; r < READERS; r++) {
+            futures.add(pool.submit(() -> {
+                while (writersDone.getCount() > 0) {
+                    List<ContactCard> stable = addressBook.find(new FetchRequest("stable"));
+                    if (!ids(stable).equals(stableIds) || stable.size() != STABLE_CARDS) {
+                        failures.add(type + ": stable returned " + stable.size() + " cards");
+                    }
+                    List<ContactCard> keep = addressBook.find(new FetchRequest("keep"));
+                    if (!ids(keep).equals(keptIds) || keep.size() != KEPT_CARDS) {
+                        failures.add(type + ": keep returned " + keep.size() + " cards");
+                    }
+                    for (ContactCard card : addressBook.find(new FetchRequest("alpha"))) {
+                        if (!card.getName().contains("alpha")) {
+                            failures.add(type + ": alpha returned " + card.getName());
+                        }
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) future.get(2, TimeUnit.MINUTES);
+        pool.shutdown();
+
+        assertTrue(failures.isEmpty(), () -> failures.stream().limit(10).collect(Collectors.joining("\n")));
+        assertEquals(stableIds, ids(addressBook.find(new FetchRequest("stable"))));
+        assertEquals(keptIds, ids(addressBook.find(new FetchRequest("keep"))));
+        assertTrue(addressBook.find(new FetchRequest("zzz")).isEmpty());
+    }
+
+    private static List<AddContactRequest> requests(String prefix, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> AddContactRequest.builder()
+                        .name(prefix + " " + i)
+                        .email("user" + i + "@example.com")
+                        .phone("555" + i)
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private static Set<String> ids(List<ContactCard> cards) {
+        return cards.stream().map(ContactCard::getId).collect(Collectors.toSet());
+    }
+}
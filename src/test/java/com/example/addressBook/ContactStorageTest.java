@@ -0,0 +1,73 @@
+package com.example.addressBook;
+
+import com.example.dto.ContactCard;
+import com.example.dto.FetchRequest;
+import com.example.enums.AddressBookImplType;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContactStorageTest {
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void cardsReadBackExactlyAsStored(AddressBookImplType type) {
+        AddressBook addressBook = AddressBookFactory.create(type);
+        //  a generated-style UUID, an upper-case one and a legacy id, which must not come back normalized
+        String uuid = "0f8fad5b-d9cb-469f-a165-70867728950e";
+        String upperCase = "7C9E6679-7425-40DE-944B-E07FC1F90AE7";
+        String legacy = "legacy-42";
+        addressBook.load(List.of(
+                ContactCard.builder().id(uuid).name("renée dupont").email("renee@exemple.fr").phone("+33 1 23 45 67 89").build(),
+                ContactCard.builder().id(upperCase).name("李 小龍").email("li@example.cn").phone(null).build(),
+                ContactCard.builder().id(legacy).name("old import").email(null).phone("555 0100").build()));
+
+        assertCard(uuid, "renée dupont", "renee@exemple.fr", "+33 1 23 45 67 89", find(addressBook, "renée"));
+        assertCard(upperCase, "李 小龍", "li@example.cn", null, find(addressBook, "li@example.cn"));
+        assertCard(legacy, "old import", null, "555 0100", find(addressBook, "old import"));
+        //  fuzzy and ranked searches read the records in place, whatever their id and encoding
+        assertEquals(uuid, find(addressBook, FetchRequest.builder().query("renée dupnt").maxEdits(1).build()).getId());
+        assertEquals(upperCase, find(addressBook, FetchRequest.builder().query("李 小竜").maxEdits(1).build()).getId());
+        assertEquals(legacy, find(addressBook, FetchRequest.builder().query("OLD IMPRT").maxEdits(1).build()).getId());
+        assertEquals(legacy, find(addressBook, FetchRequest.builder().query("import").limit(5).build()).getId());
+
+        addressBook.update(List.of(ContactCard.builder().id(legacy).email("old@import.org").build()));
+        assertCard(legacy, "old import", "old@import.org", "555 0100", find(addressBook, "old@import.org"));
+        assertEquals(2, (int) addressBook.delete(List.of(upperCase, legacy)).getDeleted());
+        assertTrue(addressBook.find(new FetchRequest("old import")).isEmpty());
+        assertEquals(1L, (long) addressBook.indexStats().getContacts());
+    }
+
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void holdingEveryGramOfAQueryIsNotAMatch(AddressBookImplType type) {
+        AddressBook addressBook = AddressBookFactory.create(type);
+        addressBook.load(List.of(
+                ContactCard.builder().id("cab").name("Cab").build(),
+                ContactCard.builder().id("abc").name("abcxbcd").build()));
+
+        //  "b" and "a" are both in "Cab", and "abc" and "bcd" both in "abcxbcd", but neither query is
+        assertTrue(addressBook.find(new FetchRequest("ba")).isEmpty());
+        assertTrue(addressBook.find(new FetchRequest("abcd")).isEmpty());
+        assertEquals(1, addressBook.find(new FetchRequest("abcxbcd")).size());
+    }
+
+    private static ContactCard find(AddressBook addressBook, String query) {
+        return find(addressBook, new FetchRequest(query));
+    }
+
+    private static ContactCard find(AddressBook addressBook, FetchRequest request) {
+        List<ContactCard> found = addressBook.find(request);
+        assertEquals(1, found.size(), request.getQuery());
+        return found.get(0);
+    }
+
+    private static void assertCard(String id, String name, String email, String phone, ContactCard card) {
+        assertEquals(id, card.getId());
+        assertEquals(name, card.getName());
+        assertEquals(email, card.getEmail());
+        assertEquals(phone, card.getPhone());
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.addressBook;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.example.dto.FetchRequest;
+import com.example.enums.AddressBookImplType;
+import com.example.index.ContactStore;
+import com.example.index.InvertedIndex;
+import com.example.utils.Utils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeltaUpdateTest {
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void updatesOnlyWhatChangedAndLeavesNoStalePostings(AddressBookImplType type) {
+        AddressBook addressBook = AddressBookFactory.create(type);
+        List<AddContactRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            requests.add(AddContactRequest.builder().name("member " + i).email("m" + i + "@club.org").phone("555 010" + i).build());
+        }
+        List<ContactCard> cards = addressBook.insert(requests);
+        String id = cards.get(3).getId();
+        long postings = addressBook.indexStats().getPostings();
+        //  cached before the edits, so a stale cached card would show up below
+        assertEquals(List.of("555 0103"), phones(addressBook, "member 3"));
+
+        addressBook.update(List.of(ContactCard.builder().id(id).phone("+1 777 8888").build()));
+        assertEquals(List.of("+1 777 8888"), phones(addressBook, "member 3"));
+        assertEquals(1, addressBook.find(new FetchRequest("7778888")).size());
+        assertTrue(addressBook.find(new FetchRequest("5550103")).isEmpty());
+        //  a phone-only edit keeps the card where it was in ordinal (page) order
+        assertEquals(ids(cards), ids(addressBook.find(new FetchRequest("member"))));
+
+        addressBook.update(List.of(ContactCard.builder().id(id).name("renamed person").email("rp@elsewhere.net").build()));
+        assertTrue(addressBook.find(new FetchRequest("member 3")).isEmpty());
+        assertTrue(addressBook.find(new FetchRequest("m3@")).isEmpty());
+        assertEquals(List.of(id), ids(addressBook.find(new FetchRequest("renamed"))));
+        assertEquals(List.of(id), ids(addressBook.find(new FetchRequest("rp@elsewhere.net"))));
+        assertEquals("renamed person 1", addressBook.suggest("renamed", 1).get(0).getText() + " "
+                + addressBook.suggest("renamed", 1).get(0).getCount());
+        assertTrue(addressBook.suggest("member 3", 10).isEmpty());
+
+        //  and back again: the term indexes hold exactly what they held before
+        addressBook.update(List.of(ContactCard.builder().id(id).name("member 3").email("m3@club.org").phone("555 0103").build()));
+        assertEquals(postings, (long) addressBook.indexStats().getPostings());
+        assertEquals(List.of(id), ids(addressBook.find(new FetchRequest("m3@club.org"))));
+        assertEquals(20, addressBook.find(new FetchRequest("member")).size());
+    }
+
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void findsEveryWriteWhileTheIndexIsRebuilt(AddressBookImplType type) {
+        AddressBook addressBook = AddressBookFactory.create(type);
+        //  enough writes to start several suffix array rebuilds, each racing the writes after it
+        for (int batch = 0; batch < 40; batch++) {
+            List<AddContactRequest> requests = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                requests.add(AddContactRequest.builder().name("batch" + batch + " person").email("p" + i + "@b" + batch + ".org").build());
+            }
+            List<ContactCard> cards = addressBook.insert(requests);
+            addressBook.delete(List.of(cards.get(0).getId()));
+            addressBook.update(List.of(ContactCard.builder().id(cards.get(1).getId()).name("moved" + batch + " person").build()));
+
+            assertEquals(98, addressBook.find(new FetchRequest("batch" + batch + " ")).size());
+            assertEquals(List.of(cards.get(1).getId()), ids(addressBook.find(new FetchRequest("moved" + batch + " "))));
+            assertEquals(100, addressBook.find(new FetchRequest("@b" + batch + ".org")).size() + 1);
+        }
+        assertEquals(40 * 99, addressBook.find(new FetchRequest("person")).size());
+    }
+
+    @Test
+    void foldsCaseTheSameWayBeforeAndAfterARebuild() throws InterruptedException {
+        SuffixArrayImpl addressBook = new SuffixArrayImpl();
+        //  String.toLowerCase() turns the dotted capital I into "i" plus a combining dot; foldCase() into "i"
+        addressBook.insert(List.of(AddContactRequest.builder().name("İrem Yılmaz").email("İREM@example.com").build()));
+        assertEquals(1, addressBook.find(new FetchRequest("IREM")).size());
+
+        List<AddContactRequest> filler = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) filler.add(AddContactRequest.builder().name("filler " + i).build());
+        addressBook.insert(filler);
+        for (int i = 0; i < 1_000 && addressBook.rebuilding(); i++) Thread.sleep(10);
+        assertFalse(addressBook.rebuilding());
+
+        //  now answered from the rebuilt base rather than the delta; distinct queries, so none is cached
+        assertEquals(1, addressBook.find(new FetchRequest("irem")).size());
+        assertEquals(1, addressBook.find(new FetchRequest("İrem")).size());
+        assertEquals(1, addressBook.find(new FetchRequest("rem yı")).size());
+    }
+
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void skipsNullIdsAndAppliesTheRestOfTheBatch(AddressBookImplType type) {
+        for (AddressBook addressBook : List.of(AddressBookFactory.create(type), new ShardedAddressBook(type, 4))) {
+            List<ContactCard> cards = addressBook.insert(List.of(
+                    AddContactRequest.builder().name("first member").build(),
+                    AddContactRequest.builder().name("second member").build(),
+                    AddContactRequest.builder().name("third member").build()));
+
+            List<ContactCard> renamed = addressBook.update(List.of(
+                    ContactCard.builder().id(cards.get(0).getId()).name("first renamed").build(),
+                    ContactCard.builder().name("nobody").build(),
+                    ContactCard.builder().id(cards.get(1).getId()).name("second renamed").build()));
+            assertEquals(2, renamed.size());
+            assertEquals(2, addressBook.find(new FetchRequest("renamed")).size());
+
+            assertEquals(2, (int) addressBook.delete(Arrays.asList(cards.get(0).getId(), null, cards.get(2).getId())).getDeleted());
+            assertEquals(List.of(cards.get(1).getId()), ids(addressBook.find(new FetchRequest("second"))));
+            assertTrue(addressBook.find(new FetchRequest("third")).isEmpty());
+        }
+    }
+
+    @Test
+    void neverPostsIntoAListARemoveHasUnlinked() throws InterruptedException {
+        //  two writers take the same term from empty to one posting and back, so each add races the other's
+        //  unlink; posted by window, an add finds the list without compute and must not land in a dropped one
+        InvertedIndex index = new InvertedIndex();
+        String text = "(smith)";
+        AtomicInteger lost = new AtomicInteger();
+        Thread[] writers = new Thread[2];
+        for (int w = 0; w < writers.length; w++) {
+            int first = w;
+            writers[w] = new Thread(() -> {
+                for (int ordinal = first; ordinal < 200_000; ordinal += 2) {
+                    index.add(text, 1, 6, ordinal);
+                    if (Arrays.binarySearch(index.lookup("smith"), ordinal) < 0) lost.incrementAndGet();
+                    index.remove(text, 1, 6, ordinal);
+                }
+            });
+            writers[w].start();
+        }
+        for (Thread writer : writers) writer.join();
+        assertEquals(0, lost.get());
+        assertEquals(0, index.lookup("smith").length);
+        assertEquals(0, index.termCount());
+    }
+
+    @Test
+    void buildsTheSuffixArrayFromStoredRecordsAsAScanWouldMatch() {
+        //  repetitive text, multi-byte and four-byte chars, and a NUL, which must sort above the sentinel
+        String[] pieces = {"a", "b", "ab", "aab", "É", "é", "日", "😀", ".", "@", "\u0000"};
+        Random random = new Random(11);
+        ContactStore store = new ContactStore();
+        List<List<String>> fields = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            List<String> name = pieces(random, pieces, random.nextInt(12));
+            List<String> email = random.nextInt(4) == 0 ? null : pieces(random, pieces, random.nextInt(8));
+            fields.add(name);
+            if (email != null) fields.add(email);
+            ContactCard card = ContactCard.builder().id(Utils.generateId())
+                    .name(String.join("", name)).email(email == null ? null : String.join("", email)).build();
+            store.publish(store.reserve(card));
+        }
+        SuffixArrayIndex index = SuffixArrayIndex.build(store);
+
+        for (int q = 0; q < 500; q++) {
+            List<String> source = fields.get(random.nextInt(fields.size()));
+            String query = q % 2 == 0 && !source.isEmpty()
+                    ? String.join("", source.subList(random.nextInt(source.size()), source.size()))
+                    : String.join("", pieces(random, pieces, 1 + random.nextInt(3)));
+            String folded = Utils.foldCase(query);
+            if (folded.isEmpty()) continue;
+            List<Integer> expected = new ArrayList<>();
+            for (int ordinal = 0; ordinal < 400; ordinal++) {
+                ContactCard card = store.get(ordinal);
+                if (Utils.foldCase(card.getName()).contains(folded)
+                        || (card.getEmail() != null && Utils.foldCase(card.getEmail()).contains(folded))) {
+                    expected.add(ordinal);
+                }
+            }
+            int[] found = index.search(folded.getBytes(StandardCharsets.UTF_8));
+            assertEquals(expected, Arrays.stream(found).boxed().collect(Collectors.toList()), query);
+        }
+    }
+
+    private static List<String> phones(AddressBook addressBook, String query) {
+        return addressBook.find(new FetchRequest(query)).stream().map(ContactCard::getPhone).collect(Collectors.toList());
+    }
+
+    private static List<String> pieces(Random random, String[] pieces, int count) {
+        List<String> picked = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) picked.add(pieces[random.nextInt(pieces.length)]);
+        return picked;
+    }
+
+    private static List<String> ids(List<ContactCard> cards) {
+        return cards.stream().map(ContactCard::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.addressBook;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.example.dto.FetchRequest;
+import com.example.enums.AddressBookImplType;
+import com.example.enums.QueryOperator;
+import com.example.index.EmailIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EmailSearchTest {
+    private static final int ROUNDS = 20_000;
+
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void matchesByLocalPartAndDomain(AddressBookImplType type) {
+        AddressBook addressBook = AddressBookFactory.create(type);
+        List<ContactCard> cards = addressBook.insert(List.of(
+                AddContactRequest.builder().name("john smith").email("John.Smith@acme.com").build(),
+                AddContactRequest.builder().name("joan park").email("joan@mail.acme.com").build(),
+                AddContactRequest.builder().name("jo bloggs").email("jo@acme-corp.com").build(),
+                AddContactRequest.builder().name("acme fan").email("fan@gmail.com").build()));
+
+        assertEquals(Set.of("john smith", "joan park"), names(addressBook, "@acme.com", null));
+        assertEquals(Set.of("joan park"), names(addressBook, "@mail.acme.com", null));
+        assertEquals(Set.of("john smith", "joan park", "jo bloggs"), names(addressBook, "jo@", null));
+        assertEquals(Set.of("john smith"), names(addressBook, "john@ACME.com", null));
+        assertEquals(Set.of("joan park"), names(addressBook, "park @acme.com", QueryOperator.AND));
+        //  a bare word is still a substring search over names and emails
+        assertEquals(Set.of("john smith", "joan park", "jo bloggs", "acme fan"), names(addressBook, "acme", null));
+
+        addressBook.update(List.of(ContactCard.builder().id(cards.get(0).getId()).email("john@gmail.com").build()));
+        assertEquals(Set.of("joan park"), names(addressBook, "@acme.com", null));
+        assertEquals(Set.of("john smith", "acme fan"), names(addressBook, "@gmail.com", null));
+    }
+
+    /**
+     * One thread adds a second address at a shared domain while another removes the first, emptying the
+     * domain's list for a moment; the new posting must never be unlinked with it.
+     */
+    @Test
+    void concurrentWritesToOneDomainKeepEveryPosting() throws Exception {
+        EmailIndex index = new EmailIndex();
+        CyclicBarrier start = new CyclicBarrier(2);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                index.add(1, "a@shared.com");
+                Future<?> remove = pool.submit(() -> {
+                    await(start);
+                    index.remove(1, "a@shared.com");
+                });
+                await(start);
+                index.add(2, "b@shared.com");
+                remove.get(10, TimeUnit.SECONDS);
+
+                assertArrayEquals(new int[]{2}, index.lookup("@shared.com"), "round " + round);
+                index.remove(2, "b@shared.com");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Set<String> names(AddressBook addressBook, String query, QueryOperator operator) {
+        return addressBook.find(FetchRequest.builder().query(query).operator(operator).build())
+                .stream().map(ContactCard::getName).collect(Collectors.toSet());
+    }
+}
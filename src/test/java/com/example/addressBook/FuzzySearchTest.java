@@ -0,0 +1,122 @@
+package com.example.addressBook;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.example.dto.FetchRequest;
+import com.example.enums.AddressBookImplType;
+import com.example.index.ContactStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FuzzySearchTest {
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void toleratesTyposUpToMaxEdits(AddressBookImplType type) {
+        AddressBook addressBook = AddressBookFactory.create(type);
+        addressBook.insert(List.of(
+                AddContactRequest.builder().name("jonathan smith").email("jon@example.com").build(),
+                AddContactRequest.builder().name("catherine zeta").email("cz@example.com").build(),
+                AddContactRequest.builder().name("bob").phone("5551234").build()));
+
+        assertEquals(Set.of("jonathan smith"), names(addressBook, "jonatan", 1));
+        assertEquals(Set.of("catherine zeta"), names(addressBook, "katherine", 1));
+        assertEquals(Set.of(), names(addressBook, "katherine", 0));
+        assertEquals(Set.of("jonathan smith"), names(addressBook, "smiht", 2));
+        assertEquals(Set.of("bob"), names(addressBook, "5561234", 1));
+        assertTrue(names(addressBook, "bo", 1).contains("bob"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void comparesPhoneNumbersByTheirDigits(AddressBookImplType type) {
+        AddressBook addressBook = AddressBookFactory.create(type);
+        addressBook.insert(List.of(
+                AddContactRequest.builder().name("alice").phone("+1 (555) 010-0123").build(),
+                AddContactRequest.builder().name("carol").phone("555 777 8888").build()));
+
+        //  the punctuation on either side is not an edit: one digit off is one edit
+        assertEquals(Set.of("alice"), names(addressBook, "5550100124", 1));
+        assertEquals(Set.of("alice"), names(addressBook, "555-010-0124", 1));
+        assertEquals(Set.of("carol"), names(addressBook, "(555) 777-8889", 1));
+        assertEquals(Set.of(), names(addressBook, "5550100124", 0));
+    }
+
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void findsCapitalizedNamesWhateverCaseTheIndexKeeps(AddressBookImplType type) {
+        AddressBook addressBook = AddressBookFactory.create(type);
+        addressBook.insert(List.of(
+                AddContactRequest.builder().name("John Smith").email("J.Smith@Example.com").build(),
+                AddContactRequest.builder().name("MARY BLAKE").build(),
+                AddContactRequest.builder().name("peter pan").build()));
+
+        assertEquals(Set.of("John Smith"), names(addressBook, "jonh", 1));
+        assertEquals(Set.of("John Smith"), names(addressBook, "JONH SMITH", 2));
+        assertEquals(Set.of("MARY BLAKE"), names(addressBook, "mary blkae", 2));
+        //  İ folds to one char, so a 64-char query stays 64 chars for the length limit
+        assertTrue(names(addressBook, "İ".repeat(FetchRequest.MAX_FUZZY_QUERY_LENGTH), 1).isEmpty());
+    }
+
+    @Test
+    void agreesWithDynamicProgrammingOnRandomStrings() {
+        Random random = new Random(3);
+        ContactStore store = new ContactStore();
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            String text = randomString(random, 4 + random.nextInt(12));
+            texts.add(text);
+            store.publish(store.reserve(ContactCard.builder().id("id" + i).name(text).build()));
+        }
+        int[] everything = IntStream.range(0, texts.size()).toArray();
+        for (int round = 0; round < 200; round++) {
+            String query = randomString(random, 1 + random.nextInt(6));
+            int maxEdits = random.nextInt(3);
+            int[] expected = IntStream.range(0, texts.size())
+                    .filter(i -> substringDistance(query, texts.get(i)) <= maxEdits).toArray();
+
+            assertArrayEquals(expected, FuzzySearch.search(store, (text, from, to) -> everything, query, maxEdits));
+            assertArrayEquals(expected, FuzzySearch.search(store, (text, from, to) -> IntStream.range(0, texts.size())
+                    .filter(i -> texts.get(i).contains(text.substring(from, to))).toArray(), query, maxEdits));
+        }
+    }
+
+    private static String randomString(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) builder.append((char) ('a' + random.nextInt(4)));
+        return builder.toString();
+    }
+
+    /**
+     * Smallest edit distance between pattern and any substring of text (Sellers' DP).
+     */
+    private static int substringDistance(String pattern, String text) {
+        int[] column = new int[pattern.length() + 1];
+        for (int i = 0; i <= pattern.length(); i++) column[i] = i;
+        int best = column[pattern.length()];
+        for (int j = 1; j <= text.length(); j++) {
+            int diagonal = column[0];
+            column[0] = 0;
+            for (int i = 1; i <= pattern.length(); i++) {
+                int above = column[i];
+                int cost = pattern.charAt(i - 1) == text.charAt(j - 1) ? 0 : 1;
+                column[i] = Math.min(Math.min(column[i] + 1, column[i - 1] + 1), diagonal + cost);
+                diagonal = above;
+            }
+            best = Math.min(best, column[pattern.length()]);
+        }
+        return best;
+    }
+
+    private static Set<String> names(AddressBook addressBook, String query, int maxEdits) {
+        return addressBook.find(FetchRequest.builder().query(query).maxEdits(maxEdits).build())
+                .stream().map(ContactCard::getName).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.addressBook;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.example.dto.IndexStats;
+import com.example.enums.AddressBookImplType;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexStatsTest {
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void countsContactsTermsAndPostings(AddressBookImplType type) {
+        AddressBook addressBook = AddressBookFactory.create(type);
+        List<AddContactRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            requests.add(AddContactRequest.builder().name("contact " + i).email("c" + i + "@acme.com").phone("555 01" + i).build());
+        }
+        List<ContactCard> cards = addressBook.insert(requests);
+        addressBook.delete(List.of(cards.get(0).getId(), cards.get(1).getId()));
+
+        IndexStats stats = addressBook.indexStats();
+        assertEquals(498L, (long) stats.getContacts());
+        assertTrue(stats.getEstimatedHeapBytes() > 498L * 30);
+        //  every term layer's posting list lands in exactly one length bucket
+        assertEquals((long) stats.getTerms(), Arrays.stream(stats.getPostingLengths()).sum());
+        if (type != AddressBookImplType.SUFFIX_ARRAY) assertTrue(stats.getPostings() >= stats.getTerms() && stats.getTerms() > 0);
+
+        ShardedAddressBook sharded = new ShardedAddressBook(type, 3);
+        sharded.insert(requests);
+        assertEquals(500L, (long) sharded.indexStats().getContacts());
+    }
+}
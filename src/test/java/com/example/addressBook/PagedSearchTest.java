@@ -0,0 +1,55 @@
+package com.example.addressBook;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.example.dto.FetchRequest;
+import com.example.dto.SearchPage;
+import com.example.enums.AddressBookImplType;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagedSearchTest {
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void pagesCoverEveryMatchOnceInInsertionOrder(AddressBookImplType type) {
+        AddressBook addressBook = AddressBookFactory.create(type);
+        List<String> inserted = addressBook.insert(IntStream.range(0, 25)
+                .mapToObj(i -> AddContactRequest.builder().name("page " + i).build())
+                .collect(Collectors.toList()))
+                .stream().map(ContactCard::getId).collect(Collectors.toList());
+        addressBook.delete(List.of(inserted.get(3)));
+
+        List<String> paged = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            SearchPage page = addressBook.findPage(FetchRequest.builder().query("page").limit(10).cursor(cursor).build());
+            assertTrue(page.getContacts().size() <= 10);
+            page.getContacts().forEach(card -> paged.add(card.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        List<String> expected = new ArrayList<>(inserted);
+        expected.remove(3);
+        assertEquals(expected, paged);
+        assertEquals(3, pages);
+
+        List<String> streamed = new ArrayList<>();
+        addressBook.stream(new FetchRequest("page"), card -> streamed.add(card.getId()));
+        assertEquals(expected, streamed);
+    }
+
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void rejectsMalformedCursor(AddressBookImplType type) {
+        AddressBook addressBook = AddressBookFactory.create(type);
+        assertThrows(IllegalArgumentException.class,
+                () -> addressBook.findPage(FetchRequest.builder().query("x").cursor("not a cursor").build()));
+    }
+}
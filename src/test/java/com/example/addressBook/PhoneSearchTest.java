@@ -0,0 +1,94 @@
+package com.example.addressBook;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.example.dto.FetchRequest;
+import com.example.enums.AddressBookImplType;
+import com.example.index.ContactStore;
+import com.example.index.PhoneIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PhoneSearchTest {
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void matchesPhoneDigitsWhateverTheFormatting(AddressBookImplType type) {
+        AddressBook addressBook = AddressBookFactory.create(type);
+        List<ContactCard> cards = addressBook.insert(List.of(
+                AddContactRequest.builder().name("john smith").email("john1987@gmail.com").phone("+1 (555) 123-4567").build(),
+                AddContactRequest.builder().name("jane doe").email("jane@yahoo.com").phone("0044 20 7946 0958").build()));
+
+        assertEquals(Set.of("john smith"), names(addressBook, "5551234567"));
+        assertEquals(Set.of("john smith"), names(addressBook, "555-123"));
+        assertEquals(Set.of("jane doe"), names(addressBook, "+44 20"));
+        assertEquals(Set.of("jane doe"), names(addressBook, "0958"));
+        //  digits in an email still match through the engine's own index
+        assertEquals(Set.of("john smith"), names(addressBook, "1987"));
+
+        addressBook.update(List.of(ContactCard.builder().id(cards.get(0).getId()).phone("555 000 1111").build()));
+        assertEquals(Set.of(), names(addressBook, "4567"));
+        assertEquals(Set.of("john smith"), names(addressBook, "0001111"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void findsNumbersStoredWithoutTheCountryCodeTheQueryHas(AddressBookImplType type) {
+        AddressBook addressBook = AddressBookFactory.create(type);
+        addressBook.insert(List.of(
+                AddContactRequest.builder().name("john smith").phone("(555) 123-4567").build(),
+                AddContactRequest.builder().name("jane doe").phone("020 7946 0958").build(),
+                AddContactRequest.builder().name("bob stone").phone("+1 555 123 4567").build(),
+                //  holds the national number, but not at the start
+                AddContactRequest.builder().name("ann lee").phone("9 555 123 4567").build()));
+
+        assertEquals(Set.of("john smith", "bob stone"), names(addressBook, "+1 (555) 123-4567"));
+        assertEquals(Set.of("john smith", "bob stone"), names(addressBook, "001 555 123"));
+        assertEquals(Set.of("jane doe"), names(addressBook, "+44 20 7946 0958"));
+        //  without a "+" or "00" the digits are only matched as written
+        assertEquals(Set.of("bob stone"), names(addressBook, "15551234567"));
+    }
+
+    @Test
+    void trieLookupMatchesNaiveContains() {
+        Random random = new Random(7);
+        //  leaves are verified against the numbers in the store's records
+        ContactStore store = new ContactStore();
+        PhoneIndex index = new PhoneIndex(store);
+        Map<Integer, String> numbers = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            //  a small alphabet so that leaves burst several levels deep; no 0 so nothing reads as a "00" prefix
+            String number = IntStream.range(0, 6 + random.nextInt(6))
+                    .mapToObj(digit -> String.valueOf(1 + random.nextInt(4)))
+                    .collect(Collectors.joining());
+            int ordinal = store.reserve(ContactCard.builder().id("id" + i).phone(number).build());
+            numbers.put(ordinal, number);
+            index.add(ordinal, number);
+        }
+        for (int ordinal = 0; ordinal < 5000; ordinal += 3) {
+            index.remove(ordinal, numbers.remove(ordinal));
+        }
+        for (int round = 0; round < 500; round++) {
+            String query = IntStream.range(0, 1 + random.nextInt(8))
+                    .mapToObj(i -> String.valueOf(1 + random.nextInt(4)))
+                    .collect(Collectors.joining());
+            int[] expected = numbers.entrySet().stream()
+                    .filter(entry -> entry.getValue().contains(query))
+                    .mapToInt(Map.Entry::getKey)
+                    .sorted()
+                    .toArray();
+
+            assertArrayEquals(expected, index.lookup(query), query);
+        }
+    }
+
+    private static Set<String> names(AddressBook addressBook, String query) {
+        return addressBook.find(new FetchRequest(query)).stream().map(ContactCard::getName).collect(Collectors.toSet());
+    }
+}
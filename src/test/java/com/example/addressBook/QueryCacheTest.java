@@ -0,0 +1,83 @@
+package com.example.addressBook;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.CacheStats;
+import com.example.dto.ContactCard;
+import com.example.dto.FetchRequest;
+import com.example.enums.AddressBookImplType;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QueryCacheTest {
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void writesAreVisibleThroughTheCache(AddressBookImplType type) {
+        AddressBook addressBook = AddressBookFactory.create(type);
+        List<ContactCard> cards = addressBook.insert(List.of(
+                AddContactRequest.builder().name("john smith").email("john@acme.com").phone("555 123 4567").build(),
+                AddContactRequest.builder().name("jane doe").email("jane@yahoo.com").phone("555 987 6543").build()));
+
+        assertEquals(Set.of("john smith"), names(addressBook, "smith"));
+        assertEquals(Set.of("john smith"), names(addressBook, "smith"));
+        assertEquals(1L, (long) addressBook.cacheStats().getHits());
+        assertEquals(Set.of("john smith"), names(addressBook, "@acme.com"));
+        assertEquals(Set.of("jane doe"), names(addressBook, "9876543"));
+
+        addressBook.insert(List.of(AddContactRequest.builder().name("anna smith").email("anna@acme.com").phone("555 111 2222").build()));
+        assertEquals(Set.of("john smith", "anna smith"), names(addressBook, "smith"));
+        assertEquals(Set.of("john smith", "anna smith"), names(addressBook, "@acme.com"));
+
+        addressBook.update(List.of(ContactCard.builder().id(cards.get(1).getId()).name("jane smith").phone("555 000 1111").build()));
+        assertEquals(Set.of("john smith", "anna smith", "jane smith"), names(addressBook, "smith"));
+        assertEquals(Set.of(), names(addressBook, "9876543"));
+
+        addressBook.delete(List.of(cards.get(0).getId()));
+        assertEquals(Set.of("anna smith", "jane smith"), names(addressBook, "smith"));
+        assertEquals(Set.of("anna smith"), names(addressBook, "@acme.com"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void cachesNothingWhenSizedToZero(AddressBookImplType type) {
+        AddressBook addressBook = AddressBookFactory.create(type, 0);
+        List<ContactCard> cards = addressBook.insert(List.of(
+                AddContactRequest.builder().name("john smith").email("john@acme.com").build()));
+        assertEquals(Set.of("john smith"), names(addressBook, "smith"));
+        assertEquals(Set.of("john smith"), names(addressBook, "smith"));
+
+        addressBook.update(List.of(ContactCard.builder().id(cards.get(0).getId()).name("john jones").build()));
+        assertEquals(Set.of(), names(addressBook, "smith"));
+        CacheStats stats = addressBook.cacheStats();
+        assertEquals(0L, (long) stats.getHits());
+        assertEquals(0L, (long) stats.getSize());
+    }
+
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void unrelatedWritesKeepCachedResults(AddressBookImplType type) {
+        AddressBook addressBook = AddressBookFactory.create(type);
+        addressBook.insert(List.of(AddContactRequest.builder().name("john smith").email("john@acme.com").phone("555 123 4567").build()));
+        names(addressBook, "smith");
+        names(addressBook, "@acme.com");
+
+        addressBook.insert(List.of(AddContactRequest.builder().name("bob jones").email("bob@yahoo.com").phone("777 000 8888").build()));
+        CacheStats stats = addressBook.cacheStats();
+        assertEquals(0L, (long) stats.getInvalidations());
+        assertEquals(2L, (long) stats.getSize());
+
+        names(addressBook, "smith");
+        names(addressBook, "@acme.com");
+        assertEquals(2L, (long) addressBook.cacheStats().getHits());
+    }
+
+    private static Set<String> names(AddressBook addressBook, String query) {
+        return addressBook.find(FetchRequest.builder().query(query).build()).stream()
+                .map(ContactCard::getName)
+                .collect(Collectors.toSet());
+    }
+}
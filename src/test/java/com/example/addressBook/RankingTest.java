@@ -0,0 +1,109 @@
+package com.example.addressBook;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.example.dto.FetchRequest;
+import com.example.enums.AddressBookImplType;
+import com.example.enums.QueryOperator;
+import com.example.index.ContactStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RankingTest {
+    @Test
+    void ranksExactTokenOverPrefixOverInfixAndNameOverEmail() {
+        ContactStore store = new ContactStore();
+        int[] ordinals = {
+                add(store, "1", "mary johnson", "mj@example.com"),   // token prefix in name
+                add(store, "2", "bob stone", "john@example.com"),   // exact token in email
+                add(store, "3", "ann littlejohn", "al@example.com"), // infix in name
+                add(store, "4", "john smith", "js@example.com"),    // exact token in name
+                add(store, "5", "zed", "zed@example.com")};         // no literal match
+
+        assertEquals(List.of("4", "2", "1", "3", "5"), ids(Ranking.topK(store, ordinals, new String[]{"John"}, 10)));
+        assertEquals(List.of("4", "2"), ids(Ranking.topK(store, ordinals, new String[]{"john"}, 2)));
+    }
+
+    @Test
+    void keepsLowerOrdinalsOnTiesAndSkipsDeadOrdinals() {
+        ContactStore store = new ContactStore();
+        int[] ordinals = new int[6];
+        for (int i = 0; i < ordinals.length; i++) ordinals[i] = add(store, "id" + i, "john " + i, null);
+        store.remove("id1");
+
+        assertEquals(List.of("id0", "id2", "id3"), ids(Ranking.topK(store, ordinals, new String[]{"john"}, 3)));
+    }
+
+    @Test
+    void returnsNothingForALimitBelowOne() {
+        ContactStore store = new ContactStore();
+        int[] ordinals = {add(store, "1", "john smith", null), add(store, "2", "john doe", null)};
+
+        assertEquals(List.of(), Ranking.topK(store, ordinals, new String[]{"john"}, 0));
+        assertEquals(List.of(), Ranking.topK(store, ordinals, new String[]{"john"}, -1));
+        assertEquals(List.of(), Ranking.merge(List.of(Ranking.topK(store, ordinals, new String[]{"john"}, 2)),
+                new String[]{"john"}, 0));
+    }
+
+    @Test
+    void ranksATopTierOnlyWhenItFillsTheLimitAtTheMaximumScore() {
+        ContactStore store = new ContactStore();
+        int[] tier = {
+                add(store, "1", "john smith", null),
+                add(store, "2", "johnny smith", null),  // in the tier by mistake: not an exact token
+                add(store, "3", "smith john", null),
+                add(store, "4", "john doe", null)};
+        store.remove("4");
+
+        assertEquals(List.of("1", "3"), ids(Ranking.topTier(store, tier, new String[]{"john"}, 2)));
+        //  only two live cards reach the maximum: the caller must rank every candidate instead
+        assertNull(Ranking.topTier(store, tier, new String[]{"john"}, 3));
+        assertNull(Ranking.topTier(store, tier, new String[]{"john"}, 5));
+    }
+
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void limitedFindsRankTheSameWithOrWithoutATokenTier(AddressBookImplType type) {
+        AddressBook addressBook = AddressBookFactory.create(type, 0);
+        List<AddContactRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            String name = i % 3 == 0 ? "ann smith " + i : i % 3 == 1 ? "bob smithers " + i : "cy goldsmith " + i;
+            requests.add(AddContactRequest.builder().name(name).email("c" + i + "@example.com").build());
+        }
+        List<ContactCard> cards = addressBook.insert(requests);
+        addressBook.delete(List.of(cards.get(0).getId()));
+
+        //  nine live "ann smith"s hold the token; a limit of 11 runs past them into the prefix matches
+        assertEquals(List.of("ann smith 3", "ann smith 6", "ann smith 9"), names(addressBook.find(
+                FetchRequest.builder().query("smith").limit(3).build())));
+        List<String> expected = new ArrayList<>();
+        for (int i = 3; i < 30; i += 3) expected.add("ann smith " + i);
+        expected.addAll(List.of("bob smithers 1", "bob smithers 4"));
+        assertEquals(expected, names(addressBook.find(FetchRequest.builder().query("smith").limit(11).build())));
+        assertEquals(List.of("ann smith 3", "ann smith 6"), names(addressBook.find(
+                FetchRequest.builder().query("smith ann").operator(QueryOperator.AND).limit(2).build())));
+        assertEquals(List.of("bob smithers 1", "bob smithers 4"), names(addressBook.find(
+                FetchRequest.builder().query("smithers").limit(2).build())));
+    }
+
+    private static int add(ContactStore store, String id, String name, String email) {
+        int ordinal = store.reserve(ContactCard.builder().id(id).name(name).email(email).build());
+        store.publish(ordinal);
+        return ordinal;
+    }
+
+    private static List<String> names(List<ContactCard> cards) {
+        return cards.stream().map(ContactCard::getName).collect(Collectors.toList());
+    }
+
+    private static List<String> ids(List<ContactCard> cards) {
+        return cards.stream().map(ContactCard::getId).collect(Collectors.toList());
+    }
+}
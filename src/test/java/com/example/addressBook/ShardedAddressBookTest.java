@@ -0,0 +1,82 @@
+package com.example.addressBook;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.example.dto.FetchRequest;
+import com.example.dto.SearchPage;
+import com.example.enums.AddressBookImplType;
+import com.example.enums.QueryOperator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedAddressBookTest {
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void findsWhatOneBookFinds(AddressBookImplType type) {
+        Random random = new Random(14);
+        String[] first = {"john", "jane", "maria", "li", "omar"};
+        String[] last = {"smith", "doe", "garcia", "wang", "haddad"};
+        List<AddContactRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String name = first[random.nextInt(first.length)] + " " + last[random.nextInt(last.length)];
+            requests.add(AddContactRequest.builder()
+                    .name(name)
+                    .email(name.replace(' ', '.') + i + "@example.com")
+                    .phone("555" + (1_000_000 + random.nextInt(9_000_000)))
+                    .build());
+        }
+        AddressBook single = AddressBookFactory.create(type);
+        List<ContactCard> cards = single.insert(requests);
+        ShardedAddressBook sharded = new ShardedAddressBook(type, 4);
+        sharded.load(cards);
+
+        ContactCard renamed = ContactCard.builder().id(cards.get(7).getId()).name("zed quux").build();
+        List<String> gone = List.of(cards.get(0).getId(), cards.get(1).getId());
+        for (AddressBook book : List.of(single, sharded)) {
+            book.update(List.of(renamed));
+            assertEquals(2, (int) book.delete(gone).getDeleted());
+        }
+        assertTrue(sharded.rebuildShard(sharded.shardOf(renamed.getId())) > 0);
+
+        for (String query : List.of("john", "garcia", "a.b", "@example.com", "5551", "quux")) {
+            assertEquals(ids(single.find(new FetchRequest(query))), ids(sharded.find(new FetchRequest(query))), query);
+        }
+        FetchRequest ranked = FetchRequest.builder().query("jane smith").operator(QueryOperator.OR).limit(5).build();
+        assertEquals(scores(single.find(ranked), "jane", "smith"), scores(sharded.find(ranked), "jane", "smith"));
+    }
+
+    @Test
+    void pagesAcrossShardsCoverEveryMatchOnce() {
+        ShardedAddressBook sharded = new ShardedAddressBook(AddressBookImplType.K_GRAM_PLUS_INVERTED_INDEX, 3);
+        List<AddContactRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 40; i++) requests.add(AddContactRequest.builder().name("page " + i).build());
+        Set<String> inserted = ids(sharded.insert(requests));
+
+        List<String> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            SearchPage page = sharded.findPage(FetchRequest.builder().query("page").limit(7).cursor(cursor).build());
+            assertTrue(page.getContacts().size() <= 7);
+            page.getContacts().forEach(card -> paged.add(card.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(inserted.size(), paged.size());
+        assertEquals(inserted, new HashSet<>(paged));
+        assertThrows(IllegalArgumentException.class,
+                () -> sharded.findPage(FetchRequest.builder().query("page").cursor("9.x").build()));
+    }
+
+    private static Set<String> ids(List<ContactCard> cards) {
+        return cards.stream().map(ContactCard::getId).collect(Collectors.toSet());
+    }
+
+    private static List<Integer> scores(List<ContactCard> cards, String... terms) {
+        return cards.stream().map(card -> Ranking.score(card, terms)).collect(Collectors.toList());
+    }
+}
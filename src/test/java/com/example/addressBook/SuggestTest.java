@@ -0,0 +1,86 @@
+package com.example.addressBook;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.example.dto.Suggestion;
+import com.example.enums.AddressBookImplType;
+import com.example.index.SuggestIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SuggestTest {
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void completesNamesWordsAndEmailsByPopularity(AddressBookImplType type) {
+        AddressBook addressBook = AddressBookFactory.create(type);
+        List<ContactCard> cards = addressBook.insert(List.of(
+                AddContactRequest.builder().name("John Smith").email("john@acme.com").build(),
+                AddContactRequest.builder().name("john  smith").email("js@yahoo.com").build(),
+                AddContactRequest.builder().name("Johanna Doe").email("jo@acme.com").build(),
+                AddContactRequest.builder().name("Anna Smithers").email("anna@acme.com").build()));
+
+        assertEquals(List.of("john smith 2", "jo@acme.com 1", "johanna doe 1", "john@acme.com 1"), texts(addressBook, "JO", 10));
+        assertEquals(List.of("john smith 2"), texts(addressBook, "jo", 1));
+        assertEquals(List.of("smith 2", "smithers 1"), texts(addressBook, "smi", 10));
+        assertEquals(List.of("john smith 2"), texts(addressBook, "john ", 10));
+        assertEquals(List.of(), texts(addressBook, "x", 10));
+
+        addressBook.update(List.of(ContactCard.builder().id(cards.get(1).getId()).name("jon smith").build()));
+        addressBook.delete(List.of(cards.get(2).getId()));
+        assertEquals(List.of("john smith 1", "john@acme.com 1", "jon smith 1"), texts(addressBook, "jo", 10));
+        assertEquals(List.of("john@acme.com 1"), texts(addressBook, "john@", 10));
+    }
+
+    @Test
+    void topCompletionsMatchNaiveCounting() {
+        Random random = new Random(11);
+        SuggestIndex index = new SuggestIndex();
+        Map<String, Integer> counts = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            //  a small alphabet so that keys share long prefixes and split the trie deeply
+            String name = word(random) + (random.nextBoolean() ? " " + word(random) : "");
+            names.add(name);
+            index.add(name, null);
+            SuggestIndex.keys(name, null).forEach(key -> counts.merge(key, 1, Integer::sum));
+        }
+        for (int i = 0; i < names.size(); i += 3) {
+            index.remove(names.get(i), null);
+            SuggestIndex.keys(names.get(i), null).forEach(key -> counts.merge(key, -1, Integer::sum));
+        }
+        counts.values().removeIf(count -> count == 0);
+        assertEquals(counts.size(), index.keyCount());
+
+        for (int round = 0; round < 300; round++) {
+            String prefix = word(random).substring(0, 1 + random.nextInt(3));
+            int limit = 1 + random.nextInt(20);
+            List<String> expected = counts.entrySet().stream()
+                    .filter(entry -> entry.getKey().startsWith(prefix))
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .limit(limit)
+                    .map(entry -> entry.getKey() + " " + entry.getValue())
+                    .collect(Collectors.toList());
+            List<String> actual = index.suggest(prefix, limit).stream()
+                    .map(suggestion -> suggestion.getText() + " " + suggestion.getCount())
+                    .collect(Collectors.toList());
+            assertEquals(expected, actual, prefix);
+        }
+    }
+
+    private static String word(Random random) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0, n = 3 + random.nextInt(4); i < n; i++) word.append((char) ('a' + random.nextInt(3)));
+        return word.toString();
+    }
+
+    private static List<String> texts(AddressBook addressBook, String prefix, int limit) {
+        List<String> texts = new ArrayList<>();
+        for (Suggestion suggestion : addressBook.suggest(prefix, limit)) texts.add(suggestion.getText() + " " + suggestion.getCount());
+        return texts;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.addressBook;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.example.dto.FetchRequest;
+import com.example.enums.AddressBookImplType;
+import com.example.enums.QueryOperator;
+import com.example.index.TermFilter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TermFilterTest {
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void missesStayMissesAndHitsStayHits(AddressBookImplType type) {
+        AddressBook addressBook = AddressBookFactory.create(type);
+        List<ContactCard> cards = addressBook.insert(requests(0, 500));
+
+        assertTrue(addressBook.find(new FetchRequest("membre 12")).isEmpty());
+        assertTrue(addressBook.find(new FetchRequest("m12@clbu.org")).isEmpty());
+        assertTrue(addressBook.find(new FetchRequest("@club.com")).isEmpty());
+        assertTrue(addressBook.find(FetchRequest.builder().query("member zzz").operator(QueryOperator.AND).build()).isEmpty());
+        assertEquals(1, addressBook.find(new FetchRequest("member 123")).size());
+        assertEquals(1, addressBook.find(new FetchRequest("m123@club.org")).size());
+        assertEquals(500, addressBook.find(new FetchRequest("@club.org")).size());
+
+        //  removed terms stay in the filters until compaction rebuilds them; neither may change a result
+        addressBook.delete(cards.subList(0, 250).stream().map(ContactCard::getId).collect(Collectors.toList()));
+        assertTrue(addressBook.find(new FetchRequest("member 123")).isEmpty());
+        addressBook.compact();
+        assertTrue(addressBook.find(new FetchRequest("m123@")).isEmpty());
+        assertEquals(1, addressBook.find(new FetchRequest("member 321")).size());
+        assertEquals(250, addressBook.find(new FetchRequest("@club.org")).size());
+    }
+
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void aCachedMissIsDroppedOnceTheTermIsWritten(AddressBookImplType type) {
+        AddressBook addressBook = AddressBookFactory.create(type);
+        addressBook.insert(requests(0, 100));
+        assertTrue(addressBook.find(new FetchRequest("zebra")).isEmpty());
+        assertTrue(addressBook.find(new FetchRequest("z@savanna.net")).isEmpty());
+
+        addressBook.insert(List.of(AddContactRequest.builder().name("zebra crossing").email("z@savanna.net").phone("123").build()));
+        assertEquals(1, addressBook.find(new FetchRequest("zebra")).size());
+        assertEquals(1, addressBook.find(new FetchRequest("z@savanna.net")).size());
+    }
+
+    @Test
+    void letsFewAbsentTermsThrough() {
+        TermFilter filter = new TermFilter(100_000);
+        for (int i = 0; i < 100_000; i++) filter.add(TermFilter.hash("present" + i));
+        for (int i = 0; i < 100_000; i++) assertTrue(filter.mightContain(TermFilter.hash("present" + i)));
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(TermFilter.hash("absent" + i))) falsePositives++;
+        }
+        assertTrue(falsePositives < 2_000, falsePositives + " false positives in 100000");
+
+        //  overfilling chains on a larger filter rather than losing terms; a rebuild collapses it
+        for (int i = 100_000; i < 1_000_000; i++) filter.add(TermFilter.hash("present" + i));
+        assertTrue(filter.isChained());
+        filter.rebuild(1_000, sink -> {
+            for (int i = 0; i < 1_000; i++) sink.accept(TermFilter.hash("present" + i));
+        });
+        assertTrue(!filter.isChained() && filter.mightContain(TermFilter.hash("present999")));
+    }
+
+    @Test
+    void hashesUtf8BytesAsTheTermTheyEncode() {
+        //  one, two, three and four bytes per code point, the last a surrogate pair in the String
+        for (String term : List.of("smith", "renée", "müller-lüdenscheid", "日本語", "ok👍", "")) {
+            byte[] utf8 = term.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer framed = ByteBuffer.allocate(utf8.length + 4).put(0, (byte) 'x').put(2, utf8);
+            assertEquals(TermFilter.hash(term), TermFilter.hashUtf8(framed, 2, 2 + utf8.length), term);
+        }
+    }
+
+    private static List<AddContactRequest> requests(int from, int count) {
+        List<AddContactRequest> requests = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            requests.add(AddContactRequest.builder()
+                    .name("member " + i)
+                    .email("m" + i + "@club.org")
+                    .phone("555" + (1_000_000 + i))
+                    .build());
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.cluster;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.example.dto.FetchRequest;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Starts a partitioned cluster of address book nodes on localhost, checks that every node sees every contact
+ * whichever node it was written to, and reports aggregate write and search throughput.
+ * Not a unit test; build the app first, then run:
+ *   ./mvnw package -DskipTests
+ *   ./mvnw test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.cluster.LocalClusterHarness
+ * Optional args: nodes (default 3), contacts (default 20000), clientThreads (default 16), seconds (default 10).
+ */
+public class LocalClusterHarness {
+    private static final int BASE_PORT = 5100;
+    private static final Path RUNNER = Path.of("target", "quarkus-app", "quarkus-run.jar");
+    private static final TypeReference<List<ContactCard>> CARDS = new TypeReference<>() {
+    };
+
+    private static final HttpClient client = HttpClient.newHttpClient();
+    //  picks up the parameter-names module, which ContactCard's all-args constructor needs
+    private static final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    public static void main(String[] args) throws Exception {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int contacts = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        if (!Files.exists(RUNNER)) throw new IllegalStateException(RUNNER + " not found; run ./mvnw package first");
+
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) urls.add("http://localhost:" + (BASE_PORT + i));
+        List<Process> processes = new ArrayList<>();
+        try {
+            for (int i = 0; i < nodes; i++) processes.add(start(i, urls));
+            for (String url : urls) awaitReady(url);
+            System.out.printf("%d nodes up: %s%n", nodes, urls);
+
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            long started = System.nanoTime();
+            List<Future<?>> writes = new ArrayList<>();
+            for (int i = 0; i < contacts; i++) {
+                int n = i;
+                writes.add(pool.submit(() -> post(urls.get(n % nodes), "/create", List.of(AddContactRequest.builder()
+                        .name("cluster user" + n)
+                        .email(localPart(n) + "@node" + (n % nodes) + ".example.com")
+                        .phone("555" + (1_000_000 + n))
+                        .build()), CARDS)));
+            }
+            for (Future<?> write : writes) write.get();
+            double writeSeconds = (System.nanoTime() - started) / 1e9;
+            System.out.printf("Inserted %d contacts through %d nodes: %.0f writes/sec%n", contacts, nodes, contacts / writeSeconds);
+
+            verify(urls, contacts);
+            System.out.println("Every node sees every contact; updates and deletes route to their owner");
+
+            AtomicLong searches = new AtomicLong();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            List<Future<?>> readers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                readers.add(pool.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (long i = 0; System.nanoTime() < deadline; i++) {
+                        String url = urls.get((int) ((thread + i) % nodes));
+                        post(url, "/search", FetchRequest.builder().query(localPart(random.nextInt(contacts)) + "@").build(), CARDS);
+                        searches.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> reader : readers) reader.get();
+            System.out.printf("Scatter-gather search: %.0f searches/sec across %d nodes%n", searches.get() / (double) seconds, nodes);
+            pool.shutdown();
+        } finally {
+            processes.forEach(Process::destroy);
+            for (Process process : processes) process.waitFor(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void verify(List<String> urls, int contacts) {
+        for (String url : urls) {
+            int seen = post(url, "/search", new FetchRequest("cluster user"), CARDS).size();
+            check(seen == contacts, url + " sees " + seen + " of " + contacts + " contacts");
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int sample = 0; sample < 100; sample++) {
+            int n = random.nextInt(contacts);
+            String url = urls.get(random.nextInt(urls.size()));
+            List<ContactCard> found = post(url, "/search", new FetchRequest(localPart(n) + "@"), CARDS);
+            check(found.size() == 1, url + " found " + found.size() + " contacts for " + localPart(n) + "@");
+        }
+
+        //  write through one node, read back through every other
+        ContactCard target = post(urls.get(0), "/search", new FetchRequest(localPart(1) + "@"), CARDS).get(0);
+        List<ContactCard> updated = send(urls.get(urls.size() - 1), "/update", "PUT",
+                List.of(ContactCard.builder().id(target.getId()).name("renamed harness contact").build()), CARDS);
+        check(updated.size() == 1, "update through a non-owner node was lost");
+        for (String url : urls) {
+            check(post(url, "/search", new FetchRequest("renamed harness"), CARDS).size() == 1, url + " missed the update");
+        }
+        Map<String, Integer> deleted = send(urls.get(urls.size() / 2), "/delete", "DELETE", List.of(target.getId()),
+                new TypeReference<>() {
+                });
+        check(deleted.get("deleted") == 1, "delete through a non-owner node was lost");
+        for (String url : urls) {
+            check(post(url, "/search", new FetchRequest("renamed harness"), CARDS).isEmpty(), url + " still sees a deleted contact");
+        }
+    }
+
+    //  fixed width, so that one local part is never a prefix of another
+    private static String localPart(int n) {
+        return String.format("user%08d", n);
+    }
+
+    private static Process start(int node, List<String> urls) throws IOException {
+        Path log = Path.of("target", "cluster-node-" + node + ".log");
+        return new ProcessBuilder("java",
+                "-Dquarkus.http.port=" + (BASE_PORT + node),
+                "-Daddress.book.cluster.nodes=" + String.join(",", urls),
+                "-Daddress.book.cluster.self=" + node,
+                "-jar", RUNNER.toString())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+    }
+
+    private static void awaitReady(String url) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (System.nanoTime() < deadline) {
+            try {
+                post(url, "/internal/search", new FetchRequest("ready"), CARDS);
+                return;
+            } catch (RuntimeException e) {
+                Thread.sleep(250);
+            }
+        }
+        throw new IllegalStateException(url + " did not start; see target/cluster-node-*.log");
+    }
+
+    private static <T> T post(String url, String path, Object body, TypeReference<T> type) {
+        return send(url, path, "POST", body, type);
+    }
+
+    private static <T> T send(String url, String path, String method, Object body, TypeReference<T> type) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url + path))
+                    .header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() / 100 != 2) {
+                throw new IllegalStateException(method + " " + url + path + " answered " + response.statusCode());
+            }
+            return objectMapper.readValue(response.body(), type);
+        } catch (IOException e) {
+            throw new IllegalStateException(method + " " + url + path + " failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) throw new AssertionError(failure);
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.cluster;
+
+import com.example.addressBook.AddressBook;
+import com.example.addressBook.AddressBookFactory;
+import com.example.addressBook.ShardedAddressBook;
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.example.dto.FetchRequest;
+import com.example.enums.AddressBookImplType;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RemoteAddressBookTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final TypeReference<List<ContactCard>> CARDS = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ExecutorService peerCalls = Executors.newCachedThreadPool();
+    private final List<Peer> peers = new ArrayList<>();
+
+    @AfterEach
+    void close() {
+        peers.forEach(peer -> peer.server.stop(0));
+        peerCalls.shutdownNow();
+    }
+
+    @Test
+    void routesWritesToTheOwningNodeAndSearchesEveryNode() {
+        //  node 0 is this one; nodes 1 and 2 are peers behind the same /internal contract
+        AddressBook self = AddressBookFactory.create(AddressBookImplType.K_GRAM_PLUS_INVERTED_INDEX);
+        Peer first = peer("s3cret");
+        Peer second = peer("s3cret");
+        List<AddressBook> books = List.of(self, first.book, second.book);
+        List<AddressBook> owners = List.of(self, remote(first, "s3cret"), remote(second, "s3cret"));
+        ShardedAddressBook cluster = new ShardedAddressBook(owners, peerCalls);
+
+        List<ContactCard> cards = cluster.insert(IntStream.range(0, 60)
+                .mapToObj(i -> AddContactRequest.builder().name("member " + i).email("m" + i + "@club.org").build())
+                .collect(Collectors.toList()));
+        for (ContactCard card : cards) {
+            int owner = cluster.shardOf(card.getId());
+            for (int node = 0; node < books.size(); node++) {
+                assertEquals(node == owner, ids(books.get(node).find(new FetchRequest(card.getName()))).contains(card.getId()));
+            }
+        }
+        assertTrue(IntStream.range(0, books.size()).allMatch(node -> !books.get(node).find(new FetchRequest("member")).isEmpty()),
+                "60 contacts should reach every node");
+        assertEquals(ids(cards), ids(cluster.find(new FetchRequest("member"))));
+        try (Stream<ContactCard> streamed = cluster.stream(new FetchRequest("@club.org"))) {
+            assertEquals(ids(cards), streamed.map(ContactCard::getId).collect(Collectors.toSet()));
+        }
+
+        ContactCard remoteCard = cards.stream().filter(card -> cluster.shardOf(card.getId()) != 0).findFirst().orElseThrow();
+        AddressBook owner = books.get(cluster.shardOf(remoteCard.getId()));
+        cluster.update(List.of(ContactCard.builder().id(remoteCard.getId()).name("renamed member").build()));
+        assertEquals(List.of("renamed member|" + remoteCard.getEmail()), names(owner.find(new FetchRequest("renamed"))));
+
+        assertEquals(1, (int) cluster.delete(List.of(remoteCard.getId())).getDeleted());
+        assertTrue(owner.find(new FetchRequest("renamed")).isEmpty());
+        assertEquals(cards.size() - 1, cluster.find(new FetchRequest("member")).size());
+    }
+
+    @Test
+    void visitsAndCompactsEveryNode() {
+        AddressBook self = AddressBookFactory.create(AddressBookImplType.K_GRAM_PLUS_INVERTED_INDEX);
+        Peer peer = peer("s3cret");
+        ShardedAddressBook cluster = new ShardedAddressBook(List.of(self, remote(peer, "s3cret")), peerCalls);
+        List<ContactCard> cards = cluster.insert(IntStream.range(0, 40)
+                .mapToObj(i -> AddContactRequest.builder().name("member " + i).build())
+                .collect(Collectors.toList()));
+        List<String> remoteIds = cards.stream().map(ContactCard::getId)
+                .filter(id -> cluster.shardOf(id) == 1).limit(5).collect(Collectors.toList());
+        cluster.delete(remoteIds);
+
+        Set<String> visited = new HashSet<>();
+        cluster.forEach(card -> visited.add(card.getId()));
+        Set<String> expected = ids(cards);
+        expected.removeAll(remoteIds);
+        assertEquals(expected, visited);
+        //  the peer's lists are tightened by the pass the cluster asked for, leaving its own next pass nothing
+        assertTrue(cluster.compact().getListsRebuilt() > 0);
+        assertEquals(0, (long) peer.book.compact().getListsRebuilt());
+    }
+
+    @Test
+    void bindsUpdateBodiesTheWayPeersSendThem() throws IOException {
+        //  what RemoteAddressBook.update() puts on the wire and InternalController reads back
+        List<ContactCard> partial = List.of(ContactCard.builder().id("id-1").phone("555 0100").build());
+        List<ContactCard> bound = objectMapper.readValue(objectMapper.writeValueAsBytes(partial), CARDS);
+
+        assertEquals(1, bound.size());
+        assertEquals("id-1", bound.get(0).getId());
+        assertEquals("555 0100", bound.get(0).getPhone());
+        assertNull(bound.get(0).getName());
+    }
+
+    @Test
+    void mapsPeerFailuresToExceptions() {
+        Peer peer = peer(null);
+        RemoteAddressBook remote = remote(peer, null);
+
+        peer.status = 400;
+        IllegalArgumentException badRequest = assertThrows(IllegalArgumentException.class,
+                () -> remote.find(new FetchRequest("x")));
+        assertEquals("refused by test", badRequest.getMessage());
+        peer.status = 500;
+        assertThrows(UncheckedIOException.class, () -> remote.update(List.of(ContactCard.builder().id("a").build())));
+        peer.status = 0;
+        peer.server.stop(0);
+        assertThrows(UncheckedIOException.class, () -> remote.find(new FetchRequest("x")));
+    }
+
+    @Test
+    void sendsTheClusterSecretWithEveryCall() {
+        Peer peer = peer("s3cret");
+        assertEquals(0, remote(peer, "s3cret").find(new FetchRequest("anyone")).size());
+        assertThrows(UncheckedIOException.class, () -> remote(peer, "wrong").find(new FetchRequest("anyone")));
+        assertThrows(UncheckedIOException.class, () -> remote(peer, null).load(List.of(ContactCard.builder().id("a").build())));
+    }
+
+    private RemoteAddressBook remote(Peer peer, String secret) {
+        URI uri = URI.create("http://localhost:" + peer.server.getAddress().getPort());
+        return new RemoteAddressBook(uri, client, objectMapper, TIMEOUT, secret);
+    }
+
+    /**
+     * Starts a peer: a JDK HttpServer serving the /internal endpoints RemoteAddressBook calls, as
+     * InternalController does, over a book of its own; 403 without secret, and status (when set) instead.
+     */
+    private Peer peer(String secret) {
+        try {
+            Peer peer = new Peer(HttpServer.create(new InetSocketAddress("localhost", 0), 0));
+            peer.server.createContext("/internal/", exchange -> {
+                try (exchange) {
+                    if (secret != null && !secret.equals(exchange.getRequestHeaders().getFirst(RemoteAddressBook.SECRET_HEADER))) {
+                        respond(exchange, 403, new byte[0]);
+                    } else if (peer.status != 0) {
+                        respond(exchange, peer.status, "refused by test".getBytes(StandardCharsets.UTF_8));
+                    } else {
+                        serve(peer.book, exchange);
+                    }
+                }
+            });
+            peer.server.start();
+            peers.add(peer);
+            return peer;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void serve(AddressBook book, HttpExchange exchange) throws IOException {
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        switch (exchange.getRequestURI().getPath()) {
+            case "/internal/load":
+                book.load(objectMapper.readValue(body, CARDS));
+                respond(exchange, 204, null);
+                break;
+            case "/internal/search":
+                respond(exchange, 200, objectMapper.writeValueAsBytes(book.find(objectMapper.readValue(body, FetchRequest.class))));
+                break;
+            case "/internal/search/stream":
+                StringBuilder lines = new StringBuilder();
+                book.stream(objectMapper.readValue(body, FetchRequest.class), card -> {
+                    try {
+                        lines.append(objectMapper.writeValueAsString(card)).append('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                respond(exchange, 200, lines.toString().getBytes(StandardCharsets.UTF_8));
+                break;
+            case "/internal/contacts":
+                StringBuilder all = new StringBuilder();
+                book.forEach(card -> {
+                    try {
+                        all.append(objectMapper.writeValueAsString(card)).append('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                respond(exchange, 200, all.toString().getBytes(StandardCharsets.UTF_8));
+                break;
+            case "/internal/compact":
+                respond(exchange, 200, objectMapper.writeValueAsBytes(book.compact()));
+                break;
+            case "/internal/update":
+                respond(exchange, 200, objectMapper.writeValueAsBytes(book.update(objectMapper.readValue(body, CARDS))));
+                break;
+            case "/internal/delete":
+                respond(exchange, 200, objectMapper.writeValueAsBytes(book.delete(objectMapper.readValue(body, new TypeReference<List<String>>() {
+                }))));
+                break;
+            default:
+                respond(exchange, 404, new byte[0]);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body == null ? -1 : body.length == 0 ? -1 : body.length);
+        if (body == null || body.length == 0) return;
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Set<String> ids(List<ContactCard> cards) {
+        return cards.stream().map(ContactCard::getId).collect(Collectors.toSet());
+    }
+
+    private static List<String> names(List<ContactCard> cards) {
+        return cards.stream().map(card -> card.getName() + "|" + card.getEmail()).collect(Collectors.toList());
+    }
+
+    private static final class Peer {
+        final HttpServer server;
+        final AddressBook book = AddressBookFactory.create(AddressBookImplType.K_GRAM_PLUS_INVERTED_INDEX);
+        volatile int status;
+
+        Peer(HttpServer server) {
+            this.server = server;
+        }
+    }
+}
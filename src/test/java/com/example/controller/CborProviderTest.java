@@ -0,0 +1,131 @@
+package com.example.controller;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.example.dto.FetchRequest;
+import com.example.enums.QueryOperator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.ws.rs.WebApplicationException;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CborProviderTest {
+    private static final Type CARDS = new TypeReference<List<ContactCard>>() {}.getType();
+    private static final Type REQUESTS = new TypeReference<List<AddContactRequest>>() {}.getType();
+
+    private final CborProvider provider = new CborProvider();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void cardsRoundTripAndReadBackInJackson() throws IOException {
+        List<ContactCard> cards = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            cards.add(ContactCard.builder()
+                    .id(String.format("0f8fad5b-d9cb-469f-a165-%012d", i))
+                    .name(i % 2 == 0 ? "member " + i : "Zoë 李 " + i)
+                    .email("m" + i + "@club.org")
+                    .phone(i % 3 == 0 ? null : "+1 555 " + (1_000_000 + i))
+                    .build());
+        }
+        byte[] cbor = write(cards, CARDS);
+
+        assertSameCards(cards, (List<ContactCard>) read(cbor, CARDS));
+        assertSameCards(cards, CborProvider.MAPPER.readValue(cbor, new TypeReference<List<ContactCard>>() {}));
+        byte[] json = new ObjectMapper().writeValueAsBytes(cards);
+        assertTrue(cbor.length < json.length, cbor.length + " bytes of CBOR against " + json.length + " of JSON");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void readsWhatJacksonWritesAndSkipsUnknownKeys() throws IOException {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("tags", List.of(1, -2, "x", Map.of("weight", 2.5, "on", true)));
+        first.put("phone", "555 0100");
+        first.put("id", "ignored");
+        first.put("name", "Zoë");
+        first.put("email", null);
+        Map<String, Object> second = Map.of("name", "x".repeat(20_000));
+        List<AddContactRequest> read = (List<AddContactRequest>) read(CborProvider.MAPPER.writeValueAsBytes(List.of(first, second)), REQUESTS);
+
+        assertEquals(2, read.size());
+        assertEquals("Zoë", read.get(0).getName());
+        assertEquals("555 0100", read.get(0).getPhone());
+        assertNull(read.get(0).getEmail());
+        assertEquals(20_000, read.get(1).getName().length());
+
+        FetchRequest query = FetchRequest.builder().query("john gmail").operator(QueryOperator.AND).limit(20).build();
+        FetchRequest fetch = (FetchRequest) read(write(query, FetchRequest.class), FetchRequest.class);
+        assertEquals("john gmail", fetch.getQuery());
+        assertEquals(QueryOperator.AND, fetch.getOperator());
+        assertEquals(20, (int) fetch.getLimit());
+        assertNull(fetch.getMaxEdits());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void skipsUnknownValuesWhateverTheirTopBit() throws IOException {
+        //  {"score": -1.5 as a float64, "big": 2^64 - 1, "name": "ann"}: both values have their top bit set
+        byte[] body = {
+                (byte) 0x81, (byte) 0xa3,
+                0x65, 's', 'c', 'o', 'r', 'e', (byte) 0xfb, (byte) 0xbf, (byte) 0xf8, 0, 0, 0, 0, 0, 0,
+                0x63, 'b', 'i', 'g', 0x1b, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff,
+                0x64, 'n', 'a', 'm', 'e', 0x63, 'a', 'n', 'n'};
+        List<AddContactRequest> read = (List<AddContactRequest>) read(body, REQUESTS);
+        assertEquals(1, read.size());
+        assertEquals("ann", read.get(0).getName());
+
+        //  a break where a value belongs is still malformed
+        byte[] stray = {(byte) 0x81, (byte) 0xa1, 0x63, 'b', 'i', 'g', (byte) 0xff};
+        assertThrows(WebApplicationException.class, () -> read(stray, REQUESTS));
+    }
+
+    @Test
+    void rejectsMalformedBodies() throws IOException {
+        //  truncated map, a number where a list belongs, a non-text field, a name declaring 2 GB, a list
+        //  declaring 2^63 elements (not an indefinite one), and a truncated Jackson-bound body
+        byte[][] bodies = {
+                {(byte) 0x81, (byte) 0xa1, 0x64, 'n', 'a'},
+                {0x05},
+                {(byte) 0x81, (byte) 0xa1, 0x64, 'n', 'a', 'm', 'e', 0x05},
+                {(byte) 0x81, (byte) 0xa1, 0x64, 'n', 'a', 'm', 'e', 0x7a, 0x7f, (byte) 0xff, (byte) 0xff, (byte) 0xf0},
+                {(byte) 0x9b, (byte) 0x80, 0, 0, 0, 0, 0, 0, 0, (byte) 0xa0, (byte) 0xff},
+        };
+        for (byte[] body : bodies) assertThrows(WebApplicationException.class, () -> read(body, REQUESTS));
+        assertThrows(WebApplicationException.class, () -> read(new byte[]{(byte) 0xa1, 0x65, 'q', 'u'}, FetchRequest.class));
+        byte[] overlong = CborProvider.MAPPER.writeValueAsBytes(List.of(Map.of("name", "x".repeat(CborCodec.MAX_TEXT_BYTES + 1))));
+        assertThrows(WebApplicationException.class, () -> read(overlong, REQUESTS));
+    }
+
+    private Object read(byte[] body, Type type) throws IOException {
+        return provider.readFrom(Object.class, type, null, null, null, new ByteArrayInputStream(body));
+    }
+
+    private byte[] write(Object value, Type type) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        provider.writeTo(value, value.getClass(), type, null, null, null, out);
+        return out.toByteArray();
+    }
+
+    private static void assertSameCards(List<ContactCard> expected, List<ContactCard> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getName(), actual.get(i).getName());
+            assertEquals(expected.get(i).getEmail(), actual.get(i).getEmail());
+            assertEquals(expected.get(i).getPhone(), actual.get(i).getPhone());
+        }
+    }
+}
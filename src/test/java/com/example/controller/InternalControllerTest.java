@@ -0,0 +1,82 @@
+package com.example.controller;
+
+import com.example.addressBook.AddressBook;
+import com.example.addressBook.AddressBookFactory;
+import com.example.dto.ContactCard;
+import com.example.dto.FetchRequest;
+import com.example.enums.AddressBookImplType;
+import com.example.service.AddressBookAdapter;
+import jakarta.ws.rs.core.Response;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InternalControllerTest {
+    private static final ContactCard CARD = ContactCard.builder().id("planted").name("planted contact").build();
+
+    @Test
+    void isNotServedByANodeThatIsNotPartitioned() {
+        AddressBook book = AddressBookFactory.create(AddressBookImplType.K_GRAM_PLUS_INVERTED_INDEX);
+        InternalController controller = controller(new Node(book, false, null));
+
+        assertEquals(404, controller.load(List.of(CARD), null).getStatus());
+        assertEquals(404, controller.search(new FetchRequest("planted"), null).getStatus());
+        assertEquals(404, controller.indexStats(null).getStatus());
+        assertEquals(404, controller.contacts(null).getStatus());
+        assertEquals(404, controller.compact(null).getStatus());
+        assertTrue(book.find(new FetchRequest("planted")).isEmpty());
+    }
+
+    @Test
+    void refusesCallsWithoutTheClusterSecret() {
+        AddressBook book = AddressBookFactory.create(AddressBookImplType.K_GRAM_PLUS_INVERTED_INDEX);
+        InternalController controller = controller(new Node(book, true, "s3cret"));
+
+        assertEquals(403, controller.load(List.of(CARD), null).getStatus());
+        assertEquals(403, controller.delete(List.of("planted"), "wrong").getStatus());
+        assertTrue(book.find(new FetchRequest("planted")).isEmpty());
+
+        assertEquals(204, controller.load(List.of(CARD), "s3cret").getStatus());
+        Response found = controller.search(new FetchRequest("planted"), "s3cret");
+        assertEquals(200, found.getStatus());
+        assertEquals(1, ((List<?>) found.getEntity()).size());
+    }
+
+    private static InternalController controller(AddressBookAdapter adapter) {
+        InternalController controller = new InternalController();
+        controller.addressBookAdapter = adapter;
+        return controller;
+    }
+
+    /**
+     * This node's book, partitioned or not, with or without a cluster secret.
+     */
+    private static final class Node extends AddressBookAdapter {
+        private final AddressBook book;
+        private final boolean partitioned;
+        private final String secret;
+
+        Node(AddressBook book, boolean partitioned, String secret) {
+            this.book = book;
+            this.partitioned = partitioned;
+            this.secret = secret;
+        }
+
+        @Override
+        public AddressBook local() {
+            return book;
+        }
+
+        @Override
+        public boolean isPartitioned() {
+            return partitioned;
+        }
+
+        @Override
+        public boolean acceptsPeer(String secret) {
+            return partitioned && (this.secret == null || this.secret.equals(secret));
+        }
+    }
+}
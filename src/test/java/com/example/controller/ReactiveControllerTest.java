@@ -0,0 +1,63 @@
+package com.example.controller;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.example.dto.FetchRequest;
+import com.example.dto.SearchPage;
+import com.example.service.ReactiveAddressBook;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReactiveControllerTest {
+    @Test
+    void answersRejectedRequestsWith503AndRetryAfter() {
+        ReactiveController controller = new ReactiveController();
+        controller.reactiveAddressBook = new Saturated();
+
+        assertUnavailable(controller.addContacts(List.of(AddContactRequest.builder().name("a").build())).await().indefinitely());
+        assertUnavailable(controller.searchContacts(new FetchRequest("smith")).await().indefinitely());
+        assertUnavailable(controller.searchContactsPage(new FetchRequest("smith")).await().indefinitely());
+        //  a stream is refused before its response starts, so it can still carry a status
+        WebApplicationException e = assertThrows(WebApplicationException.class,
+                () -> controller.streamContacts(new FetchRequest("smith")));
+        assertUnavailable(e.getResponse());
+    }
+
+    private static void assertUnavailable(Response response) {
+        assertEquals(Response.Status.SERVICE_UNAVAILABLE.getStatusCode(), response.getStatus());
+        assertEquals("1", response.getHeaderString("Retry-After"));
+    }
+
+    /**
+     * Turns everything away, as ReactiveAddressBook does once max-pending requests are in flight.
+     */
+    private static final class Saturated extends ReactiveAddressBook {
+        @Override
+        public Uni<List<ContactCard>> insert(List<AddContactRequest> requests) {
+            return Uni.createFrom().failure(new RejectedExecutionException("full"));
+        }
+
+        @Override
+        public Uni<List<ContactCard>> find(FetchRequest request) {
+            return Uni.createFrom().failure(new RejectedExecutionException("full"));
+        }
+
+        @Override
+        public Uni<SearchPage> findPage(FetchRequest request) {
+            return Uni.createFrom().failure(new RejectedExecutionException("full"));
+        }
+
+        @Override
+        public Multi<ContactCard> stream(FetchRequest request) {
+            throw new RejectedExecutionException("full");
+        }
+    }
+}
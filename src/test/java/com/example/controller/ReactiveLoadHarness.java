@@ -0,0 +1,177 @@
+package com.example.controller;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.FetchRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Starts one address book node and runs the same mixed load against the blocking endpoints and the /reactive
+ * ones: most clients search while a few push bulk /create batches. Reports search latency while writes are in
+ * flight, search and write throughput, and how many requests were turned away with 503.
+ * Not a unit test; build the app first, then run:
+ *   ./mvnw package -DskipTests
+ *   ./mvnw test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.controller.ReactiveLoadHarness
+ * Optional args: contacts (default 200000), searchers (default 64), writers (default 4), batch (default 5000),
+ * seconds (default 20).
+ */
+public class ReactiveLoadHarness {
+    private static final int PORT = 5200;
+    private static final String URL = "http://localhost:" + PORT;
+    private static final Path RUNNER = Path.of("target", "quarkus-app", "quarkus-run.jar");
+    private static final int PRELOAD_BATCH = 10_000;
+
+    private static final HttpClient client = HttpClient.newBuilder().executor(Executors.newCachedThreadPool()).build();
+    private static final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    public static void main(String[] args) throws Exception {
+        int contacts = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int searchers = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int writers = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int batch = args.length > 3 ? Integer.parseInt(args[3]) : 5_000;
+        int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 20;
+        if (!Files.exists(RUNNER)) throw new IllegalStateException(RUNNER + " not found; run ./mvnw package first");
+
+        Process node = start();
+        try {
+            awaitReady();
+            for (int from = 0; from < contacts; from += PRELOAD_BATCH) {
+                check(exchange("POST", "/create", contacts(from, Math.min(PRELOAD_BATCH, contacts - from))) == 201, "preload failed");
+            }
+            System.out.printf("Preloaded %d contacts; %d searchers, %d writers of %d contacts, %ds per run%n",
+                    contacts, searchers, writers, batch, seconds);
+            System.out.printf("%-10s %12s %12s %12s %12s %14s %8s%n",
+                    "endpoints", "searches/s", "p50 (ms)", "p99 (ms)", "max (ms)", "writes/s", "503s");
+            //  the blocking run goes first and again last, so JIT warm-up does not favour either side
+            AtomicLong written = new AtomicLong(contacts);
+            for (String prefix : List.of("", "/reactive", "")) {
+                run(prefix.isEmpty() ? "blocking" : "reactive", prefix, contacts, searchers, writers, batch, seconds, written);
+            }
+        } finally {
+            node.destroy();
+            node.waitFor(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void run(String label, String prefix, int contacts, int searchers, int writers, int batch,
+                            int seconds, AtomicLong written) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(searchers + writers);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicLong inserted = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        List<Future<long[]>> readers = new ArrayList<>();
+        List<Future<?>> bulk = new ArrayList<>();
+        for (int t = 0; t < writers; t++) {
+            bulk.add(pool.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    int status = exchange("POST", prefix + "/create", contacts((int) written.getAndAdd(batch), batch));
+                    if (status == 201) inserted.addAndGet(batch);
+                    else if (status == 503) rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        for (int t = 0; t < searchers; t++) {
+            readers.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long[] latencies = new long[1024];
+                int count = 0;
+                while (System.nanoTime() < deadline) {
+                    FetchRequest query = FetchRequest.builder().query(localPart(random.nextInt(contacts)) + "@").build();
+                    long start = System.nanoTime();
+                    int status = exchange("POST", prefix + "/search", query);
+                    long took = System.nanoTime() - start;
+                    if (status == 503) {
+                        rejected.incrementAndGet();
+                        continue;
+                    }
+                    if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+                    latencies[count++] = took;
+                }
+                return Arrays.copyOf(latencies, count);
+            }));
+        }
+        List<long[]> perThread = new ArrayList<>();
+        for (Future<long[]> reader : readers) perThread.add(reader.get());
+        for (Future<?> writer : bulk) writer.get();
+        pool.shutdown();
+
+        long[] all = perThread.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        check(all.length > 0, label + ": no search completed");
+        System.out.printf("%-10s %12.0f %12.2f %12.2f %12.2f %14.0f %8d%n", label,
+                all.length / (double) seconds,
+                all[all.length / 2] / 1e6,
+                all[(int) (all.length * 0.99)] / 1e6,
+                all[all.length - 1] / 1e6,
+                inserted.get() / (double) seconds,
+                rejected.get());
+    }
+
+    private static List<AddContactRequest> contacts(int from, int count) {
+        List<AddContactRequest> requests = new ArrayList<>(count);
+        for (int n = from; n < from + count; n++) {
+            requests.add(AddContactRequest.builder()
+                    .name("load user" + n)
+                    .email(localPart(n) + "@load.example.com")
+                    .phone("555" + (1_000_000 + n))
+                    .build());
+        }
+        return requests;
+    }
+
+    //  fixed width, so that one local part is never a prefix of another
+    private static String localPart(int n) {
+        return String.format("user%08d", n);
+    }
+
+    private static Process start() throws IOException {
+        Path log = Path.of("target", "reactive-load-node.log");
+        return new ProcessBuilder("java", "-Dquarkus.http.port=" + PORT, "-jar", RUNNER.toString())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+    }
+
+    private static void awaitReady() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (System.nanoTime() < deadline) {
+            try {
+                if (exchange("POST", "/search", new FetchRequest("ready")) == 200) return;
+            } catch (RuntimeException e) {
+                //  not listening yet
+            }
+            Thread.sleep(250);
+        }
+        throw new IllegalStateException(URL + " did not start; see target/reactive-load-node.log");
+    }
+
+    private static int exchange(String method, String path, Object body) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(URL + path))
+                    .header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            throw new IllegalStateException(method + " " + URL + path + " failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) throw new AssertionError(failure);
+    }
+}
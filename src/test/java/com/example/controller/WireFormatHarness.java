@@ -0,0 +1,198 @@
+package com.example.controller;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.example.dto.FetchRequest;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Starts one address book node and runs the same two loads with JSON bodies and with CBOR bodies: bulk /create
+ * batches, then broad /search queries that each return every contact at one of DOMAINS domains. The client encodes
+ * every request and decodes every response, so both ends of the wire are in the numbers. Reports requests and
+ * contacts per second, latency, and bytes on the wire per contact.
+ * Not a unit test; build the app first, then run:
+ *   ./mvnw package -DskipTests
+ *   ./mvnw test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.controller.WireFormatHarness
+ * Optional args: contacts (default 200000), clients (default 16), batch (default 5000), seconds (default 15).
+ */
+public class WireFormatHarness {
+    private static final int PORT = 5300;
+    private static final String URL = "http://localhost:" + PORT;
+    private static final Path RUNNER = Path.of("target", "quarkus-app", "quarkus-run.jar");
+    private static final int PRELOAD_BATCH = 10_000;
+    private static final int DOMAINS = 100;
+    private static final TypeReference<List<ContactCard>> CARDS = new TypeReference<>() {};
+
+    private static final HttpClient client = HttpClient.newBuilder().executor(Executors.newCachedThreadPool()).build();
+
+    private enum Format {
+        JSON("application/json", new ObjectMapper().findAndRegisterModules()),
+        CBOR(Controller.CBOR, new CBORMapper());
+
+        final String mediaType;
+        final ObjectMapper mapper;
+
+        Format(String mediaType, ObjectMapper mapper) {
+            this.mediaType = mediaType;
+            this.mapper = mapper;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int contacts = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int batch = args.length > 2 ? Integer.parseInt(args[2]) : 5_000;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 15;
+        if (!Files.exists(RUNNER)) throw new IllegalStateException(RUNNER + " not found; run ./mvnw package first");
+
+        Process node = start();
+        try {
+            awaitReady();
+            for (int from = 0; from < contacts; from += PRELOAD_BATCH) {
+                create(Format.JSON, from, Math.min(PRELOAD_BATCH, contacts - from));
+            }
+            System.out.printf("Preloaded %d contacts; %d clients, %d contacts per /create, %ds per run%n",
+                    contacts, clients, batch, seconds);
+            System.out.printf("%-7s %-7s %12s %14s %10s %10s %16s%n",
+                    "load", "format", "requests/s", "contacts/s", "p50 (ms)", "p99 (ms)", "bytes/contact");
+            //  JSON goes first and again last, so JIT warm-up does not favour either side
+            AtomicLong written = new AtomicLong(contacts);
+            for (Format format : List.of(Format.JSON, Format.CBOR, Format.JSON)) {
+                run("create", format, clients, seconds, () -> create(format, (int) written.getAndAdd(batch), batch));
+            }
+            for (Format format : List.of(Format.JSON, Format.CBOR, Format.JSON)) {
+                run("search", format, clients, seconds, () -> search(format, ThreadLocalRandom.current().nextInt(DOMAINS)));
+            }
+        } finally {
+            node.destroy();
+            node.waitFor(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void run(String load, Format format, int clients, int seconds, Callable<long[]> exchange) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicLong contacts = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        List<Future<long[]>> workers = new ArrayList<>();
+        for (int t = 0; t < clients; t++) {
+            workers.add(pool.submit(() -> {
+                long[] latencies = new long[1024];
+                int count = 0;
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    //  {contacts, bytes sent and received}
+                    long[] moved = exchange.call();
+                    long took = System.nanoTime() - start;
+                    contacts.addAndGet(moved[0]);
+                    bytes.addAndGet(moved[1]);
+                    if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+                    latencies[count++] = took;
+                }
+                return Arrays.copyOf(latencies, count);
+            }));
+        }
+        List<long[]> perThread = new ArrayList<>();
+        for (Future<long[]> worker : workers) perThread.add(worker.get());
+        pool.shutdown();
+
+        long[] all = perThread.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        check(all.length > 0, load + " " + format + ": no request completed");
+        System.out.printf("%-7s %-7s %12.0f %14.0f %10.2f %10.2f %16.1f%n", load, format,
+                all.length / (double) seconds,
+                contacts.get() / (double) seconds,
+                all[all.length / 2] / 1e6,
+                all[(int) (all.length * 0.99)] / 1e6,
+                bytes.get() / (double) Math.max(1, contacts.get()));
+    }
+
+    private static long[] create(Format format, int from, int count) throws IOException {
+        byte[] body = format.mapper.writeValueAsBytes(contacts(from, count));
+        byte[] response = exchange(format, "/create", body, 201);
+        List<ContactCard> added = format.mapper.readValue(response, CARDS);
+        check(added.size() == count, "created " + added.size() + " of " + count);
+        return new long[]{count, body.length + response.length};
+    }
+
+    private static long[] search(Format format, int domain) throws IOException {
+        byte[] body = format.mapper.writeValueAsBytes(new FetchRequest("@" + domain(domain)));
+        byte[] response = exchange(format, "/search", body, 200);
+        List<ContactCard> found = format.mapper.readValue(response, CARDS);
+        check(!found.isEmpty(), "no contacts at " + domain(domain));
+        return new long[]{found.size(), body.length + response.length};
+    }
+
+    private static List<AddContactRequest> contacts(int from, int count) {
+        List<AddContactRequest> requests = new ArrayList<>(count);
+        for (int n = from; n < from + count; n++) {
+            requests.add(AddContactRequest.builder()
+                    .name("wire user" + n)
+                    .email(String.format("user%08d@", n) + domain(n % DOMAINS))
+                    .phone("555" + (1_000_000 + n))
+                    .build());
+        }
+        return requests;
+    }
+
+    private static String domain(int n) {
+        return "d" + n + ".wire.example.com";
+    }
+
+    private static Process start() throws IOException {
+        Path log = Path.of("target", "wire-format-node.log");
+        return new ProcessBuilder("java", "-Dquarkus.http.port=" + PORT, "-jar", RUNNER.toString())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+    }
+
+    private static void awaitReady() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (System.nanoTime() < deadline) {
+            try {
+                exchange(Format.JSON, "/search", Format.JSON.mapper.writeValueAsBytes(new FetchRequest("ready")), 200);
+                return;
+            } catch (IOException | RuntimeException e) {
+                //  not listening yet
+            }
+            Thread.sleep(250);
+        }
+        throw new IllegalStateException(URL + " did not start; see target/wire-format-node.log");
+    }
+
+    private static byte[] exchange(Format format, String path, byte[] body, int expectedStatus) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(URL + path))
+                    .header("Content-Type", format.mediaType)
+                    .header("Accept", format.mediaType)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                    .build();
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            check(response.statusCode() == expectedStatus, "POST " + path + " returned " + response.statusCode());
+            return response.body();
+        } catch (IOException e) {
+            throw new IllegalStateException("POST " + URL + path + " failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) throw new AssertionError(failure);
+    }
+}
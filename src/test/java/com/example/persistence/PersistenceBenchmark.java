@@ -0,0 +1,78 @@
+package com.example.persistence;
+
+import com.example.addressBook.AddressBookFactory;
+import com.example.dto.AddContactRequest;
+import com.example.enums.AddressBookImplType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reports durable write throughput (ops/sec with group-committed fsyncs) and recovery time from the WAL,
+ * a snapshot and a memory-mapped index segment.
+ * Not a unit test; run with:
+ *   ./mvnw test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.persistence.PersistenceBenchmark
+ * Optional args: writerThreads (default 16), seconds (default 10).
+ */
+public class PersistenceBenchmark {
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        AddressBookImplType type = AddressBookImplType.K_GRAM_PLUS_PARTIAL_TOKENIZATION;
+        Path directory = Files.createTempDirectory("address-book-bench");
+
+        PersistentAddressBook book = PersistentAddressBook.open(AddressBookFactory.create(type), directory, Duration.ZERO);
+        AtomicLong ops = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            pool.submit(() -> {
+                for (long i = 0; System.nanoTime() < deadline; i++) {
+                    book.insert(List.of(AddContactRequest.builder()
+                            .name("user " + thread + " " + i)
+                            .email("user" + thread + "." + i + "@example.com")
+                            .phone("555" + thread + i)
+                            .build()));
+                    ops.incrementAndGet();
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(seconds + 60, TimeUnit.SECONDS);
+        long records = book.walRecordCount();
+        long syncs = book.walSyncCount();
+        book.close();
+
+        System.out.printf("writes: %d ops in %ds with %d threads = %.0f ops/sec durable%n",
+                ops.get(), seconds, threads, ops.get() / (double) seconds);
+        System.out.printf("group commit: %d fsyncs, %.1f records per fsync%n", syncs, records / (double) Math.max(1, syncs));
+
+        PersistentAddressBook replayed = PersistentAddressBook.open(AddressBookFactory.create(type), directory, Duration.ZERO);
+        report("recovery from WAL only", replayed.getRecoveryStats());
+        replayed.snapshot();
+        replayed.close();
+
+        PersistentAddressBook fromSnapshot = PersistentAddressBook.open(AddressBookFactory.create(type), directory, Duration.ZERO);
+        report("recovery from snapshot", fromSnapshot.getRecoveryStats());
+        fromSnapshot.close();
+
+        PersistenceConfig segments = PersistenceConfig.builder()
+                .directory(directory).snapshotInterval(Duration.ZERO).indexSegments(true).build();
+        PersistentAddressBook segmented = PersistentAddressBook.open(AddressBookFactory.create(type), segments);
+        segmented.snapshot();
+        segmented.close();
+
+        PersistentAddressBook fromSegment = PersistentAddressBook.open(AddressBookFactory.create(type), segments);
+        report("recovery from index segment", fromSegment.getRecoveryStats());
+        fromSegment.close();
+    }
+
+    private static void report(String label, PersistentAddressBook.RecoveryStats stats) {
+        System.out.printf("%s: %d snapshot contacts + %d WAL records in %d ms%n", label,
+                stats.getSnapshotContacts(), stats.getReplayedRecords(), stats.getDuration().toMillis());
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.persistence;
+
+import com.example.addressBook.AddressBook;
+import com.example.addressBook.AddressBookFactory;
+import com.example.addressBook.SegmentedAddressBook;
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.example.dto.FetchRequest;
+import com.example.enums.AddressBookImplType;
+import com.example.index.IndexSegment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PersistentAddressBookTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversWritesFromWalAlone() throws IOException {
+        Map<String, String> expected;
+        try (PersistentAddressBook book = open()) {
+            expected = applyWrites(book);
+        }
+        try (PersistentAddressBook book = open()) {
+            assertEquals(expected, names(book));
+        }
+    }
+
+    @Test
+    void recoversFromSnapshotPlusWalTail() throws IOException {
+        Map<String, String> expected;
+        try (PersistentAddressBook book = open()) {
+            applyWrites(book);
+            book.snapshot();
+            expected = applyWrites(book);
+        }
+        try (PersistentAddressBook book = open()) {
+            assertEquals(expected, names(book));
+            assertEquals(1, Files.list(directory).filter(p -> SnapshotStore.generationOf(p) >= 0).count());
+        }
+    }
+
+    @Test
+    void ignoresTornTailOfTheLastWalFile() throws IOException {
+        Map<String, String> expected;
+        try (PersistentAddressBook book = open()) {
+            expected = applyWrites(book);
+        }
+        Path wal = Files.list(directory).filter(p -> WriteAheadLog.generationOf(p) >= 0)
+                .max(Comparator.comparingLong(WriteAheadLog::generationOf)).orElseThrow();
+        Files.write(wal, new byte[]{0, 0, 1, 0, 42, 42}, StandardOpenOption.APPEND);
+
+        try (PersistentAddressBook book = open()) {
+            assertEquals(expected, names(book));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void reopensIndexSegmentWithoutReindexing(AddressBookImplType type) throws IOException {
+        Map<String, String> expected;
+        PersistenceConfig config = PersistenceConfig.builder()
+                .directory(directory)
+                .snapshotInterval(Duration.ZERO)
+                .indexSegments(true)
+                .build();
+        try (PersistentAddressBook book = PersistentAddressBook.open(AddressBookFactory.create(type), config)) {
+            applyWrites(book);
+            //  terms that are not ASCII are looked up in the segment by their UTF-8 bytes
+            book.insert(List.of(AddContactRequest.builder().name("renée smith").build()));
+            book.snapshot();
+            expected = applyWrites(book);
+            assertEquals(3, book.find(FetchRequest.builder().query("smith").build()).size());
+        }
+        assertEquals(1, Files.list(directory).filter(p -> IndexSegment.generationOf(p) >= 0).count());
+        //  the temp file and the dictionaries' scratch files are gone once the segment is renamed into place
+        assertEquals(0, Files.list(directory).filter(p -> p.getFileName().toString().contains(".tmp")).count());
+        try (PersistentAddressBook book = PersistentAddressBook.open(AddressBookFactory.create(type), config)) {
+            assertEquals(expected, names(book));
+            assertEquals(2, book.find(FetchRequest.builder().query("johnny").build()).size());
+            assertEquals(1, book.find(FetchRequest.builder().query("renée").build()).size());
+            book.snapshot();
+            assertEquals(2, book.find(FetchRequest.builder().query("jane").build()).size());
+        }
+    }
+
+    @Test
+    void refusesWritesOnceAWalAppendFails() throws IOException {
+        Map<String, String> durable;
+        FaultyChannel[] channel = new FaultyChannel[1];
+        PersistenceConfig config = PersistenceConfig.builder().directory(directory).snapshotInterval(Duration.ZERO).build();
+        try (PersistentAddressBook book = PersistentAddressBook.open(
+                AddressBookFactory.create(AddressBookImplType.K_GRAM_PLUS_PARTIAL_TOKENIZATION), config,
+                (dir, generation) -> channel[0] = FaultyChannel.open(dir, generation))) {
+            durable = applyWrites(book);
+            channel[0].failWrites = 1;
+            assertThrows(IllegalStateException.class,
+                    () -> book.insert(List.of(AddContactRequest.builder().name("lost write").build())));
+            assertTrue(book.isReadOnly());
+            //  the log itself has recovered, but what is in memory no longer matches it
+            assertThrows(IllegalStateException.class,
+                    () -> book.insert(List.of(AddContactRequest.builder().name("later write").build())));
+            assertThrows(IllegalStateException.class, () -> book.delete(List.copyOf(durable.keySet())));
+            assertEquals(0, book.find(new FetchRequest("later")).size());
+            assertEquals(1, book.find(new FetchRequest("johnny")).size());
+        }
+        try (PersistentAddressBook book = open()) {
+            assertEquals(durable, names(book));
+            assertFalse(book.isReadOnly());
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(AddressBookImplType.class)
+    void findsCardsUpdatedBetweenFreezeAndSegmentWriteByTheirNewTerms(AddressBookImplType type) throws IOException {
+        //  what snapshot() does when an update lands after the freeze: the segment holds the updated card,
+        //  but its new terms are only in the active delta, which is not written
+        SegmentedAddressBook source = (SegmentedAddressBook) AddressBookFactory.create(type);
+        ContactCard alice = source.insert(List.of(AddContactRequest.builder().name("Alice Zebra").build())).get(0);
+        source.freezeDelta();
+        List<ContactCard> rename = List.of(ContactCard.builder().id(alice.getId()).name("Bob Quux").build());
+        source.update(rename);
+        source.writeSegment(IndexSegment.file(directory, 1));
+        try (WriteAheadLog wal = new WriteAheadLog(directory, 1)) {
+            wal.append(WalRecord.update(rename)).join();
+        }
+
+        PersistenceConfig config = PersistenceConfig.builder()
+                .directory(directory)
+                .snapshotInterval(Duration.ZERO)
+                .indexSegments(true)
+                .build();
+        try (PersistentAddressBook book = PersistentAddressBook.open(AddressBookFactory.create(type), config)) {
+            assertEquals(1, book.find(FetchRequest.builder().query("Quux").build()).size());
+            assertEquals(0, book.find(FetchRequest.builder().query("Zebra").build()).size());
+        }
+    }
+
+    @Test
+    void thawsTheFrozenDeltasWhenASegmentCannotBeWritten() throws IOException {
+        PersistenceConfig config = PersistenceConfig.builder()
+                .directory(directory)
+                .snapshotInterval(Duration.ZERO)
+                .indexSegments(true)
+                .build();
+        AddressBook reference = AddressBookFactory.create(AddressBookImplType.K_GRAM_PLUS_INVERTED_INDEX);
+        List<AddContactRequest> first = List.of(AddContactRequest.builder().name("alice zebra").email("alice@zoo.org").build());
+        List<AddContactRequest> second = List.of(AddContactRequest.builder().name("alice quux").email("quux@zoo.org").build());
+        try (PersistentAddressBook book = PersistentAddressBook.open(
+                AddressBookFactory.create(AddressBookImplType.K_GRAM_PLUS_INVERTED_INDEX), config)) {
+            book.insert(first);
+            reference.insert(first);
+            //  a non-empty directory where the segment goes makes the rename fail
+            Path blocker = IndexSegment.file(directory, 1);
+            Files.createDirectories(blocker.resolve("in-the-way"));
+            assertThrows(IOException.class, book::snapshot);
+
+            book.insert(second);
+            reference.insert(second);
+            //  one heap layer again: terms in both inserts count once, as in a book that never froze
+            assertEquals(reference.indexStats().getTerms(), book.indexStats().getTerms());
+            assertEquals(2, book.find(FetchRequest.builder().query("alice").build()).size());
+
+            Files.delete(blocker.resolve("in-the-way"));
+            Files.delete(blocker);
+            assertEquals(2, book.snapshot());
+        }
+        try (PersistentAddressBook book = PersistentAddressBook.open(
+                AddressBookFactory.create(AddressBookImplType.K_GRAM_PLUS_INVERTED_INDEX), config)) {
+            assertEquals(2, book.find(FetchRequest.builder().query("@zoo.org").build()).size());
+        }
+    }
+
+    private PersistentAddressBook open() throws IOException {
+        return PersistentAddressBook.open(AddressBookFactory.create(AddressBookImplType.K_GRAM_PLUS_PARTIAL_TOKENIZATION),
+                directory, Duration.ZERO);
+    }
+
+    private static Map<String, String> applyWrites(AddressBook book) {
+        List<ContactCard> cards = book.insert(List.of(
+                AddContactRequest.builder().name("john smith").email("john@example.com").phone("5551234").build(),
+                AddContactRequest.builder().name("jane doe").email("jane@example.com").phone("5559876").build(),
+                AddContactRequest.builder().name("bob stone").email("bob@example.com").phone("5550000").build()));
+        book.update(List.of(ContactCard.builder().id(cards.get(0).getId()).name("johnny smith").build()));
+        book.delete(List.of(cards.get(2).getId()));
+        return names(book);
+    }
+
+    private static Map<String, String> names(AddressBook book) {
+        Map<String, String> names = new HashMap<>();
+        book.forEach(card -> names.put(card.getId(), card.getName() + "|" + card.getEmail() + "|" + card.getPhone()));
+        return names;
+    }
+}
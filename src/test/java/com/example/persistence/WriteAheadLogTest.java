@@ -0,0 +1,54 @@
+package com.example.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WriteAheadLogTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void laterAppendsSurviveATornWrite() throws IOException {
+        FaultyChannel[] channel = new FaultyChannel[1];
+        try (WriteAheadLog wal = new WriteAheadLog(directory, 1, (dir, generation) ->
+                channel[0] = FaultyChannel.open(dir, generation))) {
+            wal.append(WalRecord.delete(List.of("a"))).join();
+            channel[0].failWrites = 1;
+            assertThrows(CompletionException.class, () -> wal.append(WalRecord.delete(List.of("torn"))).join());
+            wal.append(WalRecord.delete(List.of("b"))).join();
+            wal.append(WalRecord.delete(List.of("c"))).join();
+        }
+
+        assertEquals(List.of("a", "b", "c"), replayedIds());
+    }
+
+    @Test
+    void failsLaterAppendsWhenTheTornTailCannotBeCut() throws IOException {
+        FaultyChannel[] channel = new FaultyChannel[1];
+        try (WriteAheadLog wal = new WriteAheadLog(directory, 1, (dir, generation) ->
+                channel[0] = FaultyChannel.open(dir, generation))) {
+            wal.append(WalRecord.delete(List.of("a"))).join();
+            channel[0].failWrites = 1;
+            channel[0].failTruncate = true;
+            assertThrows(CompletionException.class, () -> wal.append(WalRecord.delete(List.of("torn"))).join());
+            assertThrows(CompletionException.class, () -> wal.append(WalRecord.delete(List.of("b"))).join());
+            assertThrows(CompletionException.class, () -> wal.rotate(2).join());
+        }
+
+        assertEquals(List.of("a"), replayedIds());
+    }
+
+    private List<String> replayedIds() throws IOException {
+        List<String> ids = new ArrayList<>();
+        WriteAheadLog.replay(WriteAheadLog.file(directory, 1), record -> ids.addAll(record.getIds()));
+        return ids;
+    }
+}
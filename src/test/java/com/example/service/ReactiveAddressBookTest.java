@@ -0,0 +1,167 @@
+package com.example.service;
+
+import com.example.dto.AddContactRequest;
+import com.example.dto.ContactCard;
+import com.example.dto.FetchRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReactiveAddressBookTest {
+    private static final Duration WAIT = Duration.ofSeconds(10);
+
+    private final RecordingAdapter adapter = new RecordingAdapter();
+    private ReactiveAddressBook reactive;
+
+    @AfterEach
+    void close() {
+        if (reactive != null) reactive.close();
+    }
+
+    @Test
+    void rejectsRequestsOnceMaxPendingAreInFlight() {
+        open(1, 1, 1000);
+        adapter.insert(contacts("held", 10));
+        //  a stream nobody asks anything of keeps the only permit
+        AssertSubscriber<ContactCard> held = reactive.stream(new FetchRequest("held"))
+                .subscribe().withSubscriber(AssertSubscriber.create(0));
+        held.awaitSubscription(WAIT);
+
+        assertThrows(RejectedExecutionException.class, () -> reactive.find(new FetchRequest("held")).await().atMost(WAIT));
+        assertThrows(RejectedExecutionException.class, () -> reactive.insert(contacts("more", 1)).await().atMost(WAIT));
+        assertThrows(RejectedExecutionException.class, () -> reactive.stream(new FetchRequest("held")));
+
+        held.cancel();
+        assertEquals(10, reactive.find(new FetchRequest("held")).await().atMost(WAIT).size());
+    }
+
+    @Test
+    void writesBulkRequestsChunkByChunkWithReadsInBetween() throws Exception {
+        open(1, 4, 3);
+        CountDownLatch firstChunkRunning = new CountDownLatch(1);
+        CountDownLatch releaseFirstChunk = new CountDownLatch(1);
+        adapter.firstInsert = () -> {
+            firstChunkRunning.countDown();
+            await(releaseFirstChunk);
+        };
+        adapter.recording = true;
+
+        CompletableFuture<List<ContactCard>> written = reactive.insert(contacts("bulk", 10)).subscribeAsCompletionStage();
+        await(firstChunkRunning);
+        //  queued on the one worker while the first chunk holds it, so it runs before the second chunk
+        CompletableFuture<List<ContactCard>> read = reactive.find(new FetchRequest("bulk")).subscribeAsCompletionStage();
+        releaseFirstChunk.countDown();
+
+        List<ContactCard> inserted = written.get(WAIT.toSeconds(), TimeUnit.SECONDS);
+        assertEquals(names("bulk", 10), inserted.stream().map(ContactCard::getName).collect(Collectors.toList()));
+        assertEquals(3, read.get(WAIT.toSeconds(), TimeUnit.SECONDS).size());
+        assertEquals(List.of("insert 3", "find", "insert 3", "insert 3", "insert 1"), adapter.calls);
+    }
+
+    @Test
+    void aStreamHoldsNoWorkerBetweenRequestsAndClosesWhenCancelled() throws Exception {
+        open(1, 2, 1000);
+        adapter.insert(contacts("streamed", 100));
+
+        AssertSubscriber<ContactCard> subscriber = reactive.stream(new FetchRequest("streamed"))
+                .subscribe().withSubscriber(AssertSubscriber.create(5));
+        subscriber.awaitItems(5, WAIT);
+        //  the only worker is free while the subscriber wants nothing more
+        assertEquals(100, reactive.find(new FetchRequest("streamed")).await().atMost(WAIT).size());
+        subscriber.request(5);
+        subscriber.awaitItems(10, WAIT);
+
+        subscriber.cancel();
+        assertTrue(adapter.streamClosed.await(WAIT.toSeconds(), TimeUnit.SECONDS));
+        assertEquals(10, subscriber.getItems().size());
+        //  and its permit is back: two requests fit under maxPending again
+        AssertSubscriber<ContactCard> next = reactive.stream(new FetchRequest("streamed"))
+                .subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+        assertEquals(100, reactive.find(new FetchRequest("streamed")).await().atMost(WAIT).size());
+        next.awaitCompletion(WAIT);
+        assertEquals(100, next.getItems().size());
+    }
+
+    private void open(int workers, int maxPending, int writeChunk) {
+        reactive = new ReactiveAddressBook();
+        reactive.workers = workers;
+        reactive.maxPending = maxPending;
+        reactive.writeChunk = writeChunk;
+        reactive.addressBookAdapter = adapter;
+        reactive.init();
+    }
+
+    private static List<AddContactRequest> contacts(String prefix, int count) {
+        return names(prefix, count).stream()
+                .map(name -> AddContactRequest.builder().name(name).build())
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> names(String prefix, int count) {
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) names.add(prefix + " " + i);
+        return names;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(WAIT.toSeconds(), TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A real adapter over an in-memory book that, while recording, logs the inserts and finds it is asked
+     * for and runs firstInsert ahead of the first insert; it also notices when a pulled stream is closed.
+     */
+    private static final class RecordingAdapter extends AddressBookAdapter {
+        final List<String> calls = new CopyOnWriteArrayList<>();
+        final CountDownLatch streamClosed = new CountDownLatch(1);
+        volatile boolean recording;
+        volatile Runnable firstInsert;
+
+        RecordingAdapter() {
+            configString = "k_gram_plus_inverted_index";
+            shards = 1;
+            compactionInterval = Duration.ZERO;
+            clusterNodes = Optional.empty();
+            meterRegistry = new SimpleMeterRegistry();
+            init();
+        }
+
+        @Override
+        public List<ContactCard> insert(List<AddContactRequest> requests) {
+            if (recording) {
+                calls.add("insert " + requests.size());
+                Runnable gate = firstInsert;
+                firstInsert = null;
+                if (gate != null) gate.run();
+            }
+            return super.insert(requests);
+        }
+
+        @Override
+        public List<ContactCard> find(FetchRequest fetchRequest) {
+            if (recording) calls.add("find");
+            return super.find(fetchRequest);
+        }
+
+        @Override
+        public Stream<ContactCard> stream(FetchRequest fetchRequest) {
+            return super.stream(fetchRequest).onClose(streamClosed::countDown);
+        }
+    }
+}